@@ -3,109 +3,175 @@ package com.misgastos;
 import com.misgastos.util.SceneManager;
 import javafx.application.Application;
 import javafx.application.Platform;
+import javafx.concurrent.Task;
 import javafx.fxml.FXMLLoader;
-import javafx.geometry.Rectangle2D;
+import javafx.geometry.Pos;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
+import javafx.scene.control.Alert;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressIndicator;
 import javafx.scene.image.Image;
-import javafx.stage.Screen;
+import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
+import javafx.stage.StageStyle;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.ConfigurableApplicationContext;
 
+import java.lang.management.ManagementFactory;
+
 @SpringBootApplication
 public class MisGastosApplication extends Application {
 
     private static ConfigurableApplicationContext springContext;
 
+    private Stage splash;
+
     public static void main(String[] args) {
         launch(args);
     }
 
+    /**
+     * Muestra el splash de inmediato y levanta Spring (y DataInitializer) en
+     * segundo plano; el login aparece cuando el contexto está listo.
+     */
     @Override
-    public void init() {
-        springContext = SpringApplication.run(MisGastosApplication.class);
-    }
+    public void start(Stage stage) {
+        // 🎨 ICONO DE LA APLICACIÓN: se decodifica en segundo plano
+        Image icono = cargarIcono();
+        if (icono != null) {
+            stage.getIcons().add(icono);
+        }
 
-    @Override
-    public void start(Stage stage) throws Exception {
+        mostrarSplash(icono);
+        registrarFase("splash visible");
 
-        // 🎨 CONFIGURAR ICONO DE LA APLICACIÓN (ALTA CALIDAD)
-        try {
-            // Cargar múltiples tamaños para diferentes contextos
-            // El sistema operativo elegirá automáticamente el más apropiado
-            stage.getIcons().addAll(
-                new Image(getClass().getResourceAsStream("/images/icon-16.png"), 16, 16, true, true),
-                new Image(getClass().getResourceAsStream("/images/icon-32.png"), 32, 32, true, true),
-                new Image(getClass().getResourceAsStream("/images/icon-48.png"), 48, 48, true, true),
-                new Image(getClass().getResourceAsStream("/images/icon-64.png"), 64, 64, true, true),
-                new Image(getClass().getResourceAsStream("/images/icon-128.png"), 128, 128, true, true),
-                new Image(getClass().getResourceAsStream("/images/icon-256.png"), 256, 256, true, true)
-            );
-            
-            System.out.println("✅ Iconos cargados correctamente");
-        } catch (Exception e) {
-            System.err.println("⚠️ No se pudo cargar el icono: " + e.getMessage());
-            // Intentar cargar un icono único de alta resolución como fallback
+        Task<ConfigurableApplicationContext> arranque = new Task<>() {
+            @Override
+            protected ConfigurableApplicationContext call() {
+                long t0 = System.nanoTime();
+                ConfigurableApplicationContext contexto = SpringApplication.run(MisGastosApplication.class);
+                System.out.println("⏱️ Arranque - contexto Spring: " + (System.nanoTime() - t0) / 1_000_000 + " ms");
+                return contexto;
+            }
+        };
+
+        arranque.setOnSucceeded(e -> {
+            springContext = arranque.getValue();
             try {
-                Image fallbackIcon = new Image(
-                    getClass().getResourceAsStream("/images/app-icon.png"),
-                    256, 256, true, true  // smooth = true para mejor calidad
-                );
-                stage.getIcons().add(fallbackIcon);
+                mostrarLogin(stage);
             } catch (Exception ex) {
-                System.err.println("⚠️ No se pudo cargar icono de respaldo");
+                fallarArranque(ex);
             }
+        });
+        arranque.setOnFailed(e -> fallarArranque(arranque.getException()));
+
+        Thread hilo = new Thread(arranque, "arranque");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    private Image cargarIcono() {
+        try {
+            return new Image(getClass().getResource("/images/app-icon.png").toExternalForm(),
+                256, 256, true, true, true);
+        } catch (Exception e) {
+            System.err.println("⚠️ No se pudo cargar el icono: " + e.getMessage());
+            return null;
         }
+    }
+
+    private void mostrarSplash(Image icono) {
+        Label titulo = new Label("ExpenseFlow");
+        titulo.setStyle("-fx-font-size: 22px; -fx-font-weight: bold; -fx-text-fill: #2d3748;");
+        Label estado = new Label("Iniciando...");
+        estado.setStyle("-fx-text-fill: #718096;");
+        ProgressIndicator progreso = new ProgressIndicator();
+        progreso.setPrefSize(36, 36);
 
+        VBox raiz = new VBox(14, titulo, progreso, estado);
+        raiz.setAlignment(Pos.CENTER);
+        raiz.setStyle("-fx-background-color: white; -fx-border-color: #e2e8f0; -fx-padding: 30;");
+
+        splash = new Stage(StageStyle.UNDECORATED);
+        if (icono != null) {
+            splash.getIcons().add(icono);
+        }
+        splash.setScene(new Scene(raiz, 320, 200));
+        splash.centerOnScreen();
+        splash.show();
+    }
+
+    private void mostrarLogin(Stage stage) throws Exception {
         FXMLLoader loader = new FXMLLoader(
                 getClass().getResource("/fxml/login.fxml")
         );
         loader.setControllerFactory(springContext::getBean);
 
         Parent root = loader.load();
-        
+
         // 🔥 Tamaño más grande para el login
-        javafx.geometry.Rectangle2D screenBounds = 
+        javafx.geometry.Rectangle2D screenBounds =
             javafx.stage.Screen.getPrimary().getVisualBounds();
-        
+
         // Login ocupa 75% del ancho y 90% del alto de la pantalla
         double loginWidth = screenBounds.getWidth() * 0.75;
         double loginHeight = screenBounds.getHeight() * 0.90;
-        
+
         Scene scene = new Scene(root, loginWidth, loginHeight);
 
         SceneManager.applyStyles(scene);
 
         stage.setTitle("ExpenseFlow - Login");
         stage.setScene(scene);
-        
+
         // ✅ Establecer tamaños mínimos y máximos para el login
         stage.setMinWidth(500);
         stage.setMinHeight(700);
-        
+
         // 🔥 CRÍTICO: Asegurar que NO esté maximizado al inicio
         stage.setMaximized(false);
-        
+
         // Establecer el tamaño calculado
         stage.setWidth(loginWidth);
         stage.setHeight(loginHeight);
-        
+
         stage.centerOnScreen();
         stage.show();
+        splash.close();
 
-        System.out.println("✅ ExpenseFlow iniciado correctamente (" + 
+        registrarFase("login visible");
+        System.out.println("✅ ExpenseFlow iniciado correctamente (" +
                           (int)loginWidth + "x" + (int)loginHeight + ")");
     }
 
+    private void fallarArranque(Throwable error) {
+        error.printStackTrace();
+        splash.close();
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setTitle("Error Crítico");
+        alert.setHeaderText(null);
+        alert.setContentText("No se pudo iniciar ExpenseFlow:\n" + error.getMessage());
+        alert.showAndWait();
+        Platform.exit();
+    }
+
+    // Tiempo desde que arrancó la JVM
+    private static void registrarFase(String fase) {
+        System.out.println("⏱️ Arranque - " + fase + " a los "
+            + ManagementFactory.getRuntimeMXBean().getUptime() + " ms");
+    }
+
     @Override
     public void stop() {
-        springContext.close();
+        if (springContext != null) {
+            springContext.close();
+        }
         Platform.exit();
     }
 
     public static ConfigurableApplicationContext getSpringContext() {
         return springContext;
     }
-}
\ No newline at end of file
+}
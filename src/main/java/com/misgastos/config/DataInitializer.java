@@ -1,10 +1,17 @@
 package com.misgastos.config;
 
+import com.misgastos.service.AuditoriaRetencion;
 import com.misgastos.service.CategoriaService;
+import com.misgastos.service.GastoResumenService;
+import com.misgastos.service.ProductoIndex;
+import com.misgastos.service.SesionRecordadaService;
+import com.misgastos.service.UltimaCompraCache;
 import com.misgastos.service.UsuarioService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Component
 public class DataInitializer implements CommandLineRunner {
@@ -15,23 +22,109 @@ public class DataInitializer implements CommandLineRunner {
     @Autowired
     private CategoriaService categoriaService;
     
+    @Autowired
+    private GastoResumenService gastoResumenService;
+    
+    @Autowired
+    private ProductoIndex productoIndex;
+    
+    @Autowired
+    private UltimaCompraCache ultimaCompraCache;
+    
+    @Autowired
+    private AuditoriaRetencion auditoriaRetencion;
+    
+    @Autowired
+    private SesionRecordadaService sesionRecordadaService;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Value("${misgastos.resumen.reconstruir-al-iniciar:false}")
+    private boolean reconstruirResumen;
+    
+    @Value("${misgastos.resumen.verificar-al-iniciar:false}")
+    private boolean verificarResumen;
+    
+    // Cargas que el login no necesita: en segundo plano, tras levantar el contexto
+    @Value("${misgastos.arranque.diferir-cargas:true}")
+    private boolean diferirCargas;
+    
     @Override
     public void run(String... args) {
-        // ✅ Crear usuarios (con "SYSTEM" como creador)
-        if (usuarioService.buscarPorUsername("admin").isEmpty()) {
-            usuarioService.crearUsuario("admin", "admin123", "ADMINISTRADOR", "SYSTEM");
-            System.out.println("✅ Usuario admin creado");
+        long t0 = System.nanoTime();
+        
+        // Usuarios y categorías iniciales en una sola transacción (un solo commit)
+        transactionTemplate.executeWithoutResult(status -> {
+            // ✅ Crear usuarios (con "SYSTEM" como creador)
+            if (usuarioService.buscarPorUsername("admin").isEmpty()) {
+                usuarioService.crearUsuario("admin", "admin123", "ADMINISTRADOR", "SYSTEM");
+                System.out.println("✅ Usuario admin creado");
+            }
+            
+            if (usuarioService.buscarPorUsername("usuario").isEmpty()) {
+                usuarioService.crearUsuario("usuario", "usuario123", "USUARIO", "SYSTEM");
+                System.out.println("✅ Usuario normal creado");
+            }
+            
+            // Crear categorías y subcategorías
+            if (categoriaService.listarCategorias().isEmpty()) {
+                crearCategoriasIniciales();
+            }
+        });
+        long t1 = System.nanoTime();
+        
+        // Resumen diario de gastos: reconstruir si se pide o si aún no existe
+        if (reconstruirResumen || gastoResumenService.necesitaReconstruccion()) {
+            gastoResumenService.reconstruir();
         }
         
-        if (usuarioService.buscarPorUsername("usuario").isEmpty()) {
-            usuarioService.crearUsuario("usuario", "usuario123", "USUARIO", "SYSTEM");
-            System.out.println("✅ Usuario normal creado");
+        if (verificarResumen) {
+            var diferencias = gastoResumenService.verificarConsistencia();
+            if (diferencias.isEmpty()) {
+                System.out.println("✅ Resumen diario consistente con gastos");
+            } else {
+                System.err.println("⚠️ Resumen diario con " + diferencias.size() + " diferencias:");
+                diferencias.forEach(d -> System.err.println("   " + d));
+            }
         }
+        long t2 = System.nanoTime();
+        System.out.println("⏱️ Arranque - datos iniciales " + (t1 - t0) / 1_000_000 + " ms, resumen diario "
+            + (t2 - t1) / 1_000_000 + " ms");
         
-        // Crear categorías y subcategorías
-        if (categoriaService.listarCategorias().isEmpty()) {
-            crearCategoriasIniciales();
+        if (diferirCargas) {
+            Thread hilo = new Thread(this::cargarEnSegundoPlano, "arranque-cargas");
+            hilo.setDaemon(true);
+            hilo.start();
+        } else {
+            cargarEnSegundoPlano();
+        }
+    }
+    
+    /**
+     * Cachés y mantenimiento que pueden esperar al login: ProductoIndex y
+     * SesionRecordadaService se cargan solos si se consultan antes, y
+     * UltimaCompraCache consulta la BD mientras no tenga la compra.
+     */
+    private void cargarEnSegundoPlano() {
+        long t0 = System.nanoTime();
+        try {
+            // Índice de productos para el autocompletado
+            productoIndex.cargar();
+            
+            // Última compra por producto para autocompletar categoría y valor
+            ultimaCompraCache.cargar();
+            
+            // Auditoría: archivar (o borrar) los meses fuera de la retención
+            auditoriaRetencion.compactar();
+            
+            // Sesiones "Recordarme": borrar las expiradas y cargar las vigentes en memoria
+            sesionRecordadaService.limpiarSesionesExpiradas();
+            sesionRecordadaService.cargar();
+        } catch (RuntimeException e) {
+            System.err.println("⚠️ Error en las cargas de arranque: " + e.getMessage());
         }
+        System.out.println("⏱️ Arranque - cachés y mantenimiento: " + (System.nanoTime() - t0) / 1_000_000 + " ms");
     }
     
     private void crearCategoriasIniciales() {
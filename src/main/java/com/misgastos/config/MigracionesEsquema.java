@@ -0,0 +1,138 @@
+package com.misgastos.config;
+
+import com.misgastos.model.Gasto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Migraciones de esquema versionadas que Hibernate (ddl-auto=update) no cubre:
+ * índices, columnas derivadas y rellenos de datos. Se ejecutan una sola vez,
+ * en orden, antes que DataInitializer; las aplicadas quedan en schema_migraciones.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class MigracionesEsquema implements CommandLineRunner {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final List<Migracion> migraciones = List.of(
+        Migracion.sql(1, "Índices de gastos y billeteros por fecha",
+            // findByFechaBetween, sumByFecha*, reportes agrupados por día (cubre categoría y valor)
+            "CREATE INDEX IF NOT EXISTS idx_gastos_fecha ON gastos (fecha, categoria_id, valor_total)",
+            // findByUsuarioAndFechaBetween, findUltimosPorUsuario
+            "CREATE INDEX IF NOT EXISTS idx_gastos_usuario_fecha ON gastos (usuario_id, fecha, hora)",
+            // sumByFechaBetweenAndCategoriaId, sumByFechaAndCategoriaId, findByCategoriaId
+            "CREATE INDEX IF NOT EXISTS idx_gastos_categoria_fecha ON gastos (categoria_id, fecha, valor_total)",
+            // findByFechaBetweenOrderByFechaDesc, findByFecha
+            "CREATE INDEX IF NOT EXISTS idx_billeteros_fecha ON billeteros (fecha)"
+        ),
+        new Migracion(2, "Rellenar gastos.producto_normalizado e indexarlo", jdbc -> {
+            List<Object[]> valores = jdbc.query(
+                "SELECT id, producto FROM gastos WHERE producto_normalizado IS NULL",
+                (rs, fila) -> new Object[] {Gasto.normalizarProducto(rs.getString("producto")), rs.getLong("id")});
+            jdbc.batchUpdate("UPDATE gastos SET producto_normalizado = ? WHERE id = ?", valores);
+            // existsByProductoNormalizado y ultimaCompra*Producto (ORDER BY fecha, hora)
+            jdbc.execute("CREATE INDEX IF NOT EXISTS idx_gastos_producto_normalizado "
+                + "ON gastos (producto_normalizado, fecha, hora)");
+        }),
+        Migracion.sql(3, "Índices de auditoria_logs por usuario y fecha",
+            // findByUsuarioIdOrderByFechaDesc (listados por usuario, lo más reciente primero)
+            "CREATE INDEX IF NOT EXISTS idx_auditoria_usuario_fecha ON auditoria_logs (usuario_id, fecha)",
+            // findTop50ByOrderByFechaDesc y la retención por meses (AuditoriaRetencion)
+            "CREATE INDEX IF NOT EXISTS idx_auditoria_fecha ON auditoria_logs (fecha)"
+        ),
+        // token ya es UNIQUE (índice automático de SQLite)
+        Migracion.sql(4, "Índices de sesiones_recordadas por expiración y usuario",
+            // Barrido de sesiones expiradas (findIdsExpiradas)
+            "CREATE INDEX IF NOT EXISTS idx_sesiones_expiracion ON sesiones_recordadas (fecha_expiracion)",
+            // deleteByUsuarioId al crear o cerrar una sesión
+            "CREATE INDEX IF NOT EXISTS idx_sesiones_usuario ON sesiones_recordadas (usuario_id)"
+        ),
+        // SQLite no recibe la uk_resumen_diario_clave de la entidad: sin este índice
+        // cada alta y cada suma por fechas recorren la tabla completa
+        new Migracion(5, "Índice único de gastos_resumen_diario por clave", jdbc -> {
+            // Una clave repetida impediría crear el índice: reconstruir desde gastos
+            Integer repetidas = jdbc.queryForObject("""
+                SELECT COUNT(*) FROM (
+                    SELECT 1 FROM gastos_resumen_diario
+                    GROUP BY fecha, categoria_id, subcategoria_id, usuario_id
+                    HAVING COUNT(*) > 1
+                )
+            """, Integer.class);
+            if (repetidas != null && repetidas > 0) {
+                jdbc.execute("DELETE FROM gastos_resumen_diario");
+                jdbc.execute("""
+                    INSERT INTO gastos_resumen_diario
+                        (fecha, categoria_id, subcategoria_id, usuario_id, numero_gastos, total_valor, total_cantidad)
+                    SELECT fecha, categoria_id, subcategoria_id, usuario_id, COUNT(*), SUM(valor_total), SUM(cantidad)
+                    FROM gastos
+                    GROUP BY fecha, categoria_id, subcategoria_id, usuario_id
+                """);
+            }
+            // findByFechaAndCategoriaIdAndSubcategoriaIdAndUsuarioId (cada escritura de un gasto),
+            // sumByFechaBetween y sumarPorDia (fecha BETWEEN)
+            jdbc.execute("CREATE UNIQUE INDEX IF NOT EXISTS uk_resumen_diario_clave "
+                + "ON gastos_resumen_diario (fecha, categoria_id, subcategoria_id, usuario_id)");
+        })
+    );
+
+    @Override
+    public void run(String... args) {
+        jdbcTemplate.execute("""
+            CREATE TABLE IF NOT EXISTS schema_migraciones (
+                version INTEGER PRIMARY KEY,
+                descripcion TEXT NOT NULL,
+                fecha_aplicacion TEXT NOT NULL
+            )
+        """);
+
+        Set<Integer> aplicadas = new HashSet<>(
+            jdbcTemplate.queryForList("SELECT version FROM schema_migraciones", Integer.class));
+
+        for (Migracion migracion : migraciones) {
+            if (aplicadas.contains(migracion.version())) {
+                continue;
+            }
+
+            long inicio = System.currentTimeMillis();
+            transactionTemplate.executeWithoutResult(status -> {
+                migracion.aplicar().accept(jdbcTemplate);
+                jdbcTemplate.update(
+                    "INSERT INTO schema_migraciones (version, descripcion, fecha_aplicacion) VALUES (?, ?, ?)",
+                    migracion.version(), migracion.descripcion(), LocalDateTime.now().toString());
+            });
+
+            System.out.println("✅ Migración " + migracion.version() + " aplicada: "
+                + migracion.descripcion() + " (" + (System.currentTimeMillis() - inicio) + " ms)");
+        }
+    }
+
+    /**
+     * Paso de migración: versión única, descripción y acción sobre la BD.
+     */
+    record Migracion(int version, String descripcion, Consumer<JdbcTemplate> aplicar) {
+
+        static Migracion sql(int version, String descripcion, String... sentencias) {
+            return new Migracion(version, descripcion, jdbc -> {
+                for (String sentencia : sentencias) {
+                    jdbc.execute(sentencia);
+                }
+            });
+        }
+    }
+}
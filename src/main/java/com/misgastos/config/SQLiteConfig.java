@@ -1,31 +1,74 @@
 package com.misgastos.config;
 
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.ApplicationRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.jdbc.datasource.init.DataSourceInitializer;
-import org.springframework.jdbc.datasource.init.DatabasePopulator;
-import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
-import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.env.Environment;
 
 import javax.sql.DataSource;
 import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @Configuration
 public class SQLiteConfig {
-    
+
+    /**
+     * Perfil de rendimiento de SQLite. Cada valor se puede sobrescribir con
+     * misgastos.sqlite.* en application.properties.
+     */
+    static Map<String, String> pragmas(Environment env) {
+        Map<String, String> pragmas = new LinkedHashMap<>();
+        pragmas.put("foreign_keys", env.getProperty("misgastos.sqlite.foreign-keys", "true"));
+        pragmas.put("journal_mode", env.getProperty("misgastos.sqlite.journal-mode", "WAL"));
+        pragmas.put("synchronous", env.getProperty("misgastos.sqlite.synchronous", "NORMAL"));
+        pragmas.put("cache_size", env.getProperty("misgastos.sqlite.cache-size", "-20000"));
+        pragmas.put("mmap_size", env.getProperty("misgastos.sqlite.mmap-size", "268435456"));
+        // MEMORY resultó más lento en los GROUP BY de reportes (ver SQLitePragmasBenchmark)
+        pragmas.put("temp_store", env.getProperty("misgastos.sqlite.temp-store", "DEFAULT"));
+        pragmas.put("busy_timeout", env.getProperty("misgastos.sqlite.busy-timeout", "5000"));
+        return pragmas;
+    }
+
+    /**
+     * Pasa los PRAGMA como propiedades del driver sqlite-jdbc, que los ejecuta
+     * al abrir CADA conexión del pool (no solo la primera).
+     */
+    @Bean
+    public static BeanPostProcessor sqlitePragmasPostProcessor(Environment env) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource hikari) {
+                    pragmas(env).forEach(hikari::addDataSourceProperty);
+                }
+                return bean;
+            }
+        };
+    }
+
+    // Confirmar en el arranque los PRAGMA efectivos de la conexión
     @Bean
-    public DataSourceInitializer dataSourceInitializer(DataSource dataSource) {
-        return new DataSourceInitializer() {
-            {
-                setDataSource(dataSource);
-                // Habilitar Foreign Keys en SQLite
-                try (Connection conn = dataSource.getConnection()) {
-                    conn.createStatement().execute("PRAGMA foreign_keys = ON;");
-                } catch (SQLException e) {
-                    e.printStackTrace();
+    public ApplicationRunner sqlitePragmasLog(DataSource dataSource, Environment env) {
+        return args -> {
+            StringBuilder efectivos = new StringBuilder();
+            try (Connection conn = dataSource.getConnection();
+                 Statement st = conn.createStatement()) {
+                for (String pragma : pragmas(env).keySet()) {
+                    try (ResultSet rs = st.executeQuery("PRAGMA " + pragma)) {
+                        efectivos.append(pragma).append('=')
+                                 .append(rs.next() ? rs.getString(1) : "?").append(' ');
+                    }
                 }
+                System.out.println("✅ SQLite PRAGMA efectivos: " + efectivos.toString().trim());
+            } catch (SQLException e) {
+                System.err.println("⚠️ No se pudieron leer los PRAGMA de SQLite: " + e.getMessage());
             }
         };
     }
-}
\ No newline at end of file
+}
@@ -2,15 +2,17 @@ package com.misgastos.controller;
 
 import com.misgastos.model.Categoria;
 import com.misgastos.model.Gasto;
+import com.misgastos.model.GastoFila;
 import com.misgastos.model.Subcategoria;
 import com.misgastos.service.CategoriaService;
 import com.misgastos.service.GastoService;
 import javafx.application.Platform;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
@@ -24,7 +26,6 @@ import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Locale;
-import java.util.stream.Collectors;
 
 @Component
 public class BuscarEditarGastosController {
@@ -34,24 +35,24 @@ public class BuscarEditarGastosController {
     @FXML private TextField txtBuscarProducto;
     @FXML private Button btnBuscar;
     @FXML private Button btnLimpiar;
-    @FXML private TableView<Gasto> tableGastos;
-    @FXML private TableColumn<Gasto, Long> colId;
-    @FXML private TableColumn<Gasto, LocalDate> colFecha;
-    @FXML private TableColumn<Gasto, LocalTime> colHora;
-    @FXML private TableColumn<Gasto, String> colCategoria;
-    @FXML private TableColumn<Gasto, String> colSubcategoria;
-    @FXML private TableColumn<Gasto, String> colProducto;
-    @FXML private TableColumn<Gasto, Integer> colCantidad;
-    @FXML private TableColumn<Gasto, BigDecimal> colValorUnitario;
-    @FXML private TableColumn<Gasto, BigDecimal> colTotal;
-    @FXML private TableColumn<Gasto, Void> colAcciones;
+    @FXML private TableView<GastoFila> tableGastos;
+    @FXML private TableColumn<GastoFila, Long> colId;
+    @FXML private TableColumn<GastoFila, LocalDate> colFecha;
+    @FXML private TableColumn<GastoFila, LocalTime> colHora;
+    @FXML private TableColumn<GastoFila, String> colCategoria;
+    @FXML private TableColumn<GastoFila, String> colSubcategoria;
+    @FXML private TableColumn<GastoFila, String> colProducto;
+    @FXML private TableColumn<GastoFila, Integer> colCantidad;
+    @FXML private TableColumn<GastoFila, BigDecimal> colValorUnitario;
+    @FXML private TableColumn<GastoFila, BigDecimal> colTotal;
+    @FXML private TableColumn<GastoFila, Void> colAcciones;
     @FXML private Label lblResultados;
     
     @Autowired private GastoService gastoService;
     @Autowired private CategoriaService categoriaService;
     
     private Long usuarioId = 1L;
-    private List<Gasto> gastosActuales;
+    private List<GastoFila> gastosActuales;
     
     // Formato para peso colombiano sin decimales
     private static final NumberFormat formatoCOP;
@@ -91,7 +92,7 @@ public class BuscarEditarGastosController {
     }
     
     private void copiarCeldaSeleccionada() {
-        TablePosition<Gasto, ?> pos = tableGastos.getFocusModel().getFocusedCell();
+        TablePosition<GastoFila, ?> pos = tableGastos.getFocusModel().getFocusedCell();
         if (pos != null) {
             Object cell = pos.getTableColumn().getCellData(pos.getRow());
             if (cell != null) {
@@ -118,11 +119,11 @@ public class BuscarEditarGastosController {
         tableGastos.getSelectionModel().setCellSelectionEnabled(true);
         tableGastos.setEditable(false);
         
-        colId.setCellValueFactory(new PropertyValueFactory<>("id"));
-        colFecha.setCellValueFactory(new PropertyValueFactory<>("fecha"));
+        colId.setCellValueFactory(cellData -> new SimpleObjectProperty<>(cellData.getValue().id()));
+        colFecha.setCellValueFactory(cellData -> new SimpleObjectProperty<>(cellData.getValue().fecha()));
         
-        colHora.setCellValueFactory(new PropertyValueFactory<>("hora"));
-        colHora.setCellFactory(column -> new TableCell<Gasto, LocalTime>() {
+        colHora.setCellValueFactory(cellData -> new SimpleObjectProperty<>(cellData.getValue().hora()));
+        colHora.setCellFactory(column -> new TableCell<GastoFila, LocalTime>() {
             @Override
             protected void updateItem(LocalTime time, boolean empty) {
                 super.updateItem(time, empty);
@@ -135,23 +136,19 @@ public class BuscarEditarGastosController {
         });
         
         colCategoria.setCellValueFactory(cellData -> 
-            new javafx.beans.property.SimpleStringProperty(
-                cellData.getValue().getCategoria().getNombre()
-            )
+            new SimpleStringProperty(cellData.getValue().categoria())
         );
         
         colSubcategoria.setCellValueFactory(cellData -> 
-            new javafx.beans.property.SimpleStringProperty(
-                cellData.getValue().getSubcategoria().getNombre()
-            )
+            new SimpleStringProperty(cellData.getValue().subcategoria())
         );
         
-        colProducto.setCellValueFactory(new PropertyValueFactory<>("producto"));
-        colCantidad.setCellValueFactory(new PropertyValueFactory<>("cantidad"));
+        colProducto.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().producto()));
+        colCantidad.setCellValueFactory(cellData -> new SimpleObjectProperty<>(cellData.getValue().cantidad()));
         
         // FORMATO PESO COLOMBIANO PARA VALOR UNITARIO
-        colValorUnitario.setCellValueFactory(new PropertyValueFactory<>("valorUnitario"));
-        colValorUnitario.setCellFactory(column -> new TableCell<Gasto, BigDecimal>() {
+        colValorUnitario.setCellValueFactory(cellData -> new SimpleObjectProperty<>(cellData.getValue().valorUnitario()));
+        colValorUnitario.setCellFactory(column -> new TableCell<GastoFila, BigDecimal>() {
             @Override
             protected void updateItem(BigDecimal valor, boolean empty) {
                 super.updateItem(valor, empty);
@@ -164,8 +161,8 @@ public class BuscarEditarGastosController {
         });
         
         // FORMATO PESO COLOMBIANO PARA TOTAL
-        colTotal.setCellValueFactory(new PropertyValueFactory<>("valorTotal"));
-        colTotal.setCellFactory(column -> new TableCell<Gasto, BigDecimal>() {
+        colTotal.setCellValueFactory(cellData -> new SimpleObjectProperty<>(cellData.getValue().valorTotal()));
+        colTotal.setCellFactory(column -> new TableCell<GastoFila, BigDecimal>() {
             @Override
             protected void updateItem(BigDecimal valor, boolean empty) {
                 super.updateItem(valor, empty);
@@ -194,12 +191,12 @@ public class BuscarEditarGastosController {
                 btnEliminar.setStyle("-fx-font-size: 11px; -fx-padding: 5 10; -fx-background-color: #ef4444; -fx-text-fill: white;");
                 
                 btnEditar.setOnAction(event -> {
-                    Gasto gasto = getTableView().getItems().get(getIndex());
+                    GastoFila gasto = getTableView().getItems().get(getIndex());
                     abrirDialogoEditar(gasto);
                 });
                 
                 btnEliminar.setOnAction(event -> {
-                    Gasto gasto = getTableView().getItems().get(getIndex());
+                    GastoFila gasto = getTableView().getItems().get(getIndex());
                     confirmarEliminar(gasto);
                 });
             }
@@ -256,10 +253,8 @@ public class BuscarEditarGastosController {
             return;
         }
         
-        List<Gasto> todosLosGastos = gastoService.buscarPorUsuarioYPeriodo(usuarioId, inicio, fin);
-        gastosActuales = todosLosGastos.stream()
-            .filter(gasto -> gasto.getProducto().toLowerCase().contains(textoBusqueda.toLowerCase()))
-            .collect(Collectors.toList());
+        // Filtro por producto en SQL (producto_normalizado)
+        gastosActuales = gastoService.buscarPorUsuarioPeriodoYProducto(usuarioId, inicio, fin, textoBusqueda);
         
         tableGastos.setItems(FXCollections.observableArrayList(gastosActuales));
         lblResultados.setText(gastosActuales.size() + " gasto(s) encontrado(s) con '" + textoBusqueda + "'");
@@ -287,7 +282,15 @@ public class BuscarEditarGastosController {
         lblResultados.setText(gastosActuales.size() + " gasto(s) en el último mes");
     }
     
-    private void abrirDialogoEditar(Gasto gasto) {
+    private void abrirDialogoEditar(GastoFila fila) {
+        // La tabla solo tiene la proyección: cargar la entidad completa a editar
+        Gasto gasto = gastoService.buscarPorId(fila.id()).orElse(null);
+        if (gasto == null) {
+            mostrarAlerta("Error", "El gasto ya no existe", Alert.AlertType.ERROR);
+            handleBuscar();
+            return;
+        }
+        
         Dialog<Gasto> dialog = new Dialog<>();
         dialog.setTitle("✏️ Editar Gasto");
         dialog.setHeaderText("Editar gasto #" + gasto.getId());
@@ -408,19 +411,19 @@ public class BuscarEditarGastosController {
         });
     }
     
-    private void confirmarEliminar(Gasto gasto) {
+    private void confirmarEliminar(GastoFila gasto) {
         Alert confirmacion = new Alert(Alert.AlertType.CONFIRMATION);
         confirmacion.setTitle("Confirmar eliminación");
         confirmacion.setHeaderText("¿Eliminar este gasto?");
         confirmacion.setContentText(
-            "Producto: " + gasto.getProducto() + "\n" +
-            "Valor: " + formatoCOP.format(gasto.getValorTotal()) + "\n" +
-            "Fecha: " + gasto.getFecha()
+            "Producto: " + gasto.producto() + "\n" +
+            "Valor: " + formatoCOP.format(gasto.valorTotal()) + "\n" +
+            "Fecha: " + gasto.fecha()
         );
         
         confirmacion.showAndWait().ifPresent(response -> {
             if (response == ButtonType.OK) {
-                gastoService.eliminarGasto(gasto.getId());
+                gastoService.eliminarGasto(gasto.id());
                 mostrarAlerta("Éxito", "Gasto eliminado correctamente", Alert.AlertType.INFORMATION);
                 handleBuscar();
             }
@@ -1,20 +1,30 @@
 package com.misgastos.controller;
 
 import com.misgastos.model.Categoria;
-import com.misgastos.model.Gasto;
 import com.misgastos.service.CategoriaService;
+import com.misgastos.service.ColaInformes;
+import com.misgastos.service.ExportacionInformes;
 import com.misgastos.service.GastoService;
 import com.misgastos.service.InformeService;
+import com.misgastos.service.TrabajoInforme;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import javafx.stage.FileChooser;
+import javafx.util.Duration;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.io.File;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
 
 @Component
 public class InformesController {
@@ -28,12 +38,21 @@ public class InformesController {
     @FXML private Label lblTotalGastos;
     @FXML private Label lblMontoTotal;
     @FXML private Label lblCategorias;
+    @FXML private ListView<TrabajoInforme<?>> listaTrabajos;
 
     @Autowired private GastoService gastoService;
     @Autowired private CategoriaService categoriaService;
     @Autowired private InformeService informeService;
+    @Autowired private ColaInformes colaInformes;
+    @Autowired private ExportacionInformes exportacionInformes;
 
     private String informeActual = "";
+    private TrabajoInforme<VistaPrevia> trabajoVistaPrevia;
+    private Timeline refrescoTrabajos;
+
+    private record Estadisticas(int totalGastos, BigDecimal montoTotal, long categorias) {}
+
+    private record VistaPrevia(String informe, Estadisticas estadisticas) {}
 
     @FXML
     public void initialize() {
@@ -41,6 +60,7 @@ public class InformesController {
         configurarFechasPorDefecto();
         cargarCategorias();
         configurarListeners();
+        configurarListaTrabajos();
         
         txtPreview.setText("📊 Selecciona el tipo de informe, configura las fechas y presiona 'Generar Vista Previa'\n\n" +
                           "El informe aparecerá aquí antes de exportarlo a PDF o Excel.");
@@ -100,240 +120,277 @@ public class InformesController {
     @FXML
     public void handleGenerarVista() {
         if (!validarFechas()) return;
+        if (!validarFiltros()) return;
 
         String tipoInforme = cmbTipoInforme.getValue();
         LocalDate inicio = dpFechaInicio.getValue();
         LocalDate fin = dpFechaFin.getValue();
+        Categoria categoria = cmbCategoria.isVisible() ? cmbCategoria.getValue() : null;
+        String producto = txtProducto.isVisible() ? txtProducto.getText() : null;
         
-        System.out.println("✅ Fecha Inicio: " + inicio);
-        System.out.println("✅ Fecha fin: " + fin);
+        System.out.println("✅ Vista previa " + tipoInforme + ": " + inicio + " - " + fin);
 
-        try {
-            String informe = "";
+        // Solo importa la última vista previa pedida
+        if (trabajoVistaPrevia != null) {
+            trabajoVistaPrevia.cancelar();
+        }
+        txtPreview.setText("⏳ Generando informe...");
 
-            if (tipoInforme.contains("General Mensual")) {
-                informe = informeService.generarInformeGeneralMensual(inicio, fin);
-                System.out.println("✅ Fecha Inicio InformeGeneralMensual: " + inicio);
-                System.out.println("✅ Fecha fin InformeGeneralMensual: " + fin);
-            }
-            else if (tipoInforme.contains("Categoría")) {
-                Categoria categoria = cmbCategoria.getValue();
-                if (categoria == null) {
-                    mostrarAlerta("Validación", "Por favor seleccione una categoría", Alert.AlertType.WARNING);
+        try {
+            TrabajoInforme<VistaPrevia> trabajo = colaInformes.enviar(
+                "Vista previa · " + tipoInforme, null,
+                () -> new VistaPrevia(
+                    generarInforme(tipoInforme, inicio, fin, categoria, producto),
+                    calcularEstadisticas(inicio, fin, categoria, producto)));
+            trabajoVistaPrevia = trabajo;
+            
+            trabajo.getResultado().whenComplete((vista, error) -> Platform.runLater(() -> {
+                if (trabajo != trabajoVistaPrevia || trabajo.getEstado() == TrabajoInforme.Estado.CANCELADO) {
                     return;
                 }
-                informe = informeService.generarInformePorCategoria(categoria.getNombre(), inicio, fin);
-                System.out.println("✅ Fecha Inicio InformePorCategoria: " + inicio);
-                System.out.println("✅ Fecha fin InformePorCategoria: " + fin);
-            }
-            else if (tipoInforme.contains("Producto")) {
-                String producto = txtProducto.getText();
-                if (producto == null || producto.trim().isEmpty()) {
-                    mostrarAlerta("Validación", "Por favor ingrese el nombre del producto", Alert.AlertType.WARNING);
+                if (error != null) {
+                    error.printStackTrace();
+                    txtPreview.setText("");
+                    mostrarAlerta("Error", "No se pudo generar el informe:\n" + error.getMessage(), Alert.AlertType.ERROR);
                     return;
                 }
-                
-                System.out.println("✅ Fecha Inicio InformePorProducto: " + inicio);
-                System.out.println("✅ Fecha fin InformePorProducto: " + fin);
-                
-                informe = informeService.generarInformePorProducto(producto.trim(), inicio, fin);
-            }
-            else if (tipoInforme.contains("Comparativo")) {
-            	
-                System.out.println("✅ Fecha Inicio InformeComparativo: " + inicio);
-                System.out.println("✅ Fecha fin InformeComparativo: " + fin);
-            	
-                informe = informeService.generarInformeComparativo(inicio, fin);
-            }
-            else if (tipoInforme.contains("Dashboard")) {
-            	
-                System.out.println("✅ Fecha Inicio DashboardEjecutivo: " + inicio);
-                System.out.println("✅ Fecha fin DashboardEjecutivo: " + fin);
-            	
-                informe = informeService.generarDashboardEjecutivo(inicio, fin);
-            }
-            else if (tipoInforme.contains("Subcategorías")) {
-            	
-                System.out.println("✅ Fecha Inicio InformeSubcategorias: " + inicio);
-                System.out.println("✅ Fecha fin InformeSubcategorias: " + fin);
-            	
-                informe = informeService.generarInformeSubcategorias(inicio, fin);
-            }
-            else if (tipoInforme.contains("Anual")) {
-                int anio = inicio.getYear();
-                
-                System.out.println("✅ Fecha Inicio InformeAnual: " + inicio);
-                System.out.println("✅ Fecha fin InformeAnual: " + fin);
-                
-                informe = informeService.generarInformeAnual(anio);
-            }
-
-            informeActual = informe;
-            txtPreview.setText(informe);
-            
-            // Actualizar estadísticas
-            actualizarEstadisticas(inicio, fin);
-            
-            System.out.println("✅ Informe generado: " + tipoInforme);
+                informeActual = vista.informe();
+                txtPreview.setText(vista.informe());
+                mostrarEstadisticas(vista.estadisticas());
+                System.out.println("✅ Informe generado: " + tipoInforme + " (" + trabajo.getDuracionMs() + " ms)");
+            }));
+        } catch (RuntimeException e) {
+            txtPreview.setText("");
+            mostrarAlerta("Error", e.getMessage(), Alert.AlertType.ERROR);
+        }
+    }
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            mostrarAlerta("Error", "No se pudo generar el informe:\n" + e.getMessage(), Alert.AlertType.ERROR);
+    private String generarInforme(String tipoInforme, LocalDate inicio, LocalDate fin,
+                                  Categoria categoria, String producto) {
+        if (tipoInforme.contains("General Mensual")) {
+            return informeService.generarInformeGeneralMensual(inicio, fin);
+        } else if (tipoInforme.contains("Categoría")) {
+            return informeService.generarInformePorCategoria(categoria.getNombre(), inicio, fin);
+        } else if (tipoInforme.contains("Producto")) {
+            return informeService.generarInformePorProducto(producto.trim(), inicio, fin);
+        } else if (tipoInforme.contains("Comparativo")) {
+            return informeService.generarInformeComparativo(inicio, fin);
+        } else if (tipoInforme.contains("Dashboard")) {
+            return informeService.generarDashboardEjecutivo(inicio, fin);
+        } else if (tipoInforme.contains("Subcategorías")) {
+            return informeService.generarInformeSubcategorias(inicio, fin);
+        } else if (tipoInforme.contains("Anual")) {
+            return informeService.generarInformeAnual(inicio.getYear());
         }
+        return "";
     }
 
-    private void actualizarEstadisticas(LocalDate inicio, LocalDate fin) {
-        try {
-            List<Gasto> gastos = gastoService.listarPorPeriodo(inicio, fin);
-            
+    // Se ejecuta en el hilo del informe: no toca controles de JavaFX
+    private Estadisticas calcularEstadisticas(LocalDate inicio, LocalDate fin, Categoria categoria, String producto) {
+        Long catId = categoria != null ? categoria.getId() : null;
+        String prod = producto != null && !producto.trim().isEmpty() ? producto.toLowerCase() : null;
+        
+        // Una pasada en streaming, sin cargar la lista de gastos del período
+        long[] registros = {0};
+        BigDecimal[] total = {BigDecimal.ZERO};
+        Set<Long> categorias = new HashSet<>();
+        
+        gastoService.recorrerGastosPorPeriodo(inicio, fin, gasto -> {
             // Filtrar si hay categoría seleccionada
-            Categoria categoria = cmbCategoria.getValue();
-            if (categoria != null && cmbCategoria.isVisible()) {
-                Long catId = categoria.getId();
-                gastos = gastos.stream()
-                    .filter(g -> g.getCategoria().getId().equals(catId))
-                    .toList();
+            if (catId != null && !gasto.getCategoria().getId().equals(catId)) {
+                return;
             }
-            
             // Filtrar si hay producto ingresado
-            String producto = txtProducto.getText();
-            if (producto != null && !producto.trim().isEmpty() && txtProducto.isVisible()) {
-                String prod = producto.toLowerCase();
-                gastos = gastos.stream()
-                    .filter(g -> g.getProducto().toLowerCase().contains(prod))
-                    .toList();
+            if (prod != null && !gasto.getProducto().toLowerCase().contains(prod)) {
+                return;
             }
-            
-            // Actualizar labels
-            lblTotalGastos.setText(String.valueOf(gastos.size()));
-            
-            BigDecimal total = gastos.stream()
-                .map(Gasto::getValorTotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-            lblMontoTotal.setText("$" + String.format("%,.2f", total));
-            
-            long categorias = gastos.stream()
-                .map(g -> g.getCategoria().getId())
-                .distinct()
-                .count();
-            lblCategorias.setText(String.valueOf(categorias));
-            
-        } catch (Exception e) {
-            System.err.println("Error al actualizar estadísticas: " + e.getMessage());
-        }
+            registros[0]++;
+            total[0] = total[0].add(gasto.getValorTotal());
+            categorias.add(gasto.getCategoria().getId());
+        });
+        
+        return new Estadisticas((int) registros[0], total[0], categorias.size());
+    }
+
+    private void mostrarEstadisticas(Estadisticas estadisticas) {
+        lblTotalGastos.setText(String.valueOf(estadisticas.totalGastos()));
+        lblMontoTotal.setText("$" + String.format("%,.2f", estadisticas.montoTotal()));
+        lblCategorias.setText(String.valueOf(estadisticas.categorias()));
     }
 
     @FXML
     public void handleExportarPDF() {
-        if (informeActual.isEmpty()) {
-            mostrarAlerta("Advertencia", "Primero genere un informe", Alert.AlertType.WARNING);
-            return;
-        }
+        if (!validarExportacion()) return;
 
-        if (!validarFechas()) return;
-
-        try {
-            File archivo = seleccionarArchivo("Exportar Informe - PDF", "pdf");
-            if (archivo != null) {
-                String tipoInforme = cmbTipoInforme.getValue();
-                LocalDate inicio = dpFechaInicio.getValue();
-                LocalDate fin = dpFechaFin.getValue();
-
-                if (tipoInforme.contains("General Mensual")) {
-                    informeService.exportarInformeGeneralPDF(inicio, fin, archivo.getAbsolutePath());
-                }
-                else if (tipoInforme.contains("Categoría")) {
-                    Categoria categoria = cmbCategoria.getValue();
-                    if (categoria == null) {
-                        mostrarAlerta("Validación", "Seleccione una categoría", Alert.AlertType.WARNING);
-                        return;
-                    }
-                    informeService.exportarInformeCategoriaPDF(categoria.getNombre(), inicio, fin, archivo.getAbsolutePath());
-                }
-                else if (tipoInforme.contains("Producto")) {
-                    String producto = txtProducto.getText();
-                    if (producto == null || producto.trim().isEmpty()) {
-                        mostrarAlerta("Validación", "Ingrese un producto", Alert.AlertType.WARNING);
-                        return;
-                    }
-                    informeService.exportarInformeProductoPDF(producto.trim(), inicio, fin, archivo.getAbsolutePath());
-                }
-                else if (tipoInforme.contains("Dashboard")) {
-                    informeService.exportarDashboardPDF(inicio, fin, archivo.getAbsolutePath());
-                }
-                else if (tipoInforme.contains("Comparativo")) {
-                	informeService.exportarComparativoPDF(inicio, fin, archivo.getAbsolutePath());
-                } 
-                else if (tipoInforme.contains("Subcategorías")) {
-                	informeService.exportarSubCategoriasPDF(inicio, fin, archivo.getAbsolutePath());
-                }                  
-                else {
-                    // Para otros informes, usar exportación genérica de texto
-                	int anio = inicio.getYear();
-                	informeService.exportarAnualPDF(anio, archivo.getAbsolutePath());
-                }
+        File archivo = seleccionarArchivo("Exportar Informe - PDF", "pdf");
+        if (archivo == null) return;
+        
+        String tipoInforme = cmbTipoInforme.getValue();
+        ExportacionInformes.Tipo tipo = ExportacionInformes.Tipo.desdeNombre(tipoInforme);
+        LocalDate inicio = dpFechaInicio.getValue();
+        LocalDate fin = dpFechaFin.getValue();
+        String filtro = filtroExportacion(tipo);
 
-                mostrarAlerta("Éxito", "Informe PDF exportado correctamente a:\n" + archivo.getAbsolutePath(), Alert.AlertType.INFORMATION);
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-            mostrarAlerta("Error", "No se pudo exportar el PDF:\n" + e.getMessage(), Alert.AlertType.ERROR);
-        }
+        encolarExportacion("PDF", tipoInforme, archivo, () -> {
+            exportacionInformes.exportarPdf(tipo, inicio, fin, filtro, archivo);
+            return null;
+        });
     }
 
     @FXML
     public void handleExportarExcel() {
+        if (!validarExportacion()) return;
+
+        File archivo = seleccionarArchivo("Exportar Informe - Excel", "xlsx");
+        if (archivo == null) return;
+        
+        String tipoInforme = cmbTipoInforme.getValue();
+        ExportacionInformes.Tipo tipo = ExportacionInformes.Tipo.desdeNombre(tipoInforme);
+        LocalDate inicio = dpFechaInicio.getValue();
+        LocalDate fin = dpFechaFin.getValue();
+        String filtro = filtroExportacion(tipo);
+
+        encolarExportacion("Excel", tipoInforme, archivo, () -> {
+            exportacionInformes.exportarExcel(tipo, inicio, fin, filtro, archivo);
+            return null;
+        });
+    }
+
+    /**
+     * Exporta el mismo informe a PDF y a Excel: el Excel se guarda junto al PDF
+     * con el mismo nombre.
+     */
+    @FXML
+    public void handleExportarAmbos() {
+        if (!validarExportacion()) return;
+
+        File archivoPdf = seleccionarArchivo("Exportar Informe - PDF + Excel", "pdf");
+        if (archivoPdf == null) return;
+        
+        String nombre = archivoPdf.getName();
+        String base = nombre.toLowerCase().endsWith(".pdf") ? nombre.substring(0, nombre.length() - 4) : nombre;
+        File archivoExcel = new File(archivoPdf.getAbsoluteFile().getParentFile(), base + ".xlsx");
+        
+        String tipoInforme = cmbTipoInforme.getValue();
+        ExportacionInformes.Tipo tipo = ExportacionInformes.Tipo.desdeNombre(tipoInforme);
+        LocalDate inicio = dpFechaInicio.getValue();
+        LocalDate fin = dpFechaFin.getValue();
+        String filtro = filtroExportacion(tipo);
+
+        encolarExportacion("PDF + Excel", tipoInforme, archivoPdf, () -> {
+            exportacionInformes.exportarPdfYExcel(tipo, inicio, fin, filtro, archivoPdf, archivoExcel);
+            return null;
+        });
+    }
+
+    private boolean validarExportacion() {
         if (informeActual.isEmpty()) {
             mostrarAlerta("Advertencia", "Primero genere un informe", Alert.AlertType.WARNING);
-            return;
+            return false;
         }
+        return validarFechas() && validarFiltros();
+    }
 
-        if (!validarFechas()) return;
+    // Nombre de la categoría o del producto para los informes que filtran
+    private String filtroExportacion(ExportacionInformes.Tipo tipo) {
+        if (tipo == ExportacionInformes.Tipo.CATEGORIA) {
+            return cmbCategoria.getValue().getNombre();
+        }
+        if (tipo == ExportacionInformes.Tipo.PRODUCTO) {
+            return txtProducto.getText().trim();
+        }
+        return null;
+    }
 
+    private void encolarExportacion(String formato, String tipoInforme, File archivo, Callable<Void> exportar) {
+        TrabajoInforme<Void> trabajo;
         try {
-            File archivo = seleccionarArchivo("Exportar Informe - Excel", "xlsx");
-            if (archivo != null) {
-                String tipoInforme = cmbTipoInforme.getValue();
-                LocalDate inicio = dpFechaInicio.getValue();
-                LocalDate fin = dpFechaFin.getValue();
-
-                if (tipoInforme.contains("General Mensual")) {
-                    informeService.exportarInformeGeneralExcel(inicio, fin, archivo.getAbsolutePath());
-                }
-                else if (tipoInforme.contains("Categoría")) {
-                    Categoria categoria = cmbCategoria.getValue();
-                    if (categoria == null) {
-                        mostrarAlerta("Validación", "Seleccione una categoría", Alert.AlertType.WARNING);
-                        return;
-                    }
-                    informeService.exportarInformeCategoriaExcel(categoria.getNombre(), inicio, fin, archivo.getAbsolutePath());
-                }
-                else if (tipoInforme.contains("Producto")) {
-                    String producto = txtProducto.getText();
-                    if (producto == null || producto.trim().isEmpty()) {
-                        mostrarAlerta("Validación", "Ingrese un producto", Alert.AlertType.WARNING);
-                        return;
-                    }
-                    informeService.exportarInformeProductoExcel(producto.trim(), inicio, fin, archivo.getAbsolutePath());
-                }
-                else if (tipoInforme.contains("Dashboard")) {
-                    informeService.exportarDashboardExcel(inicio, fin, archivo.getAbsolutePath());
-                }
-                else {
-                    // Para otros informes, usar exportación genérica
-                    informeService.exportarInformeGeneralExcel(inicio, fin, archivo.getAbsolutePath());
-                }
+            // ExportacionInformes publica los archivos de forma atómica: si falla,
+            // el archivo anterior (si lo había) se conserva
+            trabajo = colaInformes.enviarAtomico(formato + " · " + tipoInforme + " → " + archivo.getName(), archivo, exportar);
+        } catch (RuntimeException e) {
+            mostrarAlerta("Error", e.getMessage(), Alert.AlertType.ERROR);
+            return;
+        }
+        actualizarListaTrabajos();
+        
+        trabajo.getResultado().whenComplete((r, error) -> Platform.runLater(() -> {
+            listaTrabajos.refresh();
+            if (trabajo.getEstado() == TrabajoInforme.Estado.COMPLETADO) {
+                mostrarAlerta("Éxito", "Informe " + formato + " exportado correctamente a:\n" + archivo.getAbsolutePath(), Alert.AlertType.INFORMATION);
+            } else if (trabajo.getEstado() == TrabajoInforme.Estado.FALLIDO) {
+                error.printStackTrace();
+                mostrarAlerta("Error", "No se pudo exportar el " + formato + ":\n" + error.getMessage(), Alert.AlertType.ERROR);
+            }
+        }));
+    }
+
+    // ==================== COLA DE INFORMES ====================
 
-                mostrarAlerta("Éxito", "Informe Excel exportado correctamente a:\n" + archivo.getAbsolutePath(), Alert.AlertType.INFORMATION);
+    private void configurarListaTrabajos() {
+        listaTrabajos.setCellFactory(lista -> new ListCell<>() {
+            @Override
+            protected void updateItem(TrabajoInforme<?> trabajo, boolean empty) {
+                super.updateItem(trabajo, empty);
+                setText(empty || trabajo == null ? null : describirTrabajo(trabajo));
             }
-        } catch (Exception e) {
-            e.printStackTrace();
-            mostrarAlerta("Error", "No se pudo exportar el Excel:\n" + e.getMessage(), Alert.AlertType.ERROR);
+        });
+        
+        // Los contadores de progreso se actualizan en el hilo del informe;
+        // la lista se repinta periódicamente mientras haya trabajos activos
+        if (refrescoTrabajos != null) {
+            refrescoTrabajos.stop();
         }
+        refrescoTrabajos = new Timeline(new KeyFrame(Duration.millis(300), e -> {
+            if (listaTrabajos.getItems().stream().anyMatch(t -> !t.isTerminado())) {
+                listaTrabajos.refresh();
+            }
+        }));
+        refrescoTrabajos.setCycleCount(Animation.INDEFINITE);
+        refrescoTrabajos.play();
+        
+        actualizarListaTrabajos();
+    }
+
+    private void actualizarListaTrabajos() {
+        listaTrabajos.getItems().setAll(colaInformes.listar().stream()
+            .filter(t -> t.getArchivoSalida() != null)
+            .toList());
+    }
+
+    private String describirTrabajo(TrabajoInforme<?> trabajo) {
+        String progreso = String.format("%,d filas · %d págs", trabajo.getFilasProcesadas(), trabajo.getPaginasEscritas());
+        return switch (trabajo.getEstado()) {
+            case EN_COLA -> "⏳ En cola · " + trabajo.getDescripcion();
+            case EJECUTANDO -> "⚙ " + progreso + " · " + trabajo.getDescripcion();
+            case COMPLETADO -> "✅ " + progreso + " · " + (trabajo.getDuracionMs() / 1000.0) + " s · " + trabajo.getDescripcion();
+            case CANCELADO -> "✖ Cancelado · " + trabajo.getDescripcion();
+            case FALLIDO -> "❌ Error · " + trabajo.getDescripcion();
+        };
+    }
+
+    @FXML
+    public void handleCancelarTrabajo() {
+        TrabajoInforme<?> trabajo = listaTrabajos.getSelectionModel().getSelectedItem();
+        if (trabajo == null) {
+            mostrarAlerta("Advertencia", "Seleccione un informe de la lista", Alert.AlertType.WARNING);
+            return;
+        }
+        trabajo.cancelar();
+        listaTrabajos.refresh();
+    }
+
+    @FXML
+    public void handleLimpiarTrabajos() {
+        colaInformes.limpiarTerminados();
+        actualizarListaTrabajos();
     }
 
     @FXML
     public void handleLimpiar() {
+        if (trabajoVistaPrevia != null) {
+            trabajoVistaPrevia.cancelar();
+        }
         configurarFechasPorDefecto();
         cmbCategoria.setValue(null);
         txtProducto.clear();
@@ -366,6 +423,25 @@ public class InformesController {
         return true;
     }
 
+    private boolean validarFiltros() {
+        String tipoInforme = cmbTipoInforme.getValue();
+        
+        if (tipoInforme.contains("Categoría") && cmbCategoria.getValue() == null) {
+            mostrarAlerta("Validación", "Por favor seleccione una categoría", Alert.AlertType.WARNING);
+            return false;
+        }
+        
+        if (tipoInforme.contains("Producto")) {
+            String producto = txtProducto.getText();
+            if (producto == null || producto.trim().isEmpty()) {
+                mostrarAlerta("Validación", "Por favor ingrese el nombre del producto", Alert.AlertType.WARNING);
+                return false;
+            }
+        }
+        
+        return true;
+    }
+
     private File seleccionarArchivo(String titulo, String extension) {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle(titulo);
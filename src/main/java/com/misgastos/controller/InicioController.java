@@ -1,6 +1,9 @@
 package com.misgastos.controller;
 
+import com.misgastos.service.DashboardSnapshot;
 import com.misgastos.service.GastoService;
+import jakarta.annotation.PreDestroy;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.scene.chart.BarChart;
 import javafx.scene.chart.PieChart;
@@ -8,6 +11,7 @@ import javafx.scene.chart.XYChart;
 import javafx.scene.control.Label;
 import javafx.scene.control.Tooltip;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.Region;
 import javafx.scene.layout.VBox;
 import javafx.scene.shape.Rectangle;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,9 +21,15 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import javafx.application.Platform;
@@ -56,61 +66,207 @@ public class InicioController {
     @Autowired
     private GastoService gastoService;
     
+    // Pocos hilos: SQLite atiende bien lecturas concurrentes, pero no muchas
+    private static final int HILOS_CARGA = 3;
+    private static final int CAPACIDAD_COLA = 12;
+    private static final int FILAS_ESQUELETO = 5;
+    
+    private final AtomicInteger contadorHilos = new AtomicInteger();
+    private final ThreadPoolExecutor executorCarga = new ThreadPoolExecutor(
+        HILOS_CARGA, HILOS_CARGA, 30, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<>(CAPACIDAD_COLA),
+        r -> {
+            Thread hilo = new Thread(r, "inicio-carga-" + contadorHilos.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        },
+        // Lo más antiguo en la cola es de una carga anterior ya cancelada
+        new ThreadPoolExecutor.DiscardOldestPolicy());
+    
+    // El controlador es singleton: cada vez que se abre Inicio se vuelve a llamar
+    // initialize, y los resultados de una carga anterior se descartan
+    private final List<Task<?>> tareasEnCurso = new ArrayList<>();
+    private long generacionCarga = 0;
+    private int panelesPendientes = 0;
+    private long inicioCarga = 0;
+    
     @FXML
     public void initialize() {
-        cargarIndicadores();
-        cargarTopProductos();
-        cargarCategoriasResumen();
-        cargarGraficoUltimosDias();
-        cargarGraficoCategorias();
+        tareasEnCurso.forEach(tarea -> tarea.cancel(false));
+        tareasEnCurso.clear();
+        
+        long generacion = ++generacionCarga;
+        inicioCarga = System.nanoTime();
+        panelesPendientes = 3;
+        mostrarEsqueletos();
+        
+        // Cada panel se carga en segundo plano y se pinta en cuanto llega su dato;
+        // los paneles que comparten consulta se pintan juntos
+        cargarPanel("Indicadores", generacion,
+            () -> gastoService.obtenerDashboardSnapshot(LocalDate.now()),
+            snapshot -> {
+                cargarIndicadores(snapshot);
+                cargarGraficoUltimosDias(snapshot);
+            },
+            this::mostrarErrorIndicadores);
+        
+        cargarPanel("Top productos", generacion,
+            () -> gastoService.obtenerTopProductos(5),
+            this::cargarTopProductos,
+            error -> mostrarMensaje(vboxTopProductos, "No se pudieron cargar los productos"));
+        
+        cargarPanel("Categorías", generacion,
+            gastoService::obtenerGastosPorCategoria,
+            categorias -> {
+                cargarCategoriasResumen(categorias);
+                cargarGraficoCategorias(categorias);
+            },
+            error -> {
+                mostrarMensaje(vboxCategorias, "No se pudieron cargar las categorías");
+                quitarEsqueleto(chartCategorias);
+            });
     }
     
-    private void cargarIndicadores() {
-        LocalDate hoy = LocalDate.now();
+    @PreDestroy
+    public void detener() {
+        executorCarga.shutdownNow();
+    }
+    
+    /**
+     * Ejecuta la consulta de un panel en el executor y lo pinta en el hilo de
+     * JavaFX. Registra el tiempo de consulta y el tiempo hasta que el panel
+     * queda visible.
+     */
+    private <T> void cargarPanel(String nombre, long generacion, Callable<T> consulta,
+                                 Consumer<T> mostrar, Consumer<Throwable> alFallar) {
+        long encolado = System.nanoTime();
+        long[] duracionConsulta = new long[1];
         
-        // Hoy
-        BigDecimal totalHoy = gastoService.calcularTotalPorPeriodo(hoy, hoy);
-        lblTotalHoy.setText(formatearMonto(totalHoy));
+        Task<T> tarea = new Task<>() {
+            @Override
+            protected T call() throws Exception {
+                long t0 = System.nanoTime();
+                T resultado = consulta.call();
+                duracionConsulta[0] = System.nanoTime() - t0;
+                return resultado;
+            }
+        };
         
-        LocalDate ayer = hoy.minusDays(1);
-        BigDecimal totalAyer = gastoService.calcularTotalPorPeriodo(ayer, ayer);
-        actualizarCambio(lblCambioHoy, hboxCambioHoy, totalHoy, totalAyer);
+        tarea.setOnSucceeded(e -> {
+            if (generacion != generacionCarga) {
+                return;
+            }
+            mostrar.accept(tarea.getValue());
+            System.out.printf("⏱️ Inicio - %s: consulta %d ms, visible a los %d ms%n", nombre,
+                duracionConsulta[0] / 1_000_000, (System.nanoTime() - encolado) / 1_000_000);
+            panelCompletado(generacion);
+        });
         
-        // Semana (lunes a domingo)
-        LocalDate inicioSemana = hoy.with(TemporalAdjusters.previousOrSame(java.time.DayOfWeek.MONDAY));
-        LocalDate finSemana = hoy.with(TemporalAdjusters.nextOrSame(java.time.DayOfWeek.SUNDAY));
-        BigDecimal totalSemana = gastoService.calcularTotalPorPeriodo(inicioSemana, finSemana);
-        lblTotalSemana.setText(formatearMonto(totalSemana));
+        tarea.setOnFailed(e -> {
+            if (generacion != generacionCarga) {
+                return;
+            }
+            System.err.println("❌ Error cargando " + nombre + " en Inicio: " + tarea.getException().getMessage());
+            alFallar.accept(tarea.getException());
+            panelCompletado(generacion);
+        });
         
-        LocalDate inicioSemanaAnterior = inicioSemana.minusWeeks(1);
-        LocalDate finSemanaAnterior = finSemana.minusWeeks(1);
-        BigDecimal totalSemanaAnterior = gastoService.calcularTotalPorPeriodo(inicioSemanaAnterior, finSemanaAnterior);
-        actualizarCambio(lblCambioSemana, hboxCambioSemana, totalSemana, totalSemanaAnterior);
+        tareasEnCurso.add(tarea);
+        executorCarga.execute(tarea);
+    }
+    
+    private void panelCompletado(long generacion) {
+        if (generacion == generacionCarga && --panelesPendientes == 0) {
+            tareasEnCurso.clear();
+            System.out.println("✅ Inicio cargado en " + (System.nanoTime() - inicioCarga) / 1_000_000 + " ms");
+        }
+    }
+    
+    // ==================== ESQUELETOS ====================
+    
+    private void mostrarEsqueletos() {
+        for (Label label : List.of(lblTotalHoy, lblTotalSemana, lblTotalMes, lblTotalAnio)) {
+            label.setText("000.0K");
+            ponerEsqueleto(label);
+        }
+        for (HBox cambio : List.of(hboxCambioHoy, hboxCambioSemana, hboxCambioMes, hboxCambioAnio)) {
+            cambio.setVisible(false);
+        }
         
-        // Mes
-        LocalDate inicioMes = hoy.withDayOfMonth(1);
-        LocalDate finMes = hoy.with(TemporalAdjusters.lastDayOfMonth());
-        BigDecimal totalMes = gastoService.calcularTotalPorPeriodo(inicioMes, finMes);
-        lblTotalMes.setText(formatearMonto(totalMes));
+        llenarFilasEsqueleto(vboxTopProductos);
+        llenarFilasEsqueleto(vboxCategorias);
+        if (vboxLeyendaCategorias != null) {
+            vboxLeyendaCategorias.getChildren().clear();
+        }
         
-        LocalDate inicioMesAnterior = inicioMes.minusMonths(1);
-        LocalDate finMesAnterior = inicioMes.minusDays(1);
-        BigDecimal totalMesAnterior = gastoService.calcularTotalPorPeriodo(inicioMesAnterior, finMesAnterior);
-        actualizarCambio(lblCambioMes, hboxCambioMes, totalMes, totalMesAnterior);
+        chartUltimosDias.getData().clear();
+        chartCategorias.getData().clear();
+        ponerEsqueleto(chartUltimosDias);
+        ponerEsqueleto(chartCategorias);
+    }
+    
+    private void llenarFilasEsqueleto(VBox contenedor) {
+        contenedor.getChildren().clear();
+        for (int i = 0; i < FILAS_ESQUELETO; i++) {
+            Region fila = new Region();
+            fila.setPrefHeight(22);
+            fila.setMaxWidth(Double.MAX_VALUE);
+            fila.getStyleClass().add("skeleton");
+            contenedor.getChildren().add(fila);
+        }
+    }
+    
+    private void ponerEsqueleto(Node nodo) {
+        if (!nodo.getStyleClass().contains("skeleton")) {
+            nodo.getStyleClass().add("skeleton");
+        }
+    }
+    
+    private void quitarEsqueleto(Node nodo) {
+        nodo.getStyleClass().remove("skeleton");
+    }
+    
+    private void mostrarMensaje(VBox contenedor, String mensaje) {
+        contenedor.getChildren().clear();
+        Label lblMensaje = new Label(mensaje);
+        lblMensaje.setStyle("-fx-text-fill: #9ca3af; -fx-font-style: italic;");
+        contenedor.getChildren().add(lblMensaje);
+    }
+    
+    private void mostrarErrorIndicadores(Throwable error) {
+        for (Label label : List.of(lblTotalHoy, lblTotalSemana, lblTotalMes, lblTotalAnio)) {
+            label.setText("—");
+            quitarEsqueleto(label);
+        }
+        quitarEsqueleto(chartUltimosDias);
+    }
+    
+    // ==================== PANELES ====================
+    
+    private void cargarIndicadores(DashboardSnapshot snapshot) {
+        for (Label label : List.of(lblTotalHoy, lblTotalSemana, lblTotalMes, lblTotalAnio)) {
+            quitarEsqueleto(label);
+        }
         
-        // Año
-        LocalDate inicioAnio = hoy.withDayOfYear(1);
-        LocalDate finAnio = hoy.with(TemporalAdjusters.lastDayOfYear());
-        BigDecimal totalAnio = gastoService.calcularTotalPorPeriodo(inicioAnio, finAnio);
-        lblTotalAnio.setText(formatearMonto(totalAnio));
+        // Hoy
+        lblTotalHoy.setText(formatearMonto(snapshot.totalHoy()));
+        actualizarCambio(lblCambioHoy, hboxCambioHoy, snapshot.totalHoy(), snapshot.totalAyer());
+        
+        // Semana (lunes a domingo)
+        lblTotalSemana.setText(formatearMonto(snapshot.totalSemana()));
+        actualizarCambio(lblCambioSemana, hboxCambioSemana, snapshot.totalSemana(), snapshot.totalSemanaAnterior());
         
-        LocalDate inicioAnioAnterior = inicioAnio.minusYears(1);
-        LocalDate finAnioAnterior = finAnio.minusYears(1);
-        BigDecimal totalAnioAnterior = gastoService.calcularTotalPorPeriodo(inicioAnioAnterior, finAnioAnterior);
-        actualizarCambio(lblCambioAnio, hboxCambioAnio, totalAnio, totalAnioAnterior);
+        // Mes
+        lblTotalMes.setText(formatearMonto(snapshot.totalMes()));
+        actualizarCambio(lblCambioMes, hboxCambioMes, snapshot.totalMes(), snapshot.totalMesAnterior());
+        
+        // Año
+        lblTotalAnio.setText(formatearMonto(snapshot.totalAnio()));
+        actualizarCambio(lblCambioAnio, hboxCambioAnio, snapshot.totalAnio(), snapshot.totalAnioAnterior());
     }
     
     private void actualizarCambio(Label label, HBox container, BigDecimal actual, BigDecimal anterior) {
+        container.setVisible(true);
         if (anterior.compareTo(BigDecimal.ZERO) == 0) {
             label.setText("Sin datos previos");
             container.getStyleClass().removeAll("stat-change-positive", "stat-change-negative");
@@ -136,8 +292,7 @@ public class InicioController {
         }
     }
     
-    private void cargarTopProductos() {
-        List<Map<String, Object>> topProductos = gastoService.obtenerTopProductos(5);
+    private void cargarTopProductos(List<Map<String, Object>> topProductos) {
         vboxTopProductos.getChildren().clear();
         
         int posicion = 1;
@@ -175,8 +330,7 @@ public class InicioController {
         }
     }
     
-    private void cargarCategoriasResumen() {
-        Map<String, BigDecimal> categorias = gastoService.obtenerGastosPorCategoria();
+    private void cargarCategoriasResumen(Map<String, BigDecimal> categorias) {
         vboxCategorias.getChildren().clear();
         
         // ✅ AGREGAR NUMERACIÓN
@@ -215,19 +369,18 @@ public class InicioController {
         }
     }
     
-    private void cargarGraficoUltimosDias() {
+    private void cargarGraficoUltimosDias(DashboardSnapshot snapshot) {
         chartUltimosDias.getData().clear();
+        quitarEsqueleto(chartUltimosDias);
 
         XYChart.Series<String, Number> series = new XYChart.Series<>();
 
-        LocalDate hoy = LocalDate.now();
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM");
 
-        for (int i = 6; i >= 0; i--) {
-            LocalDate fecha = hoy.minusDays(i);
-            BigDecimal total = gastoService.calcularTotalPorPeriodo(fecha, fecha);
-            String etiqueta = i == 0 ? "Hoy" : fecha.format(formatter);
-            series.getData().add(new XYChart.Data<>(etiqueta, total.doubleValue()));
+        for (Map.Entry<LocalDate, BigDecimal> dia : snapshot.ultimosDias().entrySet()) {
+            LocalDate fecha = dia.getKey();
+            String etiqueta = fecha.equals(snapshot.hoy()) ? "Hoy" : fecha.format(formatter);
+            series.getData().add(new XYChart.Data<>(etiqueta, dia.getValue().doubleValue()));
         }
 
         chartUltimosDias.getData().add(series);
@@ -284,14 +437,13 @@ public class InicioController {
     }
 
     
-    private void cargarGraficoCategorias() {
+    private void cargarGraficoCategorias(Map<String, BigDecimal> categorias) {
         chartCategorias.getData().clear();
+        quitarEsqueleto(chartCategorias);
         if (vboxLeyendaCategorias != null) {
             vboxLeyendaCategorias.getChildren().clear();
         }
 
-        Map<String, BigDecimal> categorias = gastoService.obtenerGastosPorCategoria();
-
         BigDecimal totalGeneral = categorias.values().stream()
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
 
@@ -1,28 +1,22 @@
 package com.misgastos.controller;
 
-import com.misgastos.model.Gasto;
+import com.misgastos.model.GastoFila;
+import com.misgastos.service.ColaInformes;
 import com.misgastos.service.GastoService;
+import com.misgastos.service.ReporteService;
+import com.misgastos.service.TrabajoInforme;
+import javafx.application.Platform;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.stage.FileChooser;
-import org.apache.poi.ss.usermodel.BorderStyle;
-import org.apache.poi.ss.usermodel.CellStyle;
-import org.apache.poi.ss.usermodel.FillPatternType;
-import org.apache.poi.ss.usermodel.Font;
-import org.apache.poi.ss.usermodel.HorizontalAlignment;
-import org.apache.poi.ss.usermodel.IndexedColors;
-import org.apache.poi.ss.usermodel.Row;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.math.BigDecimal;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
@@ -34,28 +28,28 @@ import java.util.Locale;
 public class ListaGastosController {
     
     @FXML
-    private TableView<Gasto> tableGastos;
+    private TableView<GastoFila> tableGastos;
     
     @FXML
-    private TableColumn<Gasto, Long> colId;
+    private TableColumn<GastoFila, Long> colId;
     
     @FXML
-    private TableColumn<Gasto, LocalDate> colFecha;
+    private TableColumn<GastoFila, LocalDate> colFecha;
     
     @FXML
-    private TableColumn<Gasto, String> colCategoria;
+    private TableColumn<GastoFila, String> colCategoria;
     
     @FXML
-    private TableColumn<Gasto, String> colProducto;
+    private TableColumn<GastoFila, String> colProducto;
     
     @FXML
-    private TableColumn<Gasto, Integer> colCantidad;
+    private TableColumn<GastoFila, Integer> colCantidad;
     
     @FXML
-    private TableColumn<Gasto, BigDecimal> colValorUnitario;
+    private TableColumn<GastoFila, BigDecimal> colValorUnitario;
     
     @FXML
-    private TableColumn<Gasto, BigDecimal> colValorTotal;
+    private TableColumn<GastoFila, BigDecimal> colValorTotal;
     
     @FXML
     private TextField txtBuscar;
@@ -69,7 +63,21 @@ public class ListaGastosController {
     @Autowired
     private GastoService gastoService;
     
-    private ObservableList<Gasto> listaGastos;
+    @Autowired
+    private ReporteService reporteService;
+    
+    @Autowired
+    private ColaInformes colaInformes;
+    
+    private ObservableList<GastoFila> listaGastos = FXCollections.observableArrayList();
+    
+    // ✅ Paginación por clave: se piden páginas a medida que se hace scroll
+    private static final int TAMANO_PAGINA = 200;
+    private static final int FILAS_ANTES_DE_CARGAR = 20;
+    private String filtroActual = "";
+    private Long ultimoIdCargado = null;
+    private boolean hayMasPaginas = true;
+    private boolean cargandoPagina = false;
     
     // Formato de pesos colombianos
     private static final NumberFormat formatoPesos = NumberFormat.getInstance(new Locale("es", "CO"));
@@ -93,19 +101,32 @@ public class ListaGastosController {
     }
     
     private void configurarTabla() {
-        colId.setCellValueFactory(new PropertyValueFactory<>("id"));
-        colFecha.setCellValueFactory(new PropertyValueFactory<>("fecha"));
-        colCategoria.setCellValueFactory(cellData -> 
-            new javafx.beans.property.SimpleStringProperty(
-                cellData.getValue().getCategoria().getNombre()
-            )
-        );
-        colProducto.setCellValueFactory(new PropertyValueFactory<>("producto"));
-        colCantidad.setCellValueFactory(new PropertyValueFactory<>("cantidad"));
+        // Al dibujar una de las últimas filas cargadas, pedir la siguiente página
+        tableGastos.setRowFactory(tabla -> new TableRow<GastoFila>() {
+            @Override
+            protected void updateItem(GastoFila gasto, boolean empty) {
+                super.updateItem(gasto, empty);
+                if (!empty && hayMasPaginas && getIndex() >= listaGastos.size() - FILAS_ANTES_DE_CARGAR) {
+                    // Varias filas pueden pedirla a la vez: solo cuenta la primera
+                    int cargadas = listaGastos.size();
+                    Platform.runLater(() -> {
+                        if (listaGastos.size() == cargadas) {
+                            cargarSiguientePagina();
+                        }
+                    });
+                }
+            }
+        });
+        
+        colId.setCellValueFactory(cellData -> new SimpleObjectProperty<>(cellData.getValue().id()));
+        colFecha.setCellValueFactory(cellData -> new SimpleObjectProperty<>(cellData.getValue().fecha()));
+        colCategoria.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().categoria()));
+        colProducto.setCellValueFactory(cellData -> new SimpleStringProperty(cellData.getValue().producto()));
+        colCantidad.setCellValueFactory(cellData -> new SimpleObjectProperty<>(cellData.getValue().cantidad()));
         
         // Configurar formato de pesos colombianos para Valor Unitario
-        colValorUnitario.setCellValueFactory(new PropertyValueFactory<>("valorUnitario"));
-        colValorUnitario.setCellFactory(col -> new TableCell<Gasto, BigDecimal>() {
+        colValorUnitario.setCellValueFactory(cellData -> new SimpleObjectProperty<>(cellData.getValue().valorUnitario()));
+        colValorUnitario.setCellFactory(col -> new TableCell<GastoFila, BigDecimal>() {
             @Override
             protected void updateItem(BigDecimal valor, boolean empty) {
                 super.updateItem(valor, empty);
@@ -118,8 +139,8 @@ public class ListaGastosController {
         });
         
         // Configurar formato de pesos colombianos para Valor Total
-        colValorTotal.setCellValueFactory(new PropertyValueFactory<>("valorTotal"));
-        colValorTotal.setCellFactory(col -> new TableCell<Gasto, BigDecimal>() {
+        colValorTotal.setCellValueFactory(cellData -> new SimpleObjectProperty<>(cellData.getValue().valorTotal()));
+        colValorTotal.setCellFactory(col -> new TableCell<GastoFila, BigDecimal>() {
             @Override
             protected void updateItem(BigDecimal valor, boolean empty) {
                 super.updateItem(valor, empty);
@@ -133,32 +154,41 @@ public class ListaGastosController {
     }
     
     private void cargarGastos() {
-        List<Gasto> gastos = gastoService.listarTodos();
-        listaGastos = FXCollections.observableArrayList(gastos);
+        ultimoIdCargado = null;
+        hayMasPaginas = true;
+        listaGastos.clear();
         tableGastos.setItems(listaGastos);
-        
-        System.out.println("✅ Cargados " + gastos.size() + " gastos");
+        cargarSiguientePagina();
+        tableGastos.scrollTo(0);
+    }
+    
+    private void cargarSiguientePagina() {
+        if (cargandoPagina || !hayMasPaginas) return;
+        cargandoPagina = true;
+        try {
+            List<GastoFila> pagina = gastoService.listarPagina(filtroActual, ultimoIdCargado, TAMANO_PAGINA);
+            if (!pagina.isEmpty()) {
+                ultimoIdCargado = pagina.get(pagina.size() - 1).id();
+                listaGastos.addAll(pagina);
+            }
+            hayMasPaginas = pagina.size() == TAMANO_PAGINA;
+            
+            System.out.println("✅ Cargados " + listaGastos.size() + " gastos"
+                + (hayMasPaginas ? " (hay más)" : ""));
+        } finally {
+            cargandoPagina = false;
+        }
     }
     
     @FXML
     public void handleBuscar() {
-        String busqueda = txtBuscar.getText().toLowerCase();
-        if (busqueda.isEmpty()) {
-            cargarGastos();
-            return;
-        }
-        
-        List<Gasto> gastosFiltrados = listaGastos.stream()
-            .filter(g -> g.getProducto().toLowerCase().contains(busqueda) ||
-                        g.getCategoria().getNombre().toLowerCase().contains(busqueda))
-            .toList();
-        
-        tableGastos.setItems(FXCollections.observableArrayList(gastosFiltrados));
+        filtroActual = txtBuscar.getText().trim();
+        cargarGastos();
     }
     
     @FXML
     public void handleEliminar() {
-        Gasto seleccionado = tableGastos.getSelectionModel().getSelectedItem();
+        GastoFila seleccionado = tableGastos.getSelectionModel().getSelectedItem();
         
         if (seleccionado == null) {
             mostrarAlerta("Advertencia", "Seleccione un gasto para eliminar", Alert.AlertType.WARNING);
@@ -171,7 +201,7 @@ public class ListaGastosController {
         confirmacion.setContentText("¿Está seguro de eliminar este gasto?");
         
         if (confirmacion.showAndWait().get() == ButtonType.OK) {
-            gastoService.eliminarGasto(seleccionado.getId());
+            gastoService.eliminarGasto(seleccionado.id());
             mostrarAlerta("Éxito", "Gasto eliminado correctamente", Alert.AlertType.INFORMATION);
             cargarGastos();
         }
@@ -179,8 +209,9 @@ public class ListaGastosController {
     
     @FXML
     public void handleRefrescar() {
-        cargarGastos();
         txtBuscar.clear();
+        filtroActual = "";
+        cargarGastos();
     }
     
     @FXML
@@ -198,25 +229,36 @@ public class ListaGastosController {
             return;
         }
         
+        File archivo = seleccionarArchivoExcel();
+        if (archivo == null) {
+            return;
+        }
+        String busqueda = txtBuscar.getText().trim();
+        
+        // La exportación se hace en ColaInformes, en streaming, sin bloquear la tabla
+        TrabajoInforme<Long> trabajo;
         try {
-            File archivo = seleccionarArchivoExcel();
-            if (archivo != null) {
-                String busqueda = txtBuscar.getText().trim();
-                exportarGastosExcel(fechaInicio, fechaFin, busqueda, archivo);
-                
-                String mensaje = "Gastos exportados correctamente a:\n" + archivo.getAbsolutePath();
+            trabajo = colaInformes.enviar("Excel · Historial → " + archivo.getName(), archivo,
+                () -> reporteService.exportarHistorialExcel(fechaInicio, fechaFin, busqueda, archivo.getAbsolutePath()));
+        } catch (RuntimeException e) {
+            mostrarAlerta("Error", e.getMessage(), Alert.AlertType.ERROR);
+            return;
+        }
+        
+        trabajo.getResultado().whenComplete((filas, error) -> Platform.runLater(() -> {
+            if (trabajo.getEstado() == TrabajoInforme.Estado.COMPLETADO) {
+                String mensaje = filas + " gastos exportados correctamente a:\n" + archivo.getAbsolutePath();
                 if (!busqueda.isEmpty()) {
                     mensaje += "\n\n🔍 Filtro aplicado: \"" + busqueda + "\"";
                 }
-                
                 mostrarAlerta("Éxito", mensaje, Alert.AlertType.INFORMATION);
+            } else if (trabajo.getEstado() == TrabajoInforme.Estado.FALLIDO) {
+                error.printStackTrace();
+                mostrarAlerta("Error", 
+                    "No se pudo exportar el archivo:\n" + error.getMessage(), 
+                    Alert.AlertType.ERROR);
             }
-        } catch (Exception e) {
-            e.printStackTrace();
-            mostrarAlerta("Error", 
-                "No se pudo exportar el archivo:\n" + e.getMessage(), 
-                Alert.AlertType.ERROR);
-        }
+        }));
     }
     
     private File seleccionarArchivoExcel() {
@@ -233,129 +275,6 @@ public class ListaGastosController {
         return fileChooser.showSaveDialog(tableGastos.getScene().getWindow());
     }
     
-    private void exportarGastosExcel(LocalDate inicio, LocalDate fin, String filtro, File archivo) throws Exception {
-        // Obtener gastos del período
-        List<Gasto> gastos = gastoService.listarPorPeriodo(inicio, fin);
-        
-        // Aplicar filtro de búsqueda si existe
-        if (filtro != null && !filtro.isEmpty()) {
-            String busqueda = filtro.toLowerCase();
-            gastos = gastos.stream()
-                .filter(g -> g.getProducto().toLowerCase().contains(busqueda) ||
-                            g.getCategoria().getNombre().toLowerCase().contains(busqueda))
-                .toList();
-        }
-        
-        try (Workbook workbook = new XSSFWorkbook()) {
-            Sheet sheet = workbook.createSheet("Gastos");
-            
-            // Estilos
-            CellStyle headerStyle = workbook.createCellStyle();
-            Font headerFont = workbook.createFont();
-            headerFont.setBold(true);
-            headerFont.setFontHeightInPoints((short) 12);
-            headerStyle.setFont(headerFont);
-            headerStyle.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
-            headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-            headerStyle.setAlignment(HorizontalAlignment.CENTER);
-            
-            CellStyle numberStyle = workbook.createCellStyle();
-            numberStyle.setDataFormat(workbook.createDataFormat().getFormat("#,##0"));
-            
-            CellStyle dateStyle = workbook.createCellStyle();
-            dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy-mm-dd"));
-            
-            // Título del informe con filtro (si existe)
-            Row titleRow = sheet.createRow(0);
-            org.apache.poi.ss.usermodel.Cell titleCell = titleRow.createCell(0);
-            String titulo = "HISTORIAL DE GASTOS - " + inicio + " a " + fin;
-            if (filtro != null && !filtro.isEmpty()) {
-                titulo += " | Filtro: \"" + filtro + "\"";
-            }
-            titleCell.setCellValue(titulo);
-            CellStyle titleStyle = workbook.createCellStyle();
-            Font titleFont = workbook.createFont();
-            titleFont.setBold(true);
-            titleFont.setFontHeightInPoints((short) 14);
-            titleStyle.setFont(titleFont);
-            titleCell.setCellStyle(titleStyle);
-            
-            // Fusionar celdas del título
-            sheet.addMergedRegion(new org.apache.poi.ss.util.CellRangeAddress(0, 0, 0, 6));
-            
-            // Crear encabezados (fila 1, justo debajo del título)
-            Row headerRow = sheet.createRow(1);
-            String[] columnas = {"ID", "Fecha", "Categoría", "Producto", "Cantidad", "Valor Unitario", "Valor Total"};
-            
-            for (int i = 0; i < columnas.length; i++) {
-                org.apache.poi.ss.usermodel.Cell cell = headerRow.createCell(i);
-                cell.setCellValue(columnas[i]);
-                cell.setCellStyle(headerStyle);
-            }
-            
-            // Llenar datos (comienza en fila 2)
-            int rowNum = 2;
-            BigDecimal totalGeneral = BigDecimal.ZERO;
-            
-            for (Gasto gasto : gastos) {
-                Row row = sheet.createRow(rowNum++);
-                
-                row.createCell(0).setCellValue(gasto.getId());
-                
-                org.apache.poi.ss.usermodel.Cell fechaCell = row.createCell(1);
-                fechaCell.setCellValue(gasto.getFecha().toString());
-                fechaCell.setCellStyle(dateStyle);
-                
-                row.createCell(2).setCellValue(gasto.getCategoria().getNombre());
-                row.createCell(3).setCellValue(gasto.getProducto());
-                row.createCell(4).setCellValue(gasto.getCantidad());
-                
-                org.apache.poi.ss.usermodel.Cell valorUnitCell = row.createCell(5);
-                valorUnitCell.setCellValue(gasto.getValorUnitario().doubleValue());
-                valorUnitCell.setCellStyle(numberStyle);
-                
-                org.apache.poi.ss.usermodel.Cell valorTotalCell = row.createCell(6);
-                valorTotalCell.setCellValue(gasto.getValorTotal().doubleValue());
-                valorTotalCell.setCellStyle(numberStyle);
-                
-                totalGeneral = totalGeneral.add(gasto.getValorTotal());
-            }
-            
-            // Fila de total
-            Row totalRow = sheet.createRow(rowNum);
-            org.apache.poi.ss.usermodel.Cell totalLabelCell = totalRow.createCell(5);
-            totalLabelCell.setCellValue("TOTAL:");
-            
-            Font boldFont = workbook.createFont();
-            boldFont.setBold(true);
-            CellStyle boldStyle = workbook.createCellStyle();
-            boldStyle.setFont(boldFont);
-            boldStyle.setAlignment(HorizontalAlignment.RIGHT);
-            totalLabelCell.setCellStyle(boldStyle);
-            
-            org.apache.poi.ss.usermodel.Cell totalValueCell = totalRow.createCell(6);
-            totalValueCell.setCellValue(totalGeneral.doubleValue());
-            CellStyle totalStyle = workbook.createCellStyle();
-            totalStyle.cloneStyleFrom(numberStyle);
-            totalStyle.setFont(boldFont);
-            totalValueCell.setCellStyle(totalStyle);
-            
-            // Ajustar ancho de columnas
-            for (int i = 0; i < columnas.length; i++) {
-                sheet.autoSizeColumn(i);
-            }
-            
-            // Escribir archivo
-            try (FileOutputStream fos = new FileOutputStream(archivo)) {
-                workbook.write(fos);
-            }
-            
-            String filtroLog = (filtro != null && !filtro.isEmpty()) ? " [Filtro: \"" + filtro + "\"]" : "";
-            System.out.println("✅ Excel exportado: " + gastos.size() + " gastos - Total: $" + 
-                formatoPesos.format(totalGeneral) + filtroLog);
-        }
-    }
-    
     private void mostrarAlerta(String titulo, String mensaje, Alert.AlertType tipo) {
         Alert alert = new Alert(tipo);
         alert.setTitle(titulo);
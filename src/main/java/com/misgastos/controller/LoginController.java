@@ -3,7 +3,9 @@ package com.misgastos.controller;
 import com.misgastos.model.Usuario;
 import com.misgastos.service.SesionRecordadaService;
 import com.misgastos.service.UsuarioService;
+import jakarta.annotation.PreDestroy;
 import javafx.application.Platform;
+import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
@@ -21,6 +23,8 @@ import org.springframework.stereotype.Component;
 import java.net.URL;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Component
 public class LoginController implements Initializable {
@@ -46,6 +50,18 @@ public class LoginController implements Initializable {
     @Autowired
     private ApplicationContext springContext;
     
+    // BCrypt tarda decenas de ms por intento: la verificación no corre en el hilo de JavaFX
+    private final ExecutorService executorLogin = Executors.newSingleThreadExecutor(r -> {
+        Thread hilo = new Thread(r, "login");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+    
+    @PreDestroy
+    public void detener() {
+        executorLogin.shutdownNow();
+    }
+    
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         Platform.runLater(() -> {
@@ -53,7 +69,6 @@ public class LoginController implements Initializable {
             configurarNavegacionTab();
             configurarVentanaLogin(); // 🔥 NUEVO: Configurar ventana de login
             verificarSesionGuardada();
-            txtUsername.requestFocus();
         });
     }
     
@@ -140,21 +155,36 @@ public class LoginController implements Initializable {
     }
     
     /**
-     * Verifica si existe una sesión "Recordarme" válida
+     * Verifica si existe una sesión "Recordarme" válida. El formulario queda
+     * deshabilitado mientras tanto: un login manual no puede encolarse detrás y
+     * abrir el dashboard por segunda vez.
      */
     private void verificarSesionGuardada() {
-        Optional<Long> usuarioIdOpt = sesionService.validarSesionLocal();
+        Task<Optional<Usuario>> tarea = new Task<>() {
+            @Override
+            protected Optional<Usuario> call() {
+                return sesionService.validarSesionLocal().flatMap(usuarioService::buscarPorId);
+            }
+        };
         
-        if (usuarioIdOpt.isPresent()) {
-            Long usuarioId = usuarioIdOpt.get();
-            Optional<Usuario> usuarioOpt = usuarioService.buscarPorId(usuarioId);
-            
-            if (usuarioOpt.isPresent()) {
-                Usuario usuario = usuarioOpt.get();
-                System.out.println("🚀 Auto-login para: " + usuario.getUsername());
-                abrirDashboard(usuario.getUsername(), usuario.getRol());
+        tarea.setOnSucceeded(e -> {
+            habilitarFormulario(true);
+            Optional<Usuario> usuario = tarea.getValue();
+            if (usuario.isPresent()) {
+                System.out.println("🚀 Auto-login para: " + usuario.get().getUsername());
+                abrirDashboard(usuario.get().getUsername(), usuario.get().getRol());
+            } else {
+                txtUsername.requestFocus();
             }
-        }
+        });
+        tarea.setOnFailed(e -> {
+            habilitarFormulario(true);
+            txtUsername.requestFocus();
+            System.err.println("⚠️ No se pudo verificar la sesión guardada: " + tarea.getException().getMessage());
+        });
+        
+        habilitarFormulario(false);
+        executorLogin.execute(tarea);
     }
     
     @FXML
@@ -167,21 +197,54 @@ public class LoginController implements Initializable {
             return;
         }
         
-        if (usuarioService.autenticar(username, password)) {
-            Usuario usuario = usuarioService.buscarPorUsername(username)
-                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
-            
-            if (checkRecordarme.isSelected()) {
-                sesionService.crearSesionRecordada(usuario.getId());
+        if (btnLogin != null && btnLogin.isDisabled()) {
+            return; // ya hay una verificación en curso
+        }
+        
+        boolean recordar = checkRecordarme.isSelected();
+        Task<Optional<Usuario>> tarea = new Task<>() {
+            @Override
+            protected Optional<Usuario> call() {
+                long t0 = System.nanoTime();
+                Optional<Usuario> usuario = usuarioService.autenticarUsuario(username, password);
+                if (usuario.isPresent() && recordar) {
+                    sesionService.crearSesionRecordada(usuario.get().getId());
+                }
+                System.out.println("⏱️ Login verificado en " + (System.nanoTime() - t0) / 1_000_000 + " ms");
+                return usuario;
             }
-            
-            abrirDashboard(usuario.getUsername(), usuario.getRol());
-        } else {
-            mostrarAlerta("Error de Autenticación", 
-                         "Usuario o contraseña incorrectos. Por favor intente nuevamente.", 
-                         Alert.AlertType.ERROR);
-            txtPassword.clear();
-            txtPassword.requestFocus();
+        };
+        
+        tarea.setOnSucceeded(e -> {
+            habilitarFormulario(true);
+            Optional<Usuario> usuario = tarea.getValue();
+            if (usuario.isPresent()) {
+                abrirDashboard(usuario.get().getUsername(), usuario.get().getRol());
+            } else {
+                mostrarAlerta("Error de Autenticación", 
+                             "Usuario o contraseña incorrectos. Por favor intente nuevamente.", 
+                             Alert.AlertType.ERROR);
+                txtPassword.clear();
+                txtPassword.requestFocus();
+            }
+        });
+        
+        tarea.setOnFailed(e -> {
+            habilitarFormulario(true);
+            tarea.getException().printStackTrace();
+            mostrarAlerta("Error", "No se pudo iniciar sesión: " + tarea.getException().getMessage(), Alert.AlertType.ERROR);
+        });
+        
+        habilitarFormulario(false);
+        executorLogin.execute(tarea);
+    }
+    
+    private void habilitarFormulario(boolean habilitado) {
+        txtUsername.setDisable(!habilitado);
+        txtPassword.setDisable(!habilitado);
+        checkRecordarme.setDisable(!habilitado);
+        if (btnLogin != null) {
+            btnLogin.setDisable(!habilitado);
         }
     }
     
@@ -11,10 +11,11 @@ import javafx.scene.control.*;
 import javafx.scene.layout.GridPane;
 
 import com.misgastos.model.Categoria;
-import com.misgastos.model.Gasto;
+import com.misgastos.model.GastoFila;
 import com.misgastos.model.Subcategoria;
 import com.misgastos.service.CategoriaService;
 import com.misgastos.service.GastoService;
+import com.misgastos.util.AutocompletadoAsync;
 import javafx.fxml.FXML;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -27,7 +28,6 @@ import java.util.Set;
 
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.beans.property.SimpleStringProperty;
-import javafx.scene.control.cell.PropertyValueFactory;
 import java.text.NumberFormat;
 import java.util.Locale;
 
@@ -44,13 +44,13 @@ public class RegistroGastoController {
     @FXML private TextField txtValorUnitario;
     @FXML private TextField txtValorTotal;
     @FXML private TextArea txtNotas;
-    @FXML private TableView<Gasto> tblUltimosGastos;
-    @FXML private TableColumn<Gasto, LocalDate> colFecha;
-    @FXML private TableColumn<Gasto, String> colCategoria;
-    @FXML private TableColumn<Gasto, String> colProducto;
-    @FXML private TableColumn<Gasto, Integer> colCantidad;
-    @FXML private TableColumn<Gasto, BigDecimal> colValorUnitario;
-    @FXML private TableColumn<Gasto, BigDecimal> colTotal;
+    @FXML private TableView<GastoFila> tblUltimosGastos;
+    @FXML private TableColumn<GastoFila, LocalDate> colFecha;
+    @FXML private TableColumn<GastoFila, String> colCategoria;
+    @FXML private TableColumn<GastoFila, String> colProducto;
+    @FXML private TableColumn<GastoFila, Integer> colCantidad;
+    @FXML private TableColumn<GastoFila, BigDecimal> colValorUnitario;
+    @FXML private TableColumn<GastoFila, BigDecimal> colTotal;
     @FXML private Label lblCedula;
     @FXML private TextField txtCedula;
     
@@ -66,6 +66,10 @@ public class RegistroGastoController {
     private boolean ignorarCambioTexto = false;
     private Set<String> productosYaUsados = new HashSet<>();
     
+    // ✅ Búsqueda de productos en segundo plano (espera a que se deje de teclear)
+    private static final long ESPERA_AUTOCOMPLETADO_MS = 150;
+    private AutocompletadoAsync<List<String>> autocompletado;
+    
     @FXML
     public void initialize() {
         configurarCalculoAutomatico();
@@ -114,6 +118,12 @@ public class RegistroGastoController {
         cmbProducto.setEditable(true);
         TextField editor = cmbProducto.getEditor();
         
+        // El controlador es singleton: reutilizar el pipeline entre cargas de la vista
+        if (autocompletado == null) {
+            autocompletado = new AutocompletadoAsync<>(
+                gastoService::buscarProductos, this::mostrarSugerencias, ESPERA_AUTOCOMPLETADO_MS);
+        }
+        
         // ✅ EventFilter para capturar Enter ANTES que el ComboBox lo procese
         cmbProducto.addEventFilter(javafx.scene.input.KeyEvent.KEY_PRESSED, event -> {
             if (event.getCode() == KeyCode.ENTER) {
@@ -154,6 +164,7 @@ public class RegistroGastoController {
             }
             
             if (newText == null || newText.isBlank()) {
+                autocompletado.cancelar();
                 // ✅ Cerrar dropdown, limpiar selección Y LUEGO limpiar items
                 Platform.runLater(() -> {
                     cmbProducto.hide();
@@ -163,15 +174,7 @@ public class RegistroGastoController {
                 return;
             }
             
-            List<String> productos = gastoService.buscarProductos(newText);
-            if (productos.isEmpty()) {
-                // ✅ NO limpiar el ComboBox aquí, solo cerrar el dropdown
-                cmbProducto.hide();
-                return;
-            }
-            
-            cmbProducto.getItems().setAll(productos);
-            cmbProducto.show();
+            autocompletado.solicitar(newText);
         });
         
         // ✅ Este listener se dispara cuando se SELECCIONA del dropdown
@@ -187,6 +190,18 @@ public class RegistroGastoController {
         });
     }
     
+    // Se ejecuta en el hilo de JavaFX con el resultado de la última búsqueda
+    private void mostrarSugerencias(List<String> productos) {
+        if (productos.isEmpty()) {
+            // ✅ NO limpiar el ComboBox aquí, solo cerrar el dropdown
+            cmbProducto.hide();
+            return;
+        }
+        
+        cmbProducto.getItems().setAll(productos);
+        cmbProducto.show();
+    }
+    
     private void autocompletarDatosPorProducto(String producto) {
         if (producto == null || producto.isBlank()) return;
         
@@ -194,18 +209,24 @@ public class RegistroGastoController {
         
         System.out.println("🔄 Autocompletando datos para: '" + textoProducto + "'");
         
-        gastoService.buscarUltimoGastoPorProducto(textoProducto).ifPresentOrElse(
-            gasto -> {
+        gastoService.buscarUltimaCompra(textoProducto).ifPresentOrElse(
+            compra -> {
                 System.out.println("   ✅ Gasto anterior encontrado");
-                System.out.println("      → Categoría: " + gasto.getCategoria().getNombre());
-                System.out.println("      → Subcategoría: " + gasto.getSubcategoria().getNombre());
-                System.out.println("      → Valor: " + gasto.getValorUnitario());
+                System.out.println("      → Categoría: " + compra.categoriaId());
+                System.out.println("      → Subcategoría: " + compra.subcategoriaId());
+                System.out.println("      → Valor: " + compra.valorUnitario());
                 
                 cargarCategoriasIniciales();
-                cmbCategoria.setValue(gasto.getCategoria());
-                cargarSubcategorias(gasto.getCategoria().getId());
-                cmbSubcategoria.setValue(gasto.getSubcategoria());
-                txtValorUnitario.setText(gasto.getValorUnitario().toString());
+                cmbCategoria.getItems().stream()
+                    .filter(c -> c.getId().equals(compra.categoriaId()))
+                    .findFirst()
+                    .ifPresent(cmbCategoria::setValue);
+                cargarSubcategorias(compra.categoriaId());
+                cmbSubcategoria.getItems().stream()
+                    .filter(s -> s.getId().equals(compra.subcategoriaId()))
+                    .findFirst()
+                    .ifPresent(cmbSubcategoria::setValue);
+                txtValorUnitario.setText(compra.valorUnitario().toPlainString());
                 txtCantidad.setText("");
                 
                 calcularTotal();
@@ -427,13 +448,13 @@ public class RegistroGastoController {
         
         tblUltimosGastos.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
         
-        colFecha.setCellValueFactory(data -> new SimpleObjectProperty<>(data.getValue().getFecha()));
-        colCategoria.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().getCategoria().getNombre()));
-        colProducto.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().getProducto()));
-        colCantidad.setCellValueFactory(new PropertyValueFactory<>("cantidad"));
+        colFecha.setCellValueFactory(data -> new SimpleObjectProperty<>(data.getValue().fecha()));
+        colCategoria.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().categoria()));
+        colProducto.setCellValueFactory(data -> new SimpleStringProperty(data.getValue().producto()));
+        colCantidad.setCellValueFactory(data -> new SimpleObjectProperty<>(data.getValue().cantidad()));
         
-        colValorUnitario.setCellValueFactory(new PropertyValueFactory<>("valorUnitario"));
-        colValorUnitario.setCellFactory(col -> new TableCell<Gasto, BigDecimal>() {
+        colValorUnitario.setCellValueFactory(data -> new SimpleObjectProperty<>(data.getValue().valorUnitario()));
+        colValorUnitario.setCellFactory(col -> new TableCell<GastoFila, BigDecimal>() {
             @Override
             protected void updateItem(BigDecimal item, boolean empty) {
                 super.updateItem(item, empty);
@@ -441,8 +462,8 @@ public class RegistroGastoController {
             }
         });
         
-        colTotal.setCellValueFactory(new PropertyValueFactory<>("valorTotal"));
-        colTotal.setCellFactory(col -> new TableCell<Gasto, BigDecimal>() {
+        colTotal.setCellValueFactory(data -> new SimpleObjectProperty<>(data.getValue().valorTotal()));
+        colTotal.setCellFactory(col -> new TableCell<GastoFila, BigDecimal>() {
             @Override
             protected void updateItem(BigDecimal item, boolean empty) {
                 super.updateItem(item, empty);
@@ -458,7 +479,7 @@ public class RegistroGastoController {
         System.out.println("👤 Usuario ID: " + usuarioId);
         
         try {
-            List<Gasto> gastos = gastoService.obtenerUltimosGastos(usuarioId, 10);
+            List<GastoFila> gastos = gastoService.obtenerUltimosGastos(usuarioId, 10);
             
             System.out.println("📊 Total de gastos obtenidos: " + gastos.size());
             System.out.println("───────────────────────────────────────");
@@ -472,15 +493,15 @@ public class RegistroGastoController {
             } else {
                 System.out.println("✅ GASTOS ENCONTRADOS:");
                 int contador = 1;
-                for (Gasto g : gastos) {
+                for (GastoFila g : gastos) {
                     System.out.println(String.format(
                         "  %d. ID: %-3d | %s | %-20s | Cant: %-2d | $%s",
                         contador++,
-                        g.getId(),
-                        g.getFecha(),
-                        g.getProducto(),
-                        g.getCantidad(),
-                        g.getValorTotal()
+                        g.id(),
+                        g.fecha(),
+                        g.producto(),
+                        g.cantidad(),
+                        g.valorTotal()
                     ));
                 }
             }
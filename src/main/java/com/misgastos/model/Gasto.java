@@ -2,15 +2,33 @@ package com.misgastos.model;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.Locale;
 
 @Data
 @Entity
 @Table(name = "gastos")
+// Planes de carga de las asociaciones LAZY (ver @EntityGraph en GastoRepository)
+@NamedEntityGraph(name = Gasto.GRAFO_REPORTE, attributeNodes = {
+    @NamedAttributeNode("categoria"),
+    @NamedAttributeNode("subcategoria")
+})
+@NamedEntityGraph(name = Gasto.GRAFO_COMPLETO, attributeNodes = {
+    @NamedAttributeNode("usuario"),
+    @NamedAttributeNode("categoria"),
+    @NamedAttributeNode("subcategoria")
+})
 public class Gasto {
     
+    // Reportes e informes: solo categoría y subcategoría
+    public static final String GRAFO_REPORTE = "Gasto.reporte";
+    // Tablas por usuario y edición: todas las asociaciones
+    public static final String GRAFO_COMPLETO = "Gasto.completo";
+    
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -21,21 +39,31 @@ public class Gasto {
     @Column(nullable = false)
     private LocalTime hora;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @JoinColumn(name = "usuario_id", nullable = false)
     private Usuario usuario;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @JoinColumn(name = "categoria_id", nullable = false)
     private Categoria categoria;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @JoinColumn(name = "subcategoria_id", nullable = false)
     private Subcategoria subcategoria;
     
     @Column(nullable = false, length = 100)
     private String producto;
     
+    // Producto sin espacios repetidos y en mayúsculas, para búsquedas por índice
+    @Column(name = "producto_normalizado", length = 100)
+    private String productoNormalizado;
+    
     @Column(nullable = false)
     private Integer cantidad;
     
@@ -50,6 +78,21 @@ public class Gasto {
     
     @Column(length = 20)
     private String cedula;
+    
+    // Mantener la clave normalizada del producto al guardar
+    @PrePersist
+    @PreUpdate
+    public void calcularProductoNormalizado() {
+        this.productoNormalizado = normalizarProducto(producto);
+    }
+    
+    /**
+     * Clave de comparación de productos: recorta, colapsa espacios y pasa a mayúsculas.
+     */
+    public static String normalizarProducto(String producto) {
+        if (producto == null) return null;
+        return producto.trim().replaceAll("\\s+", " ").toUpperCase(Locale.ROOT);
+    }
 
     // Tus getters y setters existentes...
     public Long getId() { return id; }
@@ -66,6 +109,8 @@ public class Gasto {
     public void setSubcategoria(Subcategoria subcategoria) { this.subcategoria = subcategoria; }
     public String getProducto() { return producto; }
     public void setProducto(String producto) { this.producto = producto; }
+    public String getProductoNormalizado() { return productoNormalizado; }
+    public void setProductoNormalizado(String productoNormalizado) { this.productoNormalizado = productoNormalizado; }
     public Integer getCantidad() { return cantidad; }
     public void setCantidad(Integer cantidad) { this.cantidad = cantidad; }
     public BigDecimal getValorUnitario() { return valorUnitario; }
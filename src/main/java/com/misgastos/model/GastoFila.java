@@ -0,0 +1,30 @@
+package com.misgastos.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Fila de solo lectura para las tablas de gastos. No es una entidad: se llena
+ * con "SELECT new" en GastoRepository, sin cargar usuario, categoría ni
+ * subcategoría completos y sin que Hibernate la rastree.
+ */
+public record GastoFila(
+    Long id,
+    LocalDate fecha,
+    LocalTime hora,
+    String producto,
+    String categoria,
+    String subcategoria,
+    Integer cantidad,
+    BigDecimal valorUnitario,
+    BigDecimal valorTotal,
+    String notas
+) {
+
+    // Hay pocas categorías y subcategorías: compartir el mismo String entre filas
+    public GastoFila {
+        categoria = categoria != null ? categoria.intern() : null;
+        subcategoria = subcategoria != null ? subcategoria.intern() : null;
+    }
+}
@@ -0,0 +1,122 @@
+package com.misgastos.model;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Totales diarios de gastos por (fecha, categoría, subcategoría, usuario).
+ * Se mantiene en la misma transacción que cada alta, edición o borrado de Gasto.
+ */
+@Entity
+@Table(
+    name = "gastos_resumen_diario",
+    uniqueConstraints = @UniqueConstraint(
+        name = "uk_resumen_diario_clave",
+        columnNames = {"fecha", "categoria_id", "subcategoria_id", "usuario_id"}
+    )
+)
+public class GastoResumenDiario {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    private LocalDate fecha;
+    
+    @Column(name = "categoria_id", nullable = false)
+    private Long categoriaId;
+    
+    @Column(name = "subcategoria_id", nullable = false)
+    private Long subcategoriaId;
+    
+    @Column(name = "usuario_id", nullable = false)
+    private Long usuarioId;
+    
+    // Número de gastos registrados
+    @Column(nullable = false)
+    private Long numeroGastos = 0L;
+    
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal totalValor = BigDecimal.ZERO;
+    
+    @Column(nullable = false)
+    private Long totalCantidad = 0L;
+    
+    // Constructor vacío
+    public GastoResumenDiario() {
+    }
+    
+    public GastoResumenDiario(LocalDate fecha, Long categoriaId, Long subcategoriaId, Long usuarioId) {
+        this.fecha = fecha;
+        this.categoriaId = categoriaId;
+        this.subcategoriaId = subcategoriaId;
+        this.usuarioId = usuarioId;
+    }
+    
+    // Getters y Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public LocalDate getFecha() {
+        return fecha;
+    }
+    
+    public void setFecha(LocalDate fecha) {
+        this.fecha = fecha;
+    }
+    
+    public Long getCategoriaId() {
+        return categoriaId;
+    }
+    
+    public void setCategoriaId(Long categoriaId) {
+        this.categoriaId = categoriaId;
+    }
+    
+    public Long getSubcategoriaId() {
+        return subcategoriaId;
+    }
+    
+    public void setSubcategoriaId(Long subcategoriaId) {
+        this.subcategoriaId = subcategoriaId;
+    }
+    
+    public Long getUsuarioId() {
+        return usuarioId;
+    }
+    
+    public void setUsuarioId(Long usuarioId) {
+        this.usuarioId = usuarioId;
+    }
+    
+    public Long getNumeroGastos() {
+        return numeroGastos;
+    }
+    
+    public void setNumeroGastos(Long numeroGastos) {
+        this.numeroGastos = numeroGastos;
+    }
+    
+    public BigDecimal getTotalValor() {
+        return totalValor;
+    }
+    
+    public void setTotalValor(BigDecimal totalValor) {
+        this.totalValor = totalValor;
+    }
+    
+    public Long getTotalCantidad() {
+        return totalCantidad;
+    }
+    
+    public void setTotalCantidad(Long totalCantidad) {
+        this.totalCantidad = totalCantidad;
+    }
+}
@@ -1,6 +1,7 @@
 package com.misgastos.repository;
 
 import com.misgastos.model.AuditoriaLog;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -9,7 +10,14 @@ import java.util.List;
 @Repository
 public interface AuditoriaLogRepository extends JpaRepository<AuditoriaLog, Long> {
     
-    List<AuditoriaLog> findByUsuarioId(Long usuarioId);
+    // El usuario ya se conoce: no cargarlo. Lo más reciente primero (idx_auditoria_usuario_fecha)
+    List<AuditoriaLog> findByUsuarioIdOrderByFechaDesc(Long usuarioId);
     
+    // Listados generales: mostrar quién hizo cada acción
+    @Override
+    @EntityGraph(attributePaths = "usuario")
+    List<AuditoriaLog> findAll();
+    
+    @EntityGraph(attributePaths = "usuario")
     List<AuditoriaLog> findTop50ByOrderByFechaDesc();
 }
\ No newline at end of file
@@ -1,14 +1,22 @@
 package com.misgastos.repository;
 
 import com.misgastos.model.Gasto;
+import com.misgastos.model.GastoFila;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -16,10 +24,24 @@ import org.springframework.data.domain.Pageable;
 @Repository
 public interface GastoRepository extends JpaRepository<Gasto, Long> {
     
+    // Las asociaciones de Gasto son LAZY: cada consulta de entidades declara con
+    // @EntityGraph lo que usa quien la llama, en la misma sentencia SQL
+    
+    @Override
+    @EntityGraph(Gasto.GRAFO_COMPLETO)
+    Optional<Gasto> findById(Long id);
+    
+    @Override
+    @EntityGraph(Gasto.GRAFO_REPORTE)
+    List<Gasto> findAll();
+    
+    @EntityGraph(Gasto.GRAFO_COMPLETO)
     List<Gasto> findByUsuarioId(Long usuarioId);
     
+    @EntityGraph(Gasto.GRAFO_REPORTE)
     List<Gasto> findByFechaBetween(LocalDate inicio, LocalDate fin);
     
+    @EntityGraph(Gasto.GRAFO_REPORTE)
     List<Gasto> findByCategoriaId(Long categoriaId);
     
     @Query("SELECT SUM(g.valorTotal) FROM Gasto g WHERE g.fecha BETWEEN :inicio AND :fin")
@@ -31,55 +53,206 @@ public interface GastoRepository extends JpaRepository<Gasto, Long> {
     @Query("SELECT g.producto, SUM(g.valorTotal) FROM Gasto g GROUP BY g.producto ORDER BY SUM(g.valorTotal) DESC")
     List<Object[]> topProductos();
     
+    // Las consultas que devuelven GastoFila alimentan las tablas (proyección, sin entidades)
     @Query("""
-        SELECT g FROM Gasto g
+        SELECT new com.misgastos.model.GastoFila(
+            g.id, g.fecha, g.hora, g.producto, c.nombre, s.nombre,
+            g.cantidad, g.valorUnitario, g.valorTotal, g.notas)
+        FROM Gasto g JOIN g.categoria c JOIN g.subcategoria s
         WHERE g.usuario.id = :usuarioId
         ORDER BY g.fecha DESC, g.hora DESC
     """)
-    List<Gasto> findUltimosPorUsuario(
+    List<GastoFila> findUltimosPorUsuario(
         @Param("usuarioId") Long usuarioId,
         Pageable pageable
     );
 
-    default List<Gasto> findUltimosPorUsuario(Long usuarioId, int limite) {
+    default List<GastoFila> findUltimosPorUsuario(Long usuarioId, int limite) {
         return findUltimosPorUsuario(usuarioId, PageRequest.of(0, limite));
     }
     
+    // Paginación por clave (keyset) de ListaGastos: id descendente sin OFFSET,
+    // cada página arranca donde terminó la anterior
     @Query("""
-        SELECT DISTINCT g.producto
-        FROM Gasto g
-        WHERE UPPER(g.producto) LIKE UPPER(CONCAT('%', :texto, '%'))
-        ORDER BY g.producto
-    """)
-    List<String> buscarProductos(@Param("texto") String texto);
-    
-    @Query("""
-        SELECT CASE WHEN COUNT(g) > 0 THEN true ELSE false END
-        FROM Gasto g
-        WHERE UPPER(TRIM(REPLACE(REPLACE(g.producto, '  ', ' '), '  ', ' '))) 
-            = UPPER(TRIM(REPLACE(REPLACE(:producto, '  ', ' '), '  ', ' ')))
+        SELECT new com.misgastos.model.GastoFila(
+            g.id, g.fecha, g.hora, g.producto, c.nombre, s.nombre,
+            g.cantidad, g.valorUnitario, g.valorTotal, g.notas)
+        FROM Gasto g JOIN g.categoria c JOIN g.subcategoria s
+        WHERE g.id < :antesDeId
+        ORDER BY g.id DESC
     """)
-    boolean existeProducto(@Param("producto") String producto);
+    List<GastoFila> paginaAntesDe(@Param("antesDeId") Long antesDeId, Pageable pageable);
 
+    // Igual que paginaAntesDe, filtrando por producto (normalizado) o por las
+    // categorías cuyo nombre coincide (resueltas en Java: UPPER de SQLite solo
+    // conoce ASCII). El patrón escapa sus comodines con '\'
     @Query("""
-        SELECT g
-        FROM Gasto g
-        WHERE UPPER(TRIM(REPLACE(REPLACE(g.producto, '  ', ' '), '  ', ' '))) 
-            = UPPER(TRIM(REPLACE(REPLACE(:producto, '  ', ' '), '  ', ' ')))
-        ORDER BY g.fecha DESC, g.hora DESC
+        SELECT new com.misgastos.model.GastoFila(
+            g.id, g.fecha, g.hora, g.producto, c.nombre, s.nombre,
+            g.cantidad, g.valorUnitario, g.valorTotal, g.notas)
+        FROM Gasto g JOIN g.categoria c JOIN g.subcategoria s
+        WHERE g.id < :antesDeId
+          AND (g.productoNormalizado LIKE :patron ESCAPE '\\' OR c.id IN :categorias)
+        ORDER BY g.id DESC
     """)
-    List<Gasto> ultimosGastosPorProducto(@Param("producto") String producto);
+    List<GastoFila> paginaFiltradaAntesDe(
+        @Param("antesDeId") Long antesDeId,
+        @Param("patron") String patron,
+        @Param("categorias") Collection<Long> categorias,
+        Pageable pageable
+    );
+
+    // Productos con número de compras y última fecha (carga de ProductoIndex)
+    @Query("SELECT g.producto, COUNT(g), MAX(g.fecha) FROM Gasto g GROUP BY g.producto")
+    List<Object[]> resumirPorProducto();
+
+    // Lo mismo para las formas escritas de un producto normalizado (refresco de ProductoIndex)
+    @Query("SELECT g.producto, COUNT(g), MAX(g.fecha) FROM Gasto g WHERE g.productoNormalizado = :productoNormalizado GROUP BY g.producto")
+    List<Object[]> resumirProducto(@Param("productoNormalizado") String productoNormalizado);
+
+    // Búsqueda exacta por producto normalizado (ver Gasto.normalizarProducto)
+    boolean existsByProductoNormalizado(String productoNormalizado);
 
+    // Última compra de cada producto, de la más antigua a la más reciente (carga de
+    // UltimaCompraCache). En SQLite las columnas sin agregar toman la fila del MAX.
+    @Query(value = """
+        SELECT producto_normalizado, categoria_id, subcategoria_id, CAST(valor_unitario AS TEXT),
+               cantidad, id, fecha, hora, MAX(fecha || ' ' || hora) AS ultima
+        FROM gastos
+        WHERE producto_normalizado IS NOT NULL
+        GROUP BY producto_normalizado
+        ORDER BY ultima
+    """, nativeQuery = true)
+    List<Object[]> ultimaCompraPorProducto();
+
+    // Última compra de un producto, mismas columnas que ultimaCompraPorProducto
+    @Query(value = """
+        SELECT producto_normalizado, categoria_id, subcategoria_id, CAST(valor_unitario AS TEXT),
+               cantidad, id, fecha, hora
+        FROM gastos
+        WHERE producto_normalizado = :productoNormalizado
+        ORDER BY fecha DESC, hora DESC
+        LIMIT 1
+    """, nativeQuery = true)
+    List<Object[]> ultimaCompraDeProducto(@Param("productoNormalizado") String productoNormalizado);
+
+    @EntityGraph(Gasto.GRAFO_REPORTE)
     @Query("SELECT g FROM Gasto g WHERE g.fecha = :fecha ORDER BY g.hora DESC")
     List<Gasto> findByFechaExacta(@Param("fecha") LocalDate fecha);
 
-    @Query("SELECT g FROM Gasto g WHERE g.usuario.id = :usuarioId AND g.fecha BETWEEN :inicio AND :fin ORDER BY g.fecha DESC, g.hora DESC")
-    List<Gasto> findByUsuarioAndFechaBetween(
+    @Query("""
+        SELECT new com.misgastos.model.GastoFila(
+            g.id, g.fecha, g.hora, g.producto, c.nombre, s.nombre,
+            g.cantidad, g.valorUnitario, g.valorTotal, g.notas)
+        FROM Gasto g JOIN g.categoria c JOIN g.subcategoria s
+        WHERE g.usuario.id = :usuarioId AND g.fecha BETWEEN :inicio AND :fin
+        ORDER BY g.fecha DESC, g.hora DESC
+    """)
+    List<GastoFila> findByUsuarioAndFechaBetween(
         @Param("usuarioId") Long usuarioId,
         @Param("inicio") LocalDate inicio,
         @Param("fin") LocalDate fin
     );
+
+    @Query("""
+        SELECT new com.misgastos.model.GastoFila(
+            g.id, g.fecha, g.hora, g.producto, c.nombre, s.nombre,
+            g.cantidad, g.valorUnitario, g.valorTotal, g.notas)
+        FROM Gasto g JOIN g.categoria c JOIN g.subcategoria s
+        WHERE g.usuario.id = :usuarioId AND g.fecha BETWEEN :inicio AND :fin
+          AND g.productoNormalizado LIKE :patron ESCAPE '\\'
+        ORDER BY g.fecha DESC, g.hora DESC
+    """)
+    List<GastoFila> findByUsuarioAndFechaBetweenAndProducto(
+        @Param("usuarioId") Long usuarioId,
+        @Param("inicio") LocalDate inicio,
+        @Param("fin") LocalDate fin,
+        @Param("patron") String patron
+    );
+
+    // Exportaciones grandes: se recorren fila a fila (Stream) dentro de una
+    // transacción de solo lectura, sin armar la lista completa en memoria
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("""
+        SELECT new com.misgastos.model.GastoFila(
+            g.id, g.fecha, g.hora, g.producto, c.nombre, s.nombre,
+            g.cantidad, g.valorUnitario, g.valorTotal, g.notas)
+        FROM Gasto g JOIN g.categoria c JOIN g.subcategoria s
+        ORDER BY g.id
+    """)
+    Stream<GastoFila> streamTodos();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("""
+        SELECT new com.misgastos.model.GastoFila(
+            g.id, g.fecha, g.hora, g.producto, c.nombre, s.nombre,
+            g.cantidad, g.valorUnitario, g.valorTotal, g.notas)
+        FROM Gasto g JOIN g.categoria c JOIN g.subcategoria s
+        WHERE g.fecha BETWEEN :inicio AND :fin
+        ORDER BY g.fecha, g.hora, g.id
+    """)
+    Stream<GastoFila> streamPorPeriodo(@Param("inicio") LocalDate inicio, @Param("fin") LocalDate fin);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("""
+        SELECT new com.misgastos.model.GastoFila(
+            g.id, g.fecha, g.hora, g.producto, c.nombre, s.nombre,
+            g.cantidad, g.valorUnitario, g.valorTotal, g.notas)
+        FROM Gasto g JOIN g.categoria c JOIN g.subcategoria s
+        WHERE g.fecha BETWEEN :inicio AND :fin
+          AND (g.productoNormalizado LIKE :patron ESCAPE '\\' OR c.id IN :categorias)
+        ORDER BY g.fecha, g.hora, g.id
+    """)
+    Stream<GastoFila> streamPorPeriodoFiltrado(
+        @Param("inicio") LocalDate inicio,
+        @Param("fin") LocalDate fin,
+        @Param("patron") String patron,
+        @Param("categorias") Collection<Long> categorias
+    );
     
+    // Informes que necesitan la entidad (categoría y subcategoría en el mismo
+    // SELECT): mismo recorrido, entidades de solo lectura sin copia para dirty checking
+    @EntityGraph(Gasto.GRAFO_REPORTE)
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT g FROM Gasto g WHERE g.fecha BETWEEN :inicio AND :fin ORDER BY g.fecha, g.hora, g.id")
+    Stream<Gasto> streamGastosPorPeriodo(@Param("inicio") LocalDate inicio, @Param("fin") LocalDate fin);
+
+    @EntityGraph(Gasto.GRAFO_REPORTE)
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+        SELECT g FROM Gasto g
+        WHERE g.fecha BETWEEN :inicio AND :fin AND g.productoNormalizado = :productoNormalizado
+        ORDER BY g.fecha DESC, g.hora DESC, g.id DESC
+    """)
+    Stream<Gasto> streamGastosPorPeriodoYProducto(
+        @Param("inicio") LocalDate inicio,
+        @Param("fin") LocalDate fin,
+        @Param("productoNormalizado") String productoNormalizado
+    );
+
+    // Informe por categoría: solo los gastos de la categoría (idx_gastos_categoria_fecha)
+    @EntityGraph(Gasto.GRAFO_REPORTE)
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+        SELECT g FROM Gasto g
+        WHERE g.categoria.id = :categoriaId AND g.fecha BETWEEN :inicio AND :fin
+        ORDER BY g.fecha, g.hora, g.id
+    """)
+    Stream<Gasto> streamGastosPorPeriodoYCategoria(
+        @Param("inicio") LocalDate inicio,
+        @Param("fin") LocalDate fin,
+        @Param("categoriaId") Long categoriaId
+    );
+
     // ✅ SUMA TOTAL POR RANGO DE FECHAS
     @Query("SELECT COALESCE(SUM(g.valorTotal), 0) FROM Gasto g WHERE g.fecha BETWEEN :inicio AND :fin")
     BigDecimal sumByFechaBetween(@Param("inicio") LocalDate inicio, @Param("fin") LocalDate fin);
@@ -96,4 +269,30 @@ public interface GastoRepository extends JpaRepository<Gasto, Long> {
     @Query(value = "SELECT COALESCE(SUM(valor_total), 0) FROM gastos WHERE fecha = :fecha AND categoria_id = :categoriaId", nativeQuery = true)
     BigDecimal sumByFechaAndCategoriaId(@Param("fecha") String fecha, @Param("categoriaId") Long categoriaId);
 
+    // ✅ SUMAS AGRUPADAS POR DÍA (TOTAL, PAGOS MANUEL, INVERSIÓN) EN UNA SOLA CONSULTA
+    @Query("""
+        SELECT g.fecha,
+               COALESCE(SUM(g.valorTotal), 0),
+               COALESCE(SUM(CASE WHEN g.categoria.id = :categoriaPagos THEN g.valorTotal ELSE 0 END), 0),
+               COALESCE(SUM(CASE WHEN g.categoria.id = :categoriaInversion THEN g.valorTotal ELSE 0 END), 0)
+        FROM Gasto g
+        WHERE g.fecha BETWEEN :inicio AND :fin
+        GROUP BY g.fecha
+    """)
+    List<Object[]> sumarPorDiaConCategorias(
+        @Param("inicio") LocalDate inicio,
+        @Param("fin") LocalDate fin,
+        @Param("categoriaPagos") Long categoriaPagos,
+        @Param("categoriaInversion") Long categoriaInversion
+    );
+
+    // ✅ AGRUPACIÓN (fecha, categoría, subcategoría, usuario) PARA VERIFICAR EL RESUMEN DIARIO
+    @Query("""
+        SELECT g.fecha, g.categoria.id, g.subcategoria.id, g.usuario.id,
+               COUNT(g), SUM(g.valorTotal), SUM(g.cantidad)
+        FROM Gasto g
+        GROUP BY g.fecha, g.categoria.id, g.subcategoria.id, g.usuario.id
+    """)
+    List<Object[]> resumirPorDiaCategoriaSubcategoriaUsuario();
+
 }
\ No newline at end of file
@@ -0,0 +1,56 @@
+package com.misgastos.repository;
+
+import com.misgastos.model.GastoResumenDiario;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface GastoResumenDiarioRepository extends JpaRepository<GastoResumenDiario, Long> {
+    
+    Optional<GastoResumenDiario> findByFechaAndCategoriaIdAndSubcategoriaIdAndUsuarioId(
+        LocalDate fecha, Long categoriaId, Long subcategoriaId, Long usuarioId);
+    
+    // ✅ SUMA TOTAL POR RANGO DE FECHAS (desde el resumen)
+    @Query("SELECT COALESCE(SUM(r.totalValor), 0) FROM GastoResumenDiario r WHERE r.fecha BETWEEN :inicio AND :fin")
+    BigDecimal sumByFechaBetween(@Param("inicio") LocalDate inicio, @Param("fin") LocalDate fin);
+    
+    // ✅ TOTALES POR DÍA DEL RANGO
+    @Query("""
+        SELECT r.fecha, SUM(r.totalValor)
+        FROM GastoResumenDiario r
+        WHERE r.fecha BETWEEN :inicio AND :fin
+        GROUP BY r.fecha
+    """)
+    List<Object[]> sumarPorDia(@Param("inicio") LocalDate inicio, @Param("fin") LocalDate fin);
+    
+    // ✅ TOTALES POR NOMBRE DE CATEGORÍA
+    @Query("""
+        SELECT c.nombre, SUM(r.totalValor)
+        FROM GastoResumenDiario r JOIN Categoria c ON c.id = r.categoriaId
+        GROUP BY c.nombre
+    """)
+    List<Object[]> sumarPorCategoria();
+    
+    // 🔄 RECONSTRUIR DESDE LA TABLA gastos
+    @Modifying
+    @Query(value = "DELETE FROM gastos_resumen_diario", nativeQuery = true)
+    int vaciar();
+    
+    @Modifying
+    @Query(value = """
+        INSERT INTO gastos_resumen_diario
+            (fecha, categoria_id, subcategoria_id, usuario_id, numero_gastos, total_valor, total_cantidad)
+        SELECT fecha, categoria_id, subcategoria_id, usuario_id, COUNT(*), SUM(valor_total), SUM(cantidad)
+        FROM gastos
+        GROUP BY fecha, categoria_id, subcategoria_id, usuario_id
+    """, nativeQuery = true)
+    int reconstruirDesdeGastos();
+}
@@ -1,9 +1,13 @@
 package com.misgastos.repository;
 
 import com.misgastos.model.SesionRecordada;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -16,4 +20,8 @@ public interface SesionRecordadaRepository extends JpaRepository<SesionRecordada
     void deleteByUsuarioId(Long usuarioId);
     
     void deleteByFechaExpiracionBefore(LocalDateTime fecha);
+    
+    // Barrido por lotes: ids de sesiones expiradas (idx_sesiones_expiracion)
+    @Query("SELECT s.id FROM SesionRecordada s WHERE s.fechaExpiracion < :fecha ORDER BY s.fechaExpiracion")
+    List<Long> findIdsExpiradas(@Param("fecha") LocalDateTime fecha, Pageable pagina);
 }
\ No newline at end of file
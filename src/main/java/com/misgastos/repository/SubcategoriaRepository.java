@@ -2,6 +2,7 @@ package com.misgastos.repository;
 
 import com.misgastos.model.Subcategoria;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
 import java.util.Optional;
@@ -15,4 +16,8 @@ public interface SubcategoriaRepository extends JpaRepository<Subcategoria, Long
         String nombre
     );
 
+    // Todas con su categoría en una sola consulta (carga de DatosReferenciaCache)
+    @Query("SELECT s FROM Subcategoria s JOIN FETCH s.categoria ORDER BY s.id")
+    List<Subcategoria> findAllConCategoria();
+
 }
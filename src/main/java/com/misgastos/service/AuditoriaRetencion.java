@@ -0,0 +1,123 @@
+package com.misgastos.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Retención del registro de auditoría. auditoria_logs solo guarda los últimos
+ * meses (misgastos.auditoria.retencion-meses); lo anterior se pasa a una tabla
+ * de archivo por mes (auditoria_logs_AAAA_MM) o se borra, según
+ * misgastos.auditoria.archivar. Las particiones de archivo más viejas que
+ * misgastos.auditoria.archivo-meses se eliminan (0 = conservarlas siempre).
+ *
+ * Así la tabla que leen las pantallas y en la que escribe AuditoriaService se
+ * mantiene pequeña. Se ejecuta al iniciar (DataInitializer); cada mes se mueve
+ * en su propia transacción.
+ */
+@Service
+public class AuditoriaRetencion {
+
+    static final String PREFIJO_ARCHIVO = "auditoria_logs_";
+    private static final DateTimeFormatter FORMATO_PARTICION = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${misgastos.auditoria.retencion-meses:12}")
+    private int retencionMeses;
+
+    @Value("${misgastos.auditoria.archivar:true}")
+    private boolean archivar;
+
+    @Value("${misgastos.auditoria.archivo-meses:0}")
+    private int archivoMeses;
+
+    public void compactar() {
+        compactar(YearMonth.now());
+    }
+
+    /**
+     * Deja en auditoria_logs los meses desde mesActual - retencion-meses + 1;
+     * devuelve cuántos registros salieron de la tabla.
+     */
+    public long compactar(YearMonth mesActual) {
+        long inicio = System.currentTimeMillis();
+        YearMonth primerMesRetenido = mesActual.minusMonths(Math.max(retencionMeses, 1) - 1L);
+
+        // auditoria_logs.fecha se guarda en milisegundos (hora local al convertir)
+        List<String> meses = jdbcTemplate.queryForList(
+            "SELECT DISTINCT strftime('%Y-%m', fecha / 1000, 'unixepoch', 'localtime') FROM auditoria_logs WHERE fecha < ?",
+            String.class, milis(primerMesRetenido));
+
+        long movidos = 0;
+        for (String texto : meses) {
+            YearMonth mes = YearMonth.parse(texto);
+            movidos += transactionTemplate.execute(status -> sacarMes(mes));
+        }
+
+        int eliminadas = archivoMeses > 0 ? eliminarParticionesAnteriores(mesActual.minusMonths(archivoMeses - 1L)) : 0;
+
+        if (movidos > 0 || eliminadas > 0) {
+            System.out.println("🗄️ Auditoría compactada: " + movidos + " registros "
+                + (archivar ? "archivados" : "borrados") + " de " + meses.size() + " meses, "
+                + eliminadas + " particiones eliminadas (" + (System.currentTimeMillis() - inicio) + " ms)");
+        }
+        return movidos;
+    }
+
+    private int sacarMes(YearMonth mes) {
+        long desde = milis(mes);
+        long hasta = milis(mes.plusMonths(1));
+        if (archivar) {
+            String tabla = particion(mes);
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + tabla + " ("
+                + "id integer primary key, accion varchar(100) not null, detalles varchar(500), "
+                + "fecha timestamp not null, usuario_id bigint not null)");
+            jdbcTemplate.update("INSERT OR IGNORE INTO " + tabla + " (id, accion, detalles, fecha, usuario_id) "
+                + "SELECT id, accion, detalles, fecha, usuario_id FROM auditoria_logs WHERE fecha >= ? AND fecha < ?",
+                desde, hasta);
+        }
+        return jdbcTemplate.update("DELETE FROM auditoria_logs WHERE fecha >= ? AND fecha < ?", desde, hasta);
+    }
+
+    private int eliminarParticionesAnteriores(YearMonth primerMesConservado) {
+        int eliminadas = 0;
+        String limite = particion(primerMesConservado);
+        for (String tabla : listarParticiones()) {
+            // Los nombres auditoria_logs_AAAA_MM se ordenan como las fechas
+            if (tabla.compareTo(limite) < 0) {
+                jdbcTemplate.execute("DROP TABLE " + tabla);
+                eliminadas++;
+            }
+        }
+        return eliminadas;
+    }
+
+    /** Tablas de archivo existentes, de la más antigua a la más reciente. */
+    public List<String> listarParticiones() {
+        return jdbcTemplate.queryForList(
+            "SELECT name FROM sqlite_master WHERE type = 'table' AND name GLOB 'auditoria_logs_[0-9][0-9][0-9][0-9]_[0-9][0-9]' ORDER BY name",
+            String.class);
+    }
+
+    static String particion(YearMonth mes) {
+        return PREFIJO_ARCHIVO + mes.format(FORMATO_PARTICION);
+    }
+
+    private static long milis(YearMonth mes) {
+        LocalDate dia = mes.atDay(1);
+        return dia.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
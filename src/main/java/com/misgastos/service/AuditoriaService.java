@@ -1,42 +1,282 @@
 package com.misgastos.service;
 
 import com.misgastos.model.AuditoriaLog;
-import com.misgastos.model.Usuario;
 import com.misgastos.repository.AuditoriaLogRepository;
 import com.misgastos.repository.UsuarioRepository;
+import com.misgastos.util.Transacciones;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Registro de auditoría asíncrono: registrarAccion solo encola el evento (al
+ * confirmarse la transacción de quien lo llama, para no auditar acciones que
+ * se deshicieron) y un único hilo escritor lo guarda en lotes, cada lote en
+ * una transacción. Así el login o un cambio de usuario no pagan una escritura
+ * más en SQLite.
+ *
+ * Si la cola se llena, quien registra espera un poco (contrapresión) y, si
+ * sigue llena, escribe el evento él mismo: nunca se pierde un evento. Al
+ * cerrar la aplicación se escribe todo lo pendiente.
+ */
 @Service
 @Transactional
 public class AuditoriaService {
-    
+
     @Autowired
     private AuditoriaLogRepository auditoriaLogRepository;
-    
+
     @Autowired
     private UsuarioRepository usuarioRepository;
-    
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${misgastos.auditoria.intervalo-ms:500}")
+    private long intervaloMs;
+
+    @Value("${misgastos.auditoria.tamano-lote:100}")
+    private int tamanoLote;
+
+    @Value("${misgastos.auditoria.capacidad-cola:10000}")
+    private int capacidadCola;
+
+    @Value("${misgastos.auditoria.espera-cola-ms:200}")
+    private long esperaColaMs;
+
+    private record Evento(Long usuarioId, String accion, String detalles, LocalDateTime fecha) {
+    }
+
+    // Cada lote en su propia transacción, aunque se vacíe desde un listado
+    private TransactionTemplate transactionTemplate;
+    private BlockingQueue<Evento> cola;
+    private Thread escritor;
+    private volatile boolean activo;
+
+    // Eventos encolados o tomados por el escritor que aún no están guardados
+    private final Object pendientesLock = new Object();
+    private long pendientes = 0;
+
+    private final AtomicLong eventosEscritos = new AtomicLong();
+    private final AtomicLong lotesEscritos = new AtomicLong();
+    private final AtomicLong escriturasDirectas = new AtomicLong();
+    private final AtomicLong eventosDescartados = new AtomicLong();
+
+    @PostConstruct
+    public void iniciar() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        cola = new ArrayBlockingQueue<>(capacidadCola);
+        activo = true;
+        escritor = new Thread(this::escribirEnLotes, "auditoria-escritor");
+        escritor.setDaemon(true);
+        escritor.start();
+    }
+
+    /**
+     * El hilo escritor termina su lote en curso (a lo sumo espera un
+     * intervalo) y luego se guarda lo que quede en la cola.
+     */
+    @PreDestroy
+    public void detener() {
+        activo = false;
+        try {
+            escritor.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        vaciar();
+        System.out.println("📝 Auditoría cerrada: " + eventosEscritos + " eventos en " + lotesEscritos
+            + " lotes (" + escriturasDirectas + " escritos sin cola, " + eventosDescartados + " descartados)");
+    }
+
+    // ==================== REGISTRO ====================
+
     public void registrarAccion(Long usuarioId, String accion, String detalles) {
-        Usuario usuario = usuarioRepository.findById(usuarioId)
-            .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
-        
-        AuditoriaLog log = new AuditoriaLog();
-        log.setUsuario(usuario);
-        log.setAccion(accion);
-        log.setDetalles(detalles);
-        
-        auditoriaLogRepository.save(log);
-    }
-    
+        if (usuarioId == null) {
+            throw new RuntimeException("Usuario no encontrado");
+        }
+        Evento evento = new Evento(usuarioId, accion, detalles, LocalDateTime.now());
+        Transacciones.despuesDeConfirmar(() -> encolar(evento));
+    }
+
+    private void encolar(Evento evento) {
+        synchronized (pendientesLock) {
+            pendientes++;
+        }
+        boolean encolado;
+        try {
+            encolado = activo && cola.offer(evento, esperaColaMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            encolado = false;
+        }
+        if (!encolado) {
+            // Cola llena (o cerrando): el que registra paga la escritura
+            escriturasDirectas.incrementAndGet();
+            guardar(List.of(evento));
+        }
+    }
+
+    // ==================== ESCRITOR ====================
+
+    private void escribirEnLotes() {
+        List<Evento> lote = new ArrayList<>(tamanoLote);
+        while (activo) {
+            try {
+                Evento primero = cola.poll(intervaloMs, TimeUnit.MILLISECONDS);
+                if (primero == null) {
+                    continue;
+                }
+                lote.add(primero);
+
+                // Juntar más eventos hasta llenar el lote o agotar el intervalo
+                long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(intervaloMs);
+                while (lote.size() < tamanoLote) {
+                    cola.drainTo(lote, tamanoLote - lote.size());
+                    long restante = limite - System.nanoTime();
+                    if (lote.size() >= tamanoLote || restante <= 0) {
+                        break;
+                    }
+                    Evento siguiente = cola.poll(restante, TimeUnit.NANOSECONDS);
+                    if (siguiente == null) {
+                        break;
+                    }
+                    lote.add(siguiente);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                activo = false;
+            }
+            if (!lote.isEmpty()) {
+                guardar(lote);
+                lote = new ArrayList<>(tamanoLote);
+            }
+        }
+    }
+
+    // Las métricas cuentan solo lo que quedó guardado
+    private void guardar(List<Evento> eventos) {
+        int guardados = 0;
+        try {
+            transactionTemplate.executeWithoutResult(status -> auditoriaLogRepository.saveAll(aEntidades(eventos)));
+            guardados = eventos.size();
+        } catch (RuntimeException e) {
+            // Un evento inválido (p. ej. sin acción) no debe tirar el lote entero
+            if (eventos.size() > 1) {
+                for (Evento evento : eventos) {
+                    if (guardarUno(evento)) {
+                        guardados++;
+                    }
+                }
+            } else {
+                System.err.println("⚠️ No se pudo guardar el evento de auditoría " + eventos.get(0) + ": " + e.getMessage());
+            }
+        }
+        if (guardados > 0) {
+            lotesEscritos.incrementAndGet();
+        }
+        eventosEscritos.addAndGet(guardados);
+        eventosDescartados.addAndGet(eventos.size() - guardados);
+        liberar(eventos.size());
+    }
+
+    private boolean guardarUno(Evento evento) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> auditoriaLogRepository.saveAll(aEntidades(List.of(evento))));
+            return true;
+        } catch (RuntimeException e) {
+            System.err.println("⚠️ No se pudo guardar el evento de auditoría " + evento + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    // getReferenceById: el usuario solo hace falta como clave foránea
+    private List<AuditoriaLog> aEntidades(List<Evento> eventos) {
+        List<AuditoriaLog> logs = new ArrayList<>(eventos.size());
+        for (Evento evento : eventos) {
+            AuditoriaLog log = new AuditoriaLog();
+            log.setUsuario(usuarioRepository.getReferenceById(evento.usuarioId()));
+            log.setAccion(evento.accion());
+            log.setDetalles(evento.detalles());
+            log.setFecha(evento.fecha());
+            logs.add(log);
+        }
+        return logs;
+    }
+
+    private void liberar(int cantidad) {
+        synchronized (pendientesLock) {
+            pendientes -= cantidad;
+            pendientesLock.notifyAll();
+        }
+    }
+
+    /**
+     * Guarda ya lo que haya en la cola y espera al lote que el escritor tenga
+     * en curso. Los listados lo llaman para mostrar también lo recién registrado.
+     */
+    public void vaciar() {
+        List<Evento> resto = new ArrayList<>();
+        cola.drainTo(resto);
+        if (!resto.isEmpty()) {
+            guardar(resto);
+        }
+        synchronized (pendientesLock) {
+            long limite = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+            while (pendientes > 0 && System.currentTimeMillis() < limite) {
+                try {
+                    pendientesLock.wait(limite - System.currentTimeMillis());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    // ==================== CONSULTAS ====================
+
     public List<AuditoriaLog> listarTodos() {
+        vaciar();
         return auditoriaLogRepository.findAll();
     }
-    
+
     public List<AuditoriaLog> listarPorUsuario(Long usuarioId) {
-        return auditoriaLogRepository.findByUsuarioId(usuarioId);
+        vaciar();
+        return auditoriaLogRepository.findByUsuarioIdOrderByFechaDesc(usuarioId);
+    }
+
+    // ==================== MÉTRICAS ====================
+
+    public long getEventosEscritos() {
+        return eventosEscritos.get();
+    }
+
+    public long getLotesEscritos() {
+        return lotesEscritos.get();
+    }
+
+    public long getEscriturasDirectas() {
+        return escriturasDirectas.get();
+    }
+
+    /** Eventos que no se pudieron guardar (ni en lote ni uno a uno). */
+    public long getEventosDescartados() {
+        return eventosDescartados.get();
     }
-}
\ No newline at end of file
+}
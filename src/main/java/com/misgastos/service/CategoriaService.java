@@ -4,6 +4,7 @@ import com.misgastos.model.Categoria;
 import com.misgastos.model.Subcategoria;
 import com.misgastos.repository.CategoriaRepository;
 import com.misgastos.repository.SubcategoriaRepository;
+import com.misgastos.util.Transacciones;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -21,12 +22,17 @@ public class CategoriaService {
     @Autowired
     private SubcategoriaRepository subcategoriaRepository;
     
+    @Autowired
+    private DatosReferenciaCache datosReferenciaCache;
+    
     public Categoria crearCategoria(String nombre, String icono, String color) {
         Categoria categoria = new Categoria();
         categoria.setNombre(nombre);
         categoria.setIcono(icono);
         categoria.setColor(color);
-        return categoriaRepository.save(categoria);
+        Categoria guardada = categoriaRepository.save(categoria);
+        Transacciones.despuesDeConfirmar(datosReferenciaCache::invalidarCategorias);
+        return guardada;
     }
     
     public Subcategoria crearSubcategoria(String nombre, Long categoriaId) {
@@ -38,19 +44,22 @@ public class CategoriaService {
         Subcategoria subcategoria = new Subcategoria();
         subcategoria.setNombre(nombre);
         subcategoria.setCategoria(categoria.get());
-        return subcategoriaRepository.save(subcategoria);
+        Subcategoria guardada = subcategoriaRepository.save(subcategoria);
+        Transacciones.despuesDeConfirmar(datosReferenciaCache::invalidarCategorias);
+        return guardada;
     }
     
+    // Consultas desde la caché de datos de referencia (no van a SQLite)
     public List<Categoria> listarCategorias() {
-        return categoriaRepository.findAll();
+        return datosReferenciaCache.listarCategorias();
     }
     
     public List<Subcategoria> listarSubcategoriasPorCategoria(Long categoriaId) {
-        return subcategoriaRepository.findByCategoriaId(categoriaId);
+        return datosReferenciaCache.listarSubcategorias(categoriaId);
     }
     
     public Optional<Categoria> buscarCategoriaPorId(Long id) {
-        return categoriaRepository.findById(id);
+        return datosReferenciaCache.buscarCategoria(id);
     }
     
     public Categoria crearSiNoExiste(String nombre) {
@@ -62,6 +71,7 @@ public class CategoriaService {
             .orElseGet(() -> {
                 Categoria c = new Categoria();
                 c.setNombre(limpio);
+                Transacciones.despuesDeConfirmar(datosReferenciaCache::invalidarCategorias);
                 return categoriaRepository.save(c);
             });
     }
@@ -80,6 +90,7 @@ public class CategoriaService {
                     categoriaRepository.findById(categoriaId)
                         .orElseThrow(() -> new RuntimeException("Categoría no encontrada"))
                 );
+                Transacciones.despuesDeConfirmar(datosReferenciaCache::invalidarCategorias);
                 return subcategoriaRepository.save(s);
             });
     }
@@ -0,0 +1,91 @@
+package com.misgastos.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ejecuta vistas previas y exportaciones de informes fuera del hilo de JavaFX,
+ * en un pool pequeño con cola acotada. Se pueden encolar varias exportaciones;
+ * cada una informa su progreso y se puede cancelar.
+ */
+@Service
+public class ColaInformes {
+
+    @Value("${misgastos.informes.hilos:2}")
+    private int hilos;
+
+    @Value("${misgastos.informes.capacidad-cola:20}")
+    private int capacidadCola;
+
+    private final AtomicInteger contadorHilos = new AtomicInteger();
+    private final List<TrabajoInforme<?>> trabajos = new CopyOnWriteArrayList<>();
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void iniciar() {
+        executor = new ThreadPoolExecutor(hilos, hilos, 30, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(capacidadCola),
+            r -> {
+                Thread hilo = new Thread(r, "informes-" + contadorHilos.incrementAndGet());
+                hilo.setDaemon(true);
+                return hilo;
+            });
+    }
+
+    @PreDestroy
+    public void detener() {
+        trabajos.forEach(TrabajoInforme::cancelar);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Encola un informe. archivoSalida (opcional) se borra si el trabajo se
+     * cancela o falla.
+     */
+    public <T> TrabajoInforme<T> enviar(String descripcion, File archivoSalida, Callable<T> accion) {
+        return enviar(descripcion, archivoSalida, true, accion);
+    }
+
+    /**
+     * Igual, para exportaciones que publican archivoSalida de forma atómica
+     * (ExportacionInformes): si fallan no dejan nada que borrar y el archivo
+     * anterior se conserva.
+     */
+    public <T> TrabajoInforme<T> enviarAtomico(String descripcion, File archivoSalida, Callable<T> accion) {
+        return enviar(descripcion, archivoSalida, false, accion);
+    }
+
+    private <T> TrabajoInforme<T> enviar(String descripcion, File archivoSalida, boolean borrarSiFalla, Callable<T> accion) {
+        // Las vistas previas terminadas no se muestran en ninguna lista
+        trabajos.removeIf(t -> t.isTerminado() && t.getArchivoSalida() == null);
+        
+        TrabajoInforme<T> trabajo = new TrabajoInforme<>(descripcion, archivoSalida, borrarSiFalla, accion);
+        try {
+            trabajo.setFuture(executor.submit(trabajo::ejecutar));
+        } catch (RejectedExecutionException e) {
+            throw new RuntimeException("Hay demasiados informes en cola, espera a que terminen algunos");
+        }
+        trabajos.add(trabajo);
+        return trabajo;
+    }
+
+    public List<TrabajoInforme<?>> listar() {
+        return List.copyOf(trabajos);
+    }
+
+    public void limpiarTerminados() {
+        trabajos.removeIf(TrabajoInforme::isTerminado);
+    }
+}
@@ -0,0 +1,99 @@
+package com.misgastos.service;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Las quince cifras de la pantalla de inicio (hoy, semana, mes y año con su
+ * periodo anterior, más los últimos 7 días) calculadas de una sola lectura de
+ * totales diarios del resumen, en lugar de una consulta por cifra.
+ */
+public record DashboardSnapshot(
+    LocalDate hoy,
+    BigDecimal totalHoy,
+    BigDecimal totalAyer,
+    BigDecimal totalSemana,
+    BigDecimal totalSemanaAnterior,
+    BigDecimal totalMes,
+    BigDecimal totalMesAnterior,
+    BigDecimal totalAnio,
+    BigDecimal totalAnioAnterior,
+    Map<LocalDate, BigDecimal> ultimosDias
+) {
+
+    public static final int DIAS_GRAFICO = 7;
+
+    // El año anterior es el periodo que empieza antes; la semana actual puede
+    // terminar en enero del año siguiente
+    public static LocalDate inicioRango(LocalDate hoy) {
+        return hoy.withDayOfYear(1).minusYears(1);
+    }
+
+    public static LocalDate finRango(LocalDate hoy) {
+        LocalDate finAnio = hoy.with(TemporalAdjusters.lastDayOfYear());
+        LocalDate finSemana = hoy.with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY));
+        return finSemana.isAfter(finAnio) ? finSemana : finAnio;
+    }
+
+    /**
+     * Arma el snapshot a partir de los totales por día entre inicioRango(hoy) y
+     * finRango(hoy). Los días sin gastos pueden faltar en el mapa.
+     */
+    public static DashboardSnapshot desde(LocalDate hoy, Map<LocalDate, BigDecimal> totalesPorDia) {
+        LocalDate ayer = hoy.minusDays(1);
+
+        // Semana (lunes a domingo)
+        LocalDate inicioSemana = hoy.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        LocalDate finSemana = hoy.with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY));
+
+        LocalDate inicioMes = hoy.withDayOfMonth(1);
+        LocalDate finMes = hoy.with(TemporalAdjusters.lastDayOfMonth());
+
+        LocalDate inicioAnio = hoy.withDayOfYear(1);
+        LocalDate finAnio = hoy.with(TemporalAdjusters.lastDayOfYear());
+
+        BigDecimal hoyTotal = BigDecimal.ZERO;
+        BigDecimal ayerTotal = BigDecimal.ZERO;
+        BigDecimal semana = BigDecimal.ZERO;
+        BigDecimal semanaAnterior = BigDecimal.ZERO;
+        BigDecimal mes = BigDecimal.ZERO;
+        BigDecimal mesAnterior = BigDecimal.ZERO;
+        BigDecimal anio = BigDecimal.ZERO;
+        BigDecimal anioAnterior = BigDecimal.ZERO;
+
+        // Una pasada: cada día suma en todos los periodos que lo contienen
+        for (Map.Entry<LocalDate, BigDecimal> dia : totalesPorDia.entrySet()) {
+            LocalDate fecha = dia.getKey();
+            BigDecimal total = dia.getValue();
+            if (total == null) {
+                continue;
+            }
+            if (fecha.equals(hoy)) hoyTotal = hoyTotal.add(total);
+            if (fecha.equals(ayer)) ayerTotal = ayerTotal.add(total);
+            if (entre(fecha, inicioSemana, finSemana)) semana = semana.add(total);
+            if (entre(fecha, inicioSemana.minusWeeks(1), finSemana.minusWeeks(1))) semanaAnterior = semanaAnterior.add(total);
+            if (entre(fecha, inicioMes, finMes)) mes = mes.add(total);
+            if (entre(fecha, inicioMes.minusMonths(1), inicioMes.minusDays(1))) mesAnterior = mesAnterior.add(total);
+            if (entre(fecha, inicioAnio, finAnio)) anio = anio.add(total);
+            if (entre(fecha, inicioAnio.minusYears(1), finAnio.minusYears(1))) anioAnterior = anioAnterior.add(total);
+        }
+
+        Map<LocalDate, BigDecimal> ultimosDias = new LinkedHashMap<>();
+        for (int i = DIAS_GRAFICO - 1; i >= 0; i--) {
+            LocalDate fecha = hoy.minusDays(i);
+            ultimosDias.put(fecha, totalesPorDia.getOrDefault(fecha, BigDecimal.ZERO));
+        }
+
+        return new DashboardSnapshot(hoy, hoyTotal, ayerTotal, semana, semanaAnterior, mes, mesAnterior,
+            anio, anioAnterior, Collections.unmodifiableMap(ultimosDias));
+    }
+
+    private static boolean entre(LocalDate fecha, LocalDate inicio, LocalDate fin) {
+        return !fecha.isBefore(inicio) && !fecha.isAfter(fin);
+    }
+}
@@ -0,0 +1,145 @@
+package com.misgastos.service;
+
+import com.misgastos.model.Categoria;
+import com.misgastos.model.Subcategoria;
+import com.misgastos.model.Usuario;
+import com.misgastos.repository.CategoriaRepository;
+import com.misgastos.repository.SubcategoriaRepository;
+import com.misgastos.repository.UsuarioRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Caché en memoria de categorías, subcategorías y usuarios, que casi nunca cambian
+ * pero se consultan cada vez que se abre un ComboBox. Se carga en la primera
+ * consulta y se invalida (después del commit) desde CategoriaService y
+ * UsuarioService cuando se crean o modifican.
+ */
+@Component
+public class DatosReferenciaCache {
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private SubcategoriaRepository subcategoriaRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    // null = sin cargar
+    private List<Categoria> categorias;
+    private Map<Long, Categoria> categoriasPorId;
+    private Map<Long, Map<Long, Subcategoria>> subcategoriasPorCategoria;
+    private Map<Long, Subcategoria> subcategoriasPorId;
+    private Map<Long, Usuario> usuariosPorId;
+
+    private long aciertos = 0;
+    private long fallos = 0;
+
+    // ==================== CATEGORÍAS Y SUBCATEGORÍAS ====================
+
+    public synchronized List<Categoria> listarCategorias() {
+        cargarCategoriasSiHaceFalta();
+        return categorias;
+    }
+
+    public synchronized Optional<Categoria> buscarCategoria(Long id) {
+        cargarCategoriasSiHaceFalta();
+        return Optional.ofNullable(categoriasPorId.get(id));
+    }
+
+    public synchronized List<Subcategoria> listarSubcategorias(Long categoriaId) {
+        cargarCategoriasSiHaceFalta();
+        return List.copyOf(subcategoriasPorCategoria.getOrDefault(categoriaId, Map.of()).values());
+    }
+
+    public synchronized Optional<Subcategoria> buscarSubcategoria(Long id) {
+        cargarCategoriasSiHaceFalta();
+        return Optional.ofNullable(subcategoriasPorId.get(id));
+    }
+
+    public synchronized void invalidarCategorias() {
+        categorias = null;
+        categoriasPorId = null;
+        subcategoriasPorCategoria = null;
+        subcategoriasPorId = null;
+    }
+
+    private void cargarCategoriasSiHaceFalta() {
+        if (categorias != null) {
+            aciertos++;
+            return;
+        }
+        fallos++;
+
+        long inicio = System.currentTimeMillis();
+        List<Categoria> todas = categoriaRepository.findAll();
+        Map<Long, Categoria> porId = new HashMap<>();
+        todas.forEach(c -> porId.put(c.getId(), c));
+
+        Map<Long, Map<Long, Subcategoria>> agrupadas = new HashMap<>();
+        Map<Long, Subcategoria> subPorId = new HashMap<>();
+        for (Subcategoria sub : subcategoriaRepository.findAllConCategoria()) {
+            agrupadas.computeIfAbsent(sub.getCategoria().getId(), k -> new LinkedHashMap<>())
+                     .put(sub.getId(), sub);
+            subPorId.put(sub.getId(), sub);
+        }
+
+        categorias = List.copyOf(todas);
+        categoriasPorId = porId;
+        subcategoriasPorCategoria = agrupadas;
+        subcategoriasPorId = subPorId;
+
+        System.out.println("✅ Datos de referencia cargados: " + categorias.size() + " categorías, "
+            + subcategoriasPorId.size() + " subcategorías (" + (System.currentTimeMillis() - inicio) + " ms)");
+    }
+
+    // ==================== USUARIOS ====================
+
+    /**
+     * Copia del usuario sin la contraseña: quien la recibe no puede leer el hash
+     * ni modificar la instancia que comparten los demás.
+     */
+    public synchronized Optional<Usuario> buscarUsuario(Long id) {
+        if (usuariosPorId != null) {
+            aciertos++;
+        } else {
+            fallos++;
+            Map<Long, Usuario> porId = new HashMap<>();
+            usuarioRepository.findAll().forEach(u -> porId.put(u.getId(), copiaSinClave(u)));
+            usuariosPorId = porId;
+        }
+        return Optional.ofNullable(usuariosPorId.get(id)).map(DatosReferenciaCache::copiaSinClave);
+    }
+
+    private static Usuario copiaSinClave(Usuario usuario) {
+        Usuario copia = new Usuario();
+        copia.setId(usuario.getId());
+        copia.setUsername(usuario.getUsername());
+        copia.setRol(usuario.getRol());
+        copia.setActivo(usuario.getActivo());
+        copia.setFechaCreacion(usuario.getFechaCreacion());
+        return copia;
+    }
+
+    public synchronized void invalidarUsuarios() {
+        usuariosPorId = null;
+    }
+
+    // ==================== MÉTRICAS ====================
+
+    public synchronized long getAciertos() {
+        return aciertos;
+    }
+
+    public synchronized long getFallos() {
+        return fallos;
+    }
+}
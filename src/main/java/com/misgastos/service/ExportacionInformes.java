@@ -0,0 +1,195 @@
+package com.misgastos.service;
+
+import com.misgastos.util.ArchivoAtomico;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exportación de los informes de InformeService a PDF, a Excel o a ambos.
+ *
+ * Cada archivo se escribe en un temporal y se publica con un renombrado
+ * atómico (ArchivoAtomico). La exportación doble calcula el modelo del informe
+ * una vez (queda en InformeModeloCache) y luego dibuja el PDF en un hilo de
+ * exportación mientras el Excel se escribe en el hilo actual.
+ */
+@Service
+public class ExportacionInformes {
+
+    @Autowired
+    private InformeService informeService;
+
+    @Value("${misgastos.informes.hilos:2}")
+    private int hilos;
+
+    private final AtomicInteger contadorHilos = new AtomicInteger();
+    private ExecutorService executor;
+
+    /** Los informes de InformesController. */
+    public enum Tipo {
+        GENERAL, CATEGORIA, PRODUCTO, COMPARATIVO, DASHBOARD, SUBCATEGORIAS, ANUAL;
+
+        // A partir del texto del combo de InformesController
+        public static Tipo desdeNombre(String nombre) {
+            if (nombre.contains("General Mensual")) return GENERAL;
+            if (nombre.contains("Subcategorías")) return SUBCATEGORIAS;
+            if (nombre.contains("Categoría")) return CATEGORIA;
+            if (nombre.contains("Producto")) return PRODUCTO;
+            if (nombre.contains("Comparativo")) return COMPARATIVO;
+            if (nombre.contains("Dashboard")) return DASHBOARD;
+            return ANUAL;
+        }
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        executor = Executors.newFixedThreadPool(hilos, r -> {
+            Thread hilo = new Thread(r, "exportacion-" + contadorHilos.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    @PreDestroy
+    public void detener() {
+        executor.shutdownNow();
+    }
+
+    // ==================== UN FORMATO ====================
+
+    /** filtro es el nombre de la categoría o del producto, según el tipo. */
+    public void exportarPdf(Tipo tipo, LocalDate inicio, LocalDate fin, String filtro, File archivo) throws Exception {
+        escribirAtomico(archivo, temporal -> dibujarPdf(tipo, inicio, fin, filtro, temporal.getAbsolutePath()));
+    }
+
+    public void exportarExcel(Tipo tipo, LocalDate inicio, LocalDate fin, String filtro, File archivo) throws Exception {
+        escribirAtomico(archivo, temporal -> escribirExcel(tipo, inicio, fin, filtro, temporal.getAbsolutePath()));
+    }
+
+    // ==================== AMBOS FORMATOS ====================
+
+    /**
+     * Calcula el modelo una vez y escribe el PDF y el Excel a la vez. Si uno
+     * falla (o se cancela antes de publicar) se espera al otro y no se publica
+     * ninguno de los dos.
+     */
+    public void exportarPdfYExcel(Tipo tipo, LocalDate inicio, LocalDate fin, String filtro,
+                                  File archivoPdf, File archivoExcel) throws Exception {
+        long t0 = System.currentTimeMillis();
+        precalcular(tipo, inicio, fin, filtro);
+        long modeloMs = System.currentTimeMillis() - t0;
+
+        File temporalPdf = ArchivoAtomico.temporalPara(archivoPdf);
+        File temporalExcel = ArchivoAtomico.temporalPara(archivoExcel);
+        try {
+            Future<Void> pdf = executor.submit(ProgresoInforme.enEsteTrabajo(() -> {
+                dibujarPdf(tipo, inicio, fin, filtro, temporalPdf.getAbsolutePath());
+                return null;
+            }));
+
+            Exception error = null;
+            try {
+                escribirExcel(tipo, inicio, fin, filtro, temporalExcel.getAbsolutePath());
+            } catch (Exception e) {
+                error = e;
+            }
+            try {
+                esperar(pdf);
+            } catch (Exception e) {
+                if (error == null) {
+                    error = e;
+                }
+            }
+            if (error != null) {
+                throw error;
+            }
+
+            ProgresoInforme.confirmar();
+            ArchivoAtomico.publicarJuntos(temporalPdf, archivoPdf, temporalExcel, archivoExcel);
+        } finally {
+            ArchivoAtomico.descartar(temporalPdf);
+            ArchivoAtomico.descartar(temporalExcel);
+        }
+        System.out.println("✅ PDF + Excel " + tipo + " exportados (modelo " + modeloMs + " ms, total "
+            + (System.currentTimeMillis() - t0) + " ms)");
+    }
+
+    // Deja en InformeModeloCache los modelos que van a leer el PDF y el Excel
+    private void precalcular(Tipo tipo, LocalDate inicio, LocalDate fin, String filtro) {
+        switch (tipo) {
+            case CATEGORIA -> informeService.agregarCategoria(filtro, inicio, fin);
+            case PRODUCTO -> informeService.agregarProducto(filtro, inicio, fin);
+            case COMPARATIVO -> {
+                informeService.agregarComparacion(inicio, fin);
+                informeService.agregar(inicio, fin);
+            }
+            case ANUAL -> {
+                informeService.agregar(LocalDate.of(inicio.getYear(), 1, 1), LocalDate.of(inicio.getYear(), 12, 31));
+                informeService.agregar(inicio, fin);
+            }
+            default -> informeService.agregar(inicio, fin);
+        }
+    }
+
+    // ==================== DESPACHO ====================
+
+    private void dibujarPdf(Tipo tipo, LocalDate inicio, LocalDate fin, String filtro, String ruta) throws Exception {
+        switch (tipo) {
+            case GENERAL -> informeService.exportarInformeGeneralPDF(inicio, fin, ruta);
+            case CATEGORIA -> informeService.exportarInformeCategoriaPDF(filtro, inicio, fin, ruta);
+            case PRODUCTO -> informeService.exportarInformeProductoPDF(filtro, inicio, fin, ruta);
+            case DASHBOARD -> informeService.exportarDashboardPDF(inicio, fin, ruta);
+            case COMPARATIVO -> informeService.exportarComparativoPDF(inicio, fin, ruta);
+            case SUBCATEGORIAS -> informeService.exportarSubCategoriasPDF(inicio, fin, ruta);
+            case ANUAL -> informeService.exportarAnualPDF(inicio.getYear(), ruta);
+        }
+    }
+
+    // Comparativo, subcategorías y anual no tienen Excel propio: usan el general
+    private void escribirExcel(Tipo tipo, LocalDate inicio, LocalDate fin, String filtro, String ruta) throws Exception {
+        switch (tipo) {
+            case CATEGORIA -> informeService.exportarInformeCategoriaExcel(filtro, inicio, fin, ruta);
+            case PRODUCTO -> informeService.exportarInformeProductoExcel(filtro, inicio, fin, ruta);
+            case DASHBOARD -> informeService.exportarDashboardExcel(inicio, fin, ruta);
+            default -> informeService.exportarInformeGeneralExcel(inicio, fin, ruta);
+        }
+    }
+
+    private void escribirAtomico(File archivo, Escritura escritura) throws Exception {
+        File temporal = ArchivoAtomico.temporalPara(archivo);
+        try {
+            escritura.escribir(temporal);
+            ProgresoInforme.confirmar();
+            ArchivoAtomico.publicar(temporal, archivo);
+        } finally {
+            ArchivoAtomico.descartar(temporal);
+        }
+    }
+
+    // Devuelve el error original del hilo de exportación (también la cancelación)
+    private static void esperar(Future<Void> tarea) throws Exception {
+        try {
+            tarea.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Escritura {
+        void escribir(File temporal) throws Exception;
+    }
+}
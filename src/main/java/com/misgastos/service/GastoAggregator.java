@@ -0,0 +1,262 @@
+package com.misgastos.service;
+
+import com.misgastos.model.Gasto;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Medidas de los informes calculadas en una sola pasada: totales, conteos,
+ * mínimos y máximos, y desgloses por mes, categoría, subcategoría y producto.
+ * Las versiones texto, PDF y Excel de un informe leen el mismo agregado en
+ * lugar de volver a recorrer los gastos cada una.
+ *
+ * Se alimenta con accept (es un Consumer de Gasto, pensado para
+ * GastoService.recorrerGastosPorPeriodo) y no guarda los gastos: la memoria
+ * depende de cuántas categorías y productos hay, no de cuántos gastos.
+ */
+public class GastoAggregator implements Consumer<Gasto> {
+
+    public static final String SIN_SUBCATEGORIA = "Sin subcategoría";
+    public static final String PRODUCTO_NO_ESPECIFICADO = "Producto no especificado";
+
+    // Compras que se conservan para los historiales ("últimas 10")
+    public static final int LIMITE_RECIENTES = 10;
+
+    /** Total y número de compras de un grupo (categoría, producto...). */
+    public static final class Medida {
+        private BigDecimal total = BigDecimal.ZERO;
+        private long compras;
+
+        private void sumar(BigDecimal valor) {
+            total = total.add(valor);
+            compras++;
+        }
+
+        public BigDecimal getTotal() {
+            return total;
+        }
+
+        public long getCompras() {
+            return compras;
+        }
+    }
+
+    /** Lo que los historiales muestran de una compra (sin la entidad). */
+    public record Compra(Long id, LocalDate fecha, LocalTime hora, String categoria, String subcategoria,
+                         int cantidad, BigDecimal valorUnitario, BigDecimal valorTotal, String notas) {
+    }
+
+    // Orden cronológico; a igual fecha y hora decide el id
+    private static final Comparator<Compra> CRONOLOGICO = Comparator
+        .comparing(Compra::fecha)
+        .thenComparing(Compra::hora, Comparator.nullsFirst(Comparator.naturalOrder()))
+        .thenComparing(Compra::id, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final Predicate<Gasto> filtro;
+
+    private long compras;
+    private long unidades;
+    private BigDecimal total = BigDecimal.ZERO;
+    private BigDecimal sumaPreciosUnitarios = BigDecimal.ZERO;
+    private BigDecimal mayorGasto;
+    private BigDecimal precioMinimo;
+    private BigDecimal precioMaximo;
+
+    private final Map<YearMonth, Map<String, BigDecimal>> porMesCategoria = new TreeMap<>();
+    private final Map<String, Medida> porCategoria = new TreeMap<>();
+    private final Map<String, Medida> porSubcategoria = new TreeMap<>();
+    private final Map<String, Map<String, Medida>> porCategoriaSubcategoria = new TreeMap<>();
+    private final Map<String, Medida> porProducto = new HashMap<>();
+
+    // Montículo con la compra más antigua arriba: al pasar del límite sale esa
+    private final PriorityQueue<Compra> recientes = new PriorityQueue<>(LIMITE_RECIENTES + 1, CRONOLOGICO);
+
+    public GastoAggregator() {
+        this(gasto -> true);
+    }
+
+    /** Solo agrega los gastos que cumplen el filtro (por ejemplo, una categoría). */
+    public GastoAggregator(Predicate<Gasto> filtro) {
+        this.filtro = filtro;
+    }
+
+    @Override
+    public void accept(Gasto gasto) {
+        if (!filtro.test(gasto)) {
+            return;
+        }
+
+        BigDecimal valor = gasto.getValorTotal();
+        BigDecimal precio = gasto.getValorUnitario();
+        String categoria = gasto.getCategoria().getNombre();
+        String subcategoria = gasto.getSubcategoria() != null ? gasto.getSubcategoria().getNombre() : SIN_SUBCATEGORIA;
+        String producto = gasto.getProducto() != null && !gasto.getProducto().trim().isEmpty()
+            ? gasto.getProducto()
+            : PRODUCTO_NO_ESPECIFICADO;
+
+        compras++;
+        unidades += gasto.getCantidad();
+        total = total.add(valor);
+        sumaPreciosUnitarios = sumaPreciosUnitarios.add(precio);
+        mayorGasto = mayorGasto == null || valor.compareTo(mayorGasto) > 0 ? valor : mayorGasto;
+        precioMinimo = precioMinimo == null || precio.compareTo(precioMinimo) < 0 ? precio : precioMinimo;
+        precioMaximo = precioMaximo == null || precio.compareTo(precioMaximo) > 0 ? precio : precioMaximo;
+
+        porMesCategoria
+            .computeIfAbsent(YearMonth.from(gasto.getFecha()), k -> new HashMap<>())
+            .merge(categoria, valor, BigDecimal::add);
+        porCategoria.computeIfAbsent(categoria, k -> new Medida()).sumar(valor);
+        porSubcategoria.computeIfAbsent(subcategoria, k -> new Medida()).sumar(valor);
+        porCategoriaSubcategoria
+            .computeIfAbsent(categoria, k -> new TreeMap<>())
+            .computeIfAbsent(subcategoria, k -> new Medida())
+            .sumar(valor);
+        porProducto.computeIfAbsent(producto, k -> new Medida()).sumar(valor);
+
+        recientes.add(new Compra(gasto.getId(), gasto.getFecha(), gasto.getHora(), categoria, subcategoria,
+            gasto.getCantidad(), precio, valor, gasto.getNotas()));
+        if (recientes.size() > LIMITE_RECIENTES) {
+            recientes.poll();
+        }
+    }
+
+    // ==================== TOTALES ====================
+
+    public boolean isVacio() {
+        return compras == 0;
+    }
+
+    public long getCompras() {
+        return compras;
+    }
+
+    public long getUnidades() {
+        return unidades;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public BigDecimal getMayorGasto() {
+        return mayorGasto != null ? mayorGasto : BigDecimal.ZERO;
+    }
+
+    public BigDecimal getPrecioMinimo() {
+        return precioMinimo != null ? precioMinimo : BigDecimal.ZERO;
+    }
+
+    public BigDecimal getPrecioMaximo() {
+        return precioMaximo != null ? precioMaximo : BigDecimal.ZERO;
+    }
+
+    public BigDecimal getPromedioPorCompra() {
+        return dividir(total, compras);
+    }
+
+    // Promedio de los precios unitarios de cada compra
+    public BigDecimal getPromedioPrecioUnitario() {
+        return dividir(sumaPreciosUnitarios, compras);
+    }
+
+    // Total gastado entre unidades compradas
+    public BigDecimal getPrecioPorUnidad() {
+        return dividir(total, unidades);
+    }
+
+    private static BigDecimal dividir(BigDecimal valor, long divisor) {
+        return divisor > 0 ? valor.divide(BigDecimal.valueOf(divisor), 2, RoundingMode.HALF_UP) : BigDecimal.ZERO;
+    }
+
+    // ==================== DESGLOSES ====================
+
+    /** Mes → categoría → total, con los meses en orden. */
+    public Map<YearMonth, Map<String, BigDecimal>> getPorMesCategoria() {
+        return Collections.unmodifiableMap(porMesCategoria);
+    }
+
+    public List<YearMonth> getMeses() {
+        return new ArrayList<>(porMesCategoria.keySet());
+    }
+
+    public BigDecimal totalMes(YearMonth mes) {
+        return porMesCategoria.getOrDefault(mes, Map.of()).values().stream()
+            .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    public BigDecimal totalMesCategoria(YearMonth mes, String categoria) {
+        return porMesCategoria.getOrDefault(mes, Map.of()).getOrDefault(categoria, BigDecimal.ZERO);
+    }
+
+    /** Por categoría, en orden alfabético. */
+    public Map<String, Medida> getPorCategoria() {
+        return Collections.unmodifiableMap(porCategoria);
+    }
+
+    public BigDecimal totalCategoria(String categoria) {
+        Medida medida = porCategoria.get(categoria);
+        return medida != null ? medida.getTotal() : BigDecimal.ZERO;
+    }
+
+    /** Por subcategoría, en orden alfabético. */
+    public Map<String, Medida> getPorSubcategoria() {
+        return Collections.unmodifiableMap(porSubcategoria);
+    }
+
+    /** Categoría → subcategoría, ambas en orden alfabético. */
+    public Map<String, Map<String, Medida>> getPorCategoriaSubcategoria() {
+        return Collections.unmodifiableMap(porCategoriaSubcategoria);
+    }
+
+    public Map<String, Medida> getPorProducto() {
+        return Collections.unmodifiableMap(porProducto);
+    }
+
+    public List<Map.Entry<String, Medida>> topCategoriasPorMonto(int limite) {
+        return top(porCategoria, Comparator.comparing(Medida::getTotal), limite);
+    }
+
+    public List<Map.Entry<String, Medida>> topProductosPorMonto(int limite) {
+        return top(porProducto, Comparator.comparing(Medida::getTotal), limite);
+    }
+
+    public List<Map.Entry<String, Medida>> topProductosPorCompras(int limite) {
+        return top(porProducto, Comparator.comparingLong(Medida::getCompras), limite);
+    }
+
+    private static List<Map.Entry<String, Medida>> top(Map<String, Medida> mapa, Comparator<Medida> orden, int limite) {
+        return mapa.entrySet().stream()
+            .sorted(Map.Entry.<String, Medida>comparingByValue(orden).reversed())
+            .limit(limite)
+            .toList();
+    }
+
+    // ==================== HISTORIAL ====================
+
+    /** Las últimas LIMITE_RECIENTES compras, la más reciente primero. */
+    public List<Compra> getRecientes() {
+        List<Compra> lista = new ArrayList<>(recientes);
+        lista.sort(CRONOLOGICO.reversed());
+        return lista;
+    }
+
+    /** La compra más reciente, o null si no hubo compras. */
+    public Compra getUltimaCompra() {
+        List<Compra> lista = getRecientes();
+        return lista.isEmpty() ? null : lista.get(0);
+    }
+}
@@ -0,0 +1,174 @@
+package com.misgastos.service;
+
+import com.misgastos.model.Gasto;
+import com.misgastos.model.GastoResumenDiario;
+import com.misgastos.repository.GastoRepository;
+import com.misgastos.repository.GastoResumenDiarioRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mantiene la tabla gastos_resumen_diario (fecha × categoría × subcategoría × usuario)
+ * para que los totales por rango se calculen sobre días y no sobre cada gasto.
+ */
+@Service
+@Transactional
+public class GastoResumenService {
+    
+    @Autowired
+    private GastoResumenDiarioRepository resumenRepository;
+    
+    @Autowired
+    private GastoRepository gastoRepository;
+    
+    // ==================== MANTENIMIENTO INCREMENTAL ====================
+    
+    public void sumarGasto(Gasto gasto) {
+        aplicar(Clave.de(gasto), 1, gasto.getValorTotal(), gasto.getCantidad());
+    }
+    
+    public void restarGasto(Gasto gasto) {
+        aplicar(Clave.de(gasto), -1, gasto.getValorTotal(), gasto.getCantidad());
+    }
+    
+    /**
+     * Resta los valores anteriores de un gasto editado y suma los nuevos.
+     */
+    public void reemplazarGasto(Clave claveAnterior, BigDecimal valorAnterior, Integer cantidadAnterior, Gasto actualizado) {
+        aplicar(claveAnterior, -1, valorAnterior, cantidadAnterior);
+        sumarGasto(actualizado);
+    }
+    
+    private void aplicar(Clave clave, int signo, BigDecimal valorTotal, Integer cantidad) {
+        GastoResumenDiario resumen = resumenRepository
+            .findByFechaAndCategoriaIdAndSubcategoriaIdAndUsuarioId(
+                clave.fecha(), clave.categoriaId(), clave.subcategoriaId(), clave.usuarioId())
+            .orElseGet(() -> new GastoResumenDiario(
+                clave.fecha(), clave.categoriaId(), clave.subcategoriaId(), clave.usuarioId()));
+        
+        BigDecimal valor = valorTotal != null ? valorTotal : BigDecimal.ZERO;
+        long unidades = cantidad != null ? cantidad : 0L;
+        
+        resumen.setNumeroGastos(resumen.getNumeroGastos() + signo);
+        resumen.setTotalValor(signo > 0 ? resumen.getTotalValor().add(valor) : resumen.getTotalValor().subtract(valor));
+        resumen.setTotalCantidad(resumen.getTotalCantidad() + signo * unidades);
+        
+        // Sin gastos en la combinación: eliminar la fila para no acumular ceros
+        if (resumen.getNumeroGastos() <= 0) {
+            if (resumen.getId() != null) {
+                resumenRepository.delete(resumen);
+            }
+            return;
+        }
+        
+        resumenRepository.save(resumen);
+    }
+    
+    // ==================== CONSULTAS ====================
+    
+    @Transactional(readOnly = true)
+    public BigDecimal totalPorPeriodo(LocalDate inicio, LocalDate fin) {
+        BigDecimal total = resumenRepository.sumByFechaBetween(inicio, fin);
+        return total != null ? total : BigDecimal.ZERO;
+    }
+    
+    @Transactional(readOnly = true)
+    public Map<LocalDate, BigDecimal> totalesPorDia(LocalDate inicio, LocalDate fin) {
+        Map<LocalDate, BigDecimal> mapa = new HashMap<>();
+        for (Object[] fila : resumenRepository.sumarPorDia(inicio, fin)) {
+            mapa.put((LocalDate) fila[0], (BigDecimal) fila[1]);
+        }
+        return mapa;
+    }
+    
+    @Transactional(readOnly = true)
+    public Map<String, BigDecimal> totalesPorCategoria() {
+        Map<String, BigDecimal> mapa = new HashMap<>();
+        for (Object[] fila : resumenRepository.sumarPorCategoria()) {
+            mapa.put((String) fila[0], (BigDecimal) fila[1]);
+        }
+        return mapa;
+    }
+    
+    // ==================== RECONSTRUCCIÓN Y VERIFICACIÓN ====================
+    
+    /**
+     * Vuelve a calcular todo el resumen a partir de la tabla gastos.
+     * @return número de filas generadas
+     */
+    public int reconstruir() {
+        resumenRepository.vaciar();
+        int filas = resumenRepository.reconstruirDesdeGastos();
+        System.out.println("✅ Resumen diario reconstruido: " + filas + " filas");
+        return filas;
+    }
+    
+    /**
+     * El resumen está vacío pero ya existen gastos (p. ej. primera ejecución tras actualizar).
+     */
+    @Transactional(readOnly = true)
+    public boolean necesitaReconstruccion() {
+        return resumenRepository.count() == 0 && gastoRepository.count() > 0;
+    }
+    
+    /**
+     * Compara el resumen contra la tabla gastos.
+     * @return lista de diferencias encontradas (vacía si son consistentes)
+     */
+    @Transactional(readOnly = true)
+    public List<String> verificarConsistencia() {
+        Map<Clave, long[]> esperado = new HashMap<>();
+        Map<Clave, BigDecimal> esperadoValor = new HashMap<>();
+        for (Object[] fila : gastoRepository.resumirPorDiaCategoriaSubcategoriaUsuario()) {
+            Clave clave = new Clave((LocalDate) fila[0], (Long) fila[1], (Long) fila[2], (Long) fila[3]);
+            esperado.put(clave, new long[] {((Number) fila[4]).longValue(), ((Number) fila[6]).longValue()});
+            esperadoValor.put(clave, (BigDecimal) fila[5]);
+        }
+        
+        List<String> diferencias = new ArrayList<>();
+        for (GastoResumenDiario r : resumenRepository.findAll()) {
+            Clave clave = new Clave(r.getFecha(), r.getCategoriaId(), r.getSubcategoriaId(), r.getUsuarioId());
+            long[] conteos = esperado.remove(clave);
+            BigDecimal valor = esperadoValor.remove(clave);
+            
+            if (conteos == null) {
+                diferencias.add("Sobra en resumen: " + clave);
+            } else if (conteos[0] != r.getNumeroGastos()
+                    || conteos[1] != r.getTotalCantidad()
+                    || valor.compareTo(r.getTotalValor()) != 0) {
+                diferencias.add("Difiere " + clave + ": gastos=" + conteos[0] + "/" + r.getNumeroGastos()
+                    + " cantidad=" + conteos[1] + "/" + r.getTotalCantidad()
+                    + " valor=" + valor + "/" + r.getTotalValor());
+            }
+        }
+        
+        for (Clave faltante : esperado.keySet()) {
+            diferencias.add("Falta en resumen: " + faltante);
+        }
+        
+        return diferencias;
+    }
+    
+    /**
+     * Combinación que identifica una fila del resumen.
+     */
+    public record Clave(LocalDate fecha, Long categoriaId, Long subcategoriaId, Long usuarioId) {
+        
+        public static Clave de(Gasto gasto) {
+            return new Clave(
+                gasto.getFecha(),
+                gasto.getCategoria().getId(),
+                gasto.getSubcategoria().getId(),
+                gasto.getUsuario().getId()
+            );
+        }
+    }
+}
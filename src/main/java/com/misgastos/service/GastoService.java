@@ -1,6 +1,7 @@
 package com.misgastos.service;
 
 import com.misgastos.model.Gasto;
+import com.misgastos.model.GastoFila;
 import com.misgastos.model.Usuario;
 import com.misgastos.model.Categoria;
 import com.misgastos.model.Subcategoria;
@@ -8,7 +9,12 @@ import com.misgastos.repository.GastoRepository;
 import com.misgastos.repository.UsuarioRepository;
 import com.misgastos.repository.CategoriaRepository;
 import com.misgastos.repository.SubcategoriaRepository;
+import com.misgastos.util.Transacciones;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,7 +25,9 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
@@ -37,18 +45,46 @@ public class GastoService {
     @Autowired
     private SubcategoriaRepository subcategoriaRepository;
     
+    @Autowired
+    private GastoResumenService gastoResumenService;
+    
+    @Autowired
+    private ProductoIndex productoIndex;
+    
+    @Autowired
+    private UltimaCompraCache ultimaCompraCache;
+    
+    @Autowired
+    private DatosReferenciaCache datosReferenciaCache;
+    
+    @Autowired
+    private InformeModeloCache informeModeloCache;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    // Máximo de sugerencias del autocompletado de productos
+    private static final int LIMITE_SUGERENCIAS = 20;
+    
+    // Entidades recorridas entre cada vaciado del contexto de persistencia
+    private static final int LOTE_RECORRIDO = 500;
+    
     public Gasto registrarGasto(Long usuarioId, Long categoriaId, Long subcategoriaId,
             String producto, Integer cantidad, BigDecimal valorUnitario,
             String notas, String cedula) {
         
-        Usuario usuario = usuarioRepository.findById(usuarioId)
+        // Validar contra la caché y asociar por referencia (sin SELECT por cada alta)
+        datosReferenciaCache.buscarUsuario(usuarioId)
             .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
+        Usuario usuario = usuarioRepository.getReferenceById(usuarioId);
         
-        Categoria categoria = categoriaRepository.findById(categoriaId)
+        datosReferenciaCache.buscarCategoria(categoriaId)
             .orElseThrow(() -> new RuntimeException("Categoría no encontrada"));
+        Categoria categoria = categoriaRepository.getReferenceById(categoriaId);
         
-        Subcategoria subcategoria = subcategoriaRepository.findById(subcategoriaId)
+        datosReferenciaCache.buscarSubcategoria(subcategoriaId)
             .orElseThrow(() -> new RuntimeException("Subcategoría no encontrada"));
+        Subcategoria subcategoria = subcategoriaRepository.getReferenceById(subcategoriaId);
         
         Gasto gasto = new Gasto();
         gasto.setFecha(LocalDate.now());
@@ -63,7 +99,14 @@ public class GastoService {
         gasto.setNotas(notas);
         gasto.setCedula(cedula);
         
-        return gastoRepository.save(gasto);
+        Gasto guardado = gastoRepository.save(gasto);
+        gastoResumenService.sumarGasto(guardado);
+        Transacciones.despuesDeConfirmar(() -> {
+            productoIndex.registrar(guardado.getProducto(), guardado.getFecha());
+            ultimaCompraCache.registrar(guardado);
+            informeModeloCache.invalidar(guardado.getFecha());
+        });
+        return guardado;
     }
     
     public List<Gasto> listarTodos() {
@@ -74,29 +117,148 @@ public class GastoService {
         return gastoRepository.findByUsuarioId(usuarioId);
     }
     
+    /**
+     * Página de gastos (más recientes primero) con id menor a {@code antesDeId}
+     * (null para la primera página), filtrada por producto o categoría si hay texto.
+     */
+    public List<GastoFila> listarPagina(String filtro, Long antesDeId, int tamano) {
+        Long desde = antesDeId != null ? antesDeId : Long.MAX_VALUE;
+        Pageable pagina = PageRequest.of(0, tamano);
+        
+        String texto = Gasto.normalizarProducto(filtro);
+        if (texto == null || texto.isEmpty()) {
+            return gastoRepository.paginaAntesDe(desde, pagina);
+        }
+        return gastoRepository.paginaFiltradaAntesDe(desde, patronContiene(texto), categoriasQueContienen(texto), pagina);
+    }
+    
+    /**
+     * Patrón LIKE "contiene" para un texto ya normalizado; los %, _ y \ que
+     * escribió el usuario se escapan (las consultas usan ESCAPE '\').
+     */
+    static String patronContiene(String texto) {
+        return "%" + texto.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+    
+    // Categorías cuyo nombre contiene el texto, comparadas en Java (con acentos)
+    private List<Long> categoriasQueContienen(String texto) {
+        return datosReferenciaCache.listarCategorias().stream()
+            .filter(c -> c.getNombre() != null && Gasto.normalizarProducto(c.getNombre()).contains(texto))
+            .map(Categoria::getId)
+            .toList();
+    }
+
+    /**
+     * Recorre todos los gastos fila a fila sin cargarlos en una lista (para
+     * exportaciones grandes). Devuelve cuántas filas se recorrieron.
+     */
+    @Transactional(readOnly = true)
+    public long recorrerTodos(Consumer<GastoFila> accion) {
+        try (Stream<GastoFila> filas = gastoRepository.streamTodos()) {
+            return recorrer(filas, accion);
+        }
+    }
+
+    /**
+     * Como recorrerTodos, limitado al período y, si hay texto, filtrado por
+     * producto o categoría igual que listarPagina.
+     */
+    @Transactional(readOnly = true)
+    public long recorrerPorPeriodo(LocalDate inicio, LocalDate fin, String filtro, Consumer<GastoFila> accion) {
+        String texto = Gasto.normalizarProducto(filtro);
+        try (Stream<GastoFila> filas = texto == null || texto.isEmpty()
+                ? gastoRepository.streamPorPeriodo(inicio, fin)
+                : gastoRepository.streamPorPeriodoFiltrado(inicio, fin, patronContiene(texto), categoriasQueContienen(texto))) {
+            return recorrer(filas, accion);
+        }
+    }
+
+    /**
+     * Recorre las entidades del período (con categoría y subcategoría) sin
+     * cargarlas en una lista. Cada LOTE_RECORRIDO filas se vacía el contexto de
+     * persistencia: accion no debe guardar los Gasto para modificarlos después.
+     */
+    @Transactional(readOnly = true)
+    public long recorrerGastosPorPeriodo(LocalDate inicio, LocalDate fin, Consumer<Gasto> accion) {
+        try (Stream<Gasto> gastos = gastoRepository.streamGastosPorPeriodo(inicio, fin)) {
+            return recorrerEntidades(gastos, accion);
+        }
+    }
+
+    // Más recientes primero; el producto se compara normalizado
+    @Transactional(readOnly = true)
+    public long recorrerGastosPorPeriodoYProducto(LocalDate inicio, LocalDate fin, String producto, Consumer<Gasto> accion) {
+        try (Stream<Gasto> gastos = gastoRepository.streamGastosPorPeriodoYProducto(
+                inicio, fin, Gasto.normalizarProducto(producto))) {
+            return recorrerEntidades(gastos, accion);
+        }
+    }
+
+    // El nombre de la categoría se resuelve en DatosReferenciaCache (sin distinguir
+    // mayúsculas); la consulta solo trae los gastos de esa categoría
+    @Transactional(readOnly = true)
+    public long recorrerGastosPorPeriodoYCategoria(LocalDate inicio, LocalDate fin, String categoria, Consumer<Gasto> accion) {
+        Optional<Long> categoriaId = datosReferenciaCache.listarCategorias().stream()
+            .filter(c -> c.getNombre() != null && c.getNombre().equalsIgnoreCase(categoria))
+            .map(Categoria::getId)
+            .findFirst();
+        if (categoriaId.isEmpty()) {
+            return 0;
+        }
+        try (Stream<Gasto> gastos = gastoRepository.streamGastosPorPeriodoYCategoria(inicio, fin, categoriaId.get())) {
+            return recorrerEntidades(gastos, accion);
+        }
+    }
+
+    private long recorrerEntidades(Stream<Gasto> gastos, Consumer<Gasto> accion) {
+        long[] total = new long[1];
+        gastos.forEach(gasto -> {
+            accion.accept(gasto);
+            if (++total[0] % LOTE_RECORRIDO == 0) {
+                entityManager.clear();
+            }
+        });
+        return total[0];
+    }
+
+    private long recorrer(Stream<GastoFila> filas, Consumer<GastoFila> accion) {
+        long[] total = new long[1];
+        filas.forEach(fila -> {
+            accion.accept(fila);
+            total[0]++;
+        });
+        return total[0];
+    }
+    
     public List<Gasto> listarPorPeriodo(LocalDate inicio, LocalDate fin) {
         return gastoRepository.findByFechaBetween(inicio, fin);
     }
     
+    // Totales desde el resumen diario (O(días) en lugar de O(gastos))
     public BigDecimal calcularTotalPorPeriodo(LocalDate inicio, LocalDate fin) {
-        BigDecimal total = gastoRepository.sumarGastosPorPeriodo(inicio, fin);
-        return total != null ? total : BigDecimal.ZERO;
+        return gastoResumenService.totalPorPeriodo(inicio, fin);
     }
     
+    public Map<LocalDate, BigDecimal> calcularTotalesPorDia(LocalDate inicio, LocalDate fin) {
+        return gastoResumenService.totalesPorDia(inicio, fin);
+    }
+
+    // Indicadores y gráfico de inicio con una sola consulta al resumen diario
+    public DashboardSnapshot obtenerDashboardSnapshot(LocalDate hoy) {
+        Map<LocalDate, BigDecimal> totalesPorDia = gastoResumenService.totalesPorDia(
+            DashboardSnapshot.inicioRango(hoy), DashboardSnapshot.finRango(hoy));
+        return DashboardSnapshot.desde(hoy, totalesPorDia);
+    }
+
     public Map<String, BigDecimal> obtenerGastosPorCategoria() {
-        List<Object[]> resultados = gastoRepository.sumarPorCategoria();
-        Map<String, BigDecimal> mapa = new HashMap<>();
-        for (Object[] obj : resultados) {
-            mapa.put((String) obj[0], (BigDecimal) obj[1]);
-        }
-        return mapa;
+        return gastoResumenService.totalesPorCategoria();
     }
     
     public List<String> buscarProductos(String texto) {
         if (texto == null) return List.of();
         String t = texto.trim();
         if (t.isEmpty()) return List.of();
-        return gastoRepository.buscarProductos(t);
+        return productoIndex.buscar(t, LIMITE_SUGERENCIAS);
     } 
     
     public List<Map<String, Object>> obtenerTopProductos(int limite) {
@@ -113,20 +275,26 @@ public class GastoService {
     }
     
     public void eliminarGasto(Long id) {
-        gastoRepository.deleteById(id);
+        gastoRepository.findById(id).ifPresent(gasto -> {
+            gastoResumenService.restarGasto(gasto);
+            gastoRepository.delete(gasto);
+            Transacciones.despuesDeConfirmar(() -> {
+                productoIndex.actualizar(gasto.getProducto());
+                ultimaCompraCache.quitar(gasto.getProducto(), gasto.getId());
+                informeModeloCache.invalidar(gasto.getFecha());
+            });
+        });
     }
     
-    public Optional<Gasto> buscarUltimoGastoPorProducto(String producto) {
+    // Autocompletado de RegistroGasto: desde la caché, sin cargar entidades
+    public Optional<UltimaCompraCache.UltimaCompra> buscarUltimaCompra(String producto) {
         if (producto == null) return Optional.empty();
         String p = producto.trim();
         if (p.isEmpty()) return Optional.empty();
-
-        List<Gasto> lista = gastoRepository.ultimosGastosPorProducto(p);
-        if (lista == null || lista.isEmpty()) return Optional.empty();
-        return Optional.of(lista.get(0));
+        return ultimaCompraCache.buscar(p);
     }
 
-    public List<Gasto> obtenerUltimosGastos(Long usuarioId, int limite) {
+    public List<GastoFila> obtenerUltimosGastos(Long usuarioId, int limite) {
         return gastoRepository.findUltimosPorUsuario(usuarioId, limite);
     }
     
@@ -134,7 +302,7 @@ public class GastoService {
         if (producto == null) return false;
         String p = producto.trim();
         if (p.isEmpty()) return false;
-        return gastoRepository.existeProducto(p);
+        return gastoRepository.existsByProductoNormalizado(Gasto.normalizarProducto(p));
     }
 
     // ============================================================================
@@ -145,10 +313,15 @@ public class GastoService {
     		    return gastoRepository.findByFechaExacta(fecha);
     		}
 
-    		public List<Gasto> buscarPorUsuarioYPeriodo(Long usuarioId, LocalDate inicio, LocalDate fin) {
+    		public List<GastoFila> buscarPorUsuarioYPeriodo(Long usuarioId, LocalDate inicio, LocalDate fin) {
     		    return gastoRepository.findByUsuarioAndFechaBetween(usuarioId, inicio, fin);
     		}
 
+    		public List<GastoFila> buscarPorUsuarioPeriodoYProducto(Long usuarioId, LocalDate inicio, LocalDate fin, String producto) {
+    		    return gastoRepository.findByUsuarioAndFechaBetweenAndProducto(
+    		        usuarioId, inicio, fin, patronContiene(Gasto.normalizarProducto(producto)));
+    		}
+
     		public Gasto actualizarGasto(Long id, Long categoriaId, Long subcategoriaId,
     		                             String producto, Integer cantidad, BigDecimal valorUnitario,
     		                             String notas, LocalDate fecha, LocalTime hora) {
@@ -156,11 +329,20 @@ public class GastoService {
     		    Gasto gasto = gastoRepository.findById(id)
     		        .orElseThrow(() -> new RuntimeException("Gasto no encontrado"));
     		    
-    		    Categoria categoria = categoriaRepository.findById(categoriaId)
+    		    datosReferenciaCache.buscarCategoria(categoriaId)
     		        .orElseThrow(() -> new RuntimeException("Categoría no encontrada"));
+    		    Categoria categoria = categoriaRepository.getReferenceById(categoriaId);
     		    
-    		    Subcategoria subcategoria = subcategoriaRepository.findById(subcategoriaId)
+    		    datosReferenciaCache.buscarSubcategoria(subcategoriaId)
     		        .orElseThrow(() -> new RuntimeException("Subcategoría no encontrada"));
+    		    Subcategoria subcategoria = subcategoriaRepository.getReferenceById(subcategoriaId);
+    		    
+    		    // Valores previos para corregir el resumen diario
+    		    GastoResumenService.Clave claveAnterior = GastoResumenService.Clave.de(gasto);
+    		    BigDecimal valorAnterior = gasto.getValorTotal();
+    		    Integer cantidadAnterior = gasto.getCantidad();
+    		    String productoAnterior = gasto.getProducto();
+    		    LocalDate fechaAnterior = gasto.getFecha();
     		    
     		    gasto.setCategoria(categoria);
     		    gasto.setSubcategoria(subcategoria);
@@ -172,11 +354,21 @@ public class GastoService {
     		    gasto.setFecha(fecha);
     		    gasto.setHora(hora);
     		    
-    		    return gastoRepository.save(gasto);
+    		    Gasto actualizado = gastoRepository.save(gasto);
+    		    gastoResumenService.reemplazarGasto(claveAnterior, valorAnterior, cantidadAnterior, actualizado);
+    		    Transacciones.despuesDeConfirmar(() -> {
+    		        productoIndex.actualizar(productoAnterior);
+    		        productoIndex.actualizar(actualizado.getProducto());
+    		        ultimaCompraCache.olvidar(productoAnterior);
+    		        ultimaCompraCache.olvidar(actualizado.getProducto());
+    		        informeModeloCache.invalidar(fechaAnterior);
+    		        informeModeloCache.invalidar(actualizado.getFecha());
+    		    });
+    		    return actualizado;
     		}
 
     		public Optional<Gasto> buscarPorId(Long id) {
     		    return gastoRepository.findById(id);
-    		} 
+    		}
 
 }
\ No newline at end of file
@@ -0,0 +1,116 @@
+package com.misgastos.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Caché LRU acotada con los modelos ya calculados de los informes
+ * (GastoAggregator y similares), para que generar, exportar a PDF y exportar a
+ * Excel el mismo informe recorra los gastos una sola vez.
+ *
+ * La clave es (tipo de informe, parámetros) y cada modelo guarda la versión de
+ * los datos de su período con la que se calculó. GastoService sube la versión
+ * del mes de cada gasto que crea, edita o borra; un modelo cuyo período tiene
+ * otra versión ya no se devuelve, así que nunca se sirve un informe viejo.
+ */
+@Component
+public class InformeModeloCache {
+
+    @Value("${misgastos.cache.informes.capacidad:32}")
+    private int capacidad = 32;
+
+    public record Clave(String tipo, List<Object> parametros) {
+    }
+
+    private record Entrada(Object modelo, long version) {
+    }
+
+    // accessOrder=true: el más antiguo en el recorrido es el menos usado
+    private final LinkedHashMap<Clave, Entrada> modelos = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Clave, Entrada> mayor) {
+            return size() > capacidad;
+        }
+    };
+
+    // Versión de los datos por mes; solo crece
+    private final Map<YearMonth, Long> versiones = new HashMap<>();
+
+    private long aciertos = 0;
+    private long fallos = 0;
+
+    // ==================== CONSULTA ====================
+
+    /**
+     * Devuelve el modelo guardado si los datos de [inicio, fin] no cambiaron
+     * desde que se calculó; si no, lo calcula y lo guarda. El cálculo corre
+     * fuera del bloqueo, y si falla (o se cancela) no se guarda nada.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T obtener(String tipo, LocalDate inicio, LocalDate fin, List<Object> parametros, Supplier<T> calcular) {
+        Clave clave = new Clave(tipo, parametros);
+        long version;
+        synchronized (this) {
+            version = versionDe(inicio, fin);
+            Entrada entrada = modelos.get(clave);
+            if (entrada != null && entrada.version() == version) {
+                aciertos++;
+                return (T) entrada.modelo();
+            }
+            fallos++;
+        }
+
+        // La versión se tomó antes de leer: si un gasto se confirma durante el
+        // cálculo, la entrada queda con una versión vieja y no se vuelve a servir
+        T modelo = calcular.get();
+        synchronized (this) {
+            modelos.put(clave, new Entrada(modelo, version));
+        }
+        return modelo;
+    }
+
+    // La suma de contadores que solo crecen cambia si cambia cualquiera de ellos
+    private long versionDe(LocalDate inicio, LocalDate fin) {
+        long version = 0;
+        for (YearMonth mes = YearMonth.from(inicio); !mes.isAfter(YearMonth.from(fin)); mes = mes.plusMonths(1)) {
+            version += versiones.getOrDefault(mes, 0L);
+        }
+        return version;
+    }
+
+    // ==================== INVALIDACIÓN ====================
+
+    /**
+     * Un gasto de esta fecha se creó, cambió o se borró. Llamarlo después de
+     * confirmar la transacción.
+     */
+    public synchronized void invalidar(LocalDate fecha) {
+        versiones.merge(YearMonth.from(fecha), 1L, Long::sum);
+    }
+
+    public synchronized void limpiar() {
+        modelos.clear();
+    }
+
+    // ==================== MÉTRICAS ====================
+
+    public synchronized int tamano() {
+        return modelos.size();
+    }
+
+    public synchronized long getAciertos() {
+        return aciertos;
+    }
+
+    public synchronized long getFallos() {
+        return fallos;
+    }
+}
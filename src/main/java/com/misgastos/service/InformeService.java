@@ -4,22 +4,24 @@ import com.itextpdf.io.font.PdfEncodings;
 import com.itextpdf.kernel.colors.DeviceRgb;
 import com.itextpdf.kernel.font.PdfFont;
 import com.itextpdf.kernel.font.PdfFontFactory;
+import com.itextpdf.kernel.events.PdfDocumentEvent;
 import com.itextpdf.kernel.pdf.PdfDocument;
 import com.itextpdf.kernel.pdf.PdfWriter;
 import com.itextpdf.kernel.pdf.canvas.draw.SolidLine;
 import com.itextpdf.layout.Document;
 import com.itextpdf.layout.element.Paragraph;
 import com.misgastos.model.Gasto;
+import com.misgastos.util.AnchosColumnas;
+import com.misgastos.util.ExcelStreaming;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.ss.usermodel.Font;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import com.itextpdf.layout.borders.SolidBorder;
 import org.apache.poi.ss.usermodel.BorderStyle;
 import org.apache.poi.ss.usermodel.VerticalAlignment;
 
-import java.io.FileOutputStream;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDate;
@@ -27,7 +29,8 @@ import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.time.format.TextStyle;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
 
 import com.itextpdf.kernel.geom.PageSize;
 import com.itextpdf.layout.element.Cell;
@@ -42,6 +45,98 @@ public class InformeService {
     @Autowired
     private GastoService gastoService;
 
+    @Autowired
+    private InformeModeloCache informeModeloCache;
+
+    // Filas recorridas entre cada aviso de progreso
+    private static final int LOTE_PROGRESO = 1000;
+
+    // Punto único de lectura: recorre los gastos del período en streaming e
+    // informa el progreso por lotes al trabajo en curso (ColaInformes); también
+    // es el punto de cancelación
+    private long recorrerPeriodo(LocalDate inicio, LocalDate fin, Consumer<Gasto> accion) {
+        return recorrerConProgreso(conProgreso -> gastoService.recorrerGastosPorPeriodo(inicio, fin, conProgreso), accion);
+    }
+
+    // Igual, solo con los gastos de la categoría (filtrados en la consulta)
+    private long recorrerCategoria(String categoria, LocalDate inicio, LocalDate fin, Consumer<Gasto> accion) {
+        return recorrerConProgreso(
+            conProgreso -> gastoService.recorrerGastosPorPeriodoYCategoria(inicio, fin, categoria, conProgreso), accion);
+    }
+
+    private long recorrerConProgreso(ToLongFunction<Consumer<Gasto>> recorrido, Consumer<Gasto> accion) {
+        long[] pendientes = {0};
+        long filas = recorrido.applyAsLong(gasto -> {
+            accion.accept(gasto);
+            if (++pendientes[0] == LOTE_PROGRESO) {
+                ProgresoInforme.filas(pendientes[0]);
+                pendientes[0] = 0;
+            }
+        });
+        ProgresoInforme.filas(pendientes[0]);
+        return filas;
+    }
+
+    // ==================== MODELOS ====================
+    // Cada informe se calcula con una sola pasada sobre los gastos; las
+    // versiones texto, PDF y Excel leen el mismo GastoAggregator, guardado en
+    // InformeModeloCache hasta que cambie algún gasto del período. Una vez
+    // guardado, el modelo no se vuelve a alimentar.
+
+    public GastoAggregator agregar(LocalDate inicio, LocalDate fin) {
+        return informeModeloCache.obtener("periodo", inicio, fin, List.of(inicio, fin), () -> {
+            GastoAggregator modelo = new GastoAggregator();
+            recorrerPeriodo(inicio, fin, modelo);
+            return modelo;
+        });
+    }
+
+    // El filtro por categoría lo hace la consulta (idx_gastos_categoria_fecha)
+    public GastoAggregator agregarCategoria(String categoria, LocalDate inicio, LocalDate fin) {
+        List<Object> parametros = List.of(categoria.toLowerCase(Locale.ROOT), inicio, fin);
+        return informeModeloCache.obtener("categoria", inicio, fin, parametros, () -> {
+            GastoAggregator modelo = new GastoAggregator();
+            recorrerCategoria(categoria, inicio, fin, modelo);
+            return modelo;
+        });
+    }
+
+    // El filtro por producto lo hace la consulta (producto normalizado)
+    public GastoAggregator agregarProducto(String producto, LocalDate inicio, LocalDate fin) {
+        List<Object> parametros = List.of(Gasto.normalizarProducto(producto), inicio, fin);
+        return informeModeloCache.obtener("producto", inicio, fin, parametros, () -> {
+            GastoAggregator modelo = new GastoAggregator();
+            ProgresoInforme.filas(gastoService.recorrerGastosPorPeriodoYProducto(inicio, fin, producto, modelo));
+            return modelo;
+        });
+    }
+
+    /** Las dos mitades del período, separadas por mitad (incluida en la primera). */
+    public record Comparacion(LocalDate mitad, GastoAggregator periodo1, GastoAggregator periodo2) {
+    }
+
+    public Comparacion agregarComparacion(LocalDate inicio, LocalDate fin) {
+        return informeModeloCache.obtener("comparacion", inicio, fin, List.of(inicio, fin), () -> {
+            LocalDate mitad = inicio.plusDays(java.time.temporal.ChronoUnit.DAYS.between(inicio, fin) / 2);
+            Comparacion comparacion = new Comparacion(mitad, new GastoAggregator(), new GastoAggregator());
+            recorrerPeriodo(inicio, fin, gasto -> {
+                if (gasto.getFecha().isAfter(mitad)) {
+                    comparacion.periodo2().accept(gasto);
+                } else {
+                    comparacion.periodo1().accept(gasto);
+                }
+            });
+            return comparacion;
+        });
+    }
+
+    // Cuenta las páginas escritas y permite cancelar entre página y página
+    private PdfDocument crearPdf(String rutaArchivo) throws Exception {
+        PdfDocument pdf = new PdfDocument(new PdfWriter(rutaArchivo));
+        pdf.addEventHandler(PdfDocumentEvent.END_PAGE, evento -> ProgresoInforme.paginaEscrita());
+        return pdf;
+    }
+
     // ==================== 1. INFORME GENERAL MENSUAL ====================
     
     public String generarInformeGeneralMensual(LocalDate inicio, LocalDate fin) {
@@ -52,29 +147,15 @@ public class InformeService {
         sb.append("                    ").append(formatearFecha(inicio)).append(" - ").append(formatearFecha(fin)).append("\n");
         sb.append("═══════════════════════════════════════════════════════════════════════════════\n\n");
 
-        List<Gasto> gastos = gastoService.listarPorPeriodo(inicio, fin);
+        GastoAggregator modelo = agregar(inicio, fin);
         
-        if (gastos.isEmpty()) {
+        if (modelo.isVacio()) {
             sb.append("⚠️ No hay gastos registrados en este período.\n");
             return sb.toString();
         }
-        
-        Map<YearMonth, Map<String, BigDecimal>> datosPorMesCategoria = new TreeMap<>();
-        
-        for (Gasto gasto : gastos) {
-            YearMonth mes = YearMonth.from(gasto.getFecha());
-            String categoria = gasto.getCategoria().getNombre();
-            
-            datosPorMesCategoria
-                .computeIfAbsent(mes, k -> new HashMap<>())
-                .merge(categoria, gasto.getValorTotal(), BigDecimal::add);
-        }
-
-        Set<String> categorias = gastos.stream()
-            .map(g -> g.getCategoria().getNombre())
-            .collect(Collectors.toCollection(TreeSet::new));
 
-        List<YearMonth> meses = new ArrayList<>(datosPorMesCategoria.keySet());
+        Set<String> categorias = modelo.getPorCategoria().keySet();
+        List<YearMonth> meses = modelo.getMeses();
 
         // ✅ ANCHO FIJO: 17 caracteres por columna de mes (incluye espacios y delimitador)
         final int ANCHO_CATEGORIA = 24;
@@ -104,7 +185,7 @@ public class InformeService {
             BigDecimal totalCategoria = BigDecimal.ZERO;
             
             for (YearMonth mes : meses) {
-                BigDecimal monto = datosPorMesCategoria.get(mes).getOrDefault(categoria, BigDecimal.ZERO);
+                BigDecimal monto = modelo.totalMesCategoria(mes, categoria);
                 String montoStr = formatearMoneda(monto);
                 sb.append(String.format("│ %" + (ANCHO_MES - 2) + "s ", montoStr));
                 totalCategoria = totalCategoria.add(monto);
@@ -127,8 +208,7 @@ public class InformeService {
         
         BigDecimal totalGeneral = BigDecimal.ZERO;
         for (YearMonth mes : meses) {
-            BigDecimal totalMes = datosPorMesCategoria.get(mes).values().stream()
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+            BigDecimal totalMes = modelo.totalMes(mes);
             String totalMesStr = formatearMoneda(totalMes);
             sb.append(String.format("│ %" + (ANCHO_MES - 2) + "s ", totalMesStr));
             totalGeneral = totalGeneral.add(totalMes);
@@ -142,15 +222,15 @@ public class InformeService {
         sb.append("📊 ESTADÍSTICAS\n");
         sb.append("─".repeat(80)).append("\n");
         sb.append(String.format("💰 Total gastado: %s\n", formatearMoneda(totalGeneral)));
-        sb.append(String.format("📅 Período: %d meses\n", datosPorMesCategoria.size()));
+        sb.append(String.format("📅 Período: %d meses\n", meses.size()));
         
-        if (!datosPorMesCategoria.isEmpty()) {
+        if (!meses.isEmpty()) {
             sb.append(String.format("📈 Promedio mensual: %s\n", 
-                formatearMoneda(totalGeneral.divide(BigDecimal.valueOf(datosPorMesCategoria.size()), 2, RoundingMode.HALF_UP))));
+                formatearMoneda(totalGeneral.divide(BigDecimal.valueOf(meses.size()), 2, RoundingMode.HALF_UP))));
         }
         
         sb.append(String.format("📂 Total de categorías: %d\n", categorias.size()));
-        sb.append(String.format("🧾 Total de transacciones: %d\n", gastos.size()));
+        sb.append(String.format("🧾 Total de transacciones: %d\n", modelo.getCompras()));
         
         return sb.toString();
     }
@@ -165,36 +245,24 @@ public class InformeService {
         sb.append("                    ").append(formatearFecha(inicio)).append(" - ").append(formatearFecha(fin)).append("\n");
         sb.append("═══════════════════════════════════════════════════════════════════════════════\n\n");
 
-        List<Gasto> gastos = gastoService.listarPorPeriodo(inicio, fin).stream()
-            .filter(g -> g.getCategoria().getNombre().equalsIgnoreCase(nombreCategoria))
-            .collect(Collectors.toList());
+        GastoAggregator modelo = agregarCategoria(nombreCategoria, inicio, fin);
 
-        if (gastos.isEmpty()) {
+        if (modelo.isVacio()) {
             sb.append("⚠️ No se encontraron gastos para esta categoría en el período seleccionado.\n");
             return sb.toString();
         }
 
-        BigDecimal totalGastado = gastos.stream()
-            .map(Gasto::getValorTotal)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal promedioCompra = totalGastado.divide(
-            BigDecimal.valueOf(gastos.size()), 2, RoundingMode.HALF_UP
-        );
+        BigDecimal totalGastado = modelo.getTotal();
+        BigDecimal promedioCompra = modelo.getPromedioPorCompra();
 
         // ═══ RESUMEN GENERAL ═══
         sb.append("📋 RESUMEN GENERAL\n");
         sb.append("─".repeat(80)).append("\n");
         sb.append(String.format("   Total gastado: %s\n", formatearMoneda(totalGastado)));
-        sb.append(String.format("   Número de compras: %d\n", gastos.size()));
+        sb.append(String.format("   Número de compras: %d\n", modelo.getCompras()));
         sb.append(String.format("   Promedio por compra: %s\n\n", formatearMoneda(promedioCompra)));
 
         // ═══ POR SUBCATEGORÍA ═══
-        Map<String, BigDecimal> porSubcategoria = gastos.stream()
-            .collect(Collectors.groupingBy(
-                g -> g.getSubcategoria().getNombre(),
-                Collectors.reducing(BigDecimal.ZERO, Gasto::getValorTotal, BigDecimal::add)
-            ));
 
         sb.append("📂 POR SUBCATEGORÍA\n");
         sb.append("─".repeat(80)).append("\n");
@@ -220,44 +288,29 @@ public class InformeService {
         sb.append("\n");
 
         // Datos
-        for (Map.Entry<String, BigDecimal> entry : porSubcategoria.entrySet()) {
-            long compras = gastos.stream()
-                .filter(g -> g.getSubcategoria().getNombre().equals(entry.getKey()))
-                .count();
+        for (Map.Entry<String, GastoAggregator.Medida> entry : modelo.getPorSubcategoria().entrySet()) {
+            GastoAggregator.Medida medida = entry.getValue();
             
-            double porcentaje = entry.getValue()
+            double porcentaje = medida.getTotal()
                 .divide(totalGastado, 4, RoundingMode.HALF_UP)
                 .multiply(BigDecimal.valueOf(100))
                 .doubleValue();
 
             sb.append(String.format("%-" + ANCHO_SUBCAT + "s", truncar(entry.getKey(), ANCHO_SUBCAT)));
-            sb.append(String.format("│ %" + (ANCHO_MONTO - 2) + "s ", formatearMoneda(entry.getValue())));
-            sb.append(String.format("│ %" + (ANCHO_COMPRAS - 2) + "d ", compras));
+            sb.append(String.format("│ %" + (ANCHO_MONTO - 2) + "s ", formatearMoneda(medida.getTotal())));
+            sb.append(String.format("│ %" + (ANCHO_COMPRAS - 2) + "d ", medida.getCompras()));
             sb.append(String.format("│ %" + (ANCHO_PORC - 3) + ".1f%%", porcentaje));
             sb.append("\n");
         }
         sb.append("\n");
 
         // ═══ TOP 5 PRODUCTOS ═══
-        Map<String, BigDecimal> porProducto = gastos.stream()
-            .collect(Collectors.groupingBy(
-                Gasto::getProducto,
-                Collectors.reducing(BigDecimal.ZERO, Gasto::getValorTotal, BigDecimal::add)
-            ));
-
-        List<Map.Entry<String, BigDecimal>> top5 = porProducto.entrySet().stream()
-            .sorted(Map.Entry.<String, BigDecimal>comparingByValue().reversed())
-            .limit(5)
-            .collect(Collectors.toList());
-
         sb.append("🏆 TOP 5 PRODUCTOS\n");
         sb.append("─".repeat(80)).append("\n");
         
         int pos = 1;
-        for (Map.Entry<String, BigDecimal> entry : top5) {
-            long veces = gastos.stream()
-                .filter(g -> g.getProducto().equals(entry.getKey()))
-                .count();
+        for (Map.Entry<String, GastoAggregator.Medida> entry : modelo.topProductosPorMonto(5)) {
+            long veces = entry.getValue().getCompras();
             
             String vecesTexto = veces == 1 ? "(1 vez)" : String.format("(%d veces)", veces);
             
@@ -265,7 +318,7 @@ public class InformeService {
                 pos++, 
                 truncar(entry.getKey(), 45), 
                 vecesTexto,
-                formatearMoneda(entry.getValue())
+                formatearMoneda(entry.getValue().getTotal())
             ));
         }
 
@@ -282,56 +335,36 @@ public class InformeService {
         sb.append("                    ").append(formatearFecha(inicio)).append(" - ").append(formatearFecha(fin)).append("\n");
         sb.append("═══════════════════════════════════════════════════════════════════════\n\n");
 
-        List<Gasto> gastos = gastoService.listarPorPeriodo(inicio, fin).stream()
-            .filter(g -> g.getProducto().equalsIgnoreCase(nombreProducto))
-            .sorted(Comparator.comparing(Gasto::getFecha).reversed())
-            .collect(Collectors.toList());
+        GastoAggregator modelo = agregarProducto(nombreProducto, inicio, fin);
 
-        if (gastos.isEmpty()) {
+        if (modelo.isVacio()) {
             sb.append("⚠️ No se encontraron compras de este producto en el período seleccionado.\n");
             return sb.toString();
         }
 
-        Gasto ultimaCompra = gastos.get(0);
-        
-        BigDecimal totalGastado = gastos.stream()
-            .map(Gasto::getValorTotal)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        int cantidadTotal = gastos.stream()
-            .mapToInt(Gasto::getCantidad)
-            .sum();
-
-        BigDecimal precioPromedio = gastos.stream()
-            .map(Gasto::getValorUnitario)
-            .reduce(BigDecimal.ZERO, BigDecimal::add)
-            .divide(BigDecimal.valueOf(gastos.size()), 2, RoundingMode.HALF_UP);
+        GastoAggregator.Compra ultimaCompra = modelo.getUltimaCompra();
+        BigDecimal totalGastado = modelo.getTotal();
+        long cantidadTotal = modelo.getUnidades();
+        BigDecimal precioPromedio = modelo.getPromedioPrecioUnitario();
 
         sb.append("📦 INFORMACIÓN GENERAL\n");
         sb.append("─".repeat(80)).append("\n");
         sb.append(String.format("   Categoría: %s > %s\n", 
-            ultimaCompra.getCategoria().getNombre(),
-            ultimaCompra.getSubcategoria().getNombre()));
+            ultimaCompra.categoria(),
+            ultimaCompra.subcategoria()));
         sb.append(String.format("   Total gastado: %s\n", formatearMoneda(totalGastado)));
         sb.append(String.format("   Cantidad comprada: %d unidades\n", cantidadTotal));
         sb.append(String.format("   Precio promedio: %s por unidad\n", formatearMoneda(precioPromedio)));
-        sb.append(String.format("   Número de compras: %d\n\n", gastos.size()));
+        sb.append(String.format("   Número de compras: %d\n\n", modelo.getCompras()));
 
-        BigDecimal precioMin = gastos.stream()
-            .map(Gasto::getValorUnitario)
-            .min(BigDecimal::compareTo)
-            .orElse(BigDecimal.ZERO);
-
-        BigDecimal precioMax = gastos.stream()
-            .map(Gasto::getValorUnitario)
-            .max(BigDecimal::compareTo)
-            .orElse(BigDecimal.ZERO);
+        BigDecimal precioMin = modelo.getPrecioMinimo();
+        BigDecimal precioMax = modelo.getPrecioMaximo();
 
         sb.append("📊 ESTADÍSTICAS DE PRECIO\n");
         sb.append("─".repeat(80)).append("\n");
         sb.append(String.format("   Precio más bajo: %s\n", formatearMoneda(precioMin)));
         sb.append(String.format("   Precio más alto: %s\n", formatearMoneda(precioMax)));
-        sb.append(String.format("   Precio actual: %s\n\n", formatearMoneda(ultimaCompra.getValorUnitario())));
+        sb.append(String.format("   Precio actual: %s\n\n", formatearMoneda(ultimaCompra.valorUnitario())));
 
         sb.append("📋 HISTORIAL DE COMPRAS (Últimas 10)\n");
         sb.append("─".repeat(80)).append("\n");
@@ -339,13 +372,13 @@ public class InformeService {
             "FECHA", "CANTIDAD", "PRECIO UNIT.", "TOTAL", "NOTAS"));
         sb.append("─".repeat(80)).append("\n");
 
-        gastos.stream().limit(10).forEach(g -> {
+        modelo.getRecientes().forEach(g -> {
             sb.append(String.format("%-12s %10d %15s %15s %20s\n",
-                formatearFecha(g.getFecha()),
-                g.getCantidad(),
-                formatearMoneda(g.getValorUnitario()),
-                formatearMoneda(g.getValorTotal()),
-                truncar((g.getNotas() != null && !g.getNotas().isEmpty()) ? g.getNotas() : "-", 20)
+                formatearFecha(g.fecha()),
+                g.cantidad(),
+                formatearMoneda(g.valorUnitario()),
+                formatearMoneda(g.valorTotal()),
+                truncar((g.notas() != null && !g.notas().isEmpty()) ? g.notas() : "-", 20)
             ));
         });
 
@@ -361,30 +394,18 @@ public class InformeService {
         sb.append("                    COMPARACIÓN DE PERÍODOS\n");
         sb.append("═══════════════════════════════════════════════════════════════════════\n\n");
 
-        long dias = java.time.temporal.ChronoUnit.DAYS.between(inicio, fin);
-        LocalDate mitad = inicio.plusDays(dias / 2);
-
-        List<Gasto> periodo1 = gastoService.listarPorPeriodo(inicio, mitad);
-        List<Gasto> periodo2 = gastoService.listarPorPeriodo(mitad.plusDays(1), fin);
+        Comparacion comparacion = agregarComparacion(inicio, fin);
+        LocalDate mitad = comparacion.mitad();
 
         sb.append(String.format("Período 1: %s - %s\n", formatearFecha(inicio), formatearFecha(mitad)));
         sb.append(String.format("Período 2: %s - %s\n\n", formatearFecha(mitad.plusDays(1)), formatearFecha(fin)));
 
-        Map<String, BigDecimal> totalP1 = periodo1.stream()
-            .collect(Collectors.groupingBy(
-                g -> g.getCategoria().getNombre(),
-                Collectors.reducing(BigDecimal.ZERO, Gasto::getValorTotal, BigDecimal::add)
-            ));
-
-        Map<String, BigDecimal> totalP2 = periodo2.stream()
-            .collect(Collectors.groupingBy(
-                g -> g.getCategoria().getNombre(),
-                Collectors.reducing(BigDecimal.ZERO, Gasto::getValorTotal, BigDecimal::add)
-            ));
+        GastoAggregator periodo1 = comparacion.periodo1();
+        GastoAggregator periodo2 = comparacion.periodo2();
 
         Set<String> todasCategorias = new TreeSet<>();
-        todasCategorias.addAll(totalP1.keySet());
-        todasCategorias.addAll(totalP2.keySet());
+        todasCategorias.addAll(periodo1.getPorCategoria().keySet());
+        todasCategorias.addAll(periodo2.getPorCategoria().keySet());
 
         sb.append(String.format("%-20s %15s %15s %15s %10s\n", 
             "CATEGORÍA", "PERÍODO 1", "PERÍODO 2", "DIFERENCIA", "CAMBIO"));
@@ -394,8 +415,8 @@ public class InformeService {
         BigDecimal totalGeneralP2 = BigDecimal.ZERO;
 
         for (String categoria : todasCategorias) {
-            BigDecimal montoP1 = totalP1.getOrDefault(categoria, BigDecimal.ZERO);
-            BigDecimal montoP2 = totalP2.getOrDefault(categoria, BigDecimal.ZERO);
+            BigDecimal montoP1 = periodo1.totalCategoria(categoria);
+            BigDecimal montoP2 = periodo2.totalCategoria(categoria);
             BigDecimal diferencia = montoP2.subtract(montoP1);
             
             String cambio = "";
@@ -450,50 +471,34 @@ public class InformeService {
         sb.append("                    ").append(formatearFecha(inicio)).append(" - ").append(formatearFecha(fin)).append("\n");
         sb.append("═══════════════════════════════════════════════════════════════════════\n\n");
 
-        List<Gasto> gastos = gastoService.listarPorPeriodo(inicio, fin);
+        GastoAggregator modelo = agregar(inicio, fin);
 
-        if (gastos.isEmpty()) {
+        if (modelo.isVacio()) {
             sb.append("⚠️ No hay gastos registrados en este período.\n");
             return sb.toString();
         }
 
-        BigDecimal totalGastado = gastos.stream()
-            .map(Gasto::getValorTotal)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal totalGastado = modelo.getTotal();
 
         long dias = java.time.temporal.ChronoUnit.DAYS.between(inicio, fin) + 1;
         BigDecimal promedioDiario = totalGastado.divide(BigDecimal.valueOf(dias), 2, RoundingMode.HALF_UP);
 
-        BigDecimal mayorGasto = gastos.stream()
-            .map(Gasto::getValorTotal)
-            .max(BigDecimal::compareTo)
-            .orElse(BigDecimal.ZERO);
+        BigDecimal mayorGasto = modelo.getMayorGasto();
 
         sb.append("💰 RESUMEN FINANCIERO\n");
         sb.append("─".repeat(80)).append("\n");
         sb.append(String.format("   Total gastado en el período: %s\n", formatearMoneda(totalGastado)));
         sb.append(String.format("   Promedio diario: %s\n", formatearMoneda(promedioDiario)));
         sb.append(String.format("   Mayor gasto individual: %s\n", formatearMoneda(mayorGasto)));
-        sb.append(String.format("   Total de transacciones: %d\n", gastos.size()));
+        sb.append(String.format("   Total de transacciones: %d\n", modelo.getCompras()));
         sb.append(String.format("   Promedio por transacción: %s\n\n", 
-            formatearMoneda(totalGastado.divide(BigDecimal.valueOf(gastos.size()), 2, RoundingMode.HALF_UP))));
-
-        Map<String, BigDecimal> porCategoria = gastos.stream()
-            .collect(Collectors.groupingBy(
-                g -> g.getCategoria().getNombre(),
-                Collectors.reducing(BigDecimal.ZERO, Gasto::getValorTotal, BigDecimal::add)
-            ));
-
-        List<Map.Entry<String, BigDecimal>> top3Cat = porCategoria.entrySet().stream()
-            .sorted(Map.Entry.<String, BigDecimal>comparingByValue().reversed())
-            .limit(3)
-            .collect(Collectors.toList());
+            formatearMoneda(modelo.getPromedioPorCompra())));
 
         sb.append("📊 TOP 3 CATEGORÍAS\n");
         sb.append("─".repeat(80)).append("\n");
         int pos = 1;
-        for (Map.Entry<String, BigDecimal> entry : top3Cat) {
-            double porcentaje = entry.getValue()
+        for (Map.Entry<String, GastoAggregator.Medida> entry : modelo.topCategoriasPorMonto(3)) {
+            double porcentaje = entry.getValue().getTotal()
                 .divide(totalGastado, 4, RoundingMode.HALF_UP)
                 .multiply(BigDecimal.valueOf(100))
                 .doubleValue();
@@ -502,26 +507,18 @@ public class InformeService {
             sb.append(String.format("   %s %s %s (%.1f%%)\n", 
                 emoji, 
                 entry.getKey(),
-                formatearMoneda(entry.getValue()),
+                formatearMoneda(entry.getValue().getTotal()),
                 porcentaje
             ));
             pos++;
         }
         sb.append("\n");
 
-        Map<String, Long> frecuenciaProductos = gastos.stream()
-            .collect(Collectors.groupingBy(Gasto::getProducto, Collectors.counting()));
-
-        List<Map.Entry<String, Long>> topFrecuentes = frecuenciaProductos.entrySet().stream()
-            .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
-            .limit(5)
-            .collect(Collectors.toList());
-
         sb.append("🔥 PRODUCTOS MÁS COMPRADOS\n");
         sb.append("─".repeat(80)).append("\n");
         pos = 1;
-        for (Map.Entry<String, Long> entry : topFrecuentes) {
-            sb.append(String.format("   %d. %s (%d veces)\n", pos++, entry.getKey(), entry.getValue()));
+        for (Map.Entry<String, GastoAggregator.Medida> entry : modelo.topProductosPorCompras(5)) {
+            sb.append(String.format("   %d. %s (%d veces)\n", pos++, entry.getKey(), entry.getValue().getCompras()));
         }
 
         return sb.toString();
@@ -537,34 +534,20 @@ public class InformeService {
         sb.append("                    ").append(formatearFecha(inicio)).append(" - ").append(formatearFecha(fin)).append("\n");
         sb.append("═══════════════════════════════════════════════════════════════════════\n\n");
 
-        List<Gasto> gastos = gastoService.listarPorPeriodo(inicio, fin);
+        GastoAggregator modelo = agregar(inicio, fin);
         
-        if (gastos.isEmpty()) {
+        if (modelo.isVacio()) {
             sb.append("⚠️ No hay gastos registrados en este período.\n");
             return sb.toString();
         }
         
-        BigDecimal totalGeneral = gastos.stream()
-            .map(Gasto::getValorTotal)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal totalGeneral = modelo.getTotal();
 
-        Map<String, Map<String, BigDecimal>> estructura = new TreeMap<>();
-        
-        for (Gasto gasto : gastos) {
-            String categoria = gasto.getCategoria().getNombre();
-            String subcategoria = gasto.getSubcategoria().getNombre();
-            
-            estructura
-                .computeIfAbsent(categoria, k -> new TreeMap<>())
-                .merge(subcategoria, gasto.getValorTotal(), BigDecimal::add);
-        }
-
-        for (Map.Entry<String, Map<String, BigDecimal>> catEntry : estructura.entrySet()) {
+        for (Map.Entry<String, Map<String, GastoAggregator.Medida>> catEntry : modelo.getPorCategoriaSubcategoria().entrySet()) {
             String categoria = catEntry.getKey();
-            Map<String, BigDecimal> subcategorias = catEntry.getValue();
+            Map<String, GastoAggregator.Medida> subcategorias = catEntry.getValue();
             
-            BigDecimal totalCategoria = subcategorias.values().stream()
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+            BigDecimal totalCategoria = modelo.getPorCategoria().get(categoria).getTotal();
             
             double porcCategoria = totalCategoria
                 .divide(totalGeneral, 4, RoundingMode.HALF_UP)
@@ -578,8 +561,8 @@ public class InformeService {
             ));
             sb.append("─".repeat(80)).append("\n");
 
-            for (Map.Entry<String, BigDecimal> subEntry : subcategorias.entrySet()) {
-                double porcSubcat = subEntry.getValue()
+            for (Map.Entry<String, GastoAggregator.Medida> subEntry : subcategorias.entrySet()) {
+                double porcSubcat = subEntry.getValue().getTotal()
                     .divide(totalCategoria, 4, RoundingMode.HALF_UP)
                     .multiply(BigDecimal.valueOf(100))
                     .doubleValue();
@@ -589,7 +572,7 @@ public class InformeService {
 
                 sb.append(String.format("├─ %-30s %15s (%5.1f%%) %s\n",
                     truncar(subEntry.getKey(), 30),
-                    formatearMoneda(subEntry.getValue()),
+                    formatearMoneda(subEntry.getValue().getTotal()),
                     porcSubcat,
                     grafico
                 ));
@@ -615,17 +598,8 @@ public class InformeService {
         sb.append("                      INFORME ANUAL ").append(anio).append("\n");
         sb.append("═══════════════════════════════════════════════════════════════════════\n\n");
 
-        List<Gasto> gastos = gastoService.listarPorPeriodo(inicio, fin);
-
-        Map<Integer, BigDecimal> gastosPorMes = new TreeMap<>();
-        for (int mes = 1; mes <= 12; mes++) {
-            gastosPorMes.put(mes, BigDecimal.ZERO);
-        }
-
-        for (Gasto gasto : gastos) {
-            int mes = gasto.getFecha().getMonthValue();
-            gastosPorMes.merge(mes, gasto.getValorTotal(), BigDecimal::add);
-        }
+        GastoAggregator modelo = agregar(inicio, fin);
+        Map<Integer, BigDecimal> gastosPorMes = totalesPorMes(modelo, anio);
 
         BigDecimal totalAnual = gastosPorMes.values().stream()
             .reduce(BigDecimal.ZERO, BigDecimal::add);
@@ -662,19 +636,27 @@ public class InformeService {
         sb.append("─".repeat(80)).append("\n");
         sb.append(String.format("   Total año %d: %s\n", anio, formatearMoneda(totalAnual)));
         sb.append(String.format("   Promedio mensual: %s\n", formatearMoneda(promedioMensual)));
-        sb.append(String.format("   Total transacciones: %d\n", gastos.size()));
+        sb.append(String.format("   Total transacciones: %d\n", modelo.getCompras()));
 
         return sb.toString();
     }
 
+    // Los 12 meses del año, con cero en los meses sin gastos
+    private Map<Integer, BigDecimal> totalesPorMes(GastoAggregator modelo, int anio) {
+        Map<Integer, BigDecimal> gastosPorMes = new TreeMap<>();
+        for (int mes = 1; mes <= 12; mes++) {
+            gastosPorMes.put(mes, modelo.totalMes(YearMonth.of(anio, mes)));
+        }
+        return gastosPorMes;
+    }
+
     // ==================== EXPORTACIÓN PDF ====================
 
  //=============================================================     
     public void exportarInformeGeneralPDF(LocalDate inicio, LocalDate fin, String rutaArchivo) throws Exception {
-        List<Gasto> gastos = gastoService.listarPorPeriodo(inicio, fin);
+        GastoAggregator modelo = agregar(inicio, fin);
         
-        PdfWriter writer = new PdfWriter(rutaArchivo);
-        PdfDocument pdf = new PdfDocument(writer);
+        PdfDocument pdf = crearPdf(rutaArchivo);
         com.itextpdf.layout.Document document = new com.itextpdf.layout.Document(pdf);
 
         // Colores
@@ -698,29 +680,15 @@ public class InformeService {
             .setMarginBottom(20);
         document.add(subtitulo);
 
-        if (gastos.isEmpty()) {
+        if (modelo.isVacio()) {
             document.add(new Paragraph("⚠️ No hay gastos registrados en este período."));
             document.close();
             return;
         }
 
         // Preparar datos
-        Map<YearMonth, Map<String, BigDecimal>> datosPorMesCategoria = new TreeMap<>();
-        
-        for (Gasto gasto : gastos) {
-            YearMonth mes = YearMonth.from(gasto.getFecha());
-            String categoria = gasto.getCategoria().getNombre();
-            
-            datosPorMesCategoria
-                .computeIfAbsent(mes, k -> new HashMap<>())
-                .merge(categoria, gasto.getValorTotal(), BigDecimal::add);
-        }
-
-        Set<String> categorias = gastos.stream()
-            .map(g -> g.getCategoria().getNombre())
-            .collect(Collectors.toCollection(TreeSet::new));
-
-        List<YearMonth> meses = new ArrayList<>(datosPorMesCategoria.keySet());
+        Set<String> categorias = modelo.getPorCategoria().keySet();
+        List<YearMonth> meses = modelo.getMeses();
 
         // Crear tabla
         float[] columnWidths = new float[meses.size() + 2];
@@ -748,7 +716,7 @@ public class InformeService {
             
             BigDecimal totalCategoria = BigDecimal.ZERO;
             for (YearMonth mes : meses) {
-                BigDecimal monto = datosPorMesCategoria.get(mes).getOrDefault(categoria, BigDecimal.ZERO);
+                BigDecimal monto = modelo.totalMesCategoria(mes, categoria);
                 agregarCeldaDato(table, formatearMoneda(monto), colorFondo, grisBorde, com.itextpdf.layout.properties.TextAlignment.RIGHT);
                 totalCategoria = totalCategoria.add(monto);
             }
@@ -762,8 +730,7 @@ public class InformeService {
         
         BigDecimal totalGeneral = BigDecimal.ZERO;
         for (YearMonth mes : meses) {
-            BigDecimal totalMes = datosPorMesCategoria.get(mes).values().stream()
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+            BigDecimal totalMes = modelo.totalMes(mes);
             agregarCeldaTotal(table, formatearMoneda(totalMes), amarillo, grisBorde, com.itextpdf.layout.properties.TextAlignment.RIGHT);
             totalGeneral = totalGeneral.add(totalMes);
         }
@@ -780,15 +747,15 @@ public class InformeService {
         document.add(estadisticas);
 
         document.add(new Paragraph(String.format("💰 Total gastado: %s", formatearMoneda(totalGeneral))).setFontSize(10));
-        document.add(new Paragraph(String.format("📅 Período: %d meses", datosPorMesCategoria.size())).setFontSize(10));
+        document.add(new Paragraph(String.format("📅 Período: %d meses", meses.size())).setFontSize(10));
         
-        if (!datosPorMesCategoria.isEmpty()) {
+        if (!meses.isEmpty()) {
             document.add(new Paragraph(String.format("📈 Promedio mensual: %s", 
-                formatearMoneda(totalGeneral.divide(BigDecimal.valueOf(datosPorMesCategoria.size()), 2, RoundingMode.HALF_UP)))).setFontSize(10));
+                formatearMoneda(totalGeneral.divide(BigDecimal.valueOf(meses.size()), 2, RoundingMode.HALF_UP)))).setFontSize(10));
         }
         
         document.add(new Paragraph(String.format("📂 Total de categorías: %d", categorias.size())).setFontSize(10));
-        document.add(new Paragraph(String.format("🧾 Total de transacciones: %d", gastos.size())).setFontSize(10));
+        document.add(new Paragraph(String.format("🧾 Total de transacciones: %d", modelo.getCompras())).setFontSize(10));
 
         // Footer
         Paragraph footer = new Paragraph("ExpenseFlow - Sistema de Control de Gastos")
@@ -835,12 +802,9 @@ public class InformeService {
  //=============================================================   
 
     public void exportarInformeCategoriaPDF(String categoria, LocalDate inicio, LocalDate fin, String rutaArchivo) throws Exception {
-        List<Gasto> gastos = gastoService.listarPorPeriodo(inicio, fin).stream()
-            .filter(g -> g.getCategoria().getNombre().equals(categoria))
-            .collect(Collectors.toList());
+        GastoAggregator modelo = agregarCategoria(categoria, inicio, fin);
         
-        PdfWriter writer = new PdfWriter(rutaArchivo);
-        PdfDocument pdf = new PdfDocument(writer);
+        PdfDocument pdf = crearPdf(rutaArchivo);
         com.itextpdf.layout.Document document = new com.itextpdf.layout.Document(pdf);
 
         // Colores
@@ -864,7 +828,7 @@ public class InformeService {
             .setMarginBottom(20);
         document.add(subtitulo);
 
-        if (gastos.isEmpty()) {
+        if (modelo.isVacio()) {
             document.add(new Paragraph("⚠️ No hay gastos registrados en esta categoría para el período seleccionado."));
             document.close();
             return;
@@ -877,14 +841,9 @@ public class InformeService {
             .setMarginBottom(10);
         document.add(tituloResumen);
 
-        BigDecimal totalGastado = gastos.stream()
-            .map(Gasto::getValorTotal)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        int numeroCompras = gastos.size();
-        BigDecimal promedioCompra = numeroCompras > 0 
-            ? totalGastado.divide(BigDecimal.valueOf(numeroCompras), 2, RoundingMode.HALF_UP)
-            : BigDecimal.ZERO;
+        BigDecimal totalGastado = modelo.getTotal();
+        long numeroCompras = modelo.getCompras();
+        BigDecimal promedioCompra = modelo.getPromedioPorCompra();
 
         // Tabla de resumen
         float[] resumenWidths = {300f, 200f};
@@ -910,19 +869,6 @@ public class InformeService {
             .setMarginBottom(10);
         document.add(tituloSubcat);
 
-        // Agrupar por subcategoría
-        Map<String, BigDecimal> montoPorSubcat = new TreeMap<>();
-        Map<String, Long> comprasPorSubcat = new TreeMap<>();
-        
-        for (Gasto gasto : gastos) {
-            String subcat = gasto.getSubcategoria() != null 
-                ? gasto.getSubcategoria().getNombre() 
-                : "Sin subcategoría";
-            
-            montoPorSubcat.merge(subcat, gasto.getValorTotal(), BigDecimal::add);
-            comprasPorSubcat.merge(subcat, 1L, Long::sum);
-        }
-
         // Crear tabla de subcategorías
         float[] columnWidths = {200f, 120f, 80f, 100f};
         com.itextpdf.layout.element.Table tableSubcat = new com.itextpdf.layout.element.Table(columnWidths);
@@ -937,10 +883,10 @@ public class InformeService {
 
         // Datos
         boolean alternar = false;
-        for (Map.Entry<String, BigDecimal> entry : montoPorSubcat.entrySet()) {
+        for (Map.Entry<String, GastoAggregator.Medida> entry : modelo.getPorSubcategoria().entrySet()) {
             String subcat = entry.getKey();
-            BigDecimal monto = entry.getValue();
-            Long compras = comprasPorSubcat.get(subcat);
+            BigDecimal monto = entry.getValue().getTotal();
+            long compras = entry.getValue().getCompras();
             double porcentaje = totalGastado.compareTo(BigDecimal.ZERO) > 0
                 ? monto.divide(totalGastado, 4, RoundingMode.HALF_UP).multiply(BigDecimal.valueOf(100)).doubleValue()
                 : 0;
@@ -966,25 +912,6 @@ public class InformeService {
             .setMarginBottom(10);
         document.add(tituloTop);
 
-        // Agrupar por producto
-        Map<String, BigDecimal> montoPorProducto = new HashMap<>();
-        Map<String, Long> vecesPorProducto = new HashMap<>();
-        
-        for (Gasto gasto : gastos) {
-            String nombreProducto = gasto.getProducto() != null && !gasto.getProducto().trim().isEmpty()
-                ? gasto.getProducto()
-                : "Producto no especificado";
-            
-            montoPorProducto.merge(nombreProducto, gasto.getValorTotal(), BigDecimal::add);
-            vecesPorProducto.merge(nombreProducto, 1L, Long::sum);
-        }
-
-        // Ordenar por monto descendente y tomar top 5
-        List<Map.Entry<String, BigDecimal>> topProductos = montoPorProducto.entrySet().stream()
-            .sorted(Map.Entry.<String, BigDecimal>comparingByValue().reversed())
-            .limit(5)
-            .collect(Collectors.toList());
-
         // Crear tabla de productos
         float[] productosWidths = {50f, 300f, 150f};
         com.itextpdf.layout.element.Table tableProductos = new com.itextpdf.layout.element.Table(productosWidths);
@@ -993,10 +920,10 @@ public class InformeService {
 
         int posicion = 1;
         boolean alternar2 = false;
-        for (Map.Entry<String, BigDecimal> entry : topProductos) {
+        for (Map.Entry<String, GastoAggregator.Medida> entry : modelo.topProductosPorMonto(5)) {
             String nombreProducto = entry.getKey();
-            BigDecimal monto = entry.getValue();
-            Long veces = vecesPorProducto.get(nombreProducto);
+            BigDecimal monto = entry.getValue().getTotal();
+            long veces = entry.getValue().getCompras();
             
             String textoVeces = veces == 1 ? "(1 vez)" : String.format("(%d veces)", veces);
             
@@ -1026,13 +953,9 @@ public class InformeService {
  //=============================================================     
     
     public void exportarInformeProductoPDF(String producto, LocalDate inicio, LocalDate fin, String rutaArchivo) throws Exception {
-        List<Gasto> gastos = gastoService.listarPorPeriodo(inicio, fin).stream()
-            .filter(g -> g.getProducto().equals(producto))
-            .sorted(Comparator.comparing(Gasto::getFecha).reversed())
-            .collect(Collectors.toList());
+        GastoAggregator modelo = agregarProducto(producto, inicio, fin);
         
-        PdfWriter writer = new PdfWriter(rutaArchivo);
-        PdfDocument pdf = new PdfDocument(writer);
+        PdfDocument pdf = crearPdf(rutaArchivo);
         com.itextpdf.layout.Document document = new com.itextpdf.layout.Document(pdf);
         
         // Márgenes del documento
@@ -1082,7 +1005,7 @@ public class InformeService {
         document.add(bannerTable);
         document.add(new Paragraph("\n").setMarginTop(15));
 
-        if (gastos.isEmpty()) {
+        if (modelo.isVacio()) {
             document.add(new Paragraph("⚠️ No hay compras registradas de este producto en el período seleccionado.")
                 .setFontSize(12)
                 .setTextAlignment(com.itextpdf.layout.properties.TextAlignment.CENTER)
@@ -1092,36 +1015,18 @@ public class InformeService {
         }
 
         // Calcular datos
-        BigDecimal totalGastado = gastos.stream()
-            .map(Gasto::getValorTotal)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        int cantidadTotal = gastos.stream()
-            .mapToInt(Gasto::getCantidad)
-            .sum();
-        
-        BigDecimal precioPromedio = cantidadTotal > 0 
-            ? totalGastado.divide(BigDecimal.valueOf(cantidadTotal), 2, RoundingMode.HALF_UP)
-            : BigDecimal.ZERO;
-        
-        int numeroCompras = gastos.size();
+        BigDecimal totalGastado = modelo.getTotal();
+        long cantidadTotal = modelo.getUnidades();
+        BigDecimal precioPromedio = modelo.getPrecioPorUnidad();
+        long numeroCompras = modelo.getCompras();
 
-        String categoriaNombre = gastos.get(0).getCategoria().getNombre();
-        String subcategoriaNombre = gastos.get(0).getSubcategoria() != null 
-            ? gastos.get(0).getSubcategoria().getNombre() 
-            : "Sin subcategoría";
+        GastoAggregator.Compra ultimaCompra = modelo.getUltimaCompra();
+        String categoriaNombre = ultimaCompra.categoria();
+        String subcategoriaNombre = ultimaCompra.subcategoria();
 
-        BigDecimal precioMinimo = gastos.stream()
-            .map(Gasto::getValorUnitario)
-            .min(BigDecimal::compareTo)
-            .orElse(BigDecimal.ZERO);
-        
-        BigDecimal precioMaximo = gastos.stream()
-            .map(Gasto::getValorUnitario)
-            .max(BigDecimal::compareTo)
-            .orElse(BigDecimal.ZERO);
-        
-        BigDecimal precioActual = gastos.get(0).getValorUnitario();
+        BigDecimal precioMinimo = modelo.getPrecioMinimo();
+        BigDecimal precioMaximo = modelo.getPrecioMaximo();
+        BigDecimal precioActual = ultimaCompra.valorUnitario();
 
         // === TARJETAS DE RESUMEN (3 columnas) ===
         float[] tarjetasWidths = {1, 1, 1};
@@ -1271,18 +1176,18 @@ public class InformeService {
         }
 
         // Datos con colores alternados
-        int limite = Math.min(gastos.size(), 10);
-        for (int i = 0; i < limite; i++) {
-            Gasto gasto = gastos.get(i);
+        List<GastoAggregator.Compra> recientes = modelo.getRecientes();
+        for (int i = 0; i < recientes.size(); i++) {
+            GastoAggregator.Compra gasto = recientes.get(i);
             DeviceRgb colorFondo = (i % 2 == 0) ? new DeviceRgb(255, 255, 255) : grisClaro;
             
-            agregarCeldaDato(tableHistorial, formatearFecha(gasto.getFecha()), colorFondo, grisBorde, com.itextpdf.layout.properties.TextAlignment.CENTER);
-            agregarCeldaDato(tableHistorial, String.valueOf(gasto.getCantidad()), colorFondo, grisBorde, com.itextpdf.layout.properties.TextAlignment.CENTER);
-            agregarCeldaDato(tableHistorial, formatearMoneda(gasto.getValorUnitario()), colorFondo, grisBorde, com.itextpdf.layout.properties.TextAlignment.RIGHT);
-            agregarCeldaDato(tableHistorial, formatearMoneda(gasto.getValorTotal()), colorFondo, grisBorde, com.itextpdf.layout.properties.TextAlignment.RIGHT);
+            agregarCeldaDato(tableHistorial, formatearFecha(gasto.fecha()), colorFondo, grisBorde, com.itextpdf.layout.properties.TextAlignment.CENTER);
+            agregarCeldaDato(tableHistorial, String.valueOf(gasto.cantidad()), colorFondo, grisBorde, com.itextpdf.layout.properties.TextAlignment.CENTER);
+            agregarCeldaDato(tableHistorial, formatearMoneda(gasto.valorUnitario()), colorFondo, grisBorde, com.itextpdf.layout.properties.TextAlignment.RIGHT);
+            agregarCeldaDato(tableHistorial, formatearMoneda(gasto.valorTotal()), colorFondo, grisBorde, com.itextpdf.layout.properties.TextAlignment.RIGHT);
             
-            String notas = gasto.getNotas() != null && !gasto.getNotas().trim().isEmpty() 
-                ? gasto.getNotas() 
+            String notas = gasto.notas() != null && !gasto.notas().trim().isEmpty() 
+                ? gasto.notas() 
                 : "-";
             agregarCeldaDato(tableHistorial, notas, colorFondo, grisBorde, com.itextpdf.layout.properties.TextAlignment.LEFT);
         }
@@ -1314,10 +1219,9 @@ public class InformeService {
     
     
     public void exportarDashboardPDF(LocalDate inicio, LocalDate fin, String rutaArchivo) throws Exception {
-        List<Gasto> gastos = gastoService.listarPorPeriodo(inicio, fin);
+        GastoAggregator modelo = agregar(inicio, fin);
         
-        PdfWriter writer = new PdfWriter(rutaArchivo);
-        PdfDocument pdf = new PdfDocument(writer);
+        PdfDocument pdf = crearPdf(rutaArchivo);
         com.itextpdf.layout.Document document = new com.itextpdf.layout.Document(pdf);
 
         // Colores
@@ -1342,26 +1246,20 @@ public class InformeService {
             .setMarginBottom(20);
         document.add(subtitulo);
 
-        if (gastos.isEmpty()) {
+        if (modelo.isVacio()) {
             document.add(new Paragraph("⚠️ No hay gastos registrados en este período."));
             document.close();
             return;
         }
 
         // Calcular datos financieros
-        BigDecimal totalGastado = gastos.stream()
-            .map(Gasto::getValorTotal)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal totalGastado = modelo.getTotal();
 
         long dias = java.time.temporal.ChronoUnit.DAYS.between(inicio, fin) + 1;
         BigDecimal promedioDiario = totalGastado.divide(BigDecimal.valueOf(dias), 2, RoundingMode.HALF_UP);
 
-        BigDecimal mayorGasto = gastos.stream()
-            .map(Gasto::getValorTotal)
-            .max(BigDecimal::compareTo)
-            .orElse(BigDecimal.ZERO);
-
-        BigDecimal promedioTransaccion = totalGastado.divide(BigDecimal.valueOf(gastos.size()), 2, RoundingMode.HALF_UP);
+        BigDecimal mayorGasto = modelo.getMayorGasto();
+        BigDecimal promedioTransaccion = modelo.getPromedioPorCompra();
 
         // === RESUMEN FINANCIERO ===
         Paragraph tituloResumen = new Paragraph("💰 RESUMEN FINANCIERO")
@@ -1432,7 +1330,7 @@ public class InformeService {
         tableResumen.addCell(cellEtiq4);
         
         com.itextpdf.layout.element.Cell cellVal4 = new com.itextpdf.layout.element.Cell();
-        cellVal4.add(new Paragraph(String.valueOf(gastos.size())).setFontSize(10));
+        cellVal4.add(new Paragraph(String.valueOf(modelo.getCompras())).setFontSize(10));
         cellVal4.setBackgroundColor(grisClaro);
         cellVal4.setBorder(new com.itextpdf.layout.borders.SolidBorder(grisBorde, 1));
         cellVal4.setPadding(8);
@@ -1465,17 +1363,6 @@ public class InformeService {
             .setMarginBottom(10);
         document.add(tituloTop3);
 
-        Map<String, BigDecimal> porCategoria = gastos.stream()
-            .collect(Collectors.groupingBy(
-                g -> g.getCategoria().getNombre(),
-                Collectors.reducing(BigDecimal.ZERO, Gasto::getValorTotal, BigDecimal::add)
-            ));
-
-        List<Map.Entry<String, BigDecimal>> top3Cat = porCategoria.entrySet().stream()
-            .sorted(Map.Entry.<String, BigDecimal>comparingByValue().reversed())
-            .limit(3)
-            .collect(Collectors.toList());
-
         float[] top3Widths = {50f, 200f, 150f, 100f};
         com.itextpdf.layout.element.Table tableTop3 = new com.itextpdf.layout.element.Table(top3Widths);
         tableTop3.setWidth(com.itextpdf.layout.properties.UnitValue.createPercentValue(100));
@@ -1483,8 +1370,8 @@ public class InformeService {
 
         int pos = 1;
         boolean alternar = false;
-        for (Map.Entry<String, BigDecimal> entry : top3Cat) {
-            double porcentaje = entry.getValue()
+        for (Map.Entry<String, GastoAggregator.Medida> entry : modelo.topCategoriasPorMonto(3)) {
+            double porcentaje = entry.getValue().getTotal()
                 .divide(totalGastado, 4, RoundingMode.HALF_UP)
                 .multiply(BigDecimal.valueOf(100))
                 .doubleValue();
@@ -1495,7 +1382,7 @@ public class InformeService {
             
             agregarCeldaDato(tableTop3, emoji, colorFondo, grisBorde, com.itextpdf.layout.properties.TextAlignment.CENTER);
             agregarCeldaDato(tableTop3, entry.getKey(), colorFondo, grisBorde, com.itextpdf.layout.properties.TextAlignment.LEFT);
-            agregarCeldaDato(tableTop3, formatearMoneda(entry.getValue()), colorFondo, grisBorde, com.itextpdf.layout.properties.TextAlignment.RIGHT);
+            agregarCeldaDato(tableTop3, formatearMoneda(entry.getValue().getTotal()), colorFondo, grisBorde, com.itextpdf.layout.properties.TextAlignment.RIGHT);
             agregarCeldaDato(tableTop3, String.format("(%.1f%%)", porcentaje), colorFondo, grisBorde, com.itextpdf.layout.properties.TextAlignment.CENTER);
             
             pos++;
@@ -1512,27 +1399,20 @@ public class InformeService {
             .setMarginBottom(10);
         document.add(tituloProductos);
 
-        Map<String, Long> frecuenciaProductos = gastos.stream()
-            .collect(Collectors.groupingBy(Gasto::getProducto, Collectors.counting()));
-
-        List<Map.Entry<String, Long>> topFrecuentes = frecuenciaProductos.entrySet().stream()
-            .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
-            .limit(5)
-            .collect(Collectors.toList());
-
         float[] productosWidths = {40f, 360f, 100f};
         com.itextpdf.layout.element.Table tableProductos = new com.itextpdf.layout.element.Table(productosWidths);
         tableProductos.setWidth(com.itextpdf.layout.properties.UnitValue.createPercentValue(100));
 
         pos = 1;
         alternar = false;
-        for (Map.Entry<String, Long> entry : topFrecuentes) {
+        for (Map.Entry<String, GastoAggregator.Medida> entry : modelo.topProductosPorCompras(5)) {
             DeviceRgb colorFondo = alternar ? grisClaro : new DeviceRgb(255, 255, 255);
+            long compras = entry.getValue().getCompras();
             
             agregarCeldaDato(tableProductos, String.valueOf(pos) + ".", colorFondo, grisBorde, com.itextpdf.layout.properties.TextAlignment.CENTER);
             agregarCeldaDato(tableProductos, entry.getKey(), colorFondo, grisBorde, com.itextpdf.layout.properties.TextAlignment.LEFT);
             
-            String veces = entry.getValue() == 1 ? "(1 vez)" : String.format("(%d veces)", entry.getValue());
+            String veces = compras == 1 ? "(1 vez)" : String.format("(%d veces)", compras);
             agregarCeldaDato(tableProductos, veces, colorFondo, grisBorde, com.itextpdf.layout.properties.TextAlignment.CENTER);
             
             pos++;
@@ -1554,21 +1434,16 @@ public class InformeService {
 //=============================================================   
     
     public void exportarComparativoPDF(LocalDate inicio, LocalDate fin, String rutaArchivo) throws Exception {
-        // Calcular el punto medio para dividir en dos períodos
-        long diasTotal = java.time.temporal.ChronoUnit.DAYS.between(inicio, fin);
-        LocalDate puntoMedio = inicio.plusDays(diasTotal / 2);
+        // Ambos períodos en una sola pasada, divididos en el punto medio
+        Comparacion comparacion = agregarComparacion(inicio, fin);
+        LocalDate puntoMedio = comparacion.mitad();
         
         LocalDate inicioPeriodo1 = inicio;
         LocalDate finPeriodo1 = puntoMedio;
         LocalDate inicioPeriodo2 = puntoMedio.plusDays(1);
         LocalDate finPeriodo2 = fin;
         
-        // Obtener gastos de ambos períodos
-        List<Gasto> gastosPeriodo1 = gastoService.listarPorPeriodo(inicioPeriodo1, finPeriodo1);
-        List<Gasto> gastosPeriodo2 = gastoService.listarPorPeriodo(inicioPeriodo2, finPeriodo2);
-        
-        PdfWriter writer = new PdfWriter(rutaArchivo);
-        PdfDocument pdf = new PdfDocument(writer);
+        PdfDocument pdf = crearPdf(rutaArchivo);
         com.itextpdf.layout.Document document = new com.itextpdf.layout.Document(pdf);
 
         // Colores
@@ -1598,22 +1473,13 @@ public class InformeService {
         document.add(periodo2Text);
 
         // === AGRUPAR DATOS POR CATEGORÍA ===
-        Map<String, BigDecimal> montoPorCategoriaPeriodo1 = gastosPeriodo1.stream()
-            .collect(Collectors.groupingBy(
-                g -> g.getCategoria().getNombre(),
-                Collectors.reducing(BigDecimal.ZERO, Gasto::getValorTotal, BigDecimal::add)
-            ));
-        
-        Map<String, BigDecimal> montoPorCategoriaPeriodo2 = gastosPeriodo2.stream()
-            .collect(Collectors.groupingBy(
-                g -> g.getCategoria().getNombre(),
-                Collectors.reducing(BigDecimal.ZERO, Gasto::getValorTotal, BigDecimal::add)
-            ));
+        GastoAggregator periodo1 = comparacion.periodo1();
+        GastoAggregator periodo2 = comparacion.periodo2();
 
         // Obtener todas las categorías
         Set<String> todasCategorias = new TreeSet<>();
-        todasCategorias.addAll(montoPorCategoriaPeriodo1.keySet());
-        todasCategorias.addAll(montoPorCategoriaPeriodo2.keySet());
+        todasCategorias.addAll(periodo1.getPorCategoria().keySet());
+        todasCategorias.addAll(periodo2.getPorCategoria().keySet());
 
         if (todasCategorias.isEmpty()) {
             document.add(new Paragraph("⚠️ No hay gastos registrados en el período seleccionado."));
@@ -1639,8 +1505,8 @@ public class InformeService {
         boolean alternar = false;
 
         for (String categoria : todasCategorias) {
-            BigDecimal montoPer1 = montoPorCategoriaPeriodo1.getOrDefault(categoria, BigDecimal.ZERO);
-            BigDecimal montoPer2 = montoPorCategoriaPeriodo2.getOrDefault(categoria, BigDecimal.ZERO);
+            BigDecimal montoPer1 = periodo1.totalCategoria(categoria);
+            BigDecimal montoPer2 = periodo2.totalCategoria(categoria);
             BigDecimal diferencia = montoPer2.subtract(montoPer1);
             
             totalPeriodo1 = totalPeriodo1.add(montoPer1);
@@ -1704,10 +1570,9 @@ public class InformeService {
     //=============================================================      
     
     public void exportarSubCategoriasPDF(LocalDate inicio, LocalDate fin, String rutaArchivo) throws Exception {
-        List<Gasto> gastos = gastoService.listarPorPeriodo(inicio, fin);
+        GastoAggregator modelo = agregar(inicio, fin);
         
-        PdfWriter writer = new PdfWriter(rutaArchivo);
-        PdfDocument pdf = new PdfDocument(writer);
+        PdfDocument pdf = crearPdf(rutaArchivo);
         com.itextpdf.layout.Document document = new com.itextpdf.layout.Document(pdf);
 
         // Colores
@@ -1732,39 +1597,21 @@ public class InformeService {
             .setMarginBottom(20);
         document.add(subtitulo);
 
-        if (gastos.isEmpty()) {
+        if (modelo.isVacio()) {
             document.add(new Paragraph("⚠️ No hay gastos registrados en este período."));
             document.close();
             return;
         }
 
         // Calcular total general
-        BigDecimal totalGeneral = gastos.stream()
-            .map(Gasto::getValorTotal)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal totalGeneral = modelo.getTotal();
 
-        // Agrupar por categoría y subcategoría
-        Map<String, Map<String, BigDecimal>> datosPorCategoriaYSubcategoria = new TreeMap<>();
-        
-        for (Gasto gasto : gastos) {
-            String categoria = gasto.getCategoria().getNombre();
-            String subcategoria = gasto.getSubcategoria() != null 
-                ? gasto.getSubcategoria().getNombre() 
-                : "Sin subcategoría";
-            
-            datosPorCategoriaYSubcategoria
-                .computeIfAbsent(categoria, k -> new TreeMap<>())
-                .merge(subcategoria, gasto.getValorTotal(), BigDecimal::add);
-        }
-
-        // Generar contenido por cada categoría
-        for (Map.Entry<String, Map<String, BigDecimal>> categoriaEntry : datosPorCategoriaYSubcategoria.entrySet()) {
+        // Generar contenido por cada categoría (ya agrupado por subcategoría)
+        for (Map.Entry<String, Map<String, GastoAggregator.Medida>> categoriaEntry : modelo.getPorCategoriaSubcategoria().entrySet()) {
             String categoria = categoriaEntry.getKey();
-            Map<String, BigDecimal> subcategorias = categoriaEntry.getValue();
+            Map<String, GastoAggregator.Medida> subcategorias = categoriaEntry.getValue();
             
-            // Calcular total de la categoría
-            BigDecimal totalCategoria = subcategorias.values().stream()
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+            BigDecimal totalCategoria = modelo.totalCategoria(categoria);
             
             double porcentajeCategoria = totalGeneral.compareTo(BigDecimal.ZERO) > 0
                 ? totalCategoria.divide(totalGeneral, 4, RoundingMode.HALF_UP).multiply(BigDecimal.valueOf(100)).doubleValue()
@@ -1791,9 +1638,9 @@ public class InformeService {
             table.setMarginBottom(15);
 
             boolean alternar = false;
-            for (Map.Entry<String, BigDecimal> subcatEntry : subcategorias.entrySet()) {
+            for (Map.Entry<String, GastoAggregator.Medida> subcatEntry : subcategorias.entrySet()) {
                 String subcategoria = subcatEntry.getKey();
-                BigDecimal montoSubcat = subcatEntry.getValue();
+                BigDecimal montoSubcat = subcatEntry.getValue().getTotal();
                 
                 double porcentajeSubcat = totalCategoria.compareTo(BigDecimal.ZERO) > 0
                     ? montoSubcat.divide(totalCategoria, 4, RoundingMode.HALF_UP).multiply(BigDecimal.valueOf(100)).doubleValue()
@@ -1844,10 +1691,9 @@ public class InformeService {
         // Obtener gastos de todo el año
         LocalDate inicio = LocalDate.of(anio, 1, 1);
         LocalDate fin = LocalDate.of(anio, 12, 31);
-        List<Gasto> gastos = gastoService.listarPorPeriodo(inicio, fin);
+        GastoAggregator modelo = agregar(inicio, fin);
         
-        PdfWriter writer = new PdfWriter(rutaArchivo);
-        PdfDocument pdf = new PdfDocument(writer);
+        PdfDocument pdf = crearPdf(rutaArchivo);
         pdf.setDefaultPageSize(PageSize.A4);
         Document document = new Document(pdf);
         document.setMargins(40, 40, 40, 40);
@@ -1890,15 +1736,7 @@ public class InformeService {
         document.add(tituloGastos);
 
         // Agrupar por mes
-        Map<Integer, BigDecimal> gastosPorMes = new TreeMap<>();
-        for (int mes = 1; mes <= 12; mes++) {
-            gastosPorMes.put(mes, BigDecimal.ZERO);
-        }
-        
-        for (Gasto gasto : gastos) {
-            int mes = gasto.getFecha().getMonthValue();
-            gastosPorMes.merge(mes, gasto.getValorTotal(), BigDecimal::add);
-        }
+        Map<Integer, BigDecimal> gastosPorMes = totalesPorMes(modelo, anio);
 
         // Calcular el máximo para las barras proporcionales
         BigDecimal maxGasto = gastosPorMes.values().stream()
@@ -2082,7 +1920,7 @@ public class InformeService {
         tableResumen.addCell(cellEtiq4);
         
         Cell cellVal4 = new Cell();
-        cellVal4.add(new Paragraph(String.valueOf(gastos.size())).setFontSize(10));
+        cellVal4.add(new Paragraph(String.valueOf(modelo.getCompras())).setFontSize(10));
         cellVal4.setBackgroundColor(grisClaro);
         cellVal4.setBorder(new SolidBorder(grisBorde, 1));
         cellVal4.setPadding(5);
@@ -2123,8 +1961,7 @@ public class InformeService {
     
     
     private void exportarTextoPDF(String contenido, String rutaArchivo, String titulo) throws Exception {
-        PdfWriter writer = new PdfWriter(rutaArchivo);
-        PdfDocument pdf = new PdfDocument(writer);
+        PdfDocument pdf = crearPdf(rutaArchivo);
         Document document = new Document(pdf);
 
         DeviceRgb azulOscuro = new DeviceRgb(30, 58, 138);
@@ -2170,258 +2007,247 @@ public class InformeService {
     // ==================== EXPORTACIÓN EXCEL ====================
 
     public void exportarInformeGeneralExcel(LocalDate inicio, LocalDate fin, String rutaArchivo) throws Exception {
-        List<Gasto> gastos = gastoService.listarPorPeriodo(inicio, fin);
-        
-        Workbook workbook = new XSSFWorkbook();
-        Sheet sheet = workbook.createSheet("Informe General");
+        SXSSFWorkbook workbook = ExcelStreaming.crearLibro();
+        try {
+            Sheet sheet = workbook.createSheet("Informe General");
 
-        CellStyle headerStyle = crearEstiloHeader(workbook);
-        CellStyle moneyStyle = crearEstiloMoneda(workbook);
-        CellStyle titleStyle = crearEstiloTitulo(workbook);
+            CellStyle headerStyle = crearEstiloHeader(workbook);
+            CellStyle moneyStyle = crearEstiloMoneda(workbook);
+            CellStyle titleStyle = crearEstiloTitulo(workbook);
 
-        Row titleRow = sheet.createRow(0);
-        org.apache.poi.ss.usermodel.Cell titleCell = titleRow.createCell(0);
-        titleCell.setCellValue("INFORME GENERAL MENSUAL");
-        titleCell.setCellStyle(titleStyle);
+            Row titleRow = sheet.createRow(0);
+            org.apache.poi.ss.usermodel.Cell titleCell = titleRow.createCell(0);
+            titleCell.setCellValue("INFORME GENERAL MENSUAL");
+            titleCell.setCellStyle(titleStyle);
 
-        Row subtitleRow = sheet.createRow(1);
-        org.apache.poi.ss.usermodel.Cell subtitleCell = subtitleRow.createCell(0);
-        subtitleCell.setCellValue(formatearFecha(inicio) + " - " + formatearFecha(fin));
+            Row subtitleRow = sheet.createRow(1);
+            org.apache.poi.ss.usermodel.Cell subtitleCell = subtitleRow.createCell(0);
+            subtitleCell.setCellValue(formatearFecha(inicio) + " - " + formatearFecha(fin));
 
-        Map<YearMonth, Map<String, BigDecimal>> datosPorMesCategoria = new TreeMap<>();
-        
-        for (Gasto gasto : gastos) {
-            YearMonth mes = YearMonth.from(gasto.getFecha());
-            String categoria = gasto.getCategoria().getNombre();
-            
-            datosPorMesCategoria
-                .computeIfAbsent(mes, k -> new HashMap<>())
-                .merge(categoria, gasto.getValorTotal(), BigDecimal::add);
-        }
+            GastoAggregator modelo = agregar(inicio, fin);
+            Set<String> categorias = modelo.getPorCategoria().keySet();
+            List<YearMonth> meses = modelo.getMeses();
+            AnchosColumnas anchos = new AnchosColumnas(meses.size() + 2);
 
-        Set<String> categorias = gastos.stream()
-            .map(g -> g.getCategoria().getNombre())
-            .collect(Collectors.toCollection(TreeSet::new));
-
-        List<YearMonth> meses = new ArrayList<>(datosPorMesCategoria.keySet());
-
-        Row headerRow = sheet.createRow(3);
-        int col = 0;
+            Row headerRow = sheet.createRow(3);
+            int col = 0;
         
-        org.apache.poi.ss.usermodel.Cell catHeader = headerRow.createCell(col++);
-        catHeader.setCellValue("CATEGORÍA");
-        catHeader.setCellStyle(headerStyle);
-
-        for (YearMonth mes : meses) {
-            org.apache.poi.ss.usermodel.Cell mesHeader = headerRow.createCell(col++);
-            mesHeader.setCellValue(mes.getMonth().getDisplayName(TextStyle.SHORT, Locale.getDefault()));
-            mesHeader.setCellStyle(headerStyle);
-        }
-
-        org.apache.poi.ss.usermodel.Cell totalHeader = headerRow.createCell(col);
-        totalHeader.setCellValue("TOTAL");
-        totalHeader.setCellStyle(headerStyle);
+            org.apache.poi.ss.usermodel.Cell catHeader = headerRow.createCell(col++);
+            catHeader.setCellValue("CATEGORÍA");
+            catHeader.setCellStyle(headerStyle);
+            anchos.texto(0, "TOTAL MES");
 
-        int rowNum = 4;
-        for (String categoria : categorias) {
-            Row row = sheet.createRow(rowNum++);
-            col = 0;
-            
-            row.createCell(col++).setCellValue(categoria);
-            
-            BigDecimal totalCategoria = BigDecimal.ZERO;
             for (YearMonth mes : meses) {
-                BigDecimal monto = datosPorMesCategoria.get(mes).getOrDefault(categoria, BigDecimal.ZERO);
-                org.apache.poi.ss.usermodel.Cell cell = row.createCell(col++);
-                cell.setCellValue(monto.doubleValue());
-                cell.setCellStyle(moneyStyle);
-                totalCategoria = totalCategoria.add(monto);
+                org.apache.poi.ss.usermodel.Cell mesHeader = headerRow.createCell(col++);
+                mesHeader.setCellValue(mes.getMonth().getDisplayName(TextStyle.SHORT, Locale.getDefault()));
+                mesHeader.setCellStyle(headerStyle);
+            }
+
+            org.apache.poi.ss.usermodel.Cell totalHeader = headerRow.createCell(col);
+            totalHeader.setCellValue("TOTAL");
+            totalHeader.setCellStyle(headerStyle);
+
+            int rowNum = 4;
+            for (String categoria : categorias) {
+                Row row = sheet.createRow(rowNum++);
+                col = 0;
+            
+                row.createCell(col++).setCellValue(categoria);
+                anchos.texto(0, categoria);
+            
+                BigDecimal totalCategoria = BigDecimal.ZERO;
+                for (YearMonth mes : meses) {
+                    BigDecimal monto = modelo.totalMesCategoria(mes, categoria);
+                    org.apache.poi.ss.usermodel.Cell cell = row.createCell(col++);
+                    cell.setCellValue(monto.doubleValue());
+                    cell.setCellStyle(moneyStyle);
+                    anchos.numero(col - 1, monto.doubleValue(), "$%,.2f");
+                    totalCategoria = totalCategoria.add(monto);
+                }
+            
+                org.apache.poi.ss.usermodel.Cell totalCell = row.createCell(col);
+                totalCell.setCellValue(totalCategoria.doubleValue());
+                totalCell.setCellStyle(moneyStyle);
             }
-            
-            org.apache.poi.ss.usermodel.Cell totalCell = row.createCell(col);
-            totalCell.setCellValue(totalCategoria.doubleValue());
-            totalCell.setCellStyle(moneyStyle);
-        }
 
-        Row totalRow = sheet.createRow(rowNum);
-        col = 0;
+            Row totalRow = sheet.createRow(rowNum);
+            col = 0;
         
-        org.apache.poi.ss.usermodel.Cell totalLabelCell = totalRow.createCell(col++);
-        totalLabelCell.setCellValue("TOTAL MES");
-        totalLabelCell.setCellStyle(headerStyle);
+            org.apache.poi.ss.usermodel.Cell totalLabelCell = totalRow.createCell(col++);
+            totalLabelCell.setCellValue("TOTAL MES");
+            totalLabelCell.setCellStyle(headerStyle);
 
-        BigDecimal totalGeneral = BigDecimal.ZERO;
-        for (YearMonth mes : meses) {
-            BigDecimal totalMes = datosPorMesCategoria.get(mes).values().stream()
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+            BigDecimal totalGeneral = BigDecimal.ZERO;
+            for (YearMonth mes : meses) {
+                BigDecimal totalMes = modelo.totalMes(mes);
             
-            org.apache.poi.ss.usermodel.Cell cell = totalRow.createCell(col++);
-            cell.setCellValue(totalMes.doubleValue());
-            cell.setCellStyle(moneyStyle);
-            totalGeneral = totalGeneral.add(totalMes);
-        }
+                org.apache.poi.ss.usermodel.Cell cell = totalRow.createCell(col++);
+                cell.setCellValue(totalMes.doubleValue());
+                cell.setCellStyle(moneyStyle);
+                anchos.numero(col - 1, totalMes.doubleValue(), "$%,.2f");
+                totalGeneral = totalGeneral.add(totalMes);
+            }
 
-        org.apache.poi.ss.usermodel.Cell totalGeneralCell = totalRow.createCell(col);
-        totalGeneralCell.setCellValue(totalGeneral.doubleValue());
-        totalGeneralCell.setCellStyle(moneyStyle);
+            org.apache.poi.ss.usermodel.Cell totalGeneralCell = totalRow.createCell(col);
+            totalGeneralCell.setCellValue(totalGeneral.doubleValue());
+            totalGeneralCell.setCellStyle(moneyStyle);
+            // La columna TOTAL lleva el mayor valor: basta con el total general
+            anchos.numero(col, totalGeneral.doubleValue(), "$%,.2f");
 
-        for (int i = 0; i <= col; i++) {
-            sheet.autoSizeColumn(i);
-        }
+            anchos.aplicar(sheet, 3);
 
-        try (FileOutputStream fileOut = new FileOutputStream(rutaArchivo)) {
-            workbook.write(fileOut);
+            ExcelStreaming.guardar(workbook, rutaArchivo);
+        } finally {
+            ExcelStreaming.descartar(workbook);
         }
-        
-        workbook.close();
     }
 
     public void exportarInformeCategoriaExcel(String categoria, LocalDate inicio, LocalDate fin, String rutaArchivo) throws Exception {
-        List<Gasto> gastos = gastoService.listarPorPeriodo(inicio, fin).stream()
-            .filter(g -> g.getCategoria().getNombre().equalsIgnoreCase(categoria))
-            .collect(Collectors.toList());
-
-        Workbook workbook = new XSSFWorkbook();
-        Sheet sheet = workbook.createSheet("Informe Categoría");
-
-        CellStyle headerStyle = crearEstiloHeader(workbook);
-        CellStyle moneyStyle = crearEstiloMoneda(workbook);
-        CellStyle dateStyle = crearEstiloFecha(workbook);
-        CellStyle titleStyle = crearEstiloTitulo(workbook);
-
-        Row titleRow = sheet.createRow(0);
-        org.apache.poi.ss.usermodel.Cell titleCell = titleRow.createCell(0);
-        titleCell.setCellValue("INFORME POR CATEGORÍA: " + categoria.toUpperCase());
-        titleCell.setCellStyle(titleStyle);
-
-        Row headerRow = sheet.createRow(2);
-        String[] columnas = {"Fecha", "Subcategoría", "Producto", "Cantidad", "Valor Unit.", "Total", "Notas"};
-        
-        for (int i = 0; i < columnas.length; i++) {
-            org.apache.poi.ss.usermodel.Cell cell = headerRow.createCell(i);
-            cell.setCellValue(columnas[i]);
-            cell.setCellStyle(headerStyle);
-        }
-
-        int rowNum = 3;
-        BigDecimal totalGastado = BigDecimal.ZERO;
-
-        for (Gasto gasto : gastos) {
-            Row row = sheet.createRow(rowNum++);
-            
-            org.apache.poi.ss.usermodel.Cell dateCell = row.createCell(0);
-            dateCell.setCellValue(formatearFecha(gasto.getFecha()));
-            dateCell.setCellStyle(dateStyle);
-            
-            row.createCell(1).setCellValue(gasto.getSubcategoria().getNombre());
-            row.createCell(2).setCellValue(gasto.getProducto());
-            row.createCell(3).setCellValue(gasto.getCantidad());
-            
-            org.apache.poi.ss.usermodel.Cell valorUnitCell = row.createCell(4);
-            valorUnitCell.setCellValue(gasto.getValorUnitario().doubleValue());
-            valorUnitCell.setCellStyle(moneyStyle);
-            
-            org.apache.poi.ss.usermodel.Cell totalCell = row.createCell(5);
-            totalCell.setCellValue(gasto.getValorTotal().doubleValue());
-            totalCell.setCellStyle(moneyStyle);
-            
-            row.createCell(6).setCellValue(gasto.getNotas() != null ? gasto.getNotas() : "");
-            
-            totalGastado = totalGastado.add(gasto.getValorTotal());
-        }
-
-        Row totalRow = sheet.createRow(rowNum + 1);
-        org.apache.poi.ss.usermodel.Cell totalLabelCell = totalRow.createCell(4);
-        totalLabelCell.setCellValue("TOTAL:");
-        totalLabelCell.setCellStyle(headerStyle);
-        
-        org.apache.poi.ss.usermodel.Cell totalValueCell = totalRow.createCell(5);
-        totalValueCell.setCellValue(totalGastado.doubleValue());
-        totalValueCell.setCellStyle(crearEstiloTotal(workbook));
-
-        for (int i = 0; i < columnas.length; i++) {
-            sheet.autoSizeColumn(i);
-        }
+        SXSSFWorkbook workbook = ExcelStreaming.crearLibro();
+        try {
+            Sheet sheet = workbook.createSheet("Informe Categoría");
+
+            CellStyle headerStyle = crearEstiloHeader(workbook);
+            CellStyle moneyStyle = crearEstiloMoneda(workbook);
+            CellStyle dateStyle = crearEstiloFecha(workbook);
+            CellStyle titleStyle = crearEstiloTitulo(workbook);
+
+            Row titleRow = sheet.createRow(0);
+            org.apache.poi.ss.usermodel.Cell titleCell = titleRow.createCell(0);
+            titleCell.setCellValue("INFORME POR CATEGORÍA: " + categoria.toUpperCase());
+            titleCell.setCellStyle(titleStyle);
+
+            String[] columnas = {"Fecha", "Subcategoría", "Producto", "Cantidad", "Valor Unit.", "Total", "Notas"};
+        
+            AnchosColumnas anchos = new AnchosColumnas(columnas.length);
+            // Detalle desde la fila 3, en hojas nuevas si no cabe en una
+            ExcelStreaming.HojasDetalle hojas = new ExcelStreaming.HojasDetalle(workbook, sheet, 2,
+                (hoja, fila) -> crearEncabezados(hoja, fila, columnas, headerStyle, anchos));
+
+            GastoAggregator modelo = new GastoAggregator();
+
+            // El detalle se escribe fila a fila; los totales salen del modelo
+            // que se llena en la misma pasada
+            recorrerCategoria(categoria, inicio, fin, gasto -> {
+                modelo.accept(gasto);
+                Row row = hojas.nuevaFila();
+            
+                org.apache.poi.ss.usermodel.Cell dateCell = row.createCell(0);
+                dateCell.setCellValue(formatearFecha(gasto.getFecha()));
+                dateCell.setCellStyle(dateStyle);
+            
+                row.createCell(1).setCellValue(gasto.getSubcategoria().getNombre());
+                row.createCell(2).setCellValue(gasto.getProducto());
+                row.createCell(3).setCellValue(gasto.getCantidad());
+                anchos.texto(1, gasto.getSubcategoria().getNombre());
+                anchos.texto(2, gasto.getProducto());
+                anchos.numero(3, gasto.getCantidad(), "%,.0f");
+            
+                org.apache.poi.ss.usermodel.Cell valorUnitCell = row.createCell(4);
+                valorUnitCell.setCellValue(gasto.getValorUnitario().doubleValue());
+                valorUnitCell.setCellStyle(moneyStyle);
+                anchos.numero(4, gasto.getValorUnitario().doubleValue(), "$%,.2f");
+            
+                org.apache.poi.ss.usermodel.Cell totalCell = row.createCell(5);
+                totalCell.setCellValue(gasto.getValorTotal().doubleValue());
+                totalCell.setCellStyle(moneyStyle);
+            
+                String notas = gasto.getNotas() != null ? gasto.getNotas() : "";
+                row.createCell(6).setCellValue(notas);
+                anchos.texto(6, notas);
+            });
+
+            Row totalRow = hojas.filaFinal(1);
+            org.apache.poi.ss.usermodel.Cell totalLabelCell = totalRow.createCell(4);
+            totalLabelCell.setCellValue("TOTAL:");
+            totalLabelCell.setCellStyle(headerStyle);
+        
+            org.apache.poi.ss.usermodel.Cell totalValueCell = totalRow.createCell(5);
+            totalValueCell.setCellValue(modelo.getTotal().doubleValue());
+            totalValueCell.setCellStyle(crearEstiloTotal(workbook));
+            anchos.numero(5, modelo.getTotal().doubleValue(), "$%,.2f");
+
+            anchos.texto(0, "00/00/0000");
+            for (Sheet hoja : hojas.hojas()) {
+                anchos.aplicar(hoja, 3);
+            }
 
-        try (FileOutputStream fileOut = new FileOutputStream(rutaArchivo)) {
-            workbook.write(fileOut);
+            ExcelStreaming.guardar(workbook, rutaArchivo);
+        } finally {
+            ExcelStreaming.descartar(workbook);
         }
-        
-        workbook.close();
     }
 
     public void exportarInformeProductoExcel(String producto, LocalDate inicio, LocalDate fin, String rutaArchivo) throws Exception {
-        List<Gasto> gastos = gastoService.listarPorPeriodo(inicio, fin).stream()
-            .filter(g -> g.getProducto().equalsIgnoreCase(producto))
-            .sorted(Comparator.comparing(Gasto::getFecha).reversed())
-            .collect(Collectors.toList());
-
-        Workbook workbook = new XSSFWorkbook();
-        Sheet sheet = workbook.createSheet("Análisis Producto");
-
-        CellStyle headerStyle = crearEstiloHeader(workbook);
-        CellStyle moneyStyle = crearEstiloMoneda(workbook);
-        CellStyle dateStyle = crearEstiloFecha(workbook);
-        CellStyle titleStyle = crearEstiloTitulo(workbook);
-
-        Row titleRow = sheet.createRow(0);
-        org.apache.poi.ss.usermodel.Cell titleCell = titleRow.createCell(0);
-        titleCell.setCellValue("ANÁLISIS DE PRODUCTO: " + producto.toUpperCase());
-        titleCell.setCellStyle(titleStyle);
-
-        Row headerRow = sheet.createRow(2);
-        String[] columnas = {"Fecha", "Cantidad", "Precio Unitario", "Total", "Notas"};
-        
-        for (int i = 0; i < columnas.length; i++) {
-            org.apache.poi.ss.usermodel.Cell cell = headerRow.createCell(i);
-            cell.setCellValue(columnas[i]);
-            cell.setCellStyle(headerStyle);
-        }
-
-        int rowNum = 3;
-        BigDecimal totalGastado = BigDecimal.ZERO;
-        int cantidadTotal = 0;
-
-        for (Gasto gasto : gastos) {
-            Row row = sheet.createRow(rowNum++);
-            
-            org.apache.poi.ss.usermodel.Cell dateCell = row.createCell(0);
-            dateCell.setCellValue(formatearFecha(gasto.getFecha()));
-            dateCell.setCellStyle(dateStyle);
-            
-            row.createCell(1).setCellValue(gasto.getCantidad());
-            
-            org.apache.poi.ss.usermodel.Cell precioCell = row.createCell(2);
-            precioCell.setCellValue(gasto.getValorUnitario().doubleValue());
-            precioCell.setCellStyle(moneyStyle);
-            
-            org.apache.poi.ss.usermodel.Cell totalCell = row.createCell(3);
-            totalCell.setCellValue(gasto.getValorTotal().doubleValue());
-            totalCell.setCellStyle(moneyStyle);
-            
-            row.createCell(4).setCellValue(gasto.getNotas() != null ? gasto.getNotas() : "");
-            
-            totalGastado = totalGastado.add(gasto.getValorTotal());
-            cantidadTotal += gasto.getCantidad();
-        }
-
-        Row totalRow = sheet.createRow(rowNum + 1);
-        totalRow.createCell(0).setCellValue("TOTALES:");
-        totalRow.createCell(1).setCellValue(cantidadTotal);
-        
-        org.apache.poi.ss.usermodel.Cell totalValueCell = totalRow.createCell(3);
-        totalValueCell.setCellValue(totalGastado.doubleValue());
-        totalValueCell.setCellStyle(crearEstiloTotal(workbook));
-
-        for (int i = 0; i < columnas.length; i++) {
-            sheet.autoSizeColumn(i);
-        }
+        SXSSFWorkbook workbook = ExcelStreaming.crearLibro();
+        try {
+            Sheet sheet = workbook.createSheet("Análisis Producto");
+
+            CellStyle headerStyle = crearEstiloHeader(workbook);
+            CellStyle moneyStyle = crearEstiloMoneda(workbook);
+            CellStyle dateStyle = crearEstiloFecha(workbook);
+            CellStyle titleStyle = crearEstiloTitulo(workbook);
+
+            Row titleRow = sheet.createRow(0);
+            org.apache.poi.ss.usermodel.Cell titleCell = titleRow.createCell(0);
+            titleCell.setCellValue("ANÁLISIS DE PRODUCTO: " + producto.toUpperCase());
+            titleCell.setCellStyle(titleStyle);
+
+            String[] columnas = {"Fecha", "Cantidad", "Precio Unitario", "Total", "Notas"};
+        
+            AnchosColumnas anchos = new AnchosColumnas(columnas.length);
+            // Detalle desde la fila 3, en hojas nuevas si no cabe en una
+            ExcelStreaming.HojasDetalle hojas = new ExcelStreaming.HojasDetalle(workbook, sheet, 2,
+                (hoja, fila) -> crearEncabezados(hoja, fila, columnas, headerStyle, anchos));
+
+            GastoAggregator modelo = new GastoAggregator();
+
+            // Más recientes primero, filtrado por producto en la consulta
+            long filas = gastoService.recorrerGastosPorPeriodoYProducto(inicio, fin, producto, gasto -> {
+                modelo.accept(gasto);
+                Row row = hojas.nuevaFila();
+            
+                org.apache.poi.ss.usermodel.Cell dateCell = row.createCell(0);
+                dateCell.setCellValue(formatearFecha(gasto.getFecha()));
+                dateCell.setCellStyle(dateStyle);
+            
+                row.createCell(1).setCellValue(gasto.getCantidad());
+            
+                org.apache.poi.ss.usermodel.Cell precioCell = row.createCell(2);
+                precioCell.setCellValue(gasto.getValorUnitario().doubleValue());
+                precioCell.setCellStyle(moneyStyle);
+                anchos.numero(2, gasto.getValorUnitario().doubleValue(), "$%,.2f");
+            
+                org.apache.poi.ss.usermodel.Cell totalCell = row.createCell(3);
+                totalCell.setCellValue(gasto.getValorTotal().doubleValue());
+                totalCell.setCellStyle(moneyStyle);
+            
+                String notas = gasto.getNotas() != null ? gasto.getNotas() : "";
+                row.createCell(4).setCellValue(notas);
+                anchos.texto(4, notas);
+            });
+            ProgresoInforme.filas(filas);
+
+            Row totalRow = hojas.filaFinal(1);
+            totalRow.createCell(0).setCellValue("TOTALES:");
+            totalRow.createCell(1).setCellValue(modelo.getUnidades());
+            anchos.texto(0, "TOTALES:");
+            anchos.numero(1, modelo.getUnidades(), "%,.0f");
+        
+            org.apache.poi.ss.usermodel.Cell totalValueCell = totalRow.createCell(3);
+            totalValueCell.setCellValue(modelo.getTotal().doubleValue());
+            totalValueCell.setCellStyle(crearEstiloTotal(workbook));
+            anchos.numero(3, modelo.getTotal().doubleValue(), "$%,.2f");
+
+            anchos.texto(0, "00/00/0000");
+            for (Sheet hoja : hojas.hojas()) {
+                anchos.aplicar(hoja, 3);
+            }
 
-        try (FileOutputStream fileOut = new FileOutputStream(rutaArchivo)) {
-            workbook.write(fileOut);
+            ExcelStreaming.guardar(workbook, rutaArchivo);
+        } finally {
+            ExcelStreaming.descartar(workbook);
         }
-        
-        workbook.close();
     }
 
     public void exportarDashboardExcel(LocalDate inicio, LocalDate fin, String rutaArchivo) throws Exception {
@@ -2432,6 +2258,16 @@ public class InformeService {
 
  // ==================== ESTILOS EXCEL ====================
 
+    private void crearEncabezados(Sheet sheet, int fila, String[] columnas, CellStyle estilo, AnchosColumnas anchos) {
+        Row headerRow = sheet.createRow(fila);
+        for (int i = 0; i < columnas.length; i++) {
+            org.apache.poi.ss.usermodel.Cell cell = headerRow.createCell(i);
+            cell.setCellValue(columnas[i]);
+            cell.setCellStyle(estilo);
+            anchos.texto(i, columnas[i]);
+        }
+    }
+
     private CellStyle crearEstiloHeader(Workbook workbook) {
         CellStyle style = workbook.createCellStyle();
         Font font = workbook.createFont();
@@ -0,0 +1,181 @@
+package com.misgastos.service;
+
+import com.misgastos.model.Gasto;
+import com.misgastos.repository.GastoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * Índice en memoria de productos para el autocompletado de RegistroGasto.
+ * Se carga una vez con una consulta agrupada; cada alta suma en memoria y cada
+ * edición o borrado vuelve a leer el producto afectado. Las claves son
+ * Gasto.normalizarProducto.
+ */
+@Component
+public class ProductoIndex {
+
+    @Autowired
+    private GastoRepository gastoRepository;
+
+    // Ordenado por clave normalizada: los prefijos se resuelven con subMap
+    private final TreeMap<String, Entrada> productos = new TreeMap<>();
+    private volatile boolean cargado = false;
+
+    // Prefijos primero, luego los más usados y los más recientes
+    private static final Comparator<Coincidencia> ORDEN = Comparator
+        .comparing(Coincidencia::esPrefijo).reversed()
+        .thenComparing(Coincidencia::frecuencia, Comparator.reverseOrder())
+        .thenComparing(Coincidencia::ultimoUso, Comparator.nullsLast(Comparator.reverseOrder()))
+        .thenComparing(Coincidencia::producto);
+
+    // ==================== CARGA ====================
+
+    public void cargar() {
+        long inicio = System.currentTimeMillis();
+        cargarCon(gastoRepository::resumirPorProducto);
+        System.out.println("✅ Índice de productos cargado: " + tamano() + " productos ("
+            + (System.currentTimeMillis() - inicio) + " ms)");
+    }
+
+    /**
+     * Carga a partir de filas [producto, veces, última fecha].
+     */
+    void cargarDesde(List<Object[]> filas) {
+        cargarCon(() -> filas);
+    }
+
+    /**
+     * Lee y reemplaza bajo el mismo candado: un registrar o actualizar que llega
+     * durante la carga (la diferida de DataInitializer corre en paralelo con el
+     * login) espera y se aplica sobre el índice nuevo en vez de perderse. Si el
+     * gasto ya estaba confirmado al leer, su frecuencia puede contarse dos veces.
+     */
+    synchronized void cargarCon(Supplier<List<Object[]>> lector) {
+        List<Object[]> filas = lector.get();
+        productos.clear();
+        for (Object[] fila : filas) {
+            agregar((String) fila[0], ((Number) fila[1]).longValue(), (LocalDate) fila[2]);
+        }
+        cargado = true;
+    }
+
+    private void cargarSiHaceFalta() {
+        if (!cargado) {
+            synchronized (this) {
+                if (!cargado) {
+                    cargar();
+                }
+            }
+        }
+    }
+
+    // ==================== ACTUALIZACIÓN ====================
+
+    public synchronized void registrar(String producto, LocalDate fecha) {
+        if (cargado) {
+            agregar(producto, 1, fecha);
+        }
+    }
+
+    /**
+     * Vuelve a leer de la BD las compras de un producto (tras editar o borrar un
+     * gasto): frecuencia, última fecha y forma escrita quedan exactas, sin
+     * suponer cuál era la fecha del gasto que se fue.
+     */
+    public void actualizar(String producto) {
+        String clave = Gasto.normalizarProducto(producto);
+        if (clave == null || clave.isEmpty()) return;
+        actualizarCon(clave, () -> gastoRepository.resumirProducto(clave));
+    }
+
+    // Como cargarCon, leyendo bajo el candado; filas [producto, veces, última fecha]
+    synchronized void actualizarCon(String clave, Supplier<List<Object[]>> lector) {
+        if (!cargado) return;
+
+        List<Object[]> filas = lector.get();
+        productos.remove(clave);
+        for (Object[] fila : filas) {
+            agregar((String) fila[0], ((Number) fila[1]).longValue(), (LocalDate) fila[2]);
+        }
+    }
+
+    private void agregar(String producto, long veces, LocalDate fecha) {
+        String clave = Gasto.normalizarProducto(producto);
+        if (clave == null || clave.isEmpty()) return;
+
+        Entrada entrada = productos.computeIfAbsent(clave, k -> new Entrada());
+        entrada.frecuencia += veces;
+        // Mostrar la forma escrita más reciente del producto
+        if (entrada.producto == null || (fecha != null && (entrada.ultimoUso == null || !fecha.isBefore(entrada.ultimoUso)))) {
+            entrada.producto = producto.trim();
+        }
+        if (fecha != null && (entrada.ultimoUso == null || fecha.isAfter(entrada.ultimoUso))) {
+            entrada.ultimoUso = fecha;
+        }
+    }
+
+    // ==================== CONSULTA ====================
+
+    /**
+     * Productos cuyo nombre contiene el texto (sin distinguir mayúsculas ni espacios
+     * repetidos), ordenados por prefijo, frecuencia y recencia, máximo {@code limite}.
+     */
+    public List<String> buscar(String texto, int limite) {
+        String consulta = Gasto.normalizarProducto(texto);
+        if (consulta == null || consulta.isEmpty() || limite <= 0) return List.of();
+
+        cargarSiHaceFalta();
+
+        List<Coincidencia> coincidencias = new ArrayList<>();
+        synchronized (this) {
+            // Prefijos: rango del TreeMap
+            Map<String, Entrada> prefijos = productos.subMap(consulta, true, consulta + Character.MAX_VALUE, true);
+            for (Entrada entrada : prefijos.values()) {
+                coincidencias.add(Coincidencia.de(entrada, true));
+            }
+            // Subcadenas que no son prefijo (solo si los prefijos no llenan el límite,
+            // porque los prefijos siempre van primero)
+            if (coincidencias.size() < limite) {
+                for (Map.Entry<String, Entrada> e : productos.entrySet()) {
+                    if (!e.getKey().startsWith(consulta) && e.getKey().contains(consulta)) {
+                        coincidencias.add(Coincidencia.de(e.getValue(), false));
+                    }
+                }
+            }
+        }
+
+        return coincidencias.stream()
+            .sorted(ORDEN)
+            .limit(limite)
+            .map(Coincidencia::producto)
+            .toList();
+    }
+
+    public synchronized int tamano() {
+        return productos.size();
+    }
+
+    // ==================== TIPOS INTERNOS ====================
+
+    private static class Entrada {
+        String producto;
+        long frecuencia;
+        LocalDate ultimoUso;
+    }
+
+    // Copia de la entrada tomada bajo el candado, para ordenar fuera de él
+    private record Coincidencia(String producto, long frecuencia, LocalDate ultimoUso, boolean esPrefijo) {
+
+        static Coincidencia de(Entrada entrada, boolean esPrefijo) {
+            return new Coincidencia(entrada.producto, entrada.frecuencia, entrada.ultimoUso, esPrefijo);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.misgastos.service;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progreso de un informe en ejecución (filas procesadas y páginas escritas) y
+ * su señal de cancelación. InformeService lo reporta con los métodos estáticos
+ * sin recibirlo por parámetro: el trabajo lo deja asociado a su hilo mientras
+ * se ejecuta. Fuera de un trabajo los métodos estáticos no hacen nada.
+ */
+public final class ProgresoInforme {
+
+    private static final ThreadLocal<ProgresoInforme> ACTUAL = new ThreadLocal<>();
+
+    private final AtomicLong filasProcesadas = new AtomicLong();
+    private final AtomicInteger paginasEscritas = new AtomicInteger();
+    private volatile boolean cancelado = false;
+    // Pasado el último punto de control (resultado publicado): ya no se cancela
+    private boolean confirmado = false;
+
+    <T> T ejecutar(Callable<T> accion) throws Exception {
+        ACTUAL.set(this);
+        try {
+            return accion.call();
+        } finally {
+            ACTUAL.remove();
+        }
+    }
+
+    public synchronized void cancelar() {
+        if (!confirmado) {
+            cancelado = true;
+        }
+    }
+
+    public boolean isCancelado() {
+        return cancelado;
+    }
+
+    public long getFilasProcesadas() {
+        return filasProcesadas.get();
+    }
+
+    public int getPaginasEscritas() {
+        return paginasEscritas.get();
+    }
+
+    /**
+     * Envuelve una parte del informe que corre en otro hilo (por ejemplo, el PDF
+     * de una exportación doble) para que informe y se cancele con el trabajo
+     * actual. Fuera de un trabajo devuelve la acción tal cual.
+     */
+    public static <T> Callable<T> enEsteTrabajo(Callable<T> accion) {
+        ProgresoInforme progreso = ACTUAL.get();
+        return progreso == null ? accion : () -> progreso.ejecutar(accion);
+    }
+
+    // ==================== REPORTE DESDE EL HILO DEL INFORME ====================
+
+    public static void filas(long cantidad) {
+        ProgresoInforme progreso = ACTUAL.get();
+        if (progreso != null) {
+            progreso.verificarCancelacion();
+            progreso.filasProcesadas.addAndGet(cantidad);
+        }
+    }
+
+    /**
+     * Último punto de control, justo antes de publicar el resultado (p. ej.
+     * mover los archivos a su destino): si se canceló lanza la cancelación y,
+     * si no, a partir de aquí el trabajo ya no se puede cancelar.
+     */
+    public static void confirmar() {
+        ProgresoInforme progreso = ACTUAL.get();
+        if (progreso != null) {
+            progreso.confirmarResultado();
+        }
+    }
+
+    private synchronized void confirmarResultado() {
+        verificarCancelacion();
+        confirmado = true;
+    }
+
+    public static void paginaEscrita() {
+        ProgresoInforme progreso = ACTUAL.get();
+        if (progreso != null) {
+            progreso.verificarCancelacion();
+            progreso.paginasEscritas.incrementAndGet();
+        }
+    }
+
+    private void verificarCancelacion() {
+        if (cancelado) {
+            throw new CancellationException("Informe cancelado");
+        }
+    }
+}
@@ -14,13 +14,16 @@ import com.itextpdf.kernel.colors.ColorConstants;
 import com.misgastos.model.Billetero;
 import com.misgastos.repository.BilleteroRepository;
 import com.misgastos.repository.GastoRepository;
+import com.misgastos.util.AnchosColumnas;
+import com.misgastos.util.ExcelStreaming;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.io.FileOutputStream;
 import java.math.BigDecimal;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
@@ -39,6 +42,15 @@ public class ReporteBilleteroService {
     @Autowired
     private GastoRepository gastoRepository;
     
+    // Categorías que el reporte separa del gasto local
+    private static final Long CATEGORIA_PAGOS_MANUEL = 14L;
+    private static final Long CATEGORIA_INVERSION = 10L;
+    
+    private static final BigDecimal[] SIN_GASTOS = {BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO};
+    
+    // Equivalente en String.format del formato "$ #,##0" de las celdas de moneda
+    private static final String FORMATO_ANCHO_MONEDA = "$ %,.0f";
+    
     private final DecimalFormat moneyFormat;
     private final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
     
@@ -56,7 +68,7 @@ public class ReporteBilleteroService {
     
     // ==================== DATOS DEL REPORTE ====================
     
-    private List<FilaReporte> generarDatosReporteMensual(LocalDate fechaInicio, LocalDate fechaFin) {
+    List<FilaReporte> generarDatosReporteMensual(LocalDate fechaInicio, LocalDate fechaFin) {
         List<FilaReporte> filas = new ArrayList<>();
         
         // 1. Buscar billeteros en el rango
@@ -74,6 +86,17 @@ public class ReporteBilleteroService {
         YearMonth mesInicio = YearMonth.from(fechaInicio);
         YearMonth mesFin = YearMonth.from(fechaFin);
         
+        // 🆕 Sumas de gastos de todos los meses en una sola consulta (meses completos)
+        Map<YearMonth, BigDecimal[]> gastosPorMes = new HashMap<>();
+        sumarGastosPorDia(mesInicio.atDay(1), mesFin.atEndOfMonth()).forEach((fecha, sumas) -> {
+            BigDecimal[] acumulado = gastosPorMes.computeIfAbsent(YearMonth.from(fecha), k -> new BigDecimal[] {
+                BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO
+            });
+            for (int i = 0; i < acumulado.length; i++) {
+                acumulado[i] = acumulado[i].add(sumas[i]);
+            }
+        });
+        
         YearMonth mesActual = mesInicio;
         
         // 4. Iterar por TODOS los meses del rango
@@ -92,41 +115,20 @@ public class ReporteBilleteroService {
             
             long diferencia = billMes - premiosMes;
             
-            LocalDate primerDia = mesActual.atDay(1);
-            LocalDate ultimoDia = mesActual.atEndOfMonth();
-            
-            System.out.println("\n=== DIAGNÓSTICO MES: " + mesActual + " ===");
-            System.out.println("Rango: " + primerDia + " a " + ultimoDia);
-            System.out.println("Billeteros encontrados: " + billeterosDelMes.size());
-            
-            // PAGOS MANUEL (categoría 14)
-            BigDecimal pagosManuelBD = gastoRepository.sumByFechaBetweenAndCategoriaId(
-                primerDia.toString(), ultimoDia.toString(), 14L);
-            long pagosManuelVal = obtenerValor(pagosManuelBD);
-            System.out.println("Pagos Manuel (cat 14): " + pagosManuelVal + " | BD devolvió: " + pagosManuelBD);
-            
-            // INVERSIÓN (categoría 10)
-            BigDecimal inversionBD = gastoRepository.sumByFechaBetweenAndCategoriaId(
-                primerDia.toString(), ultimoDia.toString(), 10L);
-            long inversionVal = obtenerValor(inversionBD);
-            System.out.println("Inversión (cat 10): " + inversionVal + " | BD devolvió: " + inversionBD);
-            
-            // GASTOS TOTALES
-            BigDecimal gastosTotalesBD = gastoRepository.sumByFechaBetween(primerDia, ultimoDia);
-            long gastosTotalesVal = obtenerValor(gastosTotalesBD);
-            System.out.println("Gastos Totales: " + gastosTotalesVal + " | BD devolvió: " + gastosTotalesBD);
+            // GASTOS TOTALES, PAGOS MANUEL (categoría 14) e INVERSIÓN (categoría 10)
+            BigDecimal[] sumas = gastosPorMes.getOrDefault(mesActual, SIN_GASTOS);
+            long gastosTotalesVal = obtenerValor(sumas[0]);
+            long pagosManuelVal = obtenerValor(sumas[1]);
+            long inversionVal = obtenerValor(sumas[2]);
             
             // GASTOS LOCAL = GASTOS TOTALES - PAGOS MANUEL - INVERSIÓN
             long gastosLocal = gastosTotalesVal - pagosManuelVal - inversionVal;
-            System.out.println("Gastos Local: " + gastosLocal);
             
             // GASTO TOTAL
             long gastoTotal = gastosLocal + pagosManuelVal + inversionVal;
-            System.out.println("Gasto Total: " + gastoTotal);
             
             // UTILIDAD NETA = DIFERENCIA - GASTO TOTAL
             long utilidadNeta = diferencia - gastoTotal;
-            System.out.println("Utilidad Neta: " + utilidadNeta);
             
             FilaReporte fila = new FilaReporte(
                 mesActual.getMonth().getDisplayName(TextStyle.FULL, new Locale("es", "ES")).toUpperCase(),
@@ -149,7 +151,7 @@ public class ReporteBilleteroService {
         return filas;
     }
     
-    private List<FilaReporte> generarDatosReporteDiario(LocalDate fechaInicio, LocalDate fechaFin) {
+    List<FilaReporte> generarDatosReporteDiario(LocalDate fechaInicio, LocalDate fechaFin) {
         List<FilaReporte> filas = new ArrayList<>();
         
         // 1. Buscar billeteros en el rango
@@ -162,6 +164,9 @@ public class ReporteBilleteroService {
             billeteroPorFecha.computeIfAbsent(b.getFecha(), k -> new ArrayList<>()).add(b);
         }
         
+        // 🆕 Sumas de gastos de todos los días en una sola consulta
+        Map<LocalDate, BigDecimal[]> gastosPorDia = sumarGastosPorDia(fechaInicio, fechaFin);
+        
         // 🆕 3. GENERAR TODOS LOS DÍAS DEL RANGO (aunque no tengan billeteros)
         LocalDate fechaActual = fechaInicio;
         
@@ -181,9 +186,11 @@ public class ReporteBilleteroService {
             
             long diferencia = billDia - premiosDia;
             
-            long pagosManuelVal = obtenerValor(gastoRepository.sumByFechaAndCategoriaId(fechaActual.toString(), 14L));
-            long inversionVal = obtenerValor(gastoRepository.sumByFechaAndCategoriaId(fechaActual.toString(), 10L));
-            long gastosTotalesVal = obtenerValor(gastoRepository.sumByFecha(fechaActual));
+            // Días sin gastos se rellenan con ceros
+            BigDecimal[] sumas = gastosPorDia.getOrDefault(fechaActual, SIN_GASTOS);
+            long gastosTotalesVal = obtenerValor(sumas[0]);
+            long pagosManuelVal = obtenerValor(sumas[1]);
+            long inversionVal = obtenerValor(sumas[2]);
             
             long gastosLocal = gastosTotalesVal - pagosManuelVal - inversionVal;
             long gastoTotal = gastosLocal + pagosManuelVal + inversionVal;
@@ -210,6 +217,24 @@ public class ReporteBilleteroService {
         return filas;
     }
     
+    /**
+     * Sumas de gastos por día del rango en una sola consulta agrupada:
+     * fecha -> {total, pagosManuel, inversion}. Los días sin gastos no aparecen.
+     */
+    private Map<LocalDate, BigDecimal[]> sumarGastosPorDia(LocalDate fechaInicio, LocalDate fechaFin) {
+        Map<LocalDate, BigDecimal[]> mapa = new HashMap<>();
+        List<Object[]> resultados = gastoRepository.sumarPorDiaConCategorias(
+            fechaInicio, fechaFin, CATEGORIA_PAGOS_MANUEL, CATEGORIA_INVERSION);
+        for (Object[] fila : resultados) {
+            mapa.put((LocalDate) fila[0], new BigDecimal[] {
+                (BigDecimal) fila[1],
+                (BigDecimal) fila[2],
+                (BigDecimal) fila[3]
+            });
+        }
+        return mapa;
+    }
+    
     // ==================== EXPORTAR A EXCEL ====================
     
     public void exportarReporteMensualExcel(LocalDate fechaInicio, LocalDate fechaFin, String rutaArchivo) throws Exception {
@@ -225,151 +250,169 @@ public class ReporteBilleteroService {
     }
     
     private void exportarExcel(List<FilaReporte> datos, String rutaArchivo, String titulo, String subtitulo) throws Exception {
-        XSSFWorkbook workbook = new XSSFWorkbook();
-        XSSFSheet sheet = workbook.createSheet("Reporte Billeteros");
-        
-        XSSFCellStyle estiloTitulo = crearEstiloTitulo(workbook);
-        XSSFCellStyle estiloSubtitulo = crearEstiloSubtitulo(workbook);
-        XSSFCellStyle estiloEncabezado = crearEstiloEncabezado(workbook);
-        XSSFCellStyle estiloMoneda = crearEstiloMoneda(workbook);
-        XSSFCellStyle estiloTotal = crearEstiloTotal(workbook);
-        
-        int rowNum = 0;
-        
-        // TÍTULO
-        Row rowTitulo = sheet.createRow(rowNum++);
-        org.apache.poi.ss.usermodel.Cell cellTitulo = rowTitulo.createCell(0);
-        cellTitulo.setCellValue(titulo);
-        cellTitulo.setCellStyle(estiloTitulo);
-        sheet.addMergedRegion(new CellRangeAddress(rowNum - 1, rowNum - 1, 0, 8));
-        
-        // SUBTÍTULO CON FECHAS
-        Row rowSubtitulo = sheet.createRow(rowNum++);
-        org.apache.poi.ss.usermodel.Cell cellSubtitulo = rowSubtitulo.createCell(0);
-        cellSubtitulo.setCellValue(subtitulo);
-        cellSubtitulo.setCellStyle(estiloSubtitulo);
-        sheet.addMergedRegion(new CellRangeAddress(rowNum - 1, rowNum - 1, 0, 8));
-        
-        rowNum++; // Espacio
-        
-        // ENCABEZADOS
-        Row rowEncabezado = sheet.createRow(rowNum++);
-        String[] encabezados = {
-            "PERIODO", "BILL", "PREMIOS", "DIFERENCIA",
-            "GASTOS LOCAL", "PAGOS MANUEL", "INVERSIÓN", "GASTO TOTAL", "UTILIDAD NETA"
-        };
-        
-        for (int i = 0; i < encabezados.length; i++) {
-            org.apache.poi.ss.usermodel.Cell cell = rowEncabezado.createCell(i);
-            cell.setCellValue(encabezados[i]);
-            cell.setCellStyle(estiloEncabezado);
-        }
+        // Los estilos con colores propios se crean en el XSSFWorkbook base;
+        // las filas se escriben en streaming
+        XSSFWorkbook base = new XSSFWorkbook();
+        XSSFCellStyle estiloTitulo = crearEstiloTitulo(base);
+        XSSFCellStyle estiloSubtitulo = crearEstiloSubtitulo(base);
+        XSSFCellStyle estiloEncabezado = crearEstiloEncabezado(base);
+        XSSFCellStyle estiloMoneda = crearEstiloMoneda(base);
+        XSSFCellStyle estiloTotal = crearEstiloTotal(base);
+        
+        SXSSFWorkbook workbook = ExcelStreaming.crearLibro(base);
+        try {
+            SXSSFSheet sheet = workbook.createSheet("Reporte Billeteros");
+        
+            int rowNum = 0;
+        
+            // TÍTULO
+            Row rowTitulo = sheet.createRow(rowNum++);
+            org.apache.poi.ss.usermodel.Cell cellTitulo = rowTitulo.createCell(0);
+            cellTitulo.setCellValue(titulo);
+            cellTitulo.setCellStyle(estiloTitulo);
+            sheet.addMergedRegion(new CellRangeAddress(rowNum - 1, rowNum - 1, 0, 8));
+        
+            // SUBTÍTULO CON FECHAS
+            Row rowSubtitulo = sheet.createRow(rowNum++);
+            org.apache.poi.ss.usermodel.Cell cellSubtitulo = rowSubtitulo.createCell(0);
+            cellSubtitulo.setCellValue(subtitulo);
+            cellSubtitulo.setCellStyle(estiloSubtitulo);
+            sheet.addMergedRegion(new CellRangeAddress(rowNum - 1, rowNum - 1, 0, 8));
+        
+            rowNum++; // Espacio
+        
+            // ENCABEZADOS
+            Row rowEncabezado = sheet.createRow(rowNum++);
+            String[] encabezados = {
+                "PERIODO", "BILL", "PREMIOS", "DIFERENCIA",
+                "GASTOS LOCAL", "PAGOS MANUEL", "INVERSIÓN", "GASTO TOTAL", "UTILIDAD NETA"
+            };
+        
+            AnchosColumnas anchos = new AnchosColumnas(encabezados.length);
+        
+            for (int i = 0; i < encabezados.length; i++) {
+                org.apache.poi.ss.usermodel.Cell cell = rowEncabezado.createCell(i);
+                cell.setCellValue(encabezados[i]);
+                cell.setCellStyle(estiloEncabezado);
+                anchos.texto(i, encabezados[i]);
+            }
         
-        long totalBill = 0;
-        long totalPremios = 0;
-        long totalDiferencia = 0;
-        long totalGastosLocal = 0;
-        long totalPagosManuel = 0;
-        long totalInversion = 0;
-        long totalGastoTotal = 0;
-        long totalUtilidadNeta = 0;
+            long totalBill = 0;
+            long totalPremios = 0;
+            long totalDiferencia = 0;
+            long totalGastosLocal = 0;
+            long totalPagosManuel = 0;
+            long totalInversion = 0;
+            long totalGastoTotal = 0;
+            long totalUtilidadNeta = 0;
+        
+            for (FilaReporte fila : datos) {
+                Row row = sheet.createRow(rowNum++);
+            
+                row.createCell(0).setCellValue(fila.periodo);
+                anchos.texto(0, fila.periodo);
+            
+                org.apache.poi.ss.usermodel.Cell cellBill = row.createCell(1);
+                cellBill.setCellValue(fila.acumuladoBill);
+                cellBill.setCellStyle(estiloMoneda);
+            
+                org.apache.poi.ss.usermodel.Cell cellPremios = row.createCell(2);
+                cellPremios.setCellValue(fila.acumuladoPremios);
+                cellPremios.setCellStyle(estiloMoneda);
+            
+                org.apache.poi.ss.usermodel.Cell cellDif = row.createCell(3);
+                cellDif.setCellValue(fila.diferencia);
+                cellDif.setCellStyle(estiloMoneda);
+            
+                org.apache.poi.ss.usermodel.Cell cellGastos = row.createCell(4);
+                cellGastos.setCellValue(fila.gastosLocal);
+                cellGastos.setCellStyle(estiloMoneda);
+            
+                org.apache.poi.ss.usermodel.Cell cellPagos = row.createCell(5);
+                cellPagos.setCellValue(fila.pagosManuel);
+                cellPagos.setCellStyle(estiloMoneda);
+            
+                org.apache.poi.ss.usermodel.Cell cellInv = row.createCell(6);
+                cellInv.setCellValue(fila.inversion);
+                cellInv.setCellStyle(estiloMoneda);
+            
+                org.apache.poi.ss.usermodel.Cell cellGastoTotal = row.createCell(7);
+                cellGastoTotal.setCellValue(fila.gastoTotal);
+                cellGastoTotal.setCellStyle(estiloMoneda);
+            
+                org.apache.poi.ss.usermodel.Cell cellUtilidad = row.createCell(8);
+                cellUtilidad.setCellValue(fila.utilidadNeta);
+                cellUtilidad.setCellStyle(fila.utilidadNeta >= 0 ? estiloMoneda : estiloTotal);
+            
+                totalBill += fila.acumuladoBill;
+                totalPremios += fila.acumuladoPremios;
+                totalDiferencia += fila.diferencia;
+                totalGastosLocal += fila.gastosLocal;
+                totalPagosManuel += fila.pagosManuel;
+                totalInversion += fila.inversion;
+                totalGastoTotal += fila.gastoTotal;
+                totalUtilidadNeta += fila.utilidadNeta;
+            
+                long[] valores = {fila.acumuladoBill, fila.acumuladoPremios, fila.diferencia, fila.gastosLocal,
+                    fila.pagosManuel, fila.inversion, fila.gastoTotal, fila.utilidadNeta};
+                for (int i = 0; i < valores.length; i++) {
+                    anchos.numero(i + 1, valores[i], FORMATO_ANCHO_MONEDA);
+                }
+            }
         
-        for (FilaReporte fila : datos) {
-            Row row = sheet.createRow(rowNum++);
-            
-            row.createCell(0).setCellValue(fila.periodo);
-            
-            org.apache.poi.ss.usermodel.Cell cellBill = row.createCell(1);
-            cellBill.setCellValue(fila.acumuladoBill);
-            cellBill.setCellStyle(estiloMoneda);
-            
-            org.apache.poi.ss.usermodel.Cell cellPremios = row.createCell(2);
-            cellPremios.setCellValue(fila.acumuladoPremios);
-            cellPremios.setCellStyle(estiloMoneda);
-            
-            org.apache.poi.ss.usermodel.Cell cellDif = row.createCell(3);
-            cellDif.setCellValue(fila.diferencia);
-            cellDif.setCellStyle(estiloMoneda);
-            
-            org.apache.poi.ss.usermodel.Cell cellGastos = row.createCell(4);
-            cellGastos.setCellValue(fila.gastosLocal);
-            cellGastos.setCellStyle(estiloMoneda);
-            
-            org.apache.poi.ss.usermodel.Cell cellPagos = row.createCell(5);
-            cellPagos.setCellValue(fila.pagosManuel);
-            cellPagos.setCellStyle(estiloMoneda);
-            
-            org.apache.poi.ss.usermodel.Cell cellInv = row.createCell(6);
-            cellInv.setCellValue(fila.inversion);
-            cellInv.setCellStyle(estiloMoneda);
-            
-            org.apache.poi.ss.usermodel.Cell cellGastoTotal = row.createCell(7);
-            cellGastoTotal.setCellValue(fila.gastoTotal);
-            cellGastoTotal.setCellStyle(estiloMoneda);
-            
-            org.apache.poi.ss.usermodel.Cell cellUtilidad = row.createCell(8);
-            cellUtilidad.setCellValue(fila.utilidadNeta);
-            cellUtilidad.setCellStyle(fila.utilidadNeta >= 0 ? estiloMoneda : estiloTotal);
+            if (!datos.isEmpty()) {
+                Row rowTotal = sheet.createRow(rowNum);
             
-            totalBill += fila.acumuladoBill;
-            totalPremios += fila.acumuladoPremios;
-            totalDiferencia += fila.diferencia;
-            totalGastosLocal += fila.gastosLocal;
-            totalPagosManuel += fila.pagosManuel;
-            totalInversion += fila.inversion;
-            totalGastoTotal += fila.gastoTotal;
-            totalUtilidadNeta += fila.utilidadNeta;
-        }
-        
-        if (!datos.isEmpty()) {
-            Row rowTotal = sheet.createRow(rowNum);
+                org.apache.poi.ss.usermodel.Cell cellLabelTotal = rowTotal.createCell(0);
+                cellLabelTotal.setCellValue("TOTALES");
+                cellLabelTotal.setCellStyle(estiloTotal);
             
-            org.apache.poi.ss.usermodel.Cell cellLabelTotal = rowTotal.createCell(0);
-            cellLabelTotal.setCellValue("TOTALES");
-            cellLabelTotal.setCellStyle(estiloTotal);
+                org.apache.poi.ss.usermodel.Cell cellTotalBill = rowTotal.createCell(1);
+                cellTotalBill.setCellValue(totalBill);
+                cellTotalBill.setCellStyle(estiloTotal);
             
-            org.apache.poi.ss.usermodel.Cell cellTotalBill = rowTotal.createCell(1);
-            cellTotalBill.setCellValue(totalBill);
-            cellTotalBill.setCellStyle(estiloTotal);
+                org.apache.poi.ss.usermodel.Cell cellTotalPremios = rowTotal.createCell(2);
+                cellTotalPremios.setCellValue(totalPremios);
+                cellTotalPremios.setCellStyle(estiloTotal);
             
-            org.apache.poi.ss.usermodel.Cell cellTotalPremios = rowTotal.createCell(2);
-            cellTotalPremios.setCellValue(totalPremios);
-            cellTotalPremios.setCellStyle(estiloTotal);
+                org.apache.poi.ss.usermodel.Cell cellTotalDif = rowTotal.createCell(3);
+                cellTotalDif.setCellValue(totalDiferencia);
+                cellTotalDif.setCellStyle(estiloTotal);
             
-            org.apache.poi.ss.usermodel.Cell cellTotalDif = rowTotal.createCell(3);
-            cellTotalDif.setCellValue(totalDiferencia);
-            cellTotalDif.setCellStyle(estiloTotal);
+                org.apache.poi.ss.usermodel.Cell cellTotalGastosLocal = rowTotal.createCell(4);
+                cellTotalGastosLocal.setCellValue(totalGastosLocal);
+                cellTotalGastosLocal.setCellStyle(estiloTotal);
             
-            org.apache.poi.ss.usermodel.Cell cellTotalGastosLocal = rowTotal.createCell(4);
-            cellTotalGastosLocal.setCellValue(totalGastosLocal);
-            cellTotalGastosLocal.setCellStyle(estiloTotal);
+                org.apache.poi.ss.usermodel.Cell cellTotalPagos = rowTotal.createCell(5);
+                cellTotalPagos.setCellValue(totalPagosManuel);
+                cellTotalPagos.setCellStyle(estiloTotal);
             
-            org.apache.poi.ss.usermodel.Cell cellTotalPagos = rowTotal.createCell(5);
-            cellTotalPagos.setCellValue(totalPagosManuel);
-            cellTotalPagos.setCellStyle(estiloTotal);
+                org.apache.poi.ss.usermodel.Cell cellTotalInv = rowTotal.createCell(6);
+                cellTotalInv.setCellValue(totalInversion);
+                cellTotalInv.setCellStyle(estiloTotal);
             
-            org.apache.poi.ss.usermodel.Cell cellTotalInv = rowTotal.createCell(6);
-            cellTotalInv.setCellValue(totalInversion);
-            cellTotalInv.setCellStyle(estiloTotal);
+                org.apache.poi.ss.usermodel.Cell cellTotalGastoTotal = rowTotal.createCell(7);
+                cellTotalGastoTotal.setCellValue(totalGastoTotal);
+                cellTotalGastoTotal.setCellStyle(estiloTotal);
             
-            org.apache.poi.ss.usermodel.Cell cellTotalGastoTotal = rowTotal.createCell(7);
-            cellTotalGastoTotal.setCellValue(totalGastoTotal);
-            cellTotalGastoTotal.setCellStyle(estiloTotal);
+                org.apache.poi.ss.usermodel.Cell cellTotalUtilidad = rowTotal.createCell(8);
+                cellTotalUtilidad.setCellValue(totalUtilidadNeta);
+                cellTotalUtilidad.setCellStyle(estiloTotal);
             
-            org.apache.poi.ss.usermodel.Cell cellTotalUtilidad = rowTotal.createCell(8);
-            cellTotalUtilidad.setCellValue(totalUtilidadNeta);
-            cellTotalUtilidad.setCellStyle(estiloTotal);
-        }
+                long[] totales = {totalBill, totalPremios, totalDiferencia, totalGastosLocal,
+                    totalPagosManuel, totalInversion, totalGastoTotal, totalUtilidadNeta};
+                for (int i = 0; i < totales.length; i++) {
+                    anchos.numero(i + 1, totales[i], FORMATO_ANCHO_MONEDA);
+                }
+            }
         
-        for (int i = 0; i < 9; i++) {
-            sheet.autoSizeColumn(i);
-            sheet.setColumnWidth(i, sheet.getColumnWidth(i) + 1000);
-        }
+            // Margen de ~4 caracteres, como el +1000 que se sumaba al autoSize
+            anchos.aplicar(sheet, 4);
         
-        try (FileOutputStream outputStream = new FileOutputStream(rutaArchivo)) {
-            workbook.write(outputStream);
+            ExcelStreaming.guardar(workbook, rutaArchivo);
+        } finally {
+            ExcelStreaming.descartar(workbook);
         }
-        workbook.close();
     }
     
     // ==================== EXPORTAR A PDF ====================
@@ -597,7 +640,7 @@ public class ReporteBilleteroService {
     
     // ==================== CLASE INTERNA ====================
     
-    private static class FilaReporte {
+    static class FilaReporte {
         String periodo;
         long acumuladoBill;
         long acumuladoPremios;
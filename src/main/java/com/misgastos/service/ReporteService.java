@@ -4,7 +4,8 @@ import java.io.FileOutputStream;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.DataFormat;
@@ -15,7 +16,8 @@ import org.apache.poi.ss.usermodel.IndexedColors;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -26,7 +28,9 @@ import com.itextpdf.kernel.pdf.PdfWriter;
 import com.itextpdf.layout.element.Paragraph;
 import com.itextpdf.layout.properties.TextAlignment;
 import com.itextpdf.layout.properties.UnitValue;
-import com.misgastos.model.Gasto;
+import com.misgastos.model.GastoFila;
+import com.misgastos.util.AnchosColumnas;
+import com.misgastos.util.ExcelStreaming;
 import com.itextpdf.kernel.colors.Color;
 import com.itextpdf.layout.element.Cell;
 import com.itextpdf.layout.element.Table;
@@ -39,127 +43,275 @@ public class ReporteService {
     @Autowired
     private GastoService gastoService;
     
+    // Filas de la tabla PDF que se vuelcan al archivo de una vez
+    private static final int LOTE_FILAS_PDF = 200;
+    
     // ==================== MÉTODOS EXCEL ====================
     
+    // Las exportaciones a Excel recorren los gastos con un Stream y escriben con
+    // SXSSF: la memoria no depende de cuántos gastos haya
+    
     public void exportarGastosExcel(String rutaArchivo) throws Exception {
-        List<Gasto> gastos = gastoService.listarTodos();
-        generarExcel(gastos, rutaArchivo, "Todos los Gastos");
+        generarExcel(rutaArchivo, "Todos los Gastos", gastoService::recorrerTodos);
     }
     
     public void exportarGastosPorPeriodoExcel(LocalDate inicio, LocalDate fin, String rutaArchivo) throws Exception {
-        List<Gasto> gastos = gastoService.listarPorPeriodo(inicio, fin);
         String titulo = "Gastos del " + inicio + " al " + fin;
-        generarExcel(gastos, rutaArchivo, titulo);
+        generarExcel(rutaArchivo, titulo, accion -> gastoService.recorrerPorPeriodo(inicio, fin, null, accion));
     }
     
-    private void generarExcel(List<Gasto> gastos, String rutaArchivo, String titulo) throws Exception {
-        Workbook workbook = new XSSFWorkbook();
-        Sheet sheet = workbook.createSheet("Gastos");
-        
-        // Estilos
-        CellStyle headerStyle = crearEstiloHeader(workbook);
-        CellStyle moneyStyle = crearEstiloMoneda(workbook);
-        CellStyle dateStyle = crearEstiloFecha(workbook);
-        CellStyle totalStyle = crearEstiloTotal(workbook);
-        
-        // Título
-        Row titleRow = sheet.createRow(0);
-        org.apache.poi.ss.usermodel.Cell titleCell = titleRow.createCell(0);
-        titleCell.setCellValue(titulo);
-        CellStyle titleStyle = workbook.createCellStyle();
-        Font titleFont = workbook.createFont();
-        titleFont.setBold(true);
-        titleFont.setFontHeightInPoints((short) 16);
-        titleStyle.setFont(titleFont);
-        titleCell.setCellStyle(titleStyle);
-        
-        // Encabezados
-        Row headerRow = sheet.createRow(2);
-        String[] columnas = {"ID", "Fecha", "Hora", "Categoría", "Subcategoría", "Producto", "Cantidad", "Valor Unit.", "Total", "Notas"};
-        
-        for (int i = 0; i < columnas.length; i++) {
-            org.apache.poi.ss.usermodel.Cell cell = headerRow.createCell(i);
-            cell.setCellValue(columnas[i]);
-            cell.setCellStyle(headerStyle);
+    private void generarExcel(String rutaArchivo, String titulo, Function<Consumer<GastoFila>, Long> recorrer) throws Exception {
+        SXSSFWorkbook workbook = ExcelStreaming.crearLibro();
+        try {
+            SXSSFSheet sheet = workbook.createSheet("Gastos");
+            
+            // Estilos
+            CellStyle headerStyle = crearEstiloHeader(workbook);
+            CellStyle moneyStyle = crearEstiloMoneda(workbook);
+            CellStyle dateStyle = crearEstiloFecha(workbook);
+            CellStyle totalStyle = crearEstiloTotal(workbook);
+            
+            // Título
+            Row titleRow = sheet.createRow(0);
+            org.apache.poi.ss.usermodel.Cell titleCell = titleRow.createCell(0);
+            titleCell.setCellValue(titulo);
+            CellStyle titleStyle = workbook.createCellStyle();
+            Font titleFont = workbook.createFont();
+            titleFont.setBold(true);
+            titleFont.setFontHeightInPoints((short) 16);
+            titleStyle.setFont(titleFont);
+            titleCell.setCellStyle(titleStyle);
+            
+            // Encabezados
+            String[] columnas = {"ID", "Fecha", "Hora", "Categoría", "Subcategoría", "Producto", "Cantidad", "Valor Unit.", "Total", "Notas"};
+            AnchosColumnas anchos = new AnchosColumnas(columnas.length);
+            
+            // Datos (en hojas nuevas si no caben en una)
+            ExcelStreaming.HojasDetalle hojas = new ExcelStreaming.HojasDetalle(workbook, sheet, 2,
+                (hoja, fila) -> crearEncabezados(hoja, fila, columnas, headerStyle, anchos));
+            BigDecimal[] totalGeneral = {BigDecimal.ZERO};
+            DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+            DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm");
+            
+            long filas = recorrer.apply(gasto -> {
+                Row row = hojas.nuevaFila();
+                
+                row.createCell(0).setCellValue(gasto.id());
+                anchos.numero(0, gasto.id(), "%,.0f");
+                
+                org.apache.poi.ss.usermodel.Cell dateCell = row.createCell(1);
+                dateCell.setCellValue(gasto.fecha().format(dateFormatter));
+                dateCell.setCellStyle(dateStyle);
+                
+                row.createCell(2).setCellValue(gasto.hora().format(timeFormatter));
+                row.createCell(3).setCellValue(gasto.categoria());
+                row.createCell(4).setCellValue(gasto.subcategoria());
+                row.createCell(5).setCellValue(gasto.producto());
+                row.createCell(6).setCellValue(gasto.cantidad());
+                anchos.texto(3, gasto.categoria());
+                anchos.texto(4, gasto.subcategoria());
+                anchos.texto(5, gasto.producto());
+                anchos.numero(6, gasto.cantidad(), "%,.0f");
+                
+                org.apache.poi.ss.usermodel.Cell valorUnitCell = row.createCell(7);
+                valorUnitCell.setCellValue(gasto.valorUnitario().doubleValue());
+                valorUnitCell.setCellStyle(moneyStyle);
+                anchos.numero(7, gasto.valorUnitario().doubleValue(), "$%,.2f");
+                
+                org.apache.poi.ss.usermodel.Cell totalCell = row.createCell(8);
+                totalCell.setCellValue(gasto.valorTotal().doubleValue());
+                totalCell.setCellStyle(moneyStyle);
+                anchos.numero(8, gasto.valorTotal().doubleValue(), "$%,.2f");
+                
+                String notas = gasto.notas() != null ? gasto.notas() : "";
+                row.createCell(9).setCellValue(notas);
+                anchos.texto(9, notas);
+                
+                totalGeneral[0] = totalGeneral[0].add(gasto.valorTotal());
+                
+                // Progreso y punto de cancelación si corre en ColaInformes
+                if (hojas.escritas() % 1000 == 0) {
+                    ProgresoInforme.filas(1000);
+                }
+            });
+            anchos.texto(1, "00/00/0000");
+            anchos.texto(2, "00:00");
+            
+            // Fila de total
+            Row totalRow = hojas.filaFinal(1);
+            org.apache.poi.ss.usermodel.Cell totalLabelCell = totalRow.createCell(7);
+            totalLabelCell.setCellValue("TOTAL:");
+            totalLabelCell.setCellStyle(totalStyle);
+            
+            org.apache.poi.ss.usermodel.Cell totalValueCell = totalRow.createCell(8);
+            totalValueCell.setCellValue(totalGeneral[0].doubleValue());
+            totalValueCell.setCellStyle(totalStyle);
+            anchos.numero(8, totalGeneral[0].doubleValue(), "$%,.2f");
+            
+            // Ajustar ancho de columnas
+            for (Sheet hoja : hojas.hojas()) {
+                anchos.aplicar(hoja, 2);
+            }
+            
+            // Filtros automáticos
+            hojas.filtrar(columnas.length);
+            
+            // Guardar archivo
+            ExcelStreaming.guardar(workbook, rutaArchivo);
+            System.out.println("✅ Excel exportado: " + filas + " gastos → " + rutaArchivo);
+        } finally {
+            ExcelStreaming.descartar(workbook);
         }
-        
-        // Datos
-        int rowNum = 3;
-        BigDecimal totalGeneral = BigDecimal.ZERO;
-        DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
-        DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm");
-        
-        for (Gasto gasto : gastos) {
-            Row row = sheet.createRow(rowNum++);
+    }
+    
+    /**
+     * Historial de ListaGastos: gastos del período filtrados por producto o
+     * categoría como en la tabla, en streaming.
+     */
+    public long exportarHistorialExcel(LocalDate inicio, LocalDate fin, String filtro, String rutaArchivo) throws Exception {
+        SXSSFWorkbook workbook = ExcelStreaming.crearLibro();
+        try {
+            SXSSFSheet sheet = workbook.createSheet("Gastos");
+            
+            // Estilos
+            CellStyle headerStyle = workbook.createCellStyle();
+            Font headerFont = workbook.createFont();
+            headerFont.setBold(true);
+            headerFont.setFontHeightInPoints((short) 12);
+            headerStyle.setFont(headerFont);
+            headerStyle.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
+            headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+            headerStyle.setAlignment(HorizontalAlignment.CENTER);
+            
+            CellStyle numberStyle = workbook.createCellStyle();
+            numberStyle.setDataFormat(workbook.createDataFormat().getFormat("#,##0"));
+            
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy-mm-dd"));
+            
+            // Título del informe con filtro (si existe)
+            Row titleRow = sheet.createRow(0);
+            org.apache.poi.ss.usermodel.Cell titleCell = titleRow.createCell(0);
+            String titulo = "HISTORIAL DE GASTOS - " + inicio + " a " + fin;
+            if (filtro != null && !filtro.isEmpty()) {
+                titulo += " | Filtro: \"" + filtro + "\"";
+            }
+            titleCell.setCellValue(titulo);
+            CellStyle titleStyle = workbook.createCellStyle();
+            Font titleFont = workbook.createFont();
+            titleFont.setBold(true);
+            titleFont.setFontHeightInPoints((short) 14);
+            titleStyle.setFont(titleFont);
+            titleCell.setCellStyle(titleStyle);
+            
+            // Fusionar celdas del título
+            sheet.addMergedRegion(new org.apache.poi.ss.util.CellRangeAddress(0, 0, 0, 6));
             
-            row.createCell(0).setCellValue(gasto.getId());
+            // Crear encabezados (fila 1, justo debajo del título)
+            String[] columnas = {"ID", "Fecha", "Categoría", "Producto", "Cantidad", "Valor Unitario", "Valor Total"};
+            AnchosColumnas anchos = new AnchosColumnas(columnas.length);
             
-            org.apache.poi.ss.usermodel.Cell dateCell = row.createCell(1);
-            dateCell.setCellValue(gasto.getFecha().format(dateFormatter));
-            dateCell.setCellStyle(dateStyle);
+            // Llenar datos (comienza en fila 2; en hojas nuevas si no caben en una)
+            ExcelStreaming.HojasDetalle hojas = new ExcelStreaming.HojasDetalle(workbook, sheet, 1,
+                (hoja, fila) -> crearEncabezados(hoja, fila, columnas, headerStyle, anchos));
+            BigDecimal[] totalGeneral = {BigDecimal.ZERO};
             
-            row.createCell(2).setCellValue(gasto.getHora().format(timeFormatter));
-            row.createCell(3).setCellValue(gasto.getCategoria().getNombre());
-            row.createCell(4).setCellValue(gasto.getSubcategoria().getNombre());
-            row.createCell(5).setCellValue(gasto.getProducto());
-            row.createCell(6).setCellValue(gasto.getCantidad());
+            long filas = gastoService.recorrerPorPeriodo(inicio, fin, filtro, gasto -> {
+                Row row = hojas.nuevaFila();
+                
+                row.createCell(0).setCellValue(gasto.id());
+                anchos.numero(0, gasto.id(), "%,.0f");
+                
+                org.apache.poi.ss.usermodel.Cell fechaCell = row.createCell(1);
+                fechaCell.setCellValue(gasto.fecha().toString());
+                fechaCell.setCellStyle(dateStyle);
+                
+                row.createCell(2).setCellValue(gasto.categoria());
+                row.createCell(3).setCellValue(gasto.producto());
+                row.createCell(4).setCellValue(gasto.cantidad());
+                anchos.texto(2, gasto.categoria());
+                anchos.texto(3, gasto.producto());
+                anchos.numero(4, gasto.cantidad(), "%,.0f");
+                
+                org.apache.poi.ss.usermodel.Cell valorUnitCell = row.createCell(5);
+                valorUnitCell.setCellValue(gasto.valorUnitario().doubleValue());
+                valorUnitCell.setCellStyle(numberStyle);
+                anchos.numero(5, gasto.valorUnitario().doubleValue(), "%,.0f");
+                
+                org.apache.poi.ss.usermodel.Cell valorTotalCell = row.createCell(6);
+                valorTotalCell.setCellValue(gasto.valorTotal().doubleValue());
+                valorTotalCell.setCellStyle(numberStyle);
+                anchos.numero(6, gasto.valorTotal().doubleValue(), "%,.0f");
+                
+                totalGeneral[0] = totalGeneral[0].add(gasto.valorTotal());
+                
+                if (hojas.escritas() % 1000 == 0) {
+                    ProgresoInforme.filas(1000);
+                }
+            });
+            anchos.texto(1, "0000-00-00");
             
-            org.apache.poi.ss.usermodel.Cell valorUnitCell = row.createCell(7);
-            valorUnitCell.setCellValue(gasto.getValorUnitario().doubleValue());
-            valorUnitCell.setCellStyle(moneyStyle);
+            // Fila de total
+            Row totalRow = hojas.filaFinal(0);
+            org.apache.poi.ss.usermodel.Cell totalLabelCell = totalRow.createCell(5);
+            totalLabelCell.setCellValue("TOTAL:");
             
-            org.apache.poi.ss.usermodel.Cell totalCell = row.createCell(8);
-            totalCell.setCellValue(gasto.getValorTotal().doubleValue());
-            totalCell.setCellStyle(moneyStyle);
+            Font boldFont = workbook.createFont();
+            boldFont.setBold(true);
+            CellStyle boldStyle = workbook.createCellStyle();
+            boldStyle.setFont(boldFont);
+            boldStyle.setAlignment(HorizontalAlignment.RIGHT);
+            totalLabelCell.setCellStyle(boldStyle);
             
-            row.createCell(9).setCellValue(gasto.getNotas() != null ? gasto.getNotas() : "");
+            org.apache.poi.ss.usermodel.Cell totalValueCell = totalRow.createCell(6);
+            totalValueCell.setCellValue(totalGeneral[0].doubleValue());
+            CellStyle totalStyle = workbook.createCellStyle();
+            totalStyle.cloneStyleFrom(numberStyle);
+            totalStyle.setFont(boldFont);
+            totalValueCell.setCellStyle(totalStyle);
+            anchos.numero(6, totalGeneral[0].doubleValue(), "%,.0f");
             
-            totalGeneral = totalGeneral.add(gasto.getValorTotal());
+            // Ajustar ancho de columnas
+            for (Sheet hoja : hojas.hojas()) {
+                anchos.aplicar(hoja, 2);
+            }
+            
+            ExcelStreaming.guardar(workbook, rutaArchivo);
+            
+            String filtroLog = (filtro != null && !filtro.isEmpty()) ? " [Filtro: \"" + filtro + "\"]" : "";
+            System.out.println("✅ Excel exportado: " + filas + " gastos - Total: $" + 
+                String.format("%,.0f", totalGeneral[0]) + filtroLog);
+            return filas;
+        } finally {
+            ExcelStreaming.descartar(workbook);
         }
-        
-        // Fila de total
-        Row totalRow = sheet.createRow(rowNum + 1);
-        org.apache.poi.ss.usermodel.Cell totalLabelCell = totalRow.createCell(7);
-        totalLabelCell.setCellValue("TOTAL:");
-        totalLabelCell.setCellStyle(totalStyle);
-        
-        org.apache.poi.ss.usermodel.Cell totalValueCell = totalRow.createCell(8);
-        totalValueCell.setCellValue(totalGeneral.doubleValue());
-        totalValueCell.setCellStyle(totalStyle);
-        
-        // Ajustar ancho de columnas
+    }
+    
+    private void crearEncabezados(Sheet sheet, int fila, String[] columnas, CellStyle estilo, AnchosColumnas anchos) {
+        Row headerRow = sheet.createRow(fila);
         for (int i = 0; i < columnas.length; i++) {
-            sheet.autoSizeColumn(i);
-        }
-        
-        // Filtros automáticos
-        sheet.setAutoFilter(new org.apache.poi.ss.util.CellRangeAddress(2, rowNum - 1, 0, columnas.length - 1));
-        
-        // Guardar archivo
-        try (FileOutputStream fileOut = new FileOutputStream(rutaArchivo)) {
-            workbook.write(fileOut);
+            org.apache.poi.ss.usermodel.Cell cell = headerRow.createCell(i);
+            cell.setCellValue(columnas[i]);
+            cell.setCellStyle(estilo);
+            anchos.texto(i, columnas[i]);
         }
-        
-        workbook.close();
     }
     
     // ==================== MÉTODOS PDF ====================
     
     public void exportarGastosPDF(String rutaArchivo) throws Exception {
-        List<Gasto> gastos = gastoService.listarTodos();
-        generarPDF(gastos, rutaArchivo, "Reporte de Todos los Gastos");
+        generarPDF(rutaArchivo, "Reporte de Todos los Gastos", gastoService::recorrerTodos);
     }
     
     public void exportarGastosPorPeriodoPDF(LocalDate inicio, LocalDate fin, String rutaArchivo) throws Exception {
-        List<Gasto> gastos = gastoService.listarPorPeriodo(inicio, fin);
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
         String titulo = String.format("Reporte de Gastos\n%s - %s", 
             inicio.format(formatter), 
             fin.format(formatter));
-        generarPDF(gastos, rutaArchivo, titulo);
+        generarPDF(rutaArchivo, titulo, accion -> gastoService.recorrerPorPeriodo(inicio, fin, null, accion));
     }
     
-    private void generarPDF(List<Gasto> gastos, String rutaArchivo, String titulo) throws Exception {
+    private void generarPDF(String rutaArchivo, String titulo, Function<Consumer<GastoFila>, Long> recorrer) throws Exception {
         PdfWriter writer = new PdfWriter(rutaArchivo);
         PdfDocument pdf = new PdfDocument(writer);
         com.itextpdf.layout.Document document = new com.itextpdf.layout.Document(pdf);
@@ -183,9 +335,10 @@ public class ReporteService {
             .setMarginBottom(20);
         document.add(fechaGen);
         
-        // Tabla con 8 columnas
+        // Tabla con 8 columnas. Tabla "grande": se añade al documento antes de
+        // llenarla y se vuelca por lotes, así las filas ya escritas no quedan en memoria
         float[] columnWidths = {50f, 70f, 50f, 90f, 90f, 120f, 60f, 80f};
-        com.itextpdf.layout.element.Table table = new com.itextpdf.layout.element.Table(UnitValue.createPointArray(columnWidths));
+        com.itextpdf.layout.element.Table table = new com.itextpdf.layout.element.Table(UnitValue.createPointArray(columnWidths), true);
         table.setWidth(UnitValue.createPercentValue(100));
         
         // Encabezados
@@ -199,34 +352,37 @@ public class ReporteService {
                 .setPadding(8);
             table.addHeaderCell(cell);
         }
+        document.add(table);
         
         // Datos
-        BigDecimal totalGeneral = BigDecimal.ZERO;
+        BigDecimal[] totalGeneral = {BigDecimal.ZERO};
         DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd/MM/yyyy");
         DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm");
-        boolean alternar = false;
-        
+        long[] escritas = {0};
         
-        for (Gasto gasto : gastos) {
-        	Color bgColor = alternar ? grisClaro : ColorConstants.WHITE;
+        long registros = recorrer.apply(gasto -> {
+        	Color bgColor = escritas[0] % 2 == 1 ? grisClaro : ColorConstants.WHITE;
             
-            agregarCeldaPDF(table, String.valueOf(gasto.getId()), bgColor, TextAlignment.CENTER);
-            agregarCeldaPDF(table, gasto.getFecha().format(dateFormatter), bgColor, TextAlignment.CENTER);
-            agregarCeldaPDF(table, gasto.getHora().format(timeFormatter), bgColor, TextAlignment.CENTER);
-            agregarCeldaPDF(table, gasto.getCategoria().getNombre(), bgColor, TextAlignment.LEFT);
-            agregarCeldaPDF(table, gasto.getSubcategoria().getNombre(), bgColor, TextAlignment.LEFT);
-            agregarCeldaPDF(table, gasto.getProducto(), bgColor, TextAlignment.LEFT);
-            agregarCeldaPDF(table, String.valueOf(gasto.getCantidad()), bgColor, TextAlignment.CENTER);
-            agregarCeldaPDF(table, String.format("$%,.2f", gasto.getValorTotal()), bgColor, TextAlignment.RIGHT);
+            agregarCeldaPDF(table, String.valueOf(gasto.id()), bgColor, TextAlignment.CENTER);
+            agregarCeldaPDF(table, gasto.fecha().format(dateFormatter), bgColor, TextAlignment.CENTER);
+            agregarCeldaPDF(table, gasto.hora().format(timeFormatter), bgColor, TextAlignment.CENTER);
+            agregarCeldaPDF(table, gasto.categoria(), bgColor, TextAlignment.LEFT);
+            agregarCeldaPDF(table, gasto.subcategoria(), bgColor, TextAlignment.LEFT);
+            agregarCeldaPDF(table, gasto.producto(), bgColor, TextAlignment.LEFT);
+            agregarCeldaPDF(table, String.valueOf(gasto.cantidad()), bgColor, TextAlignment.CENTER);
+            agregarCeldaPDF(table, String.format("$%,.2f", gasto.valorTotal()), bgColor, TextAlignment.RIGHT);
             
-            totalGeneral = totalGeneral.add(gasto.getValorTotal());
-            alternar = !alternar;
-        }
-        
-        document.add(table);
+            totalGeneral[0] = totalGeneral[0].add(gasto.valorTotal());
+            
+            if (++escritas[0] % LOTE_FILAS_PDF == 0) {
+                table.flush();
+                ProgresoInforme.filas(LOTE_FILAS_PDF);
+            }
+        });
+        table.complete();
         
         // Total general
-        Paragraph totalParrafo = new Paragraph(String.format("TOTAL GENERAL: $%,.2f", totalGeneral))
+        Paragraph totalParrafo = new Paragraph(String.format("TOTAL GENERAL: $%,.2f", totalGeneral[0]))
             .setFontSize(14)
             .setBold()
             .setTextAlignment(TextAlignment.RIGHT)
@@ -236,7 +392,7 @@ public class ReporteService {
         document.add(totalParrafo);
         
         // Resumen
-        Paragraph resumen = new Paragraph(String.format("Total de registros: %d", gastos.size()))
+        Paragraph resumen = new Paragraph(String.format("Total de registros: %d", registros))
             .setFontSize(10)
             .setTextAlignment(TextAlignment.CENTER)
             .setMarginTop(20);
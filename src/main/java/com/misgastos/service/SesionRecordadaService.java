@@ -2,23 +2,99 @@ package com.misgastos.service;
 
 import com.misgastos.model.SesionRecordada;
 import com.misgastos.repository.SesionRecordadaRepository;
+import com.misgastos.util.Transacciones;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.prefs.Preferences;
 
+/**
+ * Sesiones "Recordarme". Los tokens vigentes se tienen en memoria (token →
+ * usuario y expiración) para validar el auto-login sin ir a la BD; cada
+ * cambio se escribe primero en sesiones_recordadas y se refleja en memoria al
+ * confirmar. Un barrido periódico borra por lotes las sesiones expiradas.
+ */
 @Service
 public class SesionRecordadaService {
-    
+
     @Autowired
     private SesionRecordadaRepository sesionRepository;
-    
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private DatosReferenciaCache datosReferenciaCache;
+
+    @Value("${misgastos.sesiones.barrido-minutos:60}")
+    private long barridoMinutos = 60;
+
+    @Value("${misgastos.sesiones.tamano-lote-barrido:500}")
+    private int tamanoLoteBarrido = 500;
+
     private static final String PREF_TOKEN_KEY = "session_token";
     private static final int DIAS_EXPIRACION = 30; // Token válido por 30 días
-    
+
+    private record Sesion(Long usuarioId, LocalDateTime fechaExpiracion) {
+    }
+
+    private final Map<String, Sesion> sesiones = new ConcurrentHashMap<>();
+    private volatile boolean cargadas = false;
+
+    private final ScheduledExecutorService barrido = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread hilo = new Thread(r, "sesiones-barrido");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    // Métricas
+    private volatile long ultimoBarridoMs = 0;
+    private volatile long sesionesBarridas = 0;
+
+    @PostConstruct
+    public void iniciar() {
+        barrido.scheduleWithFixedDelay(() -> {
+            try {
+                limpiarSesionesExpiradas();
+            } catch (RuntimeException e) {
+                System.err.println("⚠️ Error en el barrido de sesiones: " + e.getMessage());
+            }
+        }, barridoMinutos, barridoMinutos, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void detener() {
+        barrido.shutdownNow();
+    }
+
+    /**
+     * Carga en memoria las sesiones guardadas (DataInitializer, al iniciar).
+     */
+    public synchronized void cargar() {
+        long inicio = System.currentTimeMillis();
+        sesiones.clear();
+        for (SesionRecordada sesion : sesionRepository.findAll()) {
+            sesiones.put(sesion.getToken(), new Sesion(sesion.getUsuarioId(), sesion.getFechaExpiracion()));
+        }
+        cargadas = true;
+        System.out.println("✅ Sesiones recordadas cargadas: " + sesiones.size() + " ("
+            + (System.currentTimeMillis() - inicio) + " ms)");
+    }
+
     /**
      * Crea una sesión "Recordarme" y la guarda en BD y en la PC
      */
@@ -26,87 +102,163 @@ public class SesionRecordadaService {
     public void crearSesionRecordada(Long usuarioId) {
         // 1. Generar token único
         String token = UUID.randomUUID().toString();
-        
+
         // 2. Calcular fecha de expiración (30 días desde ahora)
         LocalDateTime fechaExpiracion = LocalDateTime.now().plusDays(DIAS_EXPIRACION);
-        
+
         // 3. Eliminar sesión anterior si existe
         sesionRepository.deleteByUsuarioId(usuarioId);
-        
-        // 4. Crear nueva sesión en BD
+
+        // 4. Crear nueva sesión en BD (y en memoria al confirmar)
         SesionRecordada sesion = new SesionRecordada(usuarioId, token, fechaExpiracion);
         sesionRepository.save(sesion);
-        
+        Transacciones.despuesDeConfirmar(() -> reemplazarEnMemoria(usuarioId, token, fechaExpiracion));
+
         // 5. Guardar token en PC del usuario
         guardarTokenLocal(token);
-        
+
         System.out.println("✅ Sesión creada - Token: " + token);
     }
-    
+
     /**
      * Valida si existe un token guardado localmente y si es válido en BD
      */
     public Optional<Long> validarSesionLocal() {
         // 1. Leer token de la PC
         String tokenLocal = leerTokenLocal();
-        
+
         if (tokenLocal == null) {
             return Optional.empty();
         }
-        
-        // 2. Buscar token en BD
-        Optional<SesionRecordada> sesionOpt = sesionRepository.findByToken(tokenLocal);
-        
-        if (sesionOpt.isEmpty()) {
-            borrarTokenLocal(); // Token no existe en BD
+
+        Optional<Long> usuarioId = validarToken(tokenLocal);
+        if (usuarioId.isEmpty()) {
+            borrarTokenLocal(); // Token no existe o expiró
             return Optional.empty();
         }
         
-        SesionRecordada sesion = sesionOpt.get();
-        
-        // 3. Verificar si expiró
-        if (sesion.getFechaExpiracion().isBefore(LocalDateTime.now())) {
-            eliminarSesion(sesion.getUsuarioId());
+        // El usuario pudo eliminarse (sus sesiones se borran en cascada)
+        if (datosReferenciaCache.buscarUsuario(usuarioId.get()).isEmpty()) {
+            olvidarUsuario(usuarioId.get());
+            borrarTokenLocal();
             return Optional.empty();
         }
-        
-        // 4. Token válido, retornar usuario_id
-        System.out.println("✅ Sesión válida encontrada para usuario ID: " + sesion.getUsuarioId());
-        return Optional.of(sesion.getUsuarioId());
+
+        System.out.println("✅ Sesión válida encontrada para usuario ID: " + usuarioId.get());
+        return usuarioId;
     }
-    
+
+    /**
+     * Usuario dueño del token si la sesión existe y no expiró (sin consultar la BD).
+     */
+    public Optional<Long> validarToken(String token) {
+        if (!cargadas) {
+            cargar();
+        }
+        Sesion sesion = sesiones.get(token);
+        if (sesion == null) {
+            return Optional.empty();
+        }
+
+        if (sesion.fechaExpiracion().isBefore(LocalDateTime.now())) {
+            transactionTemplate.executeWithoutResult(status -> sesionRepository.deleteByUsuarioId(sesion.usuarioId()));
+            quitarDeMemoria(sesion.usuarioId());
+            return Optional.empty();
+        }
+        return Optional.of(sesion.usuarioId());
+    }
+
     /**
      * Elimina la sesión de BD y PC
      */
     @Transactional
     public void eliminarSesion(Long usuarioId) {
         sesionRepository.deleteByUsuarioId(usuarioId);
+        Transacciones.despuesDeConfirmar(() -> quitarDeMemoria(usuarioId));
         borrarTokenLocal();
         System.out.println("🗑️ Sesión eliminada para usuario ID: " + usuarioId);
     }
-    
+
     /**
-     * Limpia tokens expirados de la BD (ejecutar periódicamente)
+     * Borra de la BD las sesiones expiradas, en lotes de tamano-lote-barrido
+     * (cada lote en su transacción), y las quita de memoria. Lo ejecuta el
+     * barrido periódico; devuelve cuántas se borraron.
      */
-    @Transactional
-    public void limpiarSesionesExpiradas() {
-        sesionRepository.deleteByFechaExpiracionBefore(LocalDateTime.now());
+    public synchronized int limpiarSesionesExpiradas() {
+        long inicio = System.nanoTime();
+        LocalDateTime ahora = LocalDateTime.now();
+
+        int borradas = 0;
+        while (true) {
+            List<Long> ids = sesionRepository.findIdsExpiradas(ahora, PageRequest.of(0, tamanoLoteBarrido));
+            if (ids.isEmpty()) {
+                break;
+            }
+            transactionTemplate.executeWithoutResult(status -> sesionRepository.deleteAllByIdInBatch(ids));
+            borradas += ids.size();
+            if (ids.size() < tamanoLoteBarrido) {
+                break;
+            }
+        }
+        sesiones.values().removeIf(sesion -> sesion.fechaExpiracion().isBefore(ahora));
+
+        ultimoBarridoMs = (System.nanoTime() - inicio) / 1_000_000;
+        sesionesBarridas += borradas;
+        if (borradas > 0) {
+            System.out.println("🧹 Sesiones expiradas borradas: " + borradas + " (" + ultimoBarridoMs
+                + " ms, " + getSesionesActivas() + " activas)");
+        }
+        return borradas;
+    }
+
+    /**
+     * Quita de memoria las sesiones de un usuario cuyas filas ya no están en la
+     * BD (UsuarioService.eliminarUsuario: ON DELETE CASCADE), tras confirmar.
+     */
+    public void olvidarUsuario(Long usuarioId) {
+        quitarDeMemoria(usuarioId);
     }
     
+    // Sincronizados con cargar: un cambio confirmado durante la carga diferida
+    // se aplica después de ella en vez de quedar tapado por la lectura
+    private synchronized void reemplazarEnMemoria(Long usuarioId, String token, LocalDateTime fechaExpiracion) {
+        quitarDeMemoria(usuarioId);
+        sesiones.put(token, new Sesion(usuarioId, fechaExpiracion));
+    }
+
+    private synchronized void quitarDeMemoria(Long usuarioId) {
+        sesiones.values().removeIf(sesion -> sesion.usuarioId().equals(usuarioId));
+    }
+
+    // ==================== MÉTRICAS ====================
+
+    public long getSesionesActivas() {
+        LocalDateTime ahora = LocalDateTime.now();
+        return sesiones.values().stream().filter(s -> !s.fechaExpiracion().isBefore(ahora)).count();
+    }
+
+    public long getUltimoBarridoMs() {
+        return ultimoBarridoMs;
+    }
+
+    public long getSesionesBarridas() {
+        return sesionesBarridas;
+    }
+
     // ========== MÉTODOS PRIVADOS PARA MANEJAR PREFERENCES ==========
-    
+
     private void guardarTokenLocal(String token) {
         Preferences prefs = Preferences.userNodeForPackage(SesionRecordadaService.class);
         prefs.put(PREF_TOKEN_KEY, token);
     }
-    
+
     private String leerTokenLocal() {
         Preferences prefs = Preferences.userNodeForPackage(SesionRecordadaService.class);
         return prefs.get(PREF_TOKEN_KEY, null);
     }
-    
+
     private void borrarTokenLocal() {
         Preferences prefs = Preferences.userNodeForPackage(SesionRecordadaService.class);
         prefs.remove(PREF_TOKEN_KEY);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,141 @@
+package com.misgastos.service;
+
+import java.io.File;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Un informe enviado a ColaInformes: su estado, su progreso y el resultado que
+ * se entrega al terminar. Si se cancela o falla, se borra el archivo a medio
+ * escribir (salvo que la exportación lo escriba con ArchivoAtomico: entonces el
+ * destino nunca queda a medias y se conserva el archivo anterior).
+ */
+public class TrabajoInforme<T> {
+
+    public enum Estado { EN_COLA, EJECUTANDO, COMPLETADO, CANCELADO, FALLIDO }
+
+    private static final AtomicLong SECUENCIA = new AtomicLong();
+
+    private final long id = SECUENCIA.incrementAndGet();
+    private final String descripcion;
+    private final File archivoSalida;
+    private final boolean borrarSiFalla;
+    private final Callable<T> accion;
+    private final ProgresoInforme progreso = new ProgresoInforme();
+    private final CompletableFuture<T> resultado = new CompletableFuture<>();
+
+    private volatile Estado estado = Estado.EN_COLA;
+    private volatile Future<?> future;
+    private volatile long inicioNanos;
+    private volatile long duracionMs;
+
+    TrabajoInforme(String descripcion, File archivoSalida, boolean borrarSiFalla, Callable<T> accion) {
+        this.descripcion = descripcion;
+        this.archivoSalida = archivoSalida;
+        this.borrarSiFalla = borrarSiFalla;
+        this.accion = accion;
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    void ejecutar() {
+        synchronized (this) {
+            if (estado != Estado.EN_COLA) {
+                return;
+            }
+            estado = Estado.EJECUTANDO;
+        }
+        inicioNanos = System.nanoTime();
+        try {
+            T valor = progreso.ejecutar(accion);
+            // Cancelado después del último punto de control: igual se descarta
+            if (progreso.isCancelado()) {
+                throw new CancellationException("Informe cancelado");
+            }
+            terminar(Estado.COMPLETADO);
+            resultado.complete(valor);
+        } catch (Exception e) {
+            // iText puede envolver la cancelación lanzada desde su evento de página
+            boolean cancelado = e instanceof CancellationException || progreso.isCancelado();
+            borrarArchivoSalida();
+            terminar(cancelado ? Estado.CANCELADO : Estado.FALLIDO);
+            resultado.completeExceptionally(cancelado ? new CancellationException("Informe cancelado") : e);
+        }
+    }
+
+    /**
+     * Un trabajo en cola se descarta; uno en ejecución se detiene en el siguiente
+     * punto de control (lectura de filas o página escrita). Si ya pasó
+     * ProgresoInforme.confirmar (está publicando su resultado) termina igual.
+     */
+    public void cancelar() {
+        progreso.cancelar();
+        synchronized (this) {
+            if (estado != Estado.EN_COLA) {
+                return;
+            }
+            estado = Estado.CANCELADO;
+        }
+        if (future != null) {
+            future.cancel(false);
+        }
+        resultado.completeExceptionally(new CancellationException("Informe cancelado"));
+    }
+
+    private void terminar(Estado estadoFinal) {
+        duracionMs = (System.nanoTime() - inicioNanos) / 1_000_000;
+        estado = estadoFinal;
+        System.out.println("📄 Informe #" + id + " " + estadoFinal + ": " + descripcion + " ("
+            + progreso.getFilasProcesadas() + " filas, " + progreso.getPaginasEscritas() + " páginas, "
+            + duracionMs + " ms)");
+    }
+
+    private void borrarArchivoSalida() {
+        if (borrarSiFalla && archivoSalida != null && archivoSalida.exists() && !archivoSalida.delete()) {
+            // En Windows sigue abierto si el informe se cortó a mitad de escritura
+            archivoSalida.deleteOnExit();
+            System.err.println("⚠️ No se pudo borrar el archivo incompleto " + archivoSalida);
+        }
+    }
+
+    public boolean isTerminado() {
+        return estado != Estado.EN_COLA && estado != Estado.EJECUTANDO;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getDescripcion() {
+        return descripcion;
+    }
+
+    public File getArchivoSalida() {
+        return archivoSalida;
+    }
+
+    public Estado getEstado() {
+        return estado;
+    }
+
+    public long getFilasProcesadas() {
+        return progreso.getFilasProcesadas();
+    }
+
+    public int getPaginasEscritas() {
+        return progreso.getPaginasEscritas();
+    }
+
+    public long getDuracionMs() {
+        return duracionMs;
+    }
+
+    public CompletableFuture<T> getResultado() {
+        return resultado;
+    }
+}
@@ -0,0 +1,182 @@
+package com.misgastos.service;
+
+import com.misgastos.model.Gasto;
+import com.misgastos.repository.GastoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Caché LRU acotada con la última compra de cada producto (categoría, subcategoría,
+ * valor unitario y cantidad) para autocompletar RegistroGasto sin ir a la BD.
+ * Se calienta con una sola consulta agrupada y se actualiza con cada escritura.
+ * Las claves son Gasto.normalizarProducto.
+ */
+@Component
+public class UltimaCompraCache {
+
+    @Autowired
+    private GastoRepository gastoRepository;
+
+    @Value("${misgastos.cache.ultima-compra.capacidad:5000}")
+    private int capacidad = 5000;
+
+    // accessOrder=true: el más antiguo en el recorrido es el menos usado
+    private final LinkedHashMap<String, UltimaCompra> compras = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, UltimaCompra> mayor) {
+            return size() > capacidad;
+        }
+    };
+
+    private long aciertos = 0;
+    private long fallos = 0;
+
+    /**
+     * Datos de la última compra de un producto.
+     */
+    public record UltimaCompra(Long gastoId, Long categoriaId, Long subcategoriaId,
+                               BigDecimal valorUnitario, Integer cantidad,
+                               LocalDate fecha, LocalTime hora) {
+
+        static UltimaCompra de(Gasto gasto) {
+            return new UltimaCompra(gasto.getId(), gasto.getCategoria().getId(), gasto.getSubcategoria().getId(),
+                gasto.getValorUnitario(), gasto.getCantidad(), gasto.getFecha(), gasto.getHora());
+        }
+
+        // Fila [producto_normalizado, categoria_id, subcategoria_id, valor_unitario (texto), cantidad, id, fecha, hora]
+        static UltimaCompra de(Object[] fila) {
+            return new UltimaCompra(
+                ((Number) fila[5]).longValue(),
+                ((Number) fila[1]).longValue(),
+                ((Number) fila[2]).longValue(),
+                new BigDecimal(fila[3].toString()).stripTrailingZeros(),
+                ((Number) fila[4]).intValue(),
+                LocalDate.parse(fila[6].toString()),
+                LocalTime.parse(fila[7].toString()));
+        }
+
+        boolean esPosteriorA(UltimaCompra otra) {
+            int porFecha = fecha.compareTo(otra.fecha);
+            return porFecha > 0 || (porFecha == 0 && hora.compareTo(otra.hora) >= 0);
+        }
+    }
+
+    // ==================== CARGA ====================
+
+    public void cargar() {
+        long inicio = System.currentTimeMillis();
+        cargarCon(gastoRepository::ultimaCompraPorProducto);
+        System.out.println("✅ Caché de últimas compras cargada: " + tamano() + " productos ("
+            + (System.currentTimeMillis() - inicio) + " ms)");
+    }
+
+    /**
+     * Lee y reemplaza bajo el mismo candado: un registrar, quitar u olvidar que
+     * llega durante la carga (la diferida de DataInitializer corre en paralelo
+     * con el login) espera y se aplica sobre la caché nueva en vez de perderse.
+     */
+    synchronized void cargarCon(Supplier<List<Object[]>> lector) {
+        // Vienen de la compra más antigua a la más reciente: si no caben todas,
+        // la LRU se queda con las más recientes
+        List<Object[]> filas = lector.get();
+        compras.clear();
+        for (Object[] fila : filas) {
+            compras.put((String) fila[0], UltimaCompra.de(fila));
+        }
+    }
+
+    // ==================== CONSULTA ====================
+
+    /**
+     * Última compra del producto. Si no está en la caché (producto desalojado o
+     * gasto editado) se consulta solo esa fila y se guarda.
+     */
+    public Optional<UltimaCompra> buscar(String producto) {
+        String clave = Gasto.normalizarProducto(producto);
+        if (clave == null || clave.isEmpty()) return Optional.empty();
+        return buscarCon(clave, () -> gastoRepository.ultimaCompraDeProducto(clave));
+    }
+
+    /**
+     * Como cargarCon, lee bajo el candado: un olvidar o quitar que llega durante
+     * la lectura espera y borra lo guardado, en vez de que la compra anterior a
+     * la edición vuelva a la caché después de él.
+     */
+    synchronized Optional<UltimaCompra> buscarCon(String clave, Supplier<List<Object[]>> lector) {
+        UltimaCompra compra = compras.get(clave);
+        if (compra != null) {
+            aciertos++;
+            return Optional.of(compra);
+        }
+        fallos++;
+
+        List<Object[]> filas = lector.get();
+        if (filas.isEmpty()) return Optional.empty();
+
+        compra = UltimaCompra.de(filas.get(0));
+        compras.put(clave, compra);
+        return Optional.of(compra);
+    }
+
+    // ==================== ACTUALIZACIÓN ====================
+
+    public synchronized void registrar(Gasto gasto) {
+        String clave = Gasto.normalizarProducto(gasto.getProducto());
+        if (clave == null || clave.isEmpty()) return;
+
+        UltimaCompra nueva = UltimaCompra.de(gasto);
+        UltimaCompra actual = compras.get(clave);
+        if (actual == null || actual.gastoId().equals(nueva.gastoId()) || nueva.esPosteriorA(actual)) {
+            compras.put(clave, nueva);
+        }
+    }
+
+    /**
+     * Olvida el producto si su última compra era este gasto; la próxima consulta
+     * lo vuelve a leer de la BD.
+     */
+    public synchronized void quitar(String producto, Long gastoId) {
+        String clave = Gasto.normalizarProducto(producto);
+        if (clave == null) return;
+
+        UltimaCompra actual = compras.get(clave);
+        if (actual != null && actual.gastoId().equals(gastoId)) {
+            compras.remove(clave);
+        }
+    }
+
+    /**
+     * Olvida el producto sin condiciones. Al editar un gasto no se sabe sin
+     * consultar si sigue siendo la última compra (p. ej. si se movió a una fecha
+     * anterior), así que la próxima consulta la vuelve a leer de la BD.
+     */
+    public synchronized void olvidar(String producto) {
+        String clave = Gasto.normalizarProducto(producto);
+        if (clave == null) return;
+        compras.remove(clave);
+    }
+
+    // ==================== MÉTRICAS ====================
+
+    public synchronized int tamano() {
+        return compras.size();
+    }
+
+    public synchronized long getAciertos() {
+        return aciertos;
+    }
+
+    public synchronized long getFallos() {
+        return fallos;
+    }
+}
@@ -3,7 +3,10 @@ package com.misgastos.service;
 import com.misgastos.model.Usuario;
 import com.misgastos.model.Rol;
 import com.misgastos.repository.UsuarioRepository;
+import com.misgastos.util.Transacciones;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -22,7 +25,22 @@ public class UsuarioService {
     @Autowired
     private AuditoriaService auditoriaService;
     
-    private BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    @Autowired
+    private DatosReferenciaCache datosReferenciaCache;
+    
+    @Autowired
+    private SesionRecordadaService sesionRecordadaService;
+    
+    // Factor de trabajo de BCrypt: cada +1 duplica el tiempo de cada login
+    @Value("${misgastos.seguridad.bcrypt-costo:10}")
+    private int costoBcrypt = 10;
+    
+    private BCryptPasswordEncoder passwordEncoder;
+    
+    @PostConstruct
+    public void iniciar() {
+        passwordEncoder = new BCryptPasswordEncoder(costoBcrypt);
+    }
     
     // ==================== CREAR USUARIO ====================
     public Usuario crearUsuario(String username, String password, String rol, String usuarioCreador) {
@@ -38,6 +56,7 @@ public class UsuarioService {
         usuario.setFechaCreacion(LocalDateTime.now());
         
         Usuario saved = usuarioRepository.save(usuario);
+        Transacciones.despuesDeConfirmar(datosReferenciaCache::invalidarUsuarios);
         
         // ✅ Auditoría: obtener ID del usuario creador
         Optional<Usuario> creador = usuarioRepository.findByUsername(usuarioCreador);
@@ -75,6 +94,7 @@ public class UsuarioService {
         }
         
         Usuario updated = usuarioRepository.save(usuario);
+        Transacciones.despuesDeConfirmar(datosReferenciaCache::invalidarUsuarios);
         
         if (!cambios.isEmpty()) {
             Optional<Usuario> modificador = usuarioRepository.findByUsername(usuarioModificador);
@@ -97,6 +117,7 @@ public class UsuarioService {
         
         usuario.setPassword(passwordEncoder.encode(nuevaPassword));
         usuarioRepository.save(usuario);
+        Transacciones.despuesDeConfirmar(datosReferenciaCache::invalidarUsuarios);
         
         Optional<Usuario> modificador = usuarioRepository.findByUsername(usuarioModificador);
         if (modificador.isPresent()) {
@@ -115,6 +136,11 @@ public class UsuarioService {
         
         String username = usuario.getUsername();
         usuarioRepository.delete(usuario);
+        // Sus sesiones recordadas se borran en cascada: sacarlas también de memoria
+        Transacciones.despuesDeConfirmar(() -> {
+            datosReferenciaCache.invalidarUsuarios();
+            sesionRecordadaService.olvidarUsuario(id);
+        });
         
         Optional<Usuario> eliminador = usuarioRepository.findByUsername(usuarioEliminador);
         if (eliminador.isPresent()) {
@@ -128,21 +154,49 @@ public class UsuarioService {
     
     // ==================== AUTENTICACIÓN ====================
     public boolean autenticar(String username, String password) {
-        Optional<Usuario> usuario = usuarioRepository.findByUsername(username);
-        if (usuario.isPresent() && usuario.get().getActivo()) {
-            boolean autenticado = passwordEncoder.matches(password, usuario.get().getPassword());
-            
-            if (autenticado) {
-                auditoriaService.registrarAccion(
-                    usuario.get().getId(),
-                    "LOGIN",
-                    "Inicio de sesión exitoso"
-                );
-            }
-            
-            return autenticado;
+        return autenticarUsuario(username, password).isPresent();
+    }
+    
+    /**
+     * Verifica la contraseña (BCrypt: llamarlo fuera del hilo de JavaFX) y
+     * devuelve el usuario si es correcta. Si el hash guardado tiene un costo
+     * distinto del configurado, se vuelve a generar con el costo actual.
+     */
+    public Optional<Usuario> autenticarUsuario(String username, String password) {
+        Optional<Usuario> encontrado = usuarioRepository.findByUsername(username);
+        if (encontrado.isEmpty() || !encontrado.get().getActivo()) {
+            return Optional.empty();
+        }
+        
+        Usuario usuario = encontrado.get();
+        if (!passwordEncoder.matches(password, usuario.getPassword())) {
+            return Optional.empty();
+        }
+        
+        int costoGuardado = costoDe(usuario.getPassword());
+        if (costoGuardado != costoBcrypt) {
+            usuario.setPassword(passwordEncoder.encode(password));
+            usuarioRepository.save(usuario);
+            Transacciones.despuesDeConfirmar(datosReferenciaCache::invalidarUsuarios);
+            System.out.println("🔐 Contraseña de " + username + " actualizada a costo BCrypt "
+                + costoBcrypt + " (tenía " + costoGuardado + ")");
+        }
+        
+        auditoriaService.registrarAccion(
+            usuario.getId(),
+            "LOGIN",
+            "Inicio de sesión exitoso"
+        );
+        return Optional.of(usuario);
+    }
+    
+    // Formato $2a$10$...: el costo son los dos dígitos tras la versión
+    static int costoDe(String hash) {
+        try {
+            return Integer.parseInt(hash.substring(4, 6));
+        } catch (RuntimeException e) {
+            return -1;
         }
-        return false;
     }
     
     // ==================== CONSULTAS ====================
@@ -150,8 +204,9 @@ public class UsuarioService {
         return usuarioRepository.findByUsername(username);
     }
     
+    // Desde la caché: una copia sin la contraseña (autenticar lee la BD)
     public Optional<Usuario> buscarPorId(Long id) {
-        return usuarioRepository.findById(id);
+        return datosReferenciaCache.buscarUsuario(id);
     }
     
     public List<Usuario> listarTodos() {
@@ -0,0 +1,62 @@
+package com.misgastos.util;
+
+import org.apache.poi.ss.usermodel.Sheet;
+
+/**
+ * Ancho de columnas de Excel calculado a partir del texto más largo escrito en
+ * cada una, en lugar de sheet.autoSizeColumn: autoSize mide cada celda con las
+ * fuentes de AWT (lento en hojas grandes) y con SXSSF solo ve las filas que
+ * siguen en memoria.
+ *
+ * Para números se guarda solo el mayor valor absoluto y se formatea una vez al
+ * aplicar, así registrar una celda no crea Strings.
+ */
+public class AnchosColumnas {
+
+    private static final int MINIMO_CARACTERES = 6;
+    private static final int MAXIMO_CARACTERES = 60;
+
+    private final int[] caracteres;
+    private final double[] mayorNumero;
+    private final String[] formatoNumero;
+
+    public AnchosColumnas(int columnas) {
+        caracteres = new int[columnas];
+        mayorNumero = new double[columnas];
+        formatoNumero = new String[columnas];
+    }
+
+    public void texto(int columna, String valor) {
+        if (valor != null && valor.length() > caracteres[columna]) {
+            caracteres[columna] = valor.length();
+        }
+    }
+
+    /**
+     * Registra un número que se mostrará con el formato de String.format dado
+     * (por ejemplo "$%,.2f" para moneda o "%,.0f" para enteros).
+     */
+    public void numero(int columna, double valor, String formato) {
+        formatoNumero[columna] = formato;
+        double absoluto = Math.abs(valor);
+        if (absoluto > mayorNumero[columna]) {
+            mayorNumero[columna] = absoluto;
+        }
+    }
+
+    /**
+     * Aplica los anchos a la hoja. margen se suma en caracteres a cada columna.
+     */
+    public void aplicar(Sheet sheet, int margen) {
+        for (int i = 0; i < caracteres.length; i++) {
+            int largo = caracteres[i];
+            if (formatoNumero[i] != null) {
+                String muestra = String.format(formatoNumero[i], mayorNumero[i]);
+                // +1 por el signo de los negativos
+                largo = Math.max(largo, muestra.length() + 1);
+            }
+            int ancho = Math.min(MAXIMO_CARACTERES, Math.max(MINIMO_CARACTERES, largo + margen));
+            sheet.setColumnWidth(i, ancho * 256);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.misgastos.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Escritura de un archivo completo o nada: se escribe en un temporal junto al
+ * destino y al terminar se renombra encima. Quien abra el destino nunca ve un
+ * PDF o un Excel a medio escribir, y si la exportación falla el archivo
+ * anterior (si lo había) queda intacto.
+ */
+public final class ArchivoAtomico {
+
+    private ArchivoAtomico() {
+    }
+
+    /**
+     * Temporal oculto en la misma carpeta que el destino: el renombrado dentro
+     * de un mismo sistema de archivos es atómico.
+     */
+    public static File temporalPara(File destino) throws IOException {
+        Path carpeta = destino.getAbsoluteFile().toPath().getParent();
+        return Files.createTempFile(carpeta, "." + destino.getName() + "-", ".tmp").toFile();
+    }
+
+    public static void publicar(File temporal, File destino) throws IOException {
+        try {
+            Files.move(temporal.toPath(), destino.toPath(),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporal.toPath(), destino.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Publica dos archivos como una sola operación: si el segundo no se puede
+     * mover, el primer destino vuelve a su contenido anterior (o se borra si no
+     * existía). El anterior se copia para que el destino nunca falte.
+     */
+    public static void publicarJuntos(File temporal1, File destino1, File temporal2, File destino2) throws IOException {
+        File respaldo = null;
+        try {
+            if (destino1.exists()) {
+                respaldo = temporalPara(destino1);
+                Files.copy(destino1.toPath(), respaldo.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            publicar(temporal1, destino1);
+            try {
+                publicar(temporal2, destino2);
+            } catch (IOException e) {
+                if (respaldo != null) {
+                    publicar(respaldo, destino1);
+                } else {
+                    Files.deleteIfExists(destino1.toPath());
+                }
+                throw e;
+            }
+        } finally {
+            descartar(respaldo);
+        }
+    }
+
+    // Llamarlo en un finally: después de publicar el temporal ya no existe
+    public static void descartar(File temporal) {
+        if (temporal != null && temporal.exists() && !temporal.delete()) {
+            temporal.deleteOnExit();
+            System.err.println("⚠️ No se pudo borrar el temporal " + temporal);
+        }
+    }
+}
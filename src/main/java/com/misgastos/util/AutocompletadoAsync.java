@@ -0,0 +1,156 @@
+package com.misgastos.util;
+
+import javafx.application.Platform;
+
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Búsqueda de autocompletado fuera del hilo de JavaFX: espera a que el usuario
+ * deje de teclear (debounce), ejecuta la búsqueda en segundo plano, cancela las
+ * búsquedas viejas cuando llega texto nuevo y publica solo el último resultado
+ * con Platform.runLater.
+ */
+public class AutocompletadoAsync<T> {
+
+    private static final int MUESTRAS_LATENCIA = 512;
+    private static final int LOG_CADA = 100;
+
+    private final Function<String, T> buscador;
+    private final Consumer<T> publicar;
+    private final long esperaMs;
+    private final Executor hiloPublicacion;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread hilo = new Thread(r, "autocompletado");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    // Cada texto nuevo incrementa la generación; solo se publica la última
+    private final AtomicLong generacion = new AtomicLong();
+    private ScheduledFuture<?> pendiente;
+    // La toma la búsqueda al empezar o cancelarPendiente al descartarla, nunca
+    // las dos: así cada búsqueda descartada se cuenta una sola vez
+    private AtomicBoolean pendienteTomada;
+
+    // Métricas
+    private final AtomicLong emitidas = new AtomicLong();
+    private final AtomicLong canceladas = new AtomicLong();
+    private final long[] latenciasNanos = new long[MUESTRAS_LATENCIA];
+    private int muestras = 0;
+
+    public AutocompletadoAsync(Function<String, T> buscador, Consumer<T> publicar, long esperaMs) {
+        this(buscador, publicar, esperaMs, Platform::runLater);
+    }
+
+    // Las pruebas publican sin el toolkit de JavaFX
+    AutocompletadoAsync(Function<String, T> buscador, Consumer<T> publicar, long esperaMs, Executor hiloPublicacion) {
+        this.buscador = buscador;
+        this.publicar = publicar;
+        this.esperaMs = esperaMs;
+        this.hiloPublicacion = hiloPublicacion;
+    }
+
+    /**
+     * Programa una búsqueda para el texto, reemplazando la anterior si aún no terminó.
+     */
+    public synchronized void solicitar(String texto) {
+        long miGeneracion = generacion.incrementAndGet();
+        cancelarPendiente();
+
+        AtomicBoolean tomada = new AtomicBoolean();
+        pendienteTomada = tomada;
+        pendiente = executor.schedule(() -> {
+            if (!tomada.compareAndSet(false, true)) return; // ya descartada y contada
+            if (generacion.get() != miGeneracion) {
+                canceladas.incrementAndGet();
+                return;
+            }
+
+            long inicio = System.nanoTime();
+            long numero = emitidas.incrementAndGet();
+            T resultado;
+            try {
+                resultado = buscador.apply(texto);
+            } catch (RuntimeException e) {
+                System.err.println("❌ Error en autocompletado: " + e.getMessage());
+                return;
+            } finally {
+                registrarLatencia(System.nanoTime() - inicio);
+            }
+
+            if (numero % LOG_CADA == 0) {
+                System.out.println("📊 Autocompletado: " + resumenMetricas());
+            }
+
+            hiloPublicacion.execute(() -> {
+                // Llegó texto más nuevo mientras se buscaba: descartar
+                if (generacion.get() != miGeneracion) {
+                    canceladas.incrementAndGet();
+                    return;
+                }
+                publicar.accept(resultado);
+            });
+        }, esperaMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Descarta cualquier búsqueda pendiente o en curso (p. ej. al borrar el texto).
+     */
+    public synchronized void cancelar() {
+        generacion.incrementAndGet();
+        cancelarPendiente();
+    }
+
+    // Solo cuenta la búsqueda si aún no empezó; la que está en curso se
+    // descarta (y se cuenta) al publicar, por el cambio de generación
+    private void cancelarPendiente() {
+        if (pendiente != null && pendienteTomada.compareAndSet(false, true)) {
+            pendiente.cancel(false);
+            canceladas.incrementAndGet();
+        }
+        pendiente = null;
+        pendienteTomada = null;
+    }
+
+    private synchronized void registrarLatencia(long nanos) {
+        latenciasNanos[muestras % MUESTRAS_LATENCIA] = nanos;
+        muestras++;
+    }
+
+    // ==================== MÉTRICAS ====================
+
+    public long getConsultasEmitidas() {
+        return emitidas.get();
+    }
+
+    public long getConsultasCanceladas() {
+        return canceladas.get();
+    }
+
+    /**
+     * Percentil 95 de la latencia de búsqueda (últimas 512 consultas), en milisegundos.
+     */
+    public synchronized double getLatenciaP95Ms() {
+        int n = Math.min(muestras, MUESTRAS_LATENCIA);
+        if (n == 0) return 0;
+        long[] copia = Arrays.copyOf(latenciasNanos, n);
+        Arrays.sort(copia);
+        int indice = (int) Math.ceil(0.95 * n) - 1;
+        return copia[indice] / 1_000_000.0;
+    }
+
+    public String resumenMetricas() {
+        return String.format("emitidas=%d canceladas=%d p95=%.2f ms",
+            getConsultasEmitidas(), getConsultasCanceladas(), getLatenciaP95Ms());
+    }
+}
@@ -0,0 +1,155 @@
+package com.misgastos.util;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Libros de Excel en modo streaming (SXSSF): solo VENTANA_FILAS filas por hoja
+ * quedan en memoria, el resto se vuelca a un archivo temporal comprimido. La
+ * memoria no crece con el número de filas exportadas.
+ */
+public final class ExcelStreaming {
+
+    public static final int VENTANA_FILAS = 500;
+
+    // Última fila de una hoja .xlsx (1.048.576 filas); las exportaciones que la
+    // alcanzan siguen en una hoja nueva
+    public static final int ULTIMA_FILA = SpreadsheetVersion.EXCEL2007.getLastRowIndex();
+
+    private ExcelStreaming() {
+    }
+
+    public static SXSSFWorkbook crearLibro() {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(VENTANA_FILAS);
+        workbook.setCompressTempFiles(true);
+        return workbook;
+    }
+
+    /**
+     * Envuelve un XSSFWorkbook ya creado, para reutilizar estilos con colores
+     * propios (XSSFCellStyle) en un libro streaming.
+     */
+    public static SXSSFWorkbook crearLibro(XSSFWorkbook base) {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(base, VENTANA_FILAS);
+        workbook.setCompressTempFiles(true);
+        return workbook;
+    }
+
+    public static void guardar(SXSSFWorkbook workbook, String rutaArchivo) throws IOException {
+        try (FileOutputStream salida = new FileOutputStream(rutaArchivo)) {
+            workbook.write(salida);
+        }
+    }
+
+    // Borra los archivos temporales; llamarlo en un finally, también si la
+    // exportación falla o se cancela a mitad
+    public static void descartar(SXSSFWorkbook workbook) {
+        workbook.dispose();
+        try {
+            workbook.close();
+        } catch (IOException e) {
+            System.err.println("⚠️ No se pudo cerrar el libro de Excel: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Filas de detalle de una exportación repartidas en hojas: cuando una hoja
+     * llega a ULTIMA_FILA sigue en otra ("Gastos (2)", "Gastos (3)"...) con los
+     * encabezados en la fila 0. El detalle empieza debajo de los encabezados de
+     * la primera hoja.
+     */
+    public static final class HojasDetalle {
+
+        private final SXSSFWorkbook workbook;
+        private final String nombre;
+        private final BiConsumer<Sheet, Integer> encabezados;
+        private final int ultimaFila;
+
+        private final List<Sheet> hojas = new ArrayList<>();
+        private final List<Integer> filasEncabezado = new ArrayList<>();
+        private int fila;
+        private long escritas;
+
+        /**
+         * @param encabezados escribe los encabezados en la hoja y fila indicadas;
+         *                    se llama aquí para la primera hoja y en cada hoja nueva
+         */
+        public HojasDetalle(SXSSFWorkbook workbook, Sheet primera, int filaEncabezado,
+                            BiConsumer<Sheet, Integer> encabezados) {
+            this(workbook, primera, filaEncabezado, encabezados, ULTIMA_FILA);
+        }
+
+        // ultimaFila menor para probar el cambio de hoja sin escribir un millón de filas
+        HojasDetalle(SXSSFWorkbook workbook, Sheet primera, int filaEncabezado,
+                     BiConsumer<Sheet, Integer> encabezados, int ultimaFila) {
+            this.workbook = workbook;
+            this.nombre = primera.getSheetName();
+            this.encabezados = encabezados;
+            this.ultimaFila = ultimaFila;
+            encabezados.accept(primera, filaEncabezado);
+            hojas.add(primera);
+            filasEncabezado.add(filaEncabezado);
+            fila = filaEncabezado + 1;
+        }
+
+        /** Siguiente fila de detalle, en una hoja nueva si la actual está llena. */
+        public Row nuevaFila() {
+            if (fila > ultimaFila) {
+                nuevaHoja();
+            }
+            escritas++;
+            return actual().createRow(fila++);
+        }
+
+        /**
+         * Fila final (por ejemplo, el total) {@code separacion} filas debajo del
+         * último detalle; si no cabe, va en una hoja nueva.
+         */
+        public Row filaFinal(int separacion) {
+            if (fila + separacion > ultimaFila) {
+                nuevaHoja();
+            }
+            return actual().createRow(fila + separacion);
+        }
+
+        /** Filtros automáticos en cada hoja, de los encabezados al último detalle. */
+        public void filtrar(int columnas) {
+            for (int i = 0; i < hojas.size(); i++) {
+                int desde = filasEncabezado.get(i);
+                int hasta = i < hojas.size() - 1 ? ultimaFila : Math.max(desde, fila - 1);
+                hojas.get(i).setAutoFilter(new CellRangeAddress(desde, hasta, 0, columnas - 1));
+            }
+        }
+
+        public List<Sheet> hojas() {
+            return hojas;
+        }
+
+        /** Filas de detalle escritas en total. */
+        public long escritas() {
+            return escritas;
+        }
+
+        private Sheet actual() {
+            return hojas.get(hojas.size() - 1);
+        }
+
+        private void nuevaHoja() {
+            Sheet siguiente = workbook.createSheet(nombre + " (" + (hojas.size() + 1) + ")");
+            encabezados.accept(siguiente, 0);
+            hojas.add(siguiente);
+            filasEncabezado.add(0);
+            fila = 1;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.misgastos.config;
+
+import com.misgastos.repository.AuditoriaLogRepository;
+import com.misgastos.repository.BilleteroRepository;
+import com.misgastos.repository.GastoRepository;
+import com.misgastos.repository.GastoResumenDiarioRepository;
+import com.misgastos.repository.SesionRecordadaRepository;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifica con EXPLAIN QUERY PLAN que las consultas más usadas de los
+ * repositorios se resuelven con índice. Se ejecuta cada método del repositorio
+ * y se revisa el SQL que Hibernate emitió de verdad (SentenciasCapturadas), así
+ * que la prueba falla si una consulta cambia y deja de usar su índice.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class MigracionesEsquemaTest {
+
+    private static final LocalDate INICIO = LocalDate.of(2024, 1, 1);
+    private static final LocalDate FIN = LocalDate.of(2024, 12, 31);
+
+    @Autowired
+    private GastoRepository gastoRepository;
+
+    @Autowired
+    private GastoResumenDiarioRepository resumenRepository;
+
+    @Autowired
+    private BilleteroRepository billeteroRepository;
+
+    @Autowired
+    private AuditoriaLogRepository auditoriaLogRepository;
+
+    @Autowired
+    private SesionRecordadaRepository sesionRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Búsquedas por rango o por clave: SEARCH con índice y ningún recorrido completo
+    @TestFactory
+    Stream<DynamicTest> consultasQueBuscanConIndice() {
+        Map<String, Runnable> consultas = new LinkedHashMap<>();
+        consultas.put("findByFechaBetween", () -> gastoRepository.findByFechaBetween(INICIO, FIN));
+        consultas.put("findByUsuarioAndFechaBetween", () -> gastoRepository.findByUsuarioAndFechaBetween(1L, INICIO, FIN));
+        consultas.put("sumByFechaBetween", () -> gastoRepository.sumByFechaBetween(INICIO, FIN));
+        consultas.put("sumByFecha", () -> gastoRepository.sumByFecha(INICIO));
+        consultas.put("sumByFechaBetweenAndCategoriaId",
+            () -> gastoRepository.sumByFechaBetweenAndCategoriaId(INICIO.toString(), FIN.toString(), 10L));
+        consultas.put("sumByFechaAndCategoriaId", () -> gastoRepository.sumByFechaAndCategoriaId(INICIO.toString(), 10L));
+        consultas.put("sumarPorDiaConCategorias", () -> gastoRepository.sumarPorDiaConCategorias(INICIO, FIN, 14L, 15L));
+        consultas.put("streamGastosPorPeriodoYCategoria", () -> transactionTemplate.executeWithoutResult(status -> {
+            try (var gastos = gastoRepository.streamGastosPorPeriodoYCategoria(INICIO, FIN, 10L)) {
+                gastos.count();
+            }
+        }));
+        consultas.put("ultimaCompraDeProducto", () -> gastoRepository.ultimaCompraDeProducto("CAFE"));
+        consultas.put("resumirProducto", () -> gastoRepository.resumirProducto("CAFE"));
+        consultas.put("existsByProductoNormalizado", () -> gastoRepository.existsByProductoNormalizado("CAFE"));
+        // Resumen diario: se lee en cada escritura de un gasto (uk_resumen_diario_clave)
+        consultas.put("resumen.findByFechaAndCategoriaIdAndSubcategoriaIdAndUsuarioId",
+            () -> resumenRepository.findByFechaAndCategoriaIdAndSubcategoriaIdAndUsuarioId(INICIO, 10L, 20L, 1L));
+        consultas.put("resumen.sumByFechaBetween", () -> resumenRepository.sumByFechaBetween(INICIO, FIN));
+        consultas.put("resumen.sumarPorDia", () -> resumenRepository.sumarPorDia(INICIO, FIN));
+        consultas.put("billeteros.findByFechaBetweenOrderByFechaDesc",
+            () -> billeteroRepository.findByFechaBetweenOrderByFechaDesc(INICIO, FIN));
+        consultas.put("auditoria.findByUsuarioIdOrderByFechaDesc", () -> auditoriaLogRepository.findByUsuarioIdOrderByFechaDesc(1L));
+        consultas.put("sesiones.findIdsExpiradas",
+            () -> sesionRepository.findIdsExpiradas(LocalDateTime.of(2024, 1, 1, 0, 0), PageRequest.of(0, 500)));
+        // Borrado derivado: primero selecciona por usuario_id (no hay sesiones del usuario -1)
+        consultas.put("sesiones.deleteByUsuarioId",
+            () -> transactionTemplate.executeWithoutResult(status -> sesionRepository.deleteByUsuarioId(-1L)));
+
+        return consultas.entrySet().stream().map(consulta -> DynamicTest.dynamicTest(consulta.getKey(), () -> {
+            for (String sql : capturar(consulta.getValue())) {
+                buscaConIndice(sql);
+            }
+        }));
+    }
+
+    // AuditoriaRetencion va por JdbcTemplate, fuera de Hibernate: mismo SQL que usa
+    @Test
+    void laRetencionDeAuditoriaLeeElMesConIndice() {
+        buscaConIndice("SELECT id, accion, detalles, fecha, usuario_id FROM auditoria_logs WHERE fecha >= ? AND fecha < ?");
+    }
+
+    // findTop50ByOrderByFechaDesc recorre el índice de fecha y se detiene en 50
+    @Test
+    void ultimosEventosDeAuditoriaSinOrdenarEnMemoria() {
+        for (String sql : capturar(auditoriaLogRepository::findTop50ByOrderByFechaDesc)) {
+            recorreIndiceSin(sql, "idx_auditoria_fecha", "TEMP B-TREE");
+        }
+    }
+
+    // ultimaCompraPorProducto lee todos los productos: agrupa recorriendo el
+    // índice por producto_normalizado; el ORDER BY final ordena una fila por producto
+    @Test
+    void ultimaCompraPorProductoAgrupaSobreElIndice() {
+        for (String sql : capturar(gastoRepository::ultimaCompraPorProducto)) {
+            recorreIndiceSin(sql, "idx_gastos_producto_normalizado", "TEMP B-TREE FOR GROUP BY");
+        }
+    }
+
+    // ==================== AUXILIARES ====================
+
+    private List<String> capturar(Runnable consulta) {
+        List<String> sentencias = SentenciasCapturadas.capturar(consulta);
+        assertFalse(sentencias.isEmpty(), "La consulta no llegó a la base");
+        return sentencias;
+    }
+
+    private void buscaConIndice(String sql) {
+        List<String> plan = plan(sql);
+        assertTrue(plan.stream().anyMatch(d -> d.startsWith("SEARCH") && d.contains("INDEX")),
+            "Sin índice: " + plan + "\n" + sql);
+        assertTrue(plan.stream().noneMatch(d -> d.startsWith("SCAN")),
+            "Recorrido completo: " + plan + "\n" + sql);
+    }
+
+    private void recorreIndiceSin(String sql, String indice, String pasoEnMemoria) {
+        List<String> plan = plan(sql);
+        assertTrue(plan.stream().anyMatch(d -> d.contains(indice)), "Sin " + indice + ": " + plan + "\n" + sql);
+        assertTrue(plan.stream().noneMatch(d -> d.contains(pasoEnMemoria)), "Ordena en memoria: " + plan + "\n" + sql);
+    }
+
+    // Los parámetros quedan sin enlazar: el plan no depende de sus valores
+    private List<String> plan(String sql) {
+        List<String> plan = jdbcTemplate.queryForList("EXPLAIN QUERY PLAN " + sql)
+            .stream()
+            .map(fila -> String.valueOf(fila.get("detail")))
+            .toList();
+        assertFalse(plan.isEmpty(), sql);
+        return plan;
+    }
+}
@@ -0,0 +1,112 @@
+package com.misgastos.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.springframework.core.env.StandardEnvironment;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Properties;
+
+/**
+ * Compara inserciones (una transacción por gasto, como la app) y consultas de
+ * reporte con los PRAGMA por defecto y con el perfil de SQLiteConfig.
+ *
+ * mvn test -Dtest=SQLitePragmasBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class SQLitePragmasBenchmark {
+
+    private static final int INSERCIONES = 2_000;
+    private static final int FILAS_REPORTE = 200_000;
+    private static final int REPORTES = 20;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void compararPerfiles() throws Exception {
+        Properties porDefecto = new Properties();
+
+        // Mismos valores por defecto que usa la aplicación
+        Properties optimizado = new Properties();
+        optimizado.putAll(SQLiteConfig.pragmas(new StandardEnvironment()));
+
+        medir("por defecto", dir.resolve("defecto.db"), porDefecto);
+        medir("optimizado ", dir.resolve("optimizado.db"), optimizado);
+    }
+
+    private void medir(String nombre, Path archivo, Properties pragmas) throws Exception {
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + archivo, pragmas)) {
+            try (Statement st = conn.createStatement()) {
+                st.execute("""
+                    CREATE TABLE gastos (id INTEGER PRIMARY KEY, fecha TEXT NOT NULL,
+                        categoria_id INTEGER NOT NULL, producto TEXT NOT NULL, valor_total NUMERIC NOT NULL)
+                """);
+            }
+
+            String insert = "INSERT INTO gastos (fecha, categoria_id, producto, valor_total) VALUES (?, ?, ?, ?)";
+            LocalDate base = LocalDate.of(2020, 1, 1);
+
+            // Inserciones con autocommit: un fsync por gasto
+            long t0 = System.nanoTime();
+            try (PreparedStatement ps = conn.prepareStatement(insert)) {
+                for (int i = 0; i < INSERCIONES; i++) {
+                    llenar(ps, base, i);
+                    ps.executeUpdate();
+                }
+            }
+            double insercionesPorSeg = INSERCIONES / ((System.nanoTime() - t0) / 1e9);
+
+            // Carga masiva para los reportes
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(insert)) {
+                for (int i = 0; i < FILAS_REPORTE; i++) {
+                    llenar(ps, base, i);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            conn.commit();
+            conn.setAutoCommit(true);
+            try (Statement st = conn.createStatement()) {
+                st.execute("PRAGMA wal_checkpoint(TRUNCATE)");
+            }
+
+            reporte(conn); // calentamiento (JIT y caché de páginas)
+
+            long t1 = System.nanoTime();
+            for (int r = 0; r < REPORTES; r++) {
+                reporte(conn);
+            }
+            double reportesPorSeg = REPORTES / ((System.nanoTime() - t1) / 1e9);
+
+            System.out.printf("📊 %s | inserciones/s: %,10.0f | reportes/s: %,8.2f%n",
+                nombre, insercionesPorSeg, reportesPorSeg);
+        }
+    }
+
+    private void reporte(Connection conn) throws Exception {
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery(
+                 "SELECT fecha, SUM(valor_total) FROM gastos GROUP BY fecha ORDER BY fecha")) {
+            while (rs.next()) {
+                rs.getString(1);
+            }
+        }
+    }
+
+    private void llenar(PreparedStatement ps, LocalDate base, int i) throws Exception {
+        ps.setString(1, base.plusDays(i % 1500).toString());
+        ps.setLong(2, 1 + i % 20);
+        ps.setString(3, "PRODUCTO " + (i % 500));
+        ps.setLong(4, 1000 + i % 90_000);
+    }
+}
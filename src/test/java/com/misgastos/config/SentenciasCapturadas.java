@@ -0,0 +1,36 @@
+package com.misgastos.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * StatementInspector de las pruebas (application-test.properties): guarda el
+ * SQL que Hibernate envía a SQLite desde el hilo que está capturando, para
+ * revisar el plan de las consultas reales de los repositorios.
+ */
+public class SentenciasCapturadas implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> CAPTURADAS = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        List<String> capturadas = CAPTURADAS.get();
+        if (capturadas != null) {
+            capturadas.add(sql);
+        }
+        return sql;
+    }
+
+    /** SQL emitido por la acción, en orden. */
+    public static List<String> capturar(Runnable accion) {
+        CAPTURADAS.set(new ArrayList<>());
+        try {
+            accion.run();
+            return CAPTURADAS.get();
+        } finally {
+            CAPTURADAS.remove();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.misgastos.repository;
+
+import com.misgastos.model.Gasto;
+import com.misgastos.model.GastoFila;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Tablas de gastos: entidades Gasto completas (la consulta de antes) contra la
+ * proyección GastoFila, midiendo tiempo de carga, memoria asignada durante la
+ * consulta y memoria retenida por la lista.
+ *
+ * mvn test -Dtest=GastoFilaBenchmark -Dbenchmark=true
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class GastoFilaBenchmark {
+
+    private static final int FILAS = 100_000;
+    private static final int REPETICIONES = 5;
+    private static final LocalDate INICIO = LocalDate.of(2015, 1, 1);
+    private static final LocalDate FIN = INICIO.plusDays(999);
+    private static final com.sun.management.ThreadMXBean HILOS =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Autowired
+    private GastoRepository gastoRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void cargarGastos() {
+        List<Object[]> filas = new ArrayList<>(FILAS);
+        for (int i = 0; i < FILAS; i++) {
+            String producto = "BENCH " + (i % 3_000);
+            filas.add(new Object[] {INICIO.plusDays(i % 1000).toString(), "12:00:00", producto, producto, 1 + i % 5, 1500, 1500 * (1 + i % 5)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO gastos (fecha, hora, usuario_id, categoria_id, subcategoria_id, producto, "
+            + "producto_normalizado, cantidad, valor_unitario, valor_total) VALUES (?, ?, 1, 3, 7, ?, ?, ?, ?, ?)", filas);
+    }
+
+    @AfterEach
+    void borrarGastos() {
+        jdbcTemplate.update("DELETE FROM gastos WHERE producto LIKE 'BENCH %'");
+    }
+
+    @Test
+    void compararEntidadesConProyeccion() {
+        // Consulta anterior: entidades administradas con sus @ManyToOne EAGER
+        Supplier<List<?>> entidades = () -> transactionTemplate.execute(status ->
+            entityManager.createQuery("SELECT g FROM Gasto g WHERE g.usuario.id = :usuarioId "
+                    + "AND g.fecha BETWEEN :inicio AND :fin ORDER BY g.fecha DESC, g.hora DESC", Gasto.class)
+                .setParameter("usuarioId", 1L)
+                .setParameter("inicio", INICIO)
+                .setParameter("fin", FIN)
+                .getResultList());
+
+        Supplier<List<?>> proyeccion = () -> transactionTemplate.execute(status ->
+            gastoRepository.findByUsuarioAndFechaBetween(1L, INICIO, FIN));
+
+        medir("Entidades Gasto", entidades);
+        medir("Proyección GastoFila", proyeccion);
+        medir("Entidades Gasto", entidades);
+        medir("Proyección GastoFila", proyeccion);
+    }
+
+    private void medir(String nombre, Supplier<List<?>> consulta) {
+        consulta.get(); // calentamiento
+
+        long totalNanos = 0;
+        for (int r = 0; r < REPETICIONES; r++) {
+            long t0 = System.nanoTime();
+            consulta.get();
+            totalNanos += System.nanoTime() - t0;
+        }
+
+        long antes = memoriaUsada();
+        long asignadosAntes = HILOS.getCurrentThreadAllocatedBytes();
+        List<?> retenida = consulta.get();
+        long asignados = HILOS.getCurrentThreadAllocatedBytes() - asignadosAntes;
+        long despues = memoriaUsada();
+
+        System.out.printf("📊 %-22s | %,7d filas | %,8.1f ms | %,8.1f MB asignados | %,6.1f MB retenidos%n",
+            nombre, retenida.size(), totalNanos / 1e6 / REPETICIONES,
+            asignados / 1024.0 / 1024.0, (despues - antes) / 1024.0 / 1024.0);
+        if (retenida.isEmpty() || !(retenida.get(0) instanceof Gasto || retenida.get(0) instanceof GastoFila)) {
+            throw new IllegalStateException("Consulta sin resultados");
+        }
+    }
+
+    private static long memoriaUsada() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,67 @@
+package com.misgastos.service;
+
+import com.misgastos.repository.UsuarioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.YearMonth;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Usa meses de 2001 para no tocar la auditoría real de la base de pruebas; la
+ * partición de archivo que crea se borra al final.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class AuditoriaRetencionTest {
+
+    private static final YearMonth MES_VIEJO = YearMonth.of(2001, 3);
+
+    @Autowired
+    private AuditoriaRetencion auditoriaRetencion;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void borrarDatos() {
+        jdbcTemplate.update("DELETE FROM auditoria_logs WHERE accion = 'TEST_RETENCION'");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + AuditoriaRetencion.particion(MES_VIEJO));
+    }
+
+    @Test
+    void losMesesFueraDeLaRetencionPasanASuParticion() {
+        Long usuarioId = usuarioRepository.findByUsername("admin").orElseThrow().getId();
+        insertar(usuarioId, MES_VIEJO, 5);
+        insertar(usuarioId, MES_VIEJO, 20);
+        // Con 12 meses de retención y marzo de 2002 como mes actual, se conserva desde abril de 2001
+        insertar(usuarioId, YearMonth.of(2001, 5), 1);
+
+        long movidos = auditoriaRetencion.compactar(YearMonth.of(2002, 3));
+
+        assertEquals(2, movidos);
+        assertEquals(1, contar("auditoria_logs"));
+        assertTrue(auditoriaRetencion.listarParticiones().contains("auditoria_logs_2001_03"));
+        assertEquals(2, contar("auditoria_logs_2001_03"));
+    }
+
+    private void insertar(Long usuarioId, YearMonth mes, int dia) {
+        long fecha = mes.atDay(dia).atTime(10, 0).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        jdbcTemplate.update("INSERT INTO auditoria_logs (accion, detalles, fecha, usuario_id) VALUES ('TEST_RETENCION', 'prueba', ?, ?)",
+            fecha, usuarioId);
+    }
+
+    private int contar(String tabla) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + tabla + " WHERE accion = 'TEST_RETENCION'", Integer.class);
+    }
+}
@@ -0,0 +1,89 @@
+package com.misgastos.service;
+
+import com.misgastos.repository.UsuarioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Los eventos se encolan al confirmar y los guarda otro hilo, así que el test
+ * no es @Transactional: registra, vacía la cola y borra lo suyo al final.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class AuditoriaServiceTest {
+
+    @Autowired
+    private AuditoriaService auditoriaService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void borrarEventos() {
+        auditoriaService.vaciar();
+        jdbcTemplate.update("DELETE FROM auditoria_logs WHERE accion LIKE 'TEST_AUDITORIA%'");
+    }
+
+    @Test
+    void losEventosSeGuardanEnLotes() {
+        Long usuarioId = usuarioRepository.findByUsername("admin").orElseThrow().getId();
+        long lotesAntes = auditoriaService.getLotesEscritos();
+
+        for (int i = 0; i < 250; i++) {
+            auditoriaService.registrarAccion(usuarioId, "TEST_AUDITORIA", "Evento " + i);
+        }
+        auditoriaService.vaciar();
+
+        assertEquals(250, contar("TEST_AUDITORIA"));
+        assertTrue(auditoriaService.getLotesEscritos() - lotesAntes < 250);
+    }
+
+    @Test
+    void unaAccionDeshechaNoSeAudita() {
+        Long usuarioId = usuarioRepository.findByUsername("admin").orElseThrow().getId();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            auditoriaService.registrarAccion(usuarioId, "TEST_AUDITORIA_ROLLBACK", "No debe quedar");
+            status.setRollbackOnly();
+        });
+        auditoriaService.registrarAccion(usuarioId, "TEST_AUDITORIA_OK", "Sí debe quedar");
+        auditoriaService.vaciar();
+
+        assertEquals(0, contar("TEST_AUDITORIA_ROLLBACK"));
+        assertEquals(1, contar("TEST_AUDITORIA_OK"));
+    }
+
+    @Test
+    void unEventoQueNoSePuedeGuardarNoCuentaComoEscrito() {
+        Long usuarioId = usuarioRepository.findByUsername("admin").orElseThrow().getId();
+        long escritosAntes = auditoriaService.getEventosEscritos();
+        long descartadosAntes = auditoriaService.getEventosDescartados();
+
+        auditoriaService.registrarAccion(usuarioId, "TEST_AUDITORIA", "Válido 1");
+        auditoriaService.registrarAccion(usuarioId, null, "Sin acción: viola NOT NULL");
+        auditoriaService.registrarAccion(usuarioId, "TEST_AUDITORIA", "Válido 2");
+        auditoriaService.vaciar();
+
+        assertEquals(2, contar("TEST_AUDITORIA"));
+        assertEquals(2, auditoriaService.getEventosEscritos() - escritosAntes);
+        assertEquals(1, auditoriaService.getEventosDescartados() - descartadosAntes);
+    }
+
+    private int contar(String accion) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM auditoria_logs WHERE accion = ?", Integer.class, accion);
+    }
+}
@@ -0,0 +1,218 @@
+package com.misgastos.service;
+
+import com.misgastos.model.Gasto;
+import com.misgastos.model.Usuario;
+import com.misgastos.repository.CategoriaRepository;
+import com.misgastos.repository.GastoRepository;
+import com.misgastos.repository.SubcategoriaRepository;
+import com.misgastos.repository.UsuarioRepository;
+import com.misgastos.util.ArchivoAtomico;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Los trabajos corren en otros hilos, así que los datos se confirman de verdad
+ * (sin @Transactional) y se borran al final.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ColaInformesTest {
+
+    private static final LocalDate INICIO = LocalDate.of(2013, 1, 1);
+
+    @Autowired
+    private ColaInformes colaInformes;
+
+    @Autowired
+    private InformeService informeService;
+
+    @Autowired
+    private InformeModeloCache informeModeloCache;
+
+    @Autowired
+    private GastoRepository gastoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private SubcategoriaRepository subcategoriaRepository;
+
+    @TempDir
+    Path carpeta;
+
+    @Test
+    void exportacionPdfInformaFilasYPaginas() throws Exception {
+        List<Gasto> gastos = crearGastos(30);
+        informeModeloCache.limpiar(); // guardados sin GastoService
+        try {
+            File archivo = carpeta.resolve("general.pdf").toFile();
+            TrabajoInforme<Void> trabajo = colaInformes.enviar("PDF de prueba", archivo, () -> {
+                informeService.exportarInformeGeneralPDF(INICIO, INICIO.plusMonths(2), archivo.getAbsolutePath());
+                return null;
+            });
+
+            trabajo.getResultado().get(30, TimeUnit.SECONDS);
+
+            assertEquals(TrabajoInforme.Estado.COMPLETADO, trabajo.getEstado());
+            assertEquals(30, trabajo.getFilasProcesadas());
+            assertTrue(trabajo.getPaginasEscritas() >= 1);
+            assertTrue(archivo.length() > 0);
+        } finally {
+            gastoRepository.deleteAll(gastos);
+        }
+    }
+
+    @Test
+    void trabajoCanceladoEnColaNoSeEjecuta() throws Exception {
+        CountDownLatch liberar = new CountDownLatch(1);
+        List<TrabajoInforme<Void>> ocupados = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            ocupados.add(colaInformes.enviar("Bloqueo " + i, null, () -> {
+                liberar.await(10, TimeUnit.SECONDS);
+                return null;
+            }));
+        }
+
+        AtomicBoolean ejecutado = new AtomicBoolean(false);
+        TrabajoInforme<Void> enCola = colaInformes.enviar("En cola", null, () -> {
+            ejecutado.set(true);
+            return null;
+        });
+        enCola.cancelar();
+        liberar.countDown();
+        for (TrabajoInforme<Void> trabajo : ocupados) {
+            trabajo.getResultado().get(10, TimeUnit.SECONDS);
+        }
+
+        assertEquals(TrabajoInforme.Estado.CANCELADO, enCola.getEstado());
+        assertThrows(CancellationException.class, () -> enCola.getResultado().get(1, TimeUnit.SECONDS));
+        assertFalse(ejecutado.get());
+    }
+
+    @Test
+    void cancelarDuranteLaExportacionBorraElArchivo() throws Exception {
+        File archivo = carpeta.resolve("parcial.xlsx").toFile();
+        CountDownLatch escribiendo = new CountDownLatch(1);
+
+        TrabajoInforme<Void> trabajo = colaInformes.enviar("Exportación larga", archivo, () -> {
+            Files.writeString(archivo.toPath(), "contenido parcial");
+            while (true) {
+                ProgresoInforme.filas(1);
+                escribiendo.countDown();
+                Thread.sleep(5);
+            }
+        });
+
+        assertTrue(escribiendo.await(10, TimeUnit.SECONDS));
+        trabajo.cancelar();
+
+        assertThrows(CancellationException.class, () -> trabajo.getResultado().get(10, TimeUnit.SECONDS));
+        assertEquals(TrabajoInforme.Estado.CANCELADO, trabajo.getEstado());
+        assertTrue(trabajo.getFilasProcesadas() > 0);
+        assertFalse(archivo.exists());
+    }
+
+    @Test
+    void cancelarDespuesDelUltimoPuntoDeControlNoPublica() throws Exception {
+        File archivo = carpeta.resolve("informe.pdf").toFile();
+        Files.writeString(archivo.toPath(), "informe anterior");
+        CountDownLatch escrito = new CountDownLatch(1);
+        CountDownLatch cancelado = new CountDownLatch(1);
+
+        // Igual que ExportacionInformes: temporal, confirmar y publicar
+        TrabajoInforme<Void> trabajo = colaInformes.enviarAtomico("Cancelado al publicar", archivo,
+            () -> publicarTras(archivo, escrito, cancelado, false));
+
+        assertTrue(escrito.await(10, TimeUnit.SECONDS));
+        trabajo.cancelar();
+        cancelado.countDown();
+
+        assertThrows(CancellationException.class, () -> trabajo.getResultado().get(10, TimeUnit.SECONDS));
+        assertEquals(TrabajoInforme.Estado.CANCELADO, trabajo.getEstado());
+        assertEquals("informe anterior", Files.readString(archivo.toPath()));
+    }
+
+    @Test
+    void cancelarYaConfirmadoNoCambiaElResultado() throws Exception {
+        File archivo = carpeta.resolve("informe.pdf").toFile();
+        Files.writeString(archivo.toPath(), "informe anterior");
+        CountDownLatch confirmado = new CountDownLatch(1);
+        CountDownLatch cancelado = new CountDownLatch(1);
+
+        TrabajoInforme<Void> trabajo = colaInformes.enviarAtomico("Cancelado tarde", archivo,
+            () -> publicarTras(archivo, confirmado, cancelado, true));
+
+        assertTrue(confirmado.await(10, TimeUnit.SECONDS));
+        trabajo.cancelar();
+        cancelado.countDown();
+
+        trabajo.getResultado().get(10, TimeUnit.SECONDS);
+        assertEquals(TrabajoInforme.Estado.COMPLETADO, trabajo.getEstado());
+        assertEquals("informe nuevo", Files.readString(archivo.toPath()));
+    }
+
+    // Escribe el temporal y avisa (antes o después de confirmar); publica cuando la prueba ya canceló
+    private Void publicarTras(File archivo, CountDownLatch aviso, CountDownLatch cancelado,
+                              boolean confirmarAntes) throws Exception {
+        File temporal = ArchivoAtomico.temporalPara(archivo);
+        try {
+            Files.writeString(temporal.toPath(), "informe nuevo");
+            if (confirmarAntes) {
+                ProgresoInforme.confirmar();
+            }
+            aviso.countDown();
+            cancelado.await(10, TimeUnit.SECONDS);
+            if (!confirmarAntes) {
+                ProgresoInforme.confirmar();
+            }
+            ArchivoAtomico.publicar(temporal, archivo);
+        } finally {
+            ArchivoAtomico.descartar(temporal);
+        }
+        return null;
+    }
+
+    private List<Gasto> crearGastos(int cantidad) {
+        Usuario usuario = usuarioRepository.findByUsername("admin").orElseThrow();
+        List<Gasto> gastos = new ArrayList<>();
+        for (int i = 0; i < cantidad; i++) {
+            Gasto gasto = new Gasto();
+            gasto.setFecha(INICIO.plusDays(i * 2));
+            gasto.setHora(LocalTime.NOON);
+            gasto.setUsuario(usuario);
+            gasto.setCategoria(categoriaRepository.findById(3L).orElseThrow());
+            gasto.setSubcategoria(subcategoriaRepository.findById(7L).orElseThrow());
+            gasto.setProducto("Cola " + (i % 4));
+            gasto.setCantidad(1);
+            gasto.setValorUnitario(new BigDecimal("2500"));
+            gasto.setValorTotal(new BigDecimal("2500"));
+            gastos.add(gasto);
+        }
+        return gastoRepository.saveAll(gastos);
+    }
+}
@@ -0,0 +1,108 @@
+package com.misgastos.service;
+
+import com.misgastos.model.Gasto;
+import com.misgastos.model.Usuario;
+import com.misgastos.repository.CategoriaRepository;
+import com.misgastos.repository.GastoRepository;
+import com.misgastos.repository.SubcategoriaRepository;
+import com.misgastos.repository.UsuarioRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * El snapshot de inicio debe dar las mismas cifras que las consultas por
+ * periodo que reemplaza, con una sola sentencia.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class DashboardSnapshotTest {
+
+    // Viernes 1 de enero: la semana empieza en diciembre del año anterior
+    private static final LocalDate HOY = LocalDate.of(2016, 1, 1);
+
+    @Autowired
+    private GastoService gastoService;
+
+    @Autowired
+    private GastoResumenService gastoResumenService;
+
+    @Autowired
+    private GastoRepository gastoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private SubcategoriaRepository subcategoriaRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void cargarDatos() {
+        Usuario usuario = usuarioRepository.findByUsername("admin").orElseThrow();
+        for (int i = -400; i <= 400; i += 3) {
+            Gasto gasto = new Gasto();
+            gasto.setFecha(HOY.plusDays(i));
+            gasto.setHora(LocalTime.NOON);
+            gasto.setUsuario(usuario);
+            gasto.setCategoria(categoriaRepository.findById(3L).orElseThrow());
+            gasto.setSubcategoria(subcategoriaRepository.findById(7L).orElseThrow());
+            gasto.setProducto("Snapshot");
+            gasto.setCantidad(1);
+            gasto.setValorUnitario(BigDecimal.valueOf(1000 + i));
+            gasto.setValorTotal(BigDecimal.valueOf(1000 + i));
+            gastoResumenService.sumarGasto(gastoRepository.save(gasto));
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void coincideConLosTotalesPorPeriodo() {
+        Statistics estadisticas = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+        DashboardSnapshot snapshot = gastoService.obtenerDashboardSnapshot(HOY);
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+
+        LocalDate inicioSemana = HOY.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        LocalDate inicioMes = HOY.withDayOfMonth(1);
+        LocalDate inicioAnio = HOY.withDayOfYear(1);
+
+        assertTotal(HOY, HOY, snapshot.totalHoy());
+        assertTotal(HOY.minusDays(1), HOY.minusDays(1), snapshot.totalAyer());
+        assertTotal(inicioSemana, inicioSemana.plusDays(6), snapshot.totalSemana());
+        assertTotal(inicioSemana.minusWeeks(1), inicioSemana.minusDays(1), snapshot.totalSemanaAnterior());
+        assertTotal(inicioMes, HOY.with(TemporalAdjusters.lastDayOfMonth()), snapshot.totalMes());
+        assertTotal(inicioMes.minusMonths(1), inicioMes.minusDays(1), snapshot.totalMesAnterior());
+        assertTotal(inicioAnio, HOY.with(TemporalAdjusters.lastDayOfYear()), snapshot.totalAnio());
+        assertTotal(inicioAnio.minusYears(1), inicioAnio.minusDays(1), snapshot.totalAnioAnterior());
+
+        assertEquals(DashboardSnapshot.DIAS_GRAFICO, snapshot.ultimosDias().size());
+        snapshot.ultimosDias().forEach((fecha, total) -> assertTotal(fecha, fecha, total));
+    }
+
+    private void assertTotal(LocalDate inicio, LocalDate fin, BigDecimal total) {
+        assertEquals(0, gastoService.calcularTotalPorPeriodo(inicio, fin).compareTo(total),
+            "Total entre " + inicio + " y " + fin);
+    }
+}
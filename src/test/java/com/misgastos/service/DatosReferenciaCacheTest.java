@@ -0,0 +1,99 @@
+package com.misgastos.service;
+
+import com.misgastos.model.Categoria;
+import com.misgastos.model.Subcategoria;
+import com.misgastos.model.Usuario;
+import com.misgastos.repository.CategoriaRepository;
+import com.misgastos.repository.SubcategoriaRepository;
+import com.misgastos.repository.UsuarioRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sin @Transactional: la caché se invalida al confirmar cada escritura.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class DatosReferenciaCacheTest {
+
+    @Autowired
+    private DatosReferenciaCache datosReferenciaCache;
+
+    @Autowired
+    private CategoriaService categoriaService;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private SubcategoriaRepository subcategoriaRepository;
+
+    @Test
+    void cargaUnaVezYCoincideConLaBaseDeDatos() {
+        datosReferenciaCache.invalidarCategorias();
+        long fallos = datosReferenciaCache.getFallos();
+        long aciertos = datosReferenciaCache.getAciertos();
+
+        List<Categoria> categorias = datosReferenciaCache.listarCategorias();
+        for (Categoria categoria : categorias) {
+            List<Long> esperadas = subcategoriaRepository.findByCategoriaId(categoria.getId()).stream()
+                .map(Subcategoria::getId).toList();
+            List<Long> cacheadas = datosReferenciaCache.listarSubcategorias(categoria.getId()).stream()
+                .map(Subcategoria::getId).toList();
+            assertEquals(esperadas, cacheadas, categoria.getNombre());
+        }
+
+        assertEquals(categoriaRepository.count(), categorias.size());
+        assertEquals(fallos + 1, datosReferenciaCache.getFallos());
+        assertEquals(aciertos + categorias.size(), datosReferenciaCache.getAciertos());
+    }
+
+    @Test
+    void lasAltasDeCategoriasYSubcategoriasSeVenEnLaCache() {
+        datosReferenciaCache.listarCategorias(); // caché cargada antes de las altas
+        Categoria creada = categoriaService.crearCategoria("Test caché creada", "🧪", "#000000");
+        Categoria sinDuplicar = categoriaService.crearSiNoExiste("Test caché si no existe");
+        try {
+            Subcategoria subcategoria = categoriaService.crearSubcategoriaSiNoExiste(creada.getId(), "Test caché sub");
+            Subcategoria otra = categoriaService.crearSubcategoria("Test caché otra sub", sinDuplicar.getId());
+
+            List<Long> categorias = datosReferenciaCache.listarCategorias().stream().map(Categoria::getId).toList();
+            assertTrue(categorias.contains(creada.getId()));
+            assertTrue(categorias.contains(sinDuplicar.getId()));
+            assertEquals(List.of(subcategoria.getId()), datosReferenciaCache.listarSubcategorias(creada.getId())
+                .stream().map(Subcategoria::getId).toList());
+            assertTrue(datosReferenciaCache.buscarSubcategoria(otra.getId()).isPresent());
+        } finally {
+            subcategoriaRepository.deleteAll(subcategoriaRepository.findByCategoriaId(creada.getId()));
+            subcategoriaRepository.deleteAll(subcategoriaRepository.findByCategoriaId(sinDuplicar.getId()));
+            categoriaRepository.deleteAllById(List.of(creada.getId(), sinDuplicar.getId()));
+            datosReferenciaCache.invalidarCategorias();
+        }
+    }
+
+    @Test
+    void buscarPorIdDevuelveUnaCopiaSinLaContrasena() {
+        Long id = usuarioRepository.findByUsername("admin").orElseThrow().getId();
+
+        Usuario usuario = usuarioService.buscarPorId(id).orElseThrow();
+
+        assertEquals("admin", usuario.getUsername());
+        assertNull(usuario.getPassword());
+        assertNotSame(usuario, usuarioService.buscarPorId(id).orElseThrow());
+    }
+}
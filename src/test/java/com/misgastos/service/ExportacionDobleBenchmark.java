@@ -0,0 +1,116 @@
+package com.misgastos.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cierre de mes: el mismo informe a PDF y a Excel. Antes eran dos
+ * exportaciones independientes (cada una consultaba y agregaba el período);
+ * ahora el modelo se calcula una vez y los dos archivos se escriben a la vez.
+ * La caché de modelos se vacía antes de cada medición para que ambos caminos
+ * partan de cero.
+ *
+ * mvn test -Dtest=ExportacionDobleBenchmark -Dbenchmark=true
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ExportacionDobleBenchmark {
+
+    private static final int FILAS = 300_000;
+    private static final int DIAS = 365;
+    private static final int REPETICIONES = 3;
+    private static final LocalDate INICIO = LocalDate.of(2014, 1, 1);
+    private static final LocalDate FIN = INICIO.plusDays(DIAS - 1);
+
+    @Autowired
+    private ExportacionInformes exportacionInformes;
+
+    @Autowired
+    private InformeModeloCache informeModeloCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    Path carpeta;
+
+    @BeforeEach
+    void cargarGastos() {
+        borrarGastos(); // restos de una ejecución interrumpida
+        List<Object[]> lote = new ArrayList<>(10_000);
+        for (int i = 0; i < FILAS; i++) {
+            String producto = "BENCH " + (i % 3_000);
+            lote.add(new Object[] {INICIO.plusDays(i % DIAS).toString(), "12:00:00", producto, producto, 1 + i % 5, 1500, 1500 * (1 + i % 5)});
+            if (lote.size() == 10_000) {
+                insertar(lote);
+                lote.clear();
+            }
+        }
+        insertar(lote);
+        informeModeloCache.limpiar();
+    }
+
+    private void insertar(List<Object[]> lote) {
+        jdbcTemplate.batchUpdate("INSERT INTO gastos (fecha, hora, usuario_id, categoria_id, subcategoria_id, producto, "
+            + "producto_normalizado, cantidad, valor_unitario, valor_total) VALUES (?, ?, 1, 3, 7, ?, ?, ?, ?, ?)", lote);
+    }
+
+    @AfterEach
+    void borrarGastos() {
+        jdbcTemplate.update("DELETE FROM gastos WHERE producto LIKE 'BENCH %'");
+        informeModeloCache.limpiar();
+    }
+
+    @Test
+    void compararExportaciones() throws Exception {
+        String categoria = jdbcTemplate.queryForObject("SELECT nombre FROM categorias WHERE id = 3", String.class);
+
+        comparar(ExportacionInformes.Tipo.GENERAL, null);
+        comparar(ExportacionInformes.Tipo.DASHBOARD, null);
+        comparar(ExportacionInformes.Tipo.CATEGORIA, categoria);
+    }
+
+    private void comparar(ExportacionInformes.Tipo tipo, String filtro) throws Exception {
+        File pdf = carpeta.resolve(tipo + ".pdf").toFile();
+        File excel = carpeta.resolve(tipo + ".xlsx").toFile();
+
+        // La primera vuelta calienta el JIT y no se cuenta
+        long secuencial = Long.MAX_VALUE;
+        long doble = Long.MAX_VALUE;
+        for (int i = 0; i <= REPETICIONES; i++) {
+            long t0 = System.nanoTime();
+            informeModeloCache.limpiar();
+            exportacionInformes.exportarPdf(tipo, INICIO, FIN, filtro, pdf);
+            informeModeloCache.limpiar();
+            exportacionInformes.exportarExcel(tipo, INICIO, FIN, filtro, excel);
+            long t1 = System.nanoTime();
+            informeModeloCache.limpiar();
+            exportacionInformes.exportarPdfYExcel(tipo, INICIO, FIN, filtro, pdf, excel);
+            long t2 = System.nanoTime();
+            if (i > 0) {
+                secuencial = Math.min(secuencial, t1 - t0);
+                doble = Math.min(doble, t2 - t1);
+            }
+        }
+
+        System.out.printf("📊 %-12s | PDF y luego Excel %,8.1f ms | PDF + Excel a la vez %,8.1f ms | x%.2f%n",
+            tipo, secuencial / 1e6, doble / 1e6, (double) secuencial / doble);
+        if (pdf.length() == 0 || excel.length() == 0) {
+            throw new IllegalStateException("Exportación vacía: " + tipo);
+        }
+    }
+}
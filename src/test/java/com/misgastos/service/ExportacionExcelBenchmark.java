@@ -0,0 +1,161 @@
+package com.misgastos.service;
+
+import com.misgastos.model.Gasto;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Exportación de gastos a Excel: el camino anterior (lista de entidades +
+ * XSSFWorkbook + autoSizeColumn) contra el streaming (Stream de GastoFila +
+ * SXSSF + anchos calculados), midiendo tiempo y pico de heap.
+ *
+ * El camino anterior se mide solo con 5.000 filas: con 50.000 ya agota un heap
+ * de 1 GB (la tabla de textos compartidos de XSSF crece sin límite). Para
+ * comprobar que el streaming cabe en poca memoria:
+ *
+ * mvn test -Dtest=ExportacionExcelBenchmark -Dbenchmark=true -DargLine=-Xmx256m
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ExportacionExcelBenchmark {
+
+    private static final int FILAS = 1_000_000;
+    private static final int DIAS = 1000;
+    private static final int DIAS_CAMINO_ANTERIOR = 5;
+    private static final LocalDate INICIO = LocalDate.of(2015, 1, 1);
+
+    @Autowired
+    private ReporteService reporteService;
+
+    @Autowired
+    private GastoService gastoService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @TempDir
+    Path carpeta;
+
+    @BeforeEach
+    void cargarGastos() {
+        borrarGastos(); // restos de una ejecución interrumpida
+        List<Object[]> lote = new ArrayList<>(10_000);
+        for (int i = 0; i < FILAS; i++) {
+            String producto = "BENCH " + (i % 3_000);
+            lote.add(new Object[] {INICIO.plusDays(i % DIAS).toString(), "12:00:00", producto, producto, 1 + i % 5, 1500, 1500 * (1 + i % 5)});
+            if (lote.size() == 10_000) {
+                insertar(lote);
+                lote.clear();
+            }
+        }
+        insertar(lote);
+    }
+
+    private void insertar(List<Object[]> lote) {
+        jdbcTemplate.batchUpdate("INSERT INTO gastos (fecha, hora, usuario_id, categoria_id, subcategoria_id, producto, "
+            + "producto_normalizado, cantidad, valor_unitario, valor_total) VALUES (?, ?, 1, 3, 7, ?, ?, ?, ?, ?)", lote);
+    }
+
+    @AfterEach
+    void borrarGastos() {
+        jdbcTemplate.update("DELETE FROM gastos WHERE producto LIKE 'BENCH %'");
+    }
+
+    @Test
+    void compararExportaciones() throws Exception {
+        LocalDate finCorto = INICIO.plusDays(DIAS_CAMINO_ANTERIOR - 1);
+        File anterior = carpeta.resolve("anterior.xlsx").toFile();
+        File streamingCorto = carpeta.resolve("streaming-corto.xlsx").toFile();
+        File streamingTotal = carpeta.resolve("streaming-total.xlsx").toFile();
+
+        medir("XSSF + autoSize", anterior, () -> exportarComoAntes(INICIO, finCorto, anterior));
+        medir("SXSSF streaming", streamingCorto, () ->
+            reporteService.exportarGastosPorPeriodoExcel(INICIO, finCorto, streamingCorto.getAbsolutePath()));
+        medir("SXSSF streaming (todo)", streamingTotal, () ->
+            reporteService.exportarGastosPorPeriodoExcel(INICIO, INICIO.plusDays(DIAS - 1), streamingTotal.getAbsolutePath()));
+    }
+
+    // Copia reducida de la exportación anterior de ReporteService
+    private void exportarComoAntes(LocalDate inicio, LocalDate fin, File archivo) throws Exception {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Gasto> gastos = gastoService.listarPorPeriodo(inicio, fin);
+            try (Workbook workbook = new XSSFWorkbook()) {
+                Sheet sheet = workbook.createSheet("Gastos");
+                int rowNum = 0;
+                for (Gasto gasto : gastos) {
+                    Row row = sheet.createRow(rowNum++);
+                    row.createCell(0).setCellValue(gasto.getId());
+                    row.createCell(1).setCellValue(gasto.getFecha().toString());
+                    row.createCell(2).setCellValue(gasto.getHora().toString());
+                    row.createCell(3).setCellValue(gasto.getCategoria().getNombre());
+                    row.createCell(4).setCellValue(gasto.getSubcategoria().getNombre());
+                    row.createCell(5).setCellValue(gasto.getProducto());
+                    row.createCell(6).setCellValue(gasto.getCantidad());
+                    row.createCell(7).setCellValue(gasto.getValorUnitario().doubleValue());
+                    row.createCell(8).setCellValue(gasto.getValorTotal().doubleValue());
+                    row.createCell(9).setCellValue(gasto.getNotas() != null ? gasto.getNotas() : "");
+                }
+                for (int i = 0; i < 10; i++) {
+                    sheet.autoSizeColumn(i);
+                }
+                try (FileOutputStream salida = new FileOutputStream(archivo)) {
+                    workbook.write(salida);
+                }
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    private void medir(String nombre, File archivo, Exportacion exportacion) throws Exception {
+        List<MemoryPoolMXBean> heap = ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP)
+            .toList();
+        System.gc();
+        heap.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+        long t0 = System.nanoTime();
+        exportacion.ejecutar();
+        long nanos = System.nanoTime() - t0;
+
+        // Suma de los picos de cada pool: cota superior del pico real
+        long pico = heap.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        System.out.printf("📊 %-24s | %,9.1f ms | pico heap %,7.1f MB | archivo %,6.1f MB | heap máx %,6.0f MB%n",
+            nombre, nanos / 1e6, pico / 1024.0 / 1024.0, archivo.length() / 1024.0 / 1024.0,
+            Runtime.getRuntime().maxMemory() / 1024.0 / 1024.0);
+        if (archivo.length() == 0) {
+            throw new IllegalStateException("Exportación vacía: " + nombre);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Exportacion {
+        void ejecutar() throws Exception;
+    }
+}
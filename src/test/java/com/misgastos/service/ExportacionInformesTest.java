@@ -0,0 +1,62 @@
+package com.misgastos.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ExportacionInformesTest {
+
+    @Autowired
+    private ExportacionInformes exportacionInformes;
+
+    @TempDir
+    Path carpeta;
+
+    private final LocalDate fin = LocalDate.now();
+    private final LocalDate inicio = fin.minusMonths(1);
+
+    @Test
+    void exportaPdfYExcelSinDejarTemporales() throws Exception {
+        File pdf = carpeta.resolve("cierre.pdf").toFile();
+        File excel = carpeta.resolve("cierre.xlsx").toFile();
+
+        exportacionInformes.exportarPdfYExcel(ExportacionInformes.Tipo.GENERAL, inicio, fin, null, pdf, excel);
+
+        assertTrue(pdf.length() > 0);
+        assertTrue(excel.length() > 0);
+        assertEquals(2, contarArchivos());
+    }
+
+    @Test
+    void siFallaSeConservaElArchivoAnterior() throws Exception {
+        File excel = carpeta.resolve("categoria.xlsx").toFile();
+        Files.writeString(excel.toPath(), "informe anterior");
+
+        // Sin categoría el informe por categoría no se puede generar
+        assertThrows(Exception.class, () ->
+            exportacionInformes.exportarExcel(ExportacionInformes.Tipo.CATEGORIA, inicio, fin, null, excel));
+
+        assertEquals("informe anterior", Files.readString(excel.toPath()));
+        assertEquals(1, contarArchivos());
+    }
+
+    private long contarArchivos() throws Exception {
+        try (Stream<Path> archivos = Files.list(carpeta)) {
+            return archivos.count();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.misgastos.service;
+
+import com.misgastos.model.Categoria;
+import com.misgastos.model.Gasto;
+import com.misgastos.model.Subcategoria;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GastoAggregatorTest {
+
+    private final Categoria comida = categoria("Comida");
+    private final Categoria transporte = categoria("Transporte");
+
+    @Test
+    void calculaTodasLasMedidasEnUnaPasada() {
+        GastoAggregator modelo = new GastoAggregator();
+        modelo.accept(gasto(1, LocalDate.of(2024, 1, 5), comida, "Mercado", "Arroz", 2, "1000"));
+        modelo.accept(gasto(2, LocalDate.of(2024, 1, 20), transporte, "Bus", "Pasaje", 1, "2500"));
+        modelo.accept(gasto(3, LocalDate.of(2024, 2, 3), comida, "Mercado", "Arroz", 3, "1200"));
+        modelo.accept(gasto(4, LocalDate.of(2024, 2, 3), comida, null, " ", 1, "500"));
+
+        assertEquals(4, modelo.getCompras());
+        assertEquals(7, modelo.getUnidades());
+        assertEquals(new BigDecimal("8600"), modelo.getTotal());
+        assertEquals(new BigDecimal("3600"), modelo.getMayorGasto());
+        assertEquals(new BigDecimal("500"), modelo.getPrecioMinimo());
+        assertEquals(new BigDecimal("2500"), modelo.getPrecioMaximo());
+        assertEquals(new BigDecimal("2150.00"), modelo.getPromedioPorCompra());
+        assertEquals(new BigDecimal("1228.57"), modelo.getPrecioPorUnidad());
+
+        assertEquals(List.of(YearMonth.of(2024, 1), YearMonth.of(2024, 2)), modelo.getMeses());
+        assertEquals(new BigDecimal("4500"), modelo.totalMes(YearMonth.of(2024, 1)));
+        assertEquals(new BigDecimal("4100"), modelo.totalMesCategoria(YearMonth.of(2024, 2), "Comida"));
+        assertEquals(BigDecimal.ZERO, modelo.totalMesCategoria(YearMonth.of(2024, 2), "Transporte"));
+
+        GastoAggregator.Medida mercado = modelo.getPorCategoriaSubcategoria().get("Comida").get("Mercado");
+        assertEquals(new BigDecimal("5600"), mercado.getTotal());
+        assertEquals(2, mercado.getCompras());
+        assertTrue(modelo.getPorSubcategoria().containsKey(GastoAggregator.SIN_SUBCATEGORIA));
+
+        Map.Entry<String, GastoAggregator.Medida> masComprado = modelo.topProductosPorCompras(1).get(0);
+        assertEquals("Arroz", masComprado.getKey());
+        assertEquals(2, masComprado.getValue().getCompras());
+        assertEquals("Comida", modelo.topCategoriasPorMonto(1).get(0).getKey());
+        assertTrue(modelo.getPorProducto().containsKey(GastoAggregator.PRODUCTO_NO_ESPECIFICADO));
+    }
+
+    @Test
+    void conservaSoloLasComprasMasRecientes() {
+        GastoAggregator modelo = new GastoAggregator();
+        for (int dia = 1; dia <= 15; dia++) {
+            modelo.accept(gasto(dia, LocalDate.of(2024, 3, dia), comida, "Mercado", "Pan", 1, "100"));
+        }
+
+        List<GastoAggregator.Compra> recientes = modelo.getRecientes();
+        assertEquals(GastoAggregator.LIMITE_RECIENTES, recientes.size());
+        assertEquals(LocalDate.of(2024, 3, 15), recientes.get(0).fecha());
+        assertEquals(LocalDate.of(2024, 3, 6), recientes.get(recientes.size() - 1).fecha());
+        assertEquals(LocalDate.of(2024, 3, 15), modelo.getUltimaCompra().fecha());
+    }
+
+    @Test
+    void elFiltroDejaFueraLosGastosDeOtrasCategorias() {
+        GastoAggregator modelo = new GastoAggregator(g -> g.getCategoria().getNombre().equalsIgnoreCase("comida"));
+        modelo.accept(gasto(1, LocalDate.of(2024, 1, 5), comida, "Mercado", "Arroz", 1, "1000"));
+        modelo.accept(gasto(2, LocalDate.of(2024, 1, 6), transporte, "Bus", "Pasaje", 1, "2500"));
+
+        assertEquals(1, modelo.getCompras());
+        assertEquals(List.of("Comida"), List.copyOf(modelo.getPorCategoria().keySet()));
+    }
+
+    @Test
+    void sinGastosLasMedidasQuedanEnCero() {
+        GastoAggregator modelo = new GastoAggregator();
+
+        assertTrue(modelo.isVacio());
+        assertEquals(BigDecimal.ZERO, modelo.getMayorGasto());
+        assertEquals(BigDecimal.ZERO, modelo.getPromedioPorCompra());
+        assertEquals(null, modelo.getUltimaCompra());
+    }
+
+    private static Categoria categoria(String nombre) {
+        Categoria categoria = new Categoria();
+        categoria.setNombre(nombre);
+        return categoria;
+    }
+
+    private static Gasto gasto(long id, LocalDate fecha, Categoria categoria, String subcategoria,
+                               String producto, int cantidad, String valorUnitario) {
+        Gasto gasto = new Gasto();
+        gasto.setId(id);
+        gasto.setFecha(fecha);
+        gasto.setHora(LocalTime.NOON);
+        gasto.setCategoria(categoria);
+        if (subcategoria != null) {
+            Subcategoria sub = new Subcategoria();
+            sub.setNombre(subcategoria);
+            gasto.setSubcategoria(sub);
+        }
+        gasto.setProducto(producto);
+        gasto.setCantidad(cantidad);
+        gasto.setValorUnitario(new BigDecimal(valorUnitario));
+        gasto.setValorTotal(new BigDecimal(valorUnitario).multiply(BigDecimal.valueOf(cantidad)));
+        return gasto;
+    }
+}
@@ -0,0 +1,109 @@
+package com.misgastos.service;
+
+import com.misgastos.model.Gasto;
+import com.misgastos.model.GastoResumenDiario;
+import com.misgastos.model.Subcategoria;
+import com.misgastos.repository.GastoResumenDiarioRepository;
+import com.misgastos.repository.SubcategoriaRepository;
+import com.misgastos.repository.UsuarioRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Altas, ediciones que cambian fecha, categoría, subcategoría y cantidad, y
+ * borrados a través de GastoService deben dejar el resumen diario igual a lo
+ * que da reconstruirlo desde gastos.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class GastoResumenServiceTest {
+
+    private static final LocalDate FECHA_EDITADA = LocalDate.of(1999, 5, 10);
+    private static final LocalDate FECHA_BORRADA = LocalDate.of(1999, 5, 11);
+
+    @Autowired
+    private GastoService gastoService;
+
+    @Autowired
+    private GastoResumenService gastoResumenService;
+
+    @Autowired
+    private GastoResumenDiarioRepository resumenRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private SubcategoriaRepository subcategoriaRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void elResumenSigueAltasEdicionesYBorrados() {
+        // Partir de un resumen consistente (los benchmarks insertan gastos por SQL)
+        gastoResumenService.reconstruir();
+        entityManager.clear();
+
+        Long usuarioId = usuarioRepository.findByUsername("admin").orElseThrow().getId();
+        List<Subcategoria> beneficios = subcategoriaRepository.findByCategoriaId(3L);
+        Long ahorro = subcategoriaRepository.findByCategoriaId(1L).get(0).getId();
+
+        Gasto editado = gastoService.registrarGasto(usuarioId, 3L, beneficios.get(0).getId(), "Test resumen",
+            2, new BigDecimal("1000"), null, null);
+        Gasto borrado = gastoService.registrarGasto(usuarioId, 3L, beneficios.get(0).getId(), "Test resumen",
+            1, new BigDecimal("500"), null, null);
+
+        // Cambia fecha, categoría, subcategoría y cantidad
+        gastoService.actualizarGasto(editado.getId(), 1L, ahorro, "Test resumen", 4,
+            new BigDecimal("1000"), null, FECHA_EDITADA, LocalTime.of(10, 0));
+        // Cambia de subcategoría y fecha, y luego se borra: su fila queda en 0 gastos
+        gastoService.actualizarGasto(borrado.getId(), 3L, beneficios.get(1).getId(), "Test resumen", 1,
+            new BigDecimal("500"), null, FECHA_BORRADA, LocalTime.of(10, 0));
+        gastoService.eliminarGasto(borrado.getId());
+        entityManager.flush();
+
+        GastoResumenDiario fila = resumenRepository
+            .findByFechaAndCategoriaIdAndSubcategoriaIdAndUsuarioId(FECHA_EDITADA, 1L, ahorro, usuarioId)
+            .orElseThrow();
+        assertEquals(1, fila.getNumeroGastos());
+        assertEquals(4, fila.getTotalCantidad());
+        assertEquals(0, new BigDecimal("4000").compareTo(fila.getTotalValor()));
+        assertTrue(resumenRepository.findByFechaAndCategoriaIdAndSubcategoriaIdAndUsuarioId(
+            FECHA_BORRADA, 3L, beneficios.get(1).getId(), usuarioId).isEmpty());
+        assertTrue(resumenRepository.findByFechaAndCategoriaIdAndSubcategoriaIdAndUsuarioId(
+            LocalDate.now(), 3L, beneficios.get(0).getId(), usuarioId).isEmpty());
+
+        assertEquals(List.of(), gastoResumenService.verificarConsistencia());
+
+        Map<GastoResumenService.Clave, String> incremental = totales();
+        gastoResumenService.reconstruir();
+        entityManager.clear();
+        assertEquals(incremental, totales());
+        assertEquals(List.of(), gastoResumenService.verificarConsistencia());
+    }
+
+    private Map<GastoResumenService.Clave, String> totales() {
+        Map<GastoResumenService.Clave, String> totales = new HashMap<>();
+        for (GastoResumenDiario r : resumenRepository.findAll()) {
+            totales.put(new GastoResumenService.Clave(r.getFecha(), r.getCategoriaId(), r.getSubcategoriaId(), r.getUsuarioId()),
+                r.getNumeroGastos() + "/" + r.getTotalCantidad() + "/" + r.getTotalValor().stripTrailingZeros().toPlainString());
+        }
+        return totales;
+    }
+}
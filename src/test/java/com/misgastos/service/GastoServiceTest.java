@@ -0,0 +1,132 @@
+package com.misgastos.service;
+
+import com.misgastos.model.Categoria;
+import com.misgastos.model.Gasto;
+import com.misgastos.model.GastoFila;
+import com.misgastos.model.Subcategoria;
+import com.misgastos.repository.CategoriaRepository;
+import com.misgastos.repository.GastoRepository;
+import com.misgastos.repository.SubcategoriaRepository;
+import com.misgastos.repository.UsuarioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Paginación por id (keyset) y filtro de ListaGastos.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class GastoServiceTest {
+
+    @Autowired
+    private GastoService gastoService;
+
+    @Autowired
+    private DatosReferenciaCache datosReferenciaCache;
+
+    @Autowired
+    private GastoRepository gastoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private SubcategoriaRepository subcategoriaRepository;
+
+    private Categoria conAcentos;
+    private Subcategoria subcategoria;
+
+    @BeforeEach
+    void crearCategoria() {
+        conAcentos = new Categoria();
+        conAcentos.setNombre("Test Cafetería Ñandú");
+        conAcentos = categoriaRepository.save(conAcentos);
+        subcategoria = new Subcategoria();
+        subcategoria.setNombre("Test General");
+        subcategoria.setCategoria(conAcentos);
+        subcategoria = subcategoriaRepository.save(subcategoria);
+        datosReferenciaCache.invalidarCategorias();
+    }
+
+    // La categoría se deshace con la transacción de la prueba
+    @AfterEach
+    void olvidarCategoria() {
+        datosReferenciaCache.invalidarCategorias();
+    }
+
+    @Test
+    void lasPaginasRecorrenTodoSinRepetirNiSaltar() {
+        List<Long> creados = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            creados.add(crearGasto("Test página " + i).getId());
+        }
+
+        List<Long> leidos = new ArrayList<>();
+        Long antesDeId = null;
+        List<GastoFila> pagina;
+        do {
+            pagina = gastoService.listarPagina("test página", antesDeId, 2);
+            pagina.forEach(fila -> leidos.add(fila.id()));
+            antesDeId = pagina.isEmpty() ? antesDeId : pagina.get(pagina.size() - 1).id();
+        } while (pagina.size() == 2);
+
+        Collections.reverse(creados);
+        assertEquals(creados, leidos);
+    }
+
+    @Test
+    void filtraPorCategoriaConAcentos() {
+        Gasto gasto = crearGasto("Test sin coincidencia en el producto");
+
+        List<GastoFila> filas = gastoService.listarPagina("cafetería ñandú", null, 10);
+
+        assertEquals(List.of(gasto.getId()), ids(filas));
+    }
+
+    @Test
+    void losComodinesDelUsuarioSeBuscanLiteralmente() {
+        Gasto porcentaje = crearGasto("Test 100% algodón");
+        crearGasto("Test 1000 algodón");
+        Gasto guion = crearGasto("Test a_b");
+        crearGasto("Test axb");
+
+        assertEquals(List.of(porcentaje.getId()), ids(gastoService.listarPagina("100%", null, 10)));
+        assertEquals(List.of(guion.getId()), ids(gastoService.listarPagina("test a_b", null, 10)));
+    }
+
+    private static List<Long> ids(List<GastoFila> filas) {
+        return filas.stream().map(GastoFila::id).toList();
+    }
+
+    private Gasto crearGasto(String producto) {
+        Gasto gasto = new Gasto();
+        gasto.setFecha(LocalDate.of(2001, 1, 1));
+        gasto.setHora(LocalTime.of(12, 0));
+        gasto.setUsuario(usuarioRepository.findByUsername("admin").orElseThrow());
+        gasto.setCategoria(conAcentos);
+        gasto.setSubcategoria(subcategoria);
+        gasto.setProducto(producto);
+        gasto.setCantidad(1);
+        gasto.setValorUnitario(new BigDecimal("1000"));
+        gasto.setValorTotal(new BigDecimal("1000"));
+        return gastoRepository.saveAndFlush(gasto);
+    }
+}
@@ -0,0 +1,92 @@
+package com.misgastos.service;
+
+import com.misgastos.model.Gasto;
+import com.misgastos.repository.UsuarioRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * La invalidación corre al confirmar la transacción, así que los gastos se
+ * registran de verdad con GastoService (sin @Transactional) y se borran al final.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class InformeModeloCacheTest {
+
+    @Autowired
+    private InformeModeloCache informeModeloCache;
+
+    @Autowired
+    private InformeService informeService;
+
+    @Autowired
+    private GastoService gastoService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final LocalDate fin = LocalDate.now();
+    private final LocalDate inicio = fin.minusMonths(1);
+
+    @BeforeEach
+    void vaciarCache() {
+        informeModeloCache.limpiar();
+    }
+
+    @Test
+    void elMismoInformeNoVuelveAConsultarLaBase() {
+        GastoAggregator primero = informeService.agregar(inicio, fin);
+
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+        informeService.generarInformeGeneralMensual(inicio, fin);
+        informeService.generarDashboardEjecutivo(inicio, fin);
+
+        assertEquals(0, estadisticas.getPrepareStatementCount());
+        assertSame(primero, informeService.agregar(inicio, fin));
+    }
+
+    @Test
+    void registrarYBorrarUnGastoInvalidanElPeriodo() {
+        GastoAggregator antes = informeService.agregar(inicio, fin);
+
+        Long usuarioId = usuarioRepository.findByUsername("admin").orElseThrow().getId();
+        Gasto gasto = gastoService.registrarGasto(usuarioId, 3L, 7L, "Caché informes", 2,
+            new BigDecimal("1500"), null, null);
+        try {
+            GastoAggregator despues = informeService.agregar(inicio, fin);
+            assertNotSame(antes, despues);
+            assertEquals(antes.getCompras() + 1, despues.getCompras());
+            assertEquals(antes.getTotal().add(new BigDecimal("3000")), despues.getTotal());
+        } finally {
+            gastoService.eliminarGasto(gasto.getId());
+        }
+
+        assertEquals(antes.getCompras(), informeService.agregar(inicio, fin).getCompras());
+    }
+
+    @Test
+    void cambiosFueraDelPeriodoNoInvalidan() {
+        GastoAggregator modelo = informeService.agregar(inicio, fin);
+
+        informeModeloCache.invalidar(inicio.minusYears(1));
+
+        assertSame(modelo, informeService.agregar(inicio, fin));
+    }
+}
@@ -0,0 +1,162 @@
+package com.misgastos.service;
+
+import com.misgastos.model.Gasto;
+import com.misgastos.model.Usuario;
+import com.misgastos.repository.CategoriaRepository;
+import com.misgastos.repository.GastoRepository;
+import com.misgastos.repository.SubcategoriaRepository;
+import com.misgastos.repository.UsuarioRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Con las asociaciones de Gasto en LAZY, cada informe debe resolverse con una
+ * sola sentencia SQL (los @EntityGraph traen lo que usa). Una carga perezosa
+ * olvidada aparece aquí como sentencias de más.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class InformeServiceConsultasTest {
+
+    private static final LocalDate INICIO = LocalDate.of(2018, 3, 1);
+    private static final LocalDate FIN = LocalDate.of(2018, 4, 30);
+
+    @Autowired
+    private InformeService informeService;
+
+    @Autowired
+    private GastoService gastoService;
+
+    @Autowired
+    private GastoRepository gastoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private SubcategoriaRepository subcategoriaRepository;
+
+    @Autowired
+    private InformeModeloCache informeModeloCache;
+
+    @Autowired
+    private DatosReferenciaCache datosReferenciaCache;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private Statistics estadisticas;
+    private Long idGasto;
+
+    @BeforeEach
+    void cargarDatos() {
+        Usuario usuario = usuarioRepository.findByUsername("admin").orElseThrow();
+        // Varias categorías y subcategorías para que una carga perezosa sea N+1
+        long[] categorias = {3L, 9L, 10L, 14L};
+        for (int i = 0; i < 12; i++) {
+            long categoriaId = categorias[i % categorias.length];
+            Gasto gasto = new Gasto();
+            gasto.setFecha(INICIO.plusDays(i * 5));
+            gasto.setHora(LocalTime.NOON);
+            gasto.setUsuario(usuario);
+            gasto.setCategoria(categoriaRepository.findById(categoriaId).orElseThrow());
+            gasto.setSubcategoria(subcategoriaRepository.findByCategoriaId(categoriaId).get(0));
+            gasto.setProducto("Producto " + (i % 3));
+            gasto.setCantidad(1);
+            gasto.setValorUnitario(new BigDecimal("1000"));
+            gasto.setValorTotal(new BigDecimal("1000"));
+            idGasto = gastoRepository.save(gasto).getId();
+        }
+
+        // Empezar con el contexto de persistencia vacío, como una llamada nueva.
+        // Los gastos se guardaron sin GastoService: la caché de informes no se
+        // entera, así que se vacía a mano
+        entityManager.flush();
+        entityManager.clear();
+        informeModeloCache.limpiar();
+
+        estadisticas = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+    }
+
+    @Test
+    void informeGeneralUsaUnaSentencia() {
+        informeService.generarInformeGeneralMensual(INICIO, FIN);
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void informeSubcategoriasUsaUnaSentencia() {
+        informeService.generarInformeSubcategorias(INICIO, FIN);
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void informePorProductoUsaUnaSentencia() {
+        informeService.generarInformePorProducto("Producto 1", INICIO, FIN);
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+
+    // La categoría se filtra en la consulta: solo llegan sus gastos
+    @Test
+    void informePorCategoriaLeeSoloSusGastosEnUnaSentencia() {
+        String categoria = categoriaRepository.findById(3L).orElseThrow().getNombre();
+        datosReferenciaCache.listarCategorias();
+        estadisticas.clear();
+
+        GastoAggregator modelo = informeService.agregarCategoria(categoria.toUpperCase(), INICIO, FIN);
+
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+        long cargados = estadisticas.getEntityStatistics(Gasto.class.getName()).getLoadCount();
+        long esperados = gastoService.listarPorPeriodo(INICIO, FIN).stream()
+            .filter(g -> g.getCategoria().getNombre().equals(categoria))
+            .count();
+        assertTrue(esperados >= 3);
+        assertEquals(esperados, modelo.getCompras());
+        assertEquals(esperados, cargados);
+    }
+
+    @Test
+    void recorridoEnStreamingUsaUnaSentenciaConEntidadesDeSoloLectura() {
+        Session sesion = entityManager.unwrap(Session.class);
+        List<String> categorias = new ArrayList<>();
+        long filas = gastoService.recorrerGastosPorPeriodo(INICIO, FIN, gasto -> {
+            assertTrue(sesion.isReadOnly(gasto));
+            categorias.add(gasto.getCategoria().getNombre() + " / " + gasto.getSubcategoria().getNombre());
+        });
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+
+        assertEquals(gastoService.listarPorPeriodo(INICIO, FIN).size(), filas);
+        assertEquals(filas, categorias.size());
+    }
+
+    @Test
+    void edicionCargaElGastoConSusAsociacionesEnUnaSentencia() {
+        Gasto gasto = gastoService.buscarPorId(idGasto).orElseThrow();
+        gasto.getUsuario().getUsername();
+        gasto.getCategoria().getNombre();
+        gasto.getSubcategoria().getNombre();
+        assertEquals(1, estadisticas.getPrepareStatementCount());
+    }
+}
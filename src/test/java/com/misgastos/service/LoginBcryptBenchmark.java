@@ -0,0 +1,55 @@
+package com.misgastos.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.Arrays;
+
+/**
+ * Latencia de verificar una contraseña (lo que paga cada login) según el costo
+ * de BCrypt, para elegir misgastos.seguridad.bcrypt-costo en el PC de caja.
+ * También mide el primer login tras cambiar el costo: verificar más regenerar.
+ *
+ * mvn test -Dtest=LoginBcryptBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class LoginBcryptBenchmark {
+
+    private static final int[] COSTOS = {8, 10, 11, 12, 13};
+    private static final int REPETICIONES = 10;
+    private static final String CLAVE = "admin123";
+
+    @Test
+    void latenciaPorCosto() {
+        // Calentar el JIT
+        BCryptPasswordEncoder calentar = new BCryptPasswordEncoder(8);
+        String hashCalentar = calentar.encode(CLAVE);
+        for (int i = 0; i < 20; i++) {
+            calentar.matches(CLAVE, hashCalentar);
+        }
+
+        for (int costo : COSTOS) {
+            BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(costo);
+            String hash = encoder.encode(CLAVE);
+
+            long[] verificar = new long[REPETICIONES];
+            for (int i = 0; i < REPETICIONES; i++) {
+                long t0 = System.nanoTime();
+                encoder.matches(CLAVE, hash);
+                verificar[i] = System.nanoTime() - t0;
+            }
+
+            // Primer login con un hash de costo 10: verificar con 10 y regenerar con el nuevo
+            String hashAnterior = new BCryptPasswordEncoder(10).encode(CLAVE);
+            long t0 = System.nanoTime();
+            encoder.matches(CLAVE, hashAnterior);
+            encoder.encode(CLAVE);
+            long regenerar = System.nanoTime() - t0;
+
+            Arrays.sort(verificar);
+            System.out.printf("📊 costo %2d | login mediana %,7.1f ms | máx %,7.1f ms | primer login tras cambio %,7.1f ms%n",
+                costo, verificar[REPETICIONES / 2] / 1e6, verificar[REPETICIONES - 1] / 1e6, regenerar / 1e6);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.misgastos.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Autocompletado: consulta LIKE '%texto%' + DISTINCT + ORDER BY (la de antes)
+ * contra ProductoIndex en memoria, con 100k y 1M gastos.
+ *
+ * mvn test -Dtest=ProductoIndexBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ProductoIndexBenchmark {
+
+    private static final int PRODUCTOS_DISTINTOS = 3_000;
+    private static final String[] TEXTOS = {"C", "CA", "CAF", "ARROZ", "PROD 1", "15", "GASEOSA 2", "XYZ"};
+    private static final int REPETICIONES = 20;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void compararConConsulta() throws Exception {
+        for (int filas : new int[] {100_000, 1_000_000}) {
+            medir(filas);
+        }
+    }
+
+    private void medir(int filas) throws Exception {
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + dir.resolve("productos-" + filas + ".db"))) {
+            try (Statement st = conn.createStatement()) {
+                st.execute("CREATE TABLE gastos (id INTEGER PRIMARY KEY, fecha TEXT NOT NULL, producto TEXT NOT NULL)");
+            }
+            conn.setAutoCommit(false);
+            String[] bases = {"CAFE", "ARROZ", "GASEOSA", "PRODUCTO", "LECHE", "AZUCAR"};
+            LocalDate base = LocalDate.of(2020, 1, 1);
+            try (PreparedStatement ps = conn.prepareStatement("INSERT INTO gastos (fecha, producto) VALUES (?, ?)")) {
+                for (int i = 0; i < filas; i++) {
+                    int p = i % PRODUCTOS_DISTINTOS;
+                    ps.setString(1, base.plusDays(i % 2000).toString());
+                    ps.setString(2, bases[p % bases.length] + " " + p);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+            conn.commit();
+            conn.setAutoCommit(true);
+
+            // Consulta anterior
+            String sql = "SELECT DISTINCT producto FROM gastos WHERE UPPER(producto) LIKE UPPER('%' || ? || '%') ORDER BY producto";
+            long t0 = System.nanoTime();
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                for (int r = 0; r < REPETICIONES; r++) {
+                    for (String texto : TEXTOS) {
+                        ps.setString(1, texto);
+                        try (ResultSet rs = ps.executeQuery()) {
+                            while (rs.next()) {
+                                rs.getString(1);
+                            }
+                        }
+                    }
+                }
+            }
+            double microsConsulta = (System.nanoTime() - t0) / 1e3 / (REPETICIONES * TEXTOS.length);
+
+            // Índice en memoria (carga única + consultas)
+            long tCarga = System.nanoTime();
+            List<Object[]> resumen = new ArrayList<>();
+            try (Statement st = conn.createStatement();
+                 ResultSet rs = st.executeQuery("SELECT producto, COUNT(*), MAX(fecha) FROM gastos GROUP BY producto")) {
+                while (rs.next()) {
+                    resumen.add(new Object[] {rs.getString(1), rs.getLong(2), LocalDate.parse(rs.getString(3))});
+                }
+            }
+            ProductoIndex index = new ProductoIndex();
+            index.cargarDesde(resumen);
+            double msCarga = (System.nanoTime() - tCarga) / 1e6;
+
+            for (String texto : TEXTOS) {
+                index.buscar(texto, 20); // calentamiento
+            }
+            long t1 = System.nanoTime();
+            for (int r = 0; r < REPETICIONES * 50; r++) {
+                for (String texto : TEXTOS) {
+                    index.buscar(texto, 20);
+                }
+            }
+            double microsIndice = (System.nanoTime() - t1) / 1e3 / (REPETICIONES * 50 * TEXTOS.length);
+
+            System.out.printf("📊 %,9d gastos | consulta LIKE: %,10.1f µs | ProductoIndex: %,7.1f µs | carga índice: %,6.0f ms%n",
+                filas, microsConsulta, microsIndice, msCarga);
+        }
+    }
+}
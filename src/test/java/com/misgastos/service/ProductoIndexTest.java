@@ -0,0 +1,113 @@
+package com.misgastos.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductoIndexTest {
+
+    @Test
+    void losPrefijosVanAntesQueLasSubcadenas() {
+        ProductoIndex indice = new ProductoIndex();
+        indice.cargarDesde(List.of(
+            fila("Arroz con pan", 10, LocalDate.of(2024, 5, 1)),
+            fila("Pan integral", 1, LocalDate.of(2020, 1, 1))));
+
+        assertEquals(List.of("Pan integral", "Arroz con pan"), indice.buscar(" PAN ", 10));
+    }
+
+    @Test
+    void ordenaPorFrecuenciaLuegoRecenciaYRespetaElLimite() {
+        ProductoIndex indice = new ProductoIndex();
+        indice.cargarDesde(List.of(
+            fila("Leche entera", 5, LocalDate.of(2024, 1, 1)),
+            fila("Leche deslactosada", 5, LocalDate.of(2024, 2, 1)),
+            fila("Leche en polvo", 8, LocalDate.of(2023, 1, 1))));
+
+        assertEquals(List.of("Leche en polvo", "Leche deslactosada", "Leche entera"), indice.buscar("leche", 10));
+        assertEquals(List.of("Leche en polvo", "Leche deslactosada"), indice.buscar("leche", 2));
+    }
+
+    @Test
+    void registrarSumaYMuestraLaFormaMasReciente() {
+        ProductoIndex indice = new ProductoIndex();
+        indice.cargarDesde(List.of(
+            fila("Café", 2, LocalDate.of(2024, 1, 1)),
+            fila("Cacao", 2, LocalDate.of(2023, 1, 1))));
+
+        indice.registrar("cacao  ", LocalDate.of(2024, 6, 1));
+        indice.registrar("Cacahuete", LocalDate.of(2024, 6, 2));
+
+        assertEquals(List.of("cacao", "Café", "Cacahuete"), indice.buscar("ca", 10));
+    }
+
+    @Test
+    void actualizarRecalculaFrecuenciaYRecenciaDesdeLaBase() {
+        ProductoIndex indice = new ProductoIndex();
+        indice.cargarDesde(List.of(
+            fila("Queso", 2, LocalDate.of(2024, 3, 10)),
+            fila("Queso crema", 2, LocalDate.of(2024, 3, 5)),
+            fila("Quesillo", 1, LocalDate.of(2024, 3, 8))));
+
+        // Se borró la compra del 10 de marzo: queda la del 1 de marzo
+        indice.actualizarCon("QUESO", () -> List.<Object[]>of(fila("Queso", 1, LocalDate.of(2024, 3, 1))));
+        assertEquals(List.of("Queso crema", "Quesillo", "Queso"), indice.buscar("que", 10));
+
+        // Y luego la última: el producto desaparece
+        indice.actualizarCon("QUESO", List::of);
+        assertEquals(List.of("Queso crema", "Quesillo"), indice.buscar("que", 10));
+    }
+
+    @Test
+    void unaAltaDuranteLaCargaSeAplicaSobreElIndiceNuevo() throws Exception {
+        ProductoIndex indice = new ProductoIndex();
+        CountDownLatch leyendo = new CountDownLatch(1);
+        CountDownLatch continuar = new CountDownLatch(1);
+
+        // La lectura de la BD se queda esperando hasta que el alta esté en curso
+        Thread carga = new Thread(() -> indice.cargarCon(() -> {
+            leyendo.countDown();
+            esperar(continuar);
+            return List.<Object[]>of(fila("Arroz", 3, LocalDate.of(2024, 1, 1)));
+        }));
+        carga.start();
+        assertTrue(leyendo.await(5, TimeUnit.SECONDS));
+
+        Thread alta = new Thread(() -> indice.registrar("Azúcar", LocalDate.of(2024, 1, 2)));
+        alta.start();
+        esperarBloqueado(alta);
+        continuar.countDown();
+        carga.join(5000);
+        alta.join(5000);
+
+        assertEquals(List.of("Azúcar"), indice.buscar("azú", 10));
+        assertEquals(List.of("Arroz"), indice.buscar("arr", 10));
+    }
+
+    static Object[] fila(String producto, long veces, LocalDate ultimaFecha) {
+        return new Object[]{producto, veces, ultimaFecha};
+    }
+
+    static void esperar(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // El hilo quedó esperando el candado de la caché
+    static void esperarBloqueado(Thread hilo) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 5000;
+        while (hilo.getState() != Thread.State.BLOCKED && System.currentTimeMillis() < limite) {
+            Thread.sleep(5);
+        }
+        assertEquals(Thread.State.BLOCKED, hilo.getState());
+    }
+}
@@ -0,0 +1,178 @@
+package com.misgastos.service;
+
+import com.misgastos.model.Billetero;
+import com.misgastos.model.Categoria;
+import com.misgastos.model.Gasto;
+import com.misgastos.model.Subcategoria;
+import com.misgastos.model.Usuario;
+import com.misgastos.repository.BilleteroRepository;
+import com.misgastos.repository.CategoriaRepository;
+import com.misgastos.repository.GastoRepository;
+import com.misgastos.repository.SubcategoriaRepository;
+import com.misgastos.repository.UsuarioRepository;
+import com.misgastos.service.ReporteBilleteroService.FilaReporte;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class ReporteBilleteroServiceTest {
+
+    private static final DateTimeFormatter FORMATO = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    @Autowired
+    private ReporteBilleteroService reporteBilleteroService;
+
+    @Autowired
+    private GastoRepository gastoRepository;
+
+    @Autowired
+    private BilleteroRepository billeteroRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private SubcategoriaRepository subcategoriaRepository;
+
+    private final LocalDate inicio = LocalDate.of(2019, 1, 20);
+    private final LocalDate fin = LocalDate.of(2019, 3, 10);
+
+    @BeforeEach
+    void cargarDatos() {
+        Usuario usuario = usuarioRepository.findByUsername("admin").orElseThrow();
+
+        // Gastos local (con decimales), pagos Manuel (14), inversión (10) y fuera del rango
+        crearGasto(usuario, 9L, LocalDate.of(2019, 1, 5), "1500.50");
+        crearGasto(usuario, 9L, LocalDate.of(2019, 1, 20), "1500.50");
+        crearGasto(usuario, 9L, LocalDate.of(2019, 1, 20), "2499.75");
+        crearGasto(usuario, 14L, LocalDate.of(2019, 1, 20), "100000");
+        crearGasto(usuario, 10L, LocalDate.of(2019, 2, 1), "350000");
+        crearGasto(usuario, 14L, LocalDate.of(2019, 2, 28), "50000");
+        crearGasto(usuario, 3L, LocalDate.of(2019, 3, 10), "12000");
+        crearGasto(usuario, 3L, LocalDate.of(2019, 3, 25), "8000");
+
+        billeteroRepository.save(new Billetero(LocalDate.of(2019, 1, 20), new BigDecimal("900000"), new BigDecimal("300000")));
+        billeteroRepository.save(new Billetero(LocalDate.of(2019, 1, 20), new BigDecimal("100000"), new BigDecimal("50000")));
+        billeteroRepository.save(new Billetero(LocalDate.of(2019, 2, 15), new BigDecimal("750000"), new BigDecimal("800000")));
+    }
+
+    @Test
+    void reporteDiarioCoincideConConsultaPorDia() {
+        assertFilasIguales(reporteDiarioPorDia(inicio, fin),
+                reporteBilleteroService.generarDatosReporteDiario(inicio, fin));
+    }
+
+    @Test
+    void reporteMensualCoincideConConsultaPorMes() {
+        assertFilasIguales(reporteMensualPorMes(inicio, fin),
+                reporteBilleteroService.generarDatosReporteMensual(inicio, fin));
+    }
+
+    // ==================== REFERENCIA: UNA CONSULTA POR PERIODO ====================
+
+    private List<FilaReporte> reporteDiarioPorDia(LocalDate fechaInicio, LocalDate fechaFin) {
+        List<FilaReporte> filas = new ArrayList<>();
+        List<Billetero> billeteros = billeteroRepository.findByFechaBetweenOrderByFechaDesc(fechaInicio, fechaFin);
+        for (LocalDate dia = fechaInicio; !dia.isAfter(fechaFin); dia = dia.plusDays(1)) {
+            LocalDate fecha = dia;
+            long bill = billeteros.stream().filter(b -> b.getFecha().equals(fecha))
+                    .mapToLong(b -> b.getBilletero().longValue()).sum();
+            long premios = billeteros.stream().filter(b -> b.getFecha().equals(fecha))
+                    .mapToLong(b -> b.getPremios().longValue()).sum();
+            long pagos = valor(gastoRepository.sumByFechaAndCategoriaId(dia.toString(), 14L));
+            long inversion = valor(gastoRepository.sumByFechaAndCategoriaId(dia.toString(), 10L));
+            long total = valor(gastoRepository.sumByFecha(dia));
+            filas.add(fila(dia.format(FORMATO), bill, premios, total, pagos, inversion));
+        }
+        return filas;
+    }
+
+    private List<FilaReporte> reporteMensualPorMes(LocalDate fechaInicio, LocalDate fechaFin) {
+        List<FilaReporte> filas = new ArrayList<>();
+        List<Billetero> billeteros = billeteroRepository.findByFechaBetweenOrderByFechaDesc(fechaInicio, fechaFin);
+        for (YearMonth mes = YearMonth.from(fechaInicio); !mes.isAfter(YearMonth.from(fechaFin)); mes = mes.plusMonths(1)) {
+            YearMonth m = mes;
+            long bill = billeteros.stream().filter(b -> YearMonth.from(b.getFecha()).equals(m))
+                    .mapToLong(b -> b.getBilletero().longValue()).sum();
+            long premios = billeteros.stream().filter(b -> YearMonth.from(b.getFecha()).equals(m))
+                    .mapToLong(b -> b.getPremios().longValue()).sum();
+            String primerDia = mes.atDay(1).toString();
+            String ultimoDia = mes.atEndOfMonth().toString();
+            long pagos = valor(gastoRepository.sumByFechaBetweenAndCategoriaId(primerDia, ultimoDia, 14L));
+            long inversion = valor(gastoRepository.sumByFechaBetweenAndCategoriaId(primerDia, ultimoDia, 10L));
+            long total = valor(gastoRepository.sumByFechaBetween(mes.atDay(1), mes.atEndOfMonth()));
+            String nombre = mes.getMonth().getDisplayName(TextStyle.FULL, new Locale("es", "ES")).toUpperCase();
+            filas.add(fila(nombre, bill, premios, total, pagos, inversion));
+        }
+        return filas;
+    }
+
+    private FilaReporte fila(String periodo, long bill, long premios, long total, long pagos, long inversion) {
+        long diferencia = bill - premios;
+        long gastosLocal = total - pagos - inversion;
+        long gastoTotal = gastosLocal + pagos + inversion;
+        return new FilaReporte(periodo, bill, premios, diferencia, gastosLocal, pagos, inversion,
+                gastoTotal, diferencia - gastoTotal);
+    }
+
+    // ==================== AUXILIARES ====================
+
+    private void crearGasto(Usuario usuario, Long categoriaId, LocalDate fecha, String valor) {
+        Categoria categoria = categoriaRepository.findById(categoriaId).orElseThrow();
+        Subcategoria subcategoria = subcategoriaRepository.findByCategoriaId(categoriaId).get(0);
+
+        Gasto gasto = new Gasto();
+        gasto.setFecha(fecha);
+        gasto.setHora(LocalTime.NOON);
+        gasto.setUsuario(usuario);
+        gasto.setCategoria(categoria);
+        gasto.setSubcategoria(subcategoria);
+        gasto.setProducto("PRUEBA REPORTE");
+        gasto.setCantidad(1);
+        gasto.setValorUnitario(new BigDecimal(valor));
+        gasto.setValorTotal(new BigDecimal(valor));
+        gastoRepository.save(gasto);
+    }
+
+    private long valor(BigDecimal valor) {
+        return valor != null ? valor.longValue() : 0L;
+    }
+
+    private void assertFilasIguales(List<FilaReporte> esperadas, List<FilaReporte> obtenidas) {
+        assertEquals(esperadas.size(), obtenidas.size());
+        for (int i = 0; i < esperadas.size(); i++) {
+            FilaReporte e = esperadas.get(i);
+            FilaReporte o = obtenidas.get(i);
+            assertEquals(e.periodo, o.periodo);
+            assertEquals(e.acumuladoBill, o.acumuladoBill, e.periodo);
+            assertEquals(e.acumuladoPremios, o.acumuladoPremios, e.periodo);
+            assertEquals(e.diferencia, o.diferencia, e.periodo);
+            assertEquals(e.gastosLocal, o.gastosLocal, e.periodo);
+            assertEquals(e.pagosManuel, o.pagosManuel, e.periodo);
+            assertEquals(e.inversion, o.inversion, e.periodo);
+            assertEquals(e.gastoTotal, o.gastoTotal, e.periodo);
+            assertEquals(e.utilidadNeta, o.utilidadNeta, e.periodo);
+        }
+    }
+}
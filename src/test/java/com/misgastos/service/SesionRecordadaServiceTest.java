@@ -0,0 +1,120 @@
+package com.misgastos.service;
+
+import com.misgastos.model.SesionRecordada;
+import com.misgastos.model.Usuario;
+import com.misgastos.repository.SesionRecordadaRepository;
+import com.misgastos.repository.UsuarioRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Las sesiones se guardan directamente con el repositorio (crearSesionRecordada
+ * escribiría el token en las Preferences del equipo) y se recargan en memoria.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class SesionRecordadaServiceTest {
+
+    @Autowired
+    private SesionRecordadaService sesionRecordadaService;
+
+    @Autowired
+    private SesionRecordadaRepository sesionRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private AuditoriaService auditoriaService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Long usuarioId;
+
+    @BeforeEach
+    void buscarUsuario() {
+        usuarioId = usuarioRepository.findByUsername("admin").orElseThrow().getId();
+    }
+
+    @AfterEach
+    void borrarSesiones() {
+        jdbcTemplate.update("DELETE FROM sesiones_recordadas WHERE token LIKE 'test-%'");
+        sesionRecordadaService.cargar();
+    }
+
+    @Test
+    void validarUnTokenNoConsultaLaBase() {
+        sesionRepository.save(new SesionRecordada(usuarioId, "test-vigente", LocalDateTime.now().plusDays(1)));
+        sesionRecordadaService.cargar();
+
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+
+        assertEquals(Optional.of(usuarioId), sesionRecordadaService.validarToken("test-vigente"));
+        assertEquals(Optional.empty(), sesionRecordadaService.validarToken("test-inexistente"));
+        assertEquals(0, estadisticas.getPrepareStatementCount());
+    }
+
+    @Test
+    void elBarridoBorraSoloLasExpiradas() {
+        for (int i = 0; i < 3; i++) {
+            sesionRepository.save(new SesionRecordada(usuarioId, "test-expirada-" + i, LocalDateTime.now().minusDays(1 + i)));
+        }
+        sesionRepository.save(new SesionRecordada(usuarioId, "test-vigente", LocalDateTime.now().plusDays(1)));
+        sesionRecordadaService.cargar();
+
+        int borradas = sesionRecordadaService.limpiarSesionesExpiradas();
+
+        assertEquals(3, borradas);
+        assertEquals(1, jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM sesiones_recordadas WHERE token LIKE 'test-%'", Integer.class));
+        assertEquals(Optional.empty(), sesionRecordadaService.validarToken("test-expirada-0"));
+        assertTrue(sesionRecordadaService.getSesionesActivas() >= 1);
+    }
+
+    // En misgastos.db las filas se van con ON DELETE CASCADE; el esquema de
+    // pruebas no tiene la clave foránea, así que aquí solo cuenta la memoria
+    @Test
+    void eliminarElUsuarioOlvidaSusSesionesEnMemoria() {
+        Usuario usuario = new Usuario();
+        usuario.setUsername("test-sesiones");
+        usuario.setPassword("sin-uso");
+        usuario.setRol("USUARIO");
+        Long eliminadoId = usuarioRepository.save(usuario).getId();
+        sesionRepository.save(new SesionRecordada(eliminadoId, "test-eliminado", LocalDateTime.now().plusDays(1)));
+        sesionRecordadaService.cargar();
+        long activas = sesionRecordadaService.getSesionesActivas();
+
+        try {
+            usuarioService.eliminarUsuario(eliminadoId, "admin");
+
+            assertEquals(Optional.empty(), sesionRecordadaService.validarToken("test-eliminado"));
+            assertEquals(activas - 1, sesionRecordadaService.getSesionesActivas());
+        } finally {
+            auditoriaService.vaciar();
+            jdbcTemplate.update("DELETE FROM auditoria_logs WHERE detalles = 'Usuario eliminado: test-sesiones'");
+            jdbcTemplate.update("DELETE FROM usuarios WHERE username = 'test-sesiones'");
+        }
+    }
+}
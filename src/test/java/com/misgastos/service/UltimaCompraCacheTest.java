@@ -0,0 +1,187 @@
+package com.misgastos.service;
+
+import com.misgastos.model.Categoria;
+import com.misgastos.model.Gasto;
+import com.misgastos.model.Subcategoria;
+import com.misgastos.model.Usuario;
+import com.misgastos.repository.CategoriaRepository;
+import com.misgastos.repository.GastoRepository;
+import com.misgastos.repository.SubcategoriaRepository;
+import com.misgastos.repository.UsuarioRepository;
+import com.misgastos.service.UltimaCompraCache.UltimaCompra;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class UltimaCompraCacheTest {
+
+    @Autowired
+    private UltimaCompraCache ultimaCompraCache;
+
+    @Autowired
+    private GastoService gastoService;
+
+    @Autowired
+    private GastoRepository gastoRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private SubcategoriaRepository subcategoriaRepository;
+
+    @Test
+    void cargaLaCompraMasRecienteDeCadaProducto() {
+        crearGasto("Café  molido", 9L, LocalDate.of(2020, 5, 1), LocalTime.of(18, 0), "3500", 2);
+        crearGasto("CAFÉ MOLIDO", 3L, LocalDate.of(2020, 5, 2), LocalTime.of(8, 30), "4200.50", 1);
+        crearGasto("café molido", 9L, LocalDate.of(2020, 5, 2), LocalTime.of(7, 0), "3900", 3);
+
+        ultimaCompraCache.cargar();
+        UltimaCompra compra = ultimaCompraCache.buscar(" café molido ").orElseThrow();
+
+        assertEquals(3L, compra.categoriaId());
+        assertEquals(new BigDecimal("4200.5"), compra.valorUnitario());
+        assertEquals(1, compra.cantidad());
+        assertEquals(LocalDate.of(2020, 5, 2), compra.fecha());
+    }
+
+    @Test
+    void registrarSoloReemplazaConComprasPosteriores() {
+        Gasto reciente = crearGasto("Azúcar", 9L, LocalDate.of(2020, 6, 10), LocalTime.of(9, 0), "2800", 1);
+        ultimaCompraCache.cargar();
+
+        ultimaCompraCache.registrar(crearGasto("azúcar", 3L, LocalDate.of(2020, 6, 1), LocalTime.of(9, 0), "2500", 4));
+        assertEquals(reciente.getId(), ultimaCompraCache.buscar("AZÚCAR").orElseThrow().gastoId());
+
+        Gasto nuevo = crearGasto("azúcar", 3L, LocalDate.of(2020, 6, 11), LocalTime.of(9, 0), "3000", 2);
+        ultimaCompraCache.registrar(nuevo);
+        assertEquals(nuevo.getId(), ultimaCompraCache.buscar("AZÚCAR").orElseThrow().gastoId());
+    }
+
+    // Sin transacción de prueba: la caché se actualiza al confirmar cada escritura
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void editarLaUltimaCompraHaciaAtrasVuelveALeerLaBase() {
+        Long usuarioId = usuarioRepository.findByUsername("admin").orElseThrow().getId();
+        Long subcategoriaId = subcategoriaRepository.findByCategoriaId(9L).get(0).getId();
+        Gasto anterior = gastoService.registrarGasto(usuarioId, 9L, subcategoriaId, "Test edición caché", 1,
+            new BigDecimal("1000"), null, null);
+        Gasto ultima = gastoService.registrarGasto(usuarioId, 9L, subcategoriaId, "Test edición caché", 5,
+            new BigDecimal("2000"), null, null);
+        try {
+            assertEquals(ultima.getId(), ultimaCompraCache.buscar("test edición caché").orElseThrow().gastoId());
+
+            gastoService.actualizarGasto(ultima.getId(), 9L, subcategoriaId, "Test edición caché", 5,
+                new BigDecimal("2000"), null, LocalDate.of(2020, 1, 1), LocalTime.of(12, 0));
+
+            UltimaCompra compra = ultimaCompraCache.buscar("test edición caché").orElseThrow();
+            assertEquals(anterior.getId(), compra.gastoId());
+            assertEquals(1, compra.cantidad());
+        } finally {
+            gastoService.eliminarGasto(anterior.getId());
+            gastoService.eliminarGasto(ultima.getId());
+        }
+    }
+
+    @Test
+    void unaCompraDuranteLaCargaNoQuedaTapadaPorLaLectura() throws Exception {
+        UltimaCompraCache cache = new UltimaCompraCache();
+        CountDownLatch leyendo = new CountDownLatch(1);
+        CountDownLatch continuar = new CountDownLatch(1);
+
+        // La lectura trae la compra anterior; mientras tanto se confirma una más reciente
+        Thread carga = new Thread(() -> cache.cargarCon(() -> {
+            leyendo.countDown();
+            ProductoIndexTest.esperar(continuar);
+            return List.<Object[]>of(new Object[]{"panela", 9L, 20L, "1800", 2, 1L, "2024-03-01", "08:00:00"});
+        }));
+        carga.start();
+        assertTrue(leyendo.await(5, TimeUnit.SECONDS));
+
+        Gasto nueva = new Gasto();
+        nueva.setId(2L);
+        nueva.setProducto("Panela");
+        nueva.setCategoria(new Categoria());
+        nueva.getCategoria().setId(3L);
+        nueva.setSubcategoria(new Subcategoria());
+        nueva.getSubcategoria().setId(30L);
+        nueva.setValorUnitario(new BigDecimal("2000"));
+        nueva.setCantidad(1);
+        nueva.setFecha(LocalDate.of(2024, 3, 2));
+        nueva.setHora(LocalTime.of(9, 0));
+        Thread alta = new Thread(() -> cache.registrar(nueva));
+        alta.start();
+        ProductoIndexTest.esperarBloqueado(alta);
+        continuar.countDown();
+        carga.join(5000);
+        alta.join(5000);
+
+        assertEquals(2L, cache.buscar("panela").orElseThrow().gastoId());
+    }
+
+    @Test
+    void olvidarDuranteLaLecturaDeUnFalloNoDejaLaCompraAnterior() throws Exception {
+        UltimaCompraCache cache = new UltimaCompraCache();
+        CountDownLatch leyendo = new CountDownLatch(1);
+        CountDownLatch continuar = new CountDownLatch(1);
+
+        // El fallo lee la compra previa a la edición; mientras tanto se confirma la edición
+        Thread consulta = new Thread(() -> cache.buscarCon("PANELA", () -> {
+            leyendo.countDown();
+            ProductoIndexTest.esperar(continuar);
+            return List.<Object[]>of(new Object[]{"PANELA", 9L, 20L, "1800", 2, 1L, "2024-03-01", "08:00:00"});
+        }));
+        consulta.start();
+        assertTrue(leyendo.await(5, TimeUnit.SECONDS));
+
+        Thread edicion = new Thread(() -> cache.olvidar("Panela"));
+        edicion.start();
+        ProductoIndexTest.esperarBloqueado(edicion);
+        continuar.countDown();
+        consulta.join(5000);
+        edicion.join(5000);
+
+        assertEquals(0, cache.tamano());
+    }
+
+    @Test
+    void productoDesconocidoNoTieneCompra() {
+        ultimaCompraCache.cargar();
+        assertTrue(ultimaCompraCache.buscar("producto que no existe").isEmpty());
+    }
+
+    private Gasto crearGasto(String producto, Long categoriaId, LocalDate fecha, LocalTime hora,
+                             String valorUnitario, int cantidad) {
+        Usuario usuario = usuarioRepository.findByUsername("admin").orElseThrow();
+        Gasto gasto = new Gasto();
+        gasto.setFecha(fecha);
+        gasto.setHora(hora);
+        gasto.setUsuario(usuario);
+        gasto.setCategoria(categoriaRepository.findById(categoriaId).orElseThrow());
+        gasto.setSubcategoria(subcategoriaRepository.findByCategoriaId(categoriaId).get(0));
+        gasto.setProducto(producto);
+        gasto.setCantidad(cantidad);
+        gasto.setValorUnitario(new BigDecimal(valorUnitario));
+        gasto.setValorTotal(new BigDecimal(valorUnitario).multiply(BigDecimal.valueOf(cantidad)));
+        return gastoRepository.saveAndFlush(gasto);
+    }
+}
@@ -0,0 +1,73 @@
+package com.misgastos.service;
+
+import com.misgastos.model.Usuario;
+import com.misgastos.repository.UsuarioRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * El usuario de prueba tiene un hash de costo 4; el configurado es 10.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class UsuarioServiceTest {
+
+    private static final String USERNAME = "test-bcrypt";
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private AuditoriaService auditoriaService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long usuarioId;
+
+    @BeforeEach
+    void crearUsuario() {
+        Usuario usuario = new Usuario();
+        usuario.setUsername(USERNAME);
+        usuario.setPassword(new BCryptPasswordEncoder(4).encode("clave-vieja"));
+        usuario.setRol("USUARIO");
+        usuarioId = usuarioRepository.save(usuario).getId();
+    }
+
+    @AfterEach
+    void borrarUsuario() {
+        auditoriaService.vaciar();
+        jdbcTemplate.update("DELETE FROM auditoria_logs WHERE usuario_id = ?", usuarioId);
+        usuarioRepository.deleteById(usuarioId);
+    }
+
+    @Test
+    void elLoginRegeneraElHashConElCostoConfigurado() {
+        assertTrue(usuarioService.autenticar(USERNAME, "clave-vieja"));
+
+        String hash = usuarioRepository.findById(usuarioId).orElseThrow().getPassword();
+        assertEquals(10, UsuarioService.costoDe(hash));
+        assertTrue(usuarioService.autenticar(USERNAME, "clave-vieja"));
+    }
+
+    @Test
+    void unaClaveIncorrectaNoCambiaElHash() {
+        assertFalse(usuarioService.autenticar(USERNAME, "otra-clave"));
+
+        String hash = usuarioRepository.findById(usuarioId).orElseThrow().getPassword();
+        assertEquals(4, UsuarioService.costoDe(hash));
+    }
+}
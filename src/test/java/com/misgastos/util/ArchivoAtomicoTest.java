@@ -0,0 +1,83 @@
+package com.misgastos.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Un directorio con contenido en el segundo destino hace fallar su renombrado.
+ */
+class ArchivoAtomicoTest {
+
+    @TempDir
+    Path carpeta;
+
+    @Test
+    void publicarJuntosPublicaLosDos() throws Exception {
+        File pdf = carpeta.resolve("informe.pdf").toFile();
+        File excel = carpeta.resolve("informe.xlsx").toFile();
+        Files.writeString(pdf.toPath(), "pdf anterior");
+
+        ArchivoAtomico.publicarJuntos(temporal(pdf, "pdf nuevo"), pdf, temporal(excel, "excel nuevo"), excel);
+
+        assertEquals("pdf nuevo", Files.readString(pdf.toPath()));
+        assertEquals("excel nuevo", Files.readString(excel.toPath()));
+        assertEquals(2, contarArchivos());
+    }
+
+    @Test
+    void siElSegundoFallaElPrimeroVuelveAlAnterior() throws Exception {
+        File pdf = carpeta.resolve("informe.pdf").toFile();
+        File excel = bloqueado("informe.xlsx");
+        Files.writeString(pdf.toPath(), "pdf anterior");
+        File temporalPdf = temporal(pdf, "pdf nuevo");
+        File temporalExcel = temporal(excel, "excel nuevo");
+
+        assertThrows(IOException.class, () -> ArchivoAtomico.publicarJuntos(temporalPdf, pdf, temporalExcel, excel));
+        ArchivoAtomico.descartar(temporalExcel);
+
+        assertEquals("pdf anterior", Files.readString(pdf.toPath()));
+        assertEquals(2, contarArchivos());
+    }
+
+    @Test
+    void siElSegundoFallaElPrimeroNuevoSeBorra() throws Exception {
+        File pdf = carpeta.resolve("informe.pdf").toFile();
+        File excel = bloqueado("informe.xlsx");
+        File temporalPdf = temporal(pdf, "pdf nuevo");
+        File temporalExcel = temporal(excel, "excel nuevo");
+
+        assertThrows(IOException.class, () -> ArchivoAtomico.publicarJuntos(temporalPdf, pdf, temporalExcel, excel));
+        ArchivoAtomico.descartar(temporalExcel);
+
+        assertFalse(pdf.exists());
+        assertEquals(1, contarArchivos());
+    }
+
+    private File temporal(File destino, String contenido) throws IOException {
+        File temporal = ArchivoAtomico.temporalPara(destino);
+        Files.writeString(temporal.toPath(), contenido);
+        return temporal;
+    }
+
+    private File bloqueado(String nombre) throws IOException {
+        Path directorio = Files.createDirectory(carpeta.resolve(nombre));
+        Files.writeString(directorio.resolve("ocupado"), "x");
+        return directorio.toFile();
+    }
+
+    private long contarArchivos() throws IOException {
+        try (Stream<Path> archivos = Files.list(carpeta)) {
+            return archivos.count();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.misgastos.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Se publica en el mismo hilo de la búsqueda (sin toolkit de JavaFX).
+ */
+class AutocompletadoAsyncTest {
+
+    @Test
+    void unaBusquedaEnCursoSuperadaSeCuentaUnaVezYNoSePublica() throws Exception {
+        CountDownLatch buscando = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        CountDownLatch publicado = new CountDownLatch(1);
+        List<String> publicados = new CopyOnWriteArrayList<>();
+
+        AutocompletadoAsync<String> autocompletado = new AutocompletadoAsync<>(texto -> {
+            if (texto.equals("a")) {
+                // Búsqueda lenta: sigue en curso cuando llega el texto nuevo
+                buscando.countDown();
+                esperar(liberar);
+            }
+            return texto.toUpperCase();
+        }, resultado -> {
+            publicados.add(resultado);
+            publicado.countDown();
+        }, 0, Runnable::run);
+
+        autocompletado.solicitar("a");
+        assertTrue(buscando.await(5, TimeUnit.SECONDS));
+        autocompletado.solicitar("ab");
+        liberar.countDown();
+        assertTrue(publicado.await(5, TimeUnit.SECONDS));
+
+        assertEquals(List.of("AB"), publicados);
+        assertEquals(2, autocompletado.getConsultasEmitidas());
+        assertEquals(1, autocompletado.getConsultasCanceladas());
+    }
+
+    @Test
+    void unaBusquedaQueNoEmpezoSeCancelaSinEjecutarse() throws Exception {
+        CountDownLatch publicado = new CountDownLatch(1);
+        List<String> buscados = new CopyOnWriteArrayList<>();
+        List<String> publicados = new CopyOnWriteArrayList<>();
+
+        AutocompletadoAsync<String> autocompletado = new AutocompletadoAsync<>(texto -> {
+            buscados.add(texto);
+            return texto.toUpperCase();
+        }, resultado -> {
+            publicados.add(resultado);
+            publicado.countDown();
+        }, 200, Runnable::run);
+
+        autocompletado.solicitar("x");
+        autocompletado.solicitar("xy");
+        autocompletado.solicitar("xyz");
+        assertTrue(publicado.await(5, TimeUnit.SECONDS));
+
+        assertEquals(List.of("xyz"), buscados);
+        assertEquals(List.of("XYZ"), publicados);
+        assertEquals(1, autocompletado.getConsultasEmitidas());
+        assertEquals(2, autocompletado.getConsultasCanceladas());
+    }
+
+    private static void esperar(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
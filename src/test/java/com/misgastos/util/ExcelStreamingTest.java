@@ -0,0 +1,85 @@
+package com.misgastos.util;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Hojas de cinco filas (0 a 4) para ver el cambio de hoja sin llegar a ULTIMA_FILA.
+ */
+class ExcelStreamingTest {
+
+    private static final int ULTIMA_FILA = 4;
+
+    private SXSSFWorkbook workbook;
+    private ExcelStreaming.HojasDetalle hojas;
+
+    @BeforeEach
+    void crearLibro() {
+        workbook = ExcelStreaming.crearLibro();
+        Sheet primera = workbook.createSheet("Gastos");
+        primera.createRow(0).createCell(0).setCellValue("Título");
+        hojas = new ExcelStreaming.HojasDetalle(workbook, primera, 1,
+            (hoja, fila) -> hoja.createRow(fila).createCell(0).setCellValue("Producto"), ULTIMA_FILA);
+    }
+
+    @AfterEach
+    void descartar() {
+        ExcelStreaming.descartar(workbook);
+    }
+
+    @Test
+    void elDetalleQueNoCabeSigueEnOtraHojaConEncabezados() {
+        for (int i = 0; i < 7; i++) {
+            hojas.nuevaFila().createCell(0).setCellValue("fila " + i);
+        }
+
+        assertEquals(2, workbook.getNumberOfSheets());
+        assertEquals(7, hojas.escritas());
+
+        Sheet primera = workbook.getSheet("Gastos");
+        assertEquals("Producto", texto(primera.getRow(1)));
+        assertEquals("fila 0", texto(primera.getRow(2)));
+        assertEquals("fila 2", texto(primera.getRow(ULTIMA_FILA)));
+
+        Sheet segunda = workbook.getSheet("Gastos (2)");
+        assertEquals("Producto", texto(segunda.getRow(0)));
+        assertEquals("fila 3", texto(segunda.getRow(1)));
+        assertEquals("fila 6", texto(segunda.getRow(ULTIMA_FILA)));
+    }
+
+    @Test
+    void laFilaFinalVaDebajoDelDetalleSiCabe() {
+        hojas.nuevaFila().createCell(0).setCellValue("fila 0");
+
+        hojas.filaFinal(1).createCell(0).setCellValue("TOTAL");
+        hojas.filtrar(1);
+
+        assertEquals(1, workbook.getNumberOfSheets());
+        assertEquals("TOTAL", texto(workbook.getSheet("Gastos").getRow(4)));
+    }
+
+    @Test
+    void laFilaFinalQueNoCabePasaAUnaHojaNueva() {
+        for (int i = 0; i < 3; i++) {
+            hojas.nuevaFila().createCell(0).setCellValue("fila " + i);
+        }
+
+        hojas.filaFinal(1).createCell(0).setCellValue("TOTAL");
+        hojas.filtrar(1);
+
+        assertEquals(2, workbook.getNumberOfSheets());
+        Sheet segunda = workbook.getSheet("Gastos (2)");
+        assertEquals("Producto", texto(segunda.getRow(0)));
+        assertEquals("TOTAL", texto(segunda.getRow(2)));
+    }
+
+    private static String texto(Row fila) {
+        return fila.getCell(0).getStringCellValue();
+    }
+}